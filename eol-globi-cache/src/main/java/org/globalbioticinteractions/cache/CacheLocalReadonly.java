@@ -4,19 +4,16 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.util.InputStreamFactory;
 import org.eol.globi.util.ResourceUtil;
-import org.globalbioticinteractions.dataset.DatasetRegistryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.JarURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLConnection;
-import java.util.concurrent.atomic.AtomicReference;
 
 public class CacheLocalReadonly implements Cache {
     private final static Logger LOG = LoggerFactory.getLogger(CacheLocalReadonly.class);
@@ -50,37 +47,35 @@ public class CacheLocalReadonly implements Cache {
     }
 
     public static ContentProvenance getContentProvenance(URI resourceURI, String cachePath, String namespace) {
-        AtomicReference<ContentProvenance> meta = new AtomicReference<>(null);
-        File accessFile;
+        ContentProvenance meta = null;
         try {
             File cacheDirForNamespace = CacheUtil.findCacheDirForNamespace(cachePath, namespace);
 
             String hashCandidate = getHashCandidate(resourceURI, cacheDirForNamespace.toURI());
-            accessFile = ProvenanceLog.findProvenanceLogFile(namespace, cachePath);
+            File accessFile = ProvenanceLog.findProvenanceLogFile(namespace, cachePath);
             if (accessFile.exists()) {
-                try (InputStream is = new FileInputStream(accessFile)) {
-                    ProvenanceLog.parseProvenanceStream(is, new ProvenanceLog.ProvenanceEntryListener() {
-                        @Override
-                        public void onValues(String[] values) {
-                            if (values.length > 3) {
-                                URI sourceURI = URI.create(values[1]);
-                                String sha256 = values[2];
-                                String accessedAt = StringUtils.trim(values[3]);
-                                if (StringUtils.isNotBlank(sha256)) {
-                                    ContentProvenance provenance = getProvenance(resourceURI, hashCandidate, sourceURI, sha256, accessedAt, cacheDirForNamespace, namespace);
-                                    if (provenance != null) {
-                                        meta.set(provenance);
-                                    }
-                                }
-                            }
-                        }
-                    });
+                ProvenanceIndex index = ProvenanceIndex.load(accessFile);
+                ProvenanceIndex.Entry entry = lastOf(
+                        index.lastEntryForSourceURI(resourceURI.toString()),
+                        index.lastEntryForSha256(hashCandidate));
+                if (entry != null) {
+                    meta = getProvenance(resourceURI, hashCandidate, URI.create(entry.getSourceURI()), entry.getSha256(), entry.getAccessedAt(), cacheDirForNamespace, namespace);
                 }
             }
-        } catch (IOException | DatasetRegistryException e) {
+        } catch (IOException e) {
             LOG.error("unexpected exception on getting meta for [" + resourceURI + "]", e);
         }
-        return meta.get();
+        return meta;
+    }
+
+    private static ProvenanceIndex.Entry lastOf(ProvenanceIndex.Entry entry, ProvenanceIndex.Entry otherEntry) {
+        if (entry == null) {
+            return otherEntry;
+        } else if (otherEntry == null) {
+            return entry;
+        } else {
+            return entry.getLineNumber() > otherEntry.getLineNumber() ? entry : otherEntry;
+        }
     }
 
     public static ContentProvenance getProvenance(URI resourceURI, String localArchiveSha256, URI sourceURI, String sha256, String accessedAt, File cacheDir, String namespace) {
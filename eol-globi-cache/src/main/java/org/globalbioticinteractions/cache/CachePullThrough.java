@@ -32,7 +32,10 @@ public class CachePullThrough implements Cache {
 
     private ContentProvenance getContentProvenance(URI resourceName) throws IOException {
         File cacheDirForNamespace = CacheUtil.findOrMakeCacheDirForNamespace(cachePath, namespace);
-        ContentProvenance localResourceLocation = CacheUtil.cache(resourceName, cacheDirForNamespace, getInputStreamFactory());
+        File contentStore = CacheUtil.findContentStore(cachePath);
+        ContentProvenance localResourceLocation = HttpRevalidator.canRevalidate(resourceName)
+                ? new HttpRevalidator().cache(resourceName, cacheDirForNamespace, contentStore, getInputStreamFactory())
+                : CacheUtil.cache(resourceName, cacheDirForNamespace, contentStore, getInputStreamFactory());
 
         ContentProvenance contentProvenanceWithNamespace = new ContentProvenance(namespace, resourceName, localResourceLocation.getLocalURI(), localResourceLocation.getSha256(), localResourceLocation.getAccessedAt());
         ProvenanceLog.appendProvenanceLog(new File(cachePath), contentProvenanceWithNamespace);
@@ -1,5 +1,6 @@
 package org.globalbioticinteractions.cache;
 
+import org.apache.commons.io.FileExistsException;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -14,6 +15,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Files;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -22,6 +24,7 @@ import java.util.Arrays;
 public final class CacheUtil {
 
     public static final String MIME_TYPE_GLOBI = "application/globi";
+    public static final String CONTENT_STORE_DIR = ".content";
     public static final Logger LOG = LoggerFactory.getLogger(CacheUtil.class);
 
     public static Cache cacheFor(String namespace, String cacheDir, InputStreamFactory inputStreamFactory) {
@@ -42,7 +45,18 @@ public final class CacheUtil {
     }
 
 
+    /**
+     * @return directory in which content addressed files are shared across namespaces
+     */
+    public static File findContentStore(String cachePath) {
+        return new File(cachePath, CONTENT_STORE_DIR);
+    }
+
     public static ContentProvenance cacheStream(InputStream inputStream, File cacheDir) throws IOException {
+        return cacheStream(inputStream, cacheDir, null);
+    }
+
+    public static ContentProvenance cacheStream(InputStream inputStream, File cacheDir, File contentStore) throws IOException {
         File destinationFile = null;
 
         try (InputStream sourceStream = inputStream) {
@@ -51,8 +65,12 @@ public final class CacheUtil {
                 OutputStream os = FileUtils.openOutputStream(destinationFile);
                 String sha256 = calculateContentHash(sourceStream, os);
                 File destFile = new File(cacheDir, sha256);
-                if (!destFile.exists()) {
-                    FileUtils.moveFile(destinationFile, destFile);
+                if (contentStore == null) {
+                    if (!destFile.exists()) {
+                        FileUtils.moveFile(destinationFile, destFile);
+                    }
+                } else {
+                    shareContent(destinationFile, destFile, new File(contentStore, sha256));
                 }
                 return new ContentProvenance(null, null, destFile.toURI(), sha256, DateUtil.nowDateString());
             } catch (NoSuchAlgorithmException e) {
@@ -65,6 +83,33 @@ public final class CacheUtil {
         }
     }
 
+    private static void shareContent(File tmpFile, File destFile, File sharedFile) throws IOException {
+        if (!sharedFile.exists()) {
+            if (destFile.exists()) {
+                link(sharedFile, destFile);
+            } else {
+                try {
+                    FileUtils.moveFile(tmpFile, sharedFile);
+                } catch (FileExistsException ex) {
+                    // same content was just shared by another namespace
+                }
+            }
+        }
+        if (!destFile.exists()) {
+            link(destFile, sharedFile);
+        }
+    }
+
+    private static void link(File link, File existing) throws IOException {
+        FileUtils.forceMkdir(link.getParentFile());
+        try {
+            Files.createLink(link.toPath(), existing.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.warn("failed to link [" + link.getAbsolutePath() + "] to [" + existing.getAbsolutePath() + "], copying instead", e);
+            FileUtils.copyFile(existing, link);
+        }
+    }
+
     public static String calculateContentHash(InputStream sourceStream, OutputStream os) throws NoSuchAlgorithmException, IOException {
         MessageDigest md = MessageDigest.getInstance("SHA-256");
         try (DigestInputStream digestInputStream = new DigestInputStream(sourceStream, md)) {
@@ -74,10 +119,14 @@ public final class CacheUtil {
     }
 
     public static ContentProvenance cache(URI sourceURI, File cacheDir, InputStreamFactory factory) throws IOException {
+        return cache(sourceURI, cacheDir, null, factory);
+    }
+
+    public static ContentProvenance cache(URI sourceURI, File cacheDir, File contentStore, InputStreamFactory factory) throws IOException {
         String msg = "caching [" + sourceURI + "]";
         LOG.info(msg + " started...");
         InputStream inputStream = ResourceUtil.asInputStream(sourceURI.toString(), factory);
-        ContentProvenance contentProvenance = cacheStream(inputStream, cacheDir);
+        ContentProvenance contentProvenance = cacheStream(inputStream, cacheDir, contentStore);
         LOG.info(msg + " cached at [" + contentProvenance.getLocalURI().toString() + "]...");
         LOG.info(msg + " complete.");
         return contentProvenance;
@@ -0,0 +1,203 @@
+package org.globalbioticinteractions.cache;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.eol.globi.util.CSVTSVUtil;
+import org.eol.globi.util.DateUtil;
+import org.eol.globi.util.HttpUtil;
+import org.eol.globi.util.InputStreamFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Caches http(s) resources using conditional requests. The ETag and Last-Modified validators of
+ * cached resources are kept in a file next to the provenance log, so that a "304 Not Modified"
+ * response re-uses previously cached content without downloading or hashing it again.
+ */
+public class HttpRevalidator {
+    private final static Logger LOG = LoggerFactory.getLogger(HttpRevalidator.class);
+
+    public final static String VALIDATORS_FILENAME = "validators.tsv";
+
+    private final static Object VALIDATORS_LOCK = new Object();
+
+    private final HttpClient httpClient;
+
+    public HttpRevalidator() {
+        this(HttpUtil.getHttpClient());
+    }
+
+    public HttpRevalidator(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    public static boolean canRevalidate(URI resource) {
+        return "http".equalsIgnoreCase(resource.getScheme())
+                || "https".equalsIgnoreCase(resource.getScheme());
+    }
+
+    public ContentProvenance cache(URI sourceURI, File cacheDir, File contentStore, InputStreamFactory factory) throws IOException {
+        String msg = "caching [" + sourceURI + "]";
+        LOG.info(msg + " started...");
+        Validators previous = readValidators(cacheDir).get(sourceURI.toString());
+        File previousContent = previous == null ? null : new File(cacheDir, previous.getSha256());
+        boolean canReuse = previousContent != null && previousContent.exists();
+
+        HttpGet request = new HttpGet(sourceURI);
+        if (canReuse) {
+            previous.addConditionalHeaders(request);
+        }
+        ContentProvenance contentProvenance;
+        try {
+            HttpResponse response = httpClient.execute(request);
+            StatusLine statusLine = response.getStatusLine();
+            if (canReuse && statusLine.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                LOG.info(msg + " not modified since last access.");
+                contentProvenance = new ContentProvenance(null, null, previousContent.toURI(), previous.getSha256(), DateUtil.nowDateString());
+            } else if (statusLine.getStatusCode() >= 300) {
+                throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+            } else {
+                contentProvenance = CacheUtil.cacheStream(openContent(sourceURI, response, factory), cacheDir, contentStore);
+                updateValidators(cacheDir, sourceURI, Validators.of(response, contentProvenance.getSha256()));
+            }
+        } catch (IOException ex) {
+            throw new IOException("issue accessing [" + sourceURI + "]", ex);
+        } finally {
+            request.releaseConnection();
+        }
+        LOG.info(msg + " cached at [" + contentProvenance.getLocalURI().toString() + "]...");
+        LOG.info(msg + " complete.");
+        return contentProvenance;
+    }
+
+    private static InputStream openContent(URI sourceURI, HttpResponse response, InputStreamFactory factory) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            throw new IOException("no content");
+        }
+        InputStream is = factory.create(entity.getContent());
+        // same as ResourceUtil#asInputStream
+        return StringUtils.endsWith(sourceURI.toString(), ".gz")
+                ? new GZIPInputStream(is)
+                : is;
+    }
+
+    static Map<String, Validators> readValidators(File cacheDir) throws IOException {
+        Map<String, Validators> validators = new TreeMap<>();
+        File validatorsFile = new File(cacheDir, VALIDATORS_FILENAME);
+        if (validatorsFile.exists()) {
+            try (BufferedReader reader = IOUtils.toBufferedReader(new InputStreamReader(new FileInputStream(validatorsFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] values = CSVTSVUtil.splitTSV(line);
+                    if (values.length == 4 && StringUtils.isNotBlank(values[1])) {
+                        validators.put(values[0], new Validators(values[1], values[2], values[3]));
+                    }
+                }
+            }
+        }
+        return validators;
+    }
+
+    private static void updateValidators(File cacheDir, URI sourceURI, Validators validators) throws IOException {
+        synchronized (VALIDATORS_LOCK) {
+            Map<String, Validators> allValidators = readValidators(cacheDir);
+            Validators previous = validators.isEmpty()
+                    ? allValidators.remove(sourceURI.toString())
+                    : allValidators.put(sourceURI.toString(), validators);
+            if (previous != null || !validators.isEmpty()) {
+                writeValidators(cacheDir, allValidators);
+            }
+        }
+    }
+
+    private static void writeValidators(File cacheDir, Map<String, Validators> validators) throws IOException {
+        File validatorsFile = new File(cacheDir, VALIDATORS_FILENAME);
+        File tmpFile = new File(cacheDir, VALIDATORS_FILENAME + "." + UUID.randomUUID());
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(FileUtils.openOutputStream(tmpFile), StandardCharsets.UTF_8))) {
+                for (Map.Entry<String, Validators> entry : validators.entrySet()) {
+                    Validators value = entry.getValue();
+                    writer.write(StringUtils.join(new String[]{entry.getKey(), value.getSha256(), value.getETag(), value.getLastModified()}, '\t'));
+                    writer.write('\n');
+                }
+            }
+            Files.move(tmpFile.toPath(), validatorsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            FileUtils.deleteQuietly(tmpFile);
+        }
+    }
+
+    static class Validators {
+        private final String sha256;
+        private final String eTag;
+        private final String lastModified;
+
+        Validators(String sha256, String eTag, String lastModified) {
+            this.sha256 = sha256;
+            this.eTag = StringUtils.defaultString(eTag);
+            this.lastModified = StringUtils.defaultString(lastModified);
+        }
+
+        static Validators of(HttpResponse response, String sha256) {
+            return new Validators(sha256, valueOf(response.getFirstHeader(HttpHeaders.ETAG)), valueOf(response.getFirstHeader(HttpHeaders.LAST_MODIFIED)));
+        }
+
+        private static String valueOf(Header header) {
+            return header == null ? null : StringUtils.trim(StringUtils.replaceChars(header.getValue(), "\t\r\n", "   "));
+        }
+
+        boolean isEmpty() {
+            return StringUtils.isBlank(eTag) && StringUtils.isBlank(lastModified);
+        }
+
+        void addConditionalHeaders(HttpGet request) {
+            if (StringUtils.isNotBlank(eTag)) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+            }
+            if (StringUtils.isNotBlank(lastModified)) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+        String getSha256() {
+            return sha256;
+        }
+
+        String getETag() {
+            return eTag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.globalbioticinteractions.cache;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.eol.globi.util.CSVTSVUtil;
+import org.globalbioticinteractions.dataset.DatasetRegistryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Summary of a provenance log (access.tsv) kept in a file right next to it: for each source uri and
+ * each content hash, the most recent log entry that mentions it, and for each namespace, the most
+ * recently cached dataset.
+ * <p>
+ * The index records the length and last modified time of the provenance log it summarizes. If the
+ * provenance log no longer matches (e.g., it was edited or appended to by some other process), the
+ * index is rebuilt from scratch.
+ * <p>
+ * Loaded indexes are kept in memory for the most recently used provenance logs, and reused for as long as
+ * their provenance log keeps its length and last modified time, so that lookups do not re-read the index file.
+ */
+public class ProvenanceIndex {
+    private final static Logger LOG = LoggerFactory.getLogger(ProvenanceIndex.class);
+
+    public final static String PROVENANCE_INDEX_SUFFIX = ".index";
+
+    private final static String INDEX_VERSION = "1";
+    private final static String HEADER = "#";
+    private final static String BY_SOURCE_URI = "uri";
+    private final static String BY_SHA256 = "sha256";
+    private final static String BY_DATASET_NAMESPACE = "dataset";
+
+    private final static int MAX_LOADED_INDEXES = 256;
+
+    private final static Map<String, ProvenanceIndex> LOADED_INDEXES = new LinkedHashMap<String, ProvenanceIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ProvenanceIndex> eldest) {
+            return size() > MAX_LOADED_INDEXES;
+        }
+    };
+
+    private final Map<String, Entry> bySourceURI = new HashMap<>();
+    private final Map<String, Entry> bySha256 = new HashMap<>();
+    private final Map<String, Entry> byDatasetNamespace = new HashMap<>();
+
+    private long lineCount = 0;
+    private long logLength = 0;
+    private long logLastModified = 0;
+
+    private ProvenanceIndex() {
+    }
+
+    public static File getIndexFile(File provenanceLog) {
+        return new File(provenanceLog.getParentFile(), provenanceLog.getName() + PROVENANCE_INDEX_SUFFIX);
+    }
+
+    /**
+     * @return an index that is up to date with given provenance log, or an empty index if the log does not exist.
+     */
+    public static ProvenanceIndex load(File provenanceLog) throws IOException {
+        ProvenanceIndex index = new ProvenanceIndex();
+        if (provenanceLog.exists()) {
+            ProvenanceIndex loaded = loadedIndexFor(provenanceLog);
+            if (loaded != null && loaded.isCurrent(provenanceLog)) {
+                index = loaded;
+            } else {
+                File indexFile = getIndexFile(provenanceLog);
+                if (!index.read(indexFile) || !index.isCurrent(provenanceLog)) {
+                    index = rebuild(provenanceLog);
+                }
+                keepLoaded(provenanceLog, index);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Updates the index of a provenance log after given log entry was appended to it.
+     * The index must be up to date with the provenance log as it was before the entry was appended.
+     */
+    static void append(File provenanceLog, ProvenanceIndex index, String[] values) {
+        synchronized (index) {
+            index.onValues(values);
+            index.recordStateOf(provenanceLog);
+            index.writeQuietly(getIndexFile(provenanceLog));
+        }
+        keepLoaded(provenanceLog, index);
+    }
+
+    private static ProvenanceIndex loadedIndexFor(File provenanceLog) {
+        synchronized (LOADED_INDEXES) {
+            return LOADED_INDEXES.get(provenanceLog.getAbsolutePath());
+        }
+    }
+
+    private static void keepLoaded(File provenanceLog, ProvenanceIndex index) {
+        synchronized (LOADED_INDEXES) {
+            LOADED_INDEXES.put(provenanceLog.getAbsolutePath(), index);
+        }
+    }
+
+    private static ProvenanceIndex rebuild(File provenanceLog) throws IOException {
+        ProvenanceIndex index = new ProvenanceIndex();
+        try (InputStream is = new FileInputStream(provenanceLog)) {
+            ProvenanceLog.parseProvenanceStream(is, index::onValues);
+        } catch (DatasetRegistryException e) {
+            throw new IOException("failed to index [" + provenanceLog.getAbsolutePath() + "]", e);
+        }
+        index.recordStateOf(provenanceLog);
+        index.writeQuietly(getIndexFile(provenanceLog));
+        return index;
+    }
+
+    private void onValues(String[] values) {
+        lineCount++;
+        if (values.length > 3 && StringUtils.isNotBlank(values[2])) {
+            Entry entry = new Entry(lineCount, values);
+            bySourceURI.put(entry.getSourceURI(), entry);
+            bySha256.put(entry.getSha256(), entry);
+        }
+        if (values.length > 4 && StringUtils.equals(StringUtils.trim(values[4]), CacheUtil.MIME_TYPE_GLOBI)) {
+            byDatasetNamespace.put(namespaceKey(values[0]), new Entry(lineCount, values));
+        }
+    }
+
+    public synchronized Entry lastEntryForSourceURI(String sourceURI) {
+        return bySourceURI.get(sourceURI);
+    }
+
+    public synchronized Entry lastEntryForSha256(String sha256) {
+        return StringUtils.isBlank(sha256) ? null : bySha256.get(sha256);
+    }
+
+    public synchronized Entry lastDatasetEntryFor(String namespace) {
+        return byDatasetNamespace.get(namespaceKey(namespace));
+    }
+
+    private static String namespaceKey(String namespace) {
+        return StringUtils.lowerCase(StringUtils.trim(namespace));
+    }
+
+    private synchronized boolean isCurrent(File provenanceLog) {
+        return logLength == provenanceLog.length()
+                && logLastModified == provenanceLog.lastModified();
+    }
+
+    private synchronized void recordStateOf(File provenanceLog) {
+        logLength = provenanceLog.length();
+        logLastModified = provenanceLog.lastModified();
+    }
+
+    private boolean read(File indexFile) {
+        boolean isValid = false;
+        if (indexFile.exists()) {
+            try (BufferedReader reader = IOUtils.toBufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+                String[] header = CSVTSVUtil.splitTSV(reader.readLine());
+                if (header != null
+                        && header.length == 5
+                        && StringUtils.equals(header[0], HEADER)
+                        && StringUtils.equals(header[1], INDEX_VERSION)) {
+                    logLength = NumberUtils.toLong(header[2], -1);
+                    logLastModified = NumberUtils.toLong(header[3], -1);
+                    lineCount = NumberUtils.toLong(header[4], 0);
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        readEntry(CSVTSVUtil.splitTSV(line));
+                    }
+                    isValid = true;
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                LOG.warn("ignoring unreadable provenance index [" + indexFile.getAbsolutePath() + "]", e);
+            }
+        }
+        return isValid;
+    }
+
+    private void readEntry(String[] values) {
+        if (values.length == 8) {
+            Entry entry = new Entry(Long.parseLong(values[2]), new String[]{values[3], values[4], values[5], values[6], values[7]});
+            if (StringUtils.equals(values[0], BY_SOURCE_URI)) {
+                bySourceURI.put(values[1], entry);
+            } else if (StringUtils.equals(values[0], BY_SHA256)) {
+                bySha256.put(values[1], entry);
+            } else if (StringUtils.equals(values[0], BY_DATASET_NAMESPACE)) {
+                byDatasetNamespace.put(values[1], entry);
+            }
+        }
+    }
+
+    private void writeQuietly(File indexFile) {
+        File tmpFile = new File(indexFile.getParentFile(), indexFile.getName() + "." + UUID.randomUUID());
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(FileUtils.openOutputStream(tmpFile), StandardCharsets.UTF_8))) {
+                writer.write(StringUtils.join(new String[]{HEADER, INDEX_VERSION, Long.toString(logLength), Long.toString(logLastModified), Long.toString(lineCount)}, '\t'));
+                writeEntries(writer, BY_SOURCE_URI, bySourceURI);
+                writeEntries(writer, BY_SHA256, bySha256);
+                writeEntries(writer, BY_DATASET_NAMESPACE, byDatasetNamespace);
+            }
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("failed to write provenance index [" + indexFile.getAbsolutePath() + "]", e);
+            FileUtils.deleteQuietly(tmpFile);
+            FileUtils.deleteQuietly(indexFile);
+        }
+    }
+
+    private static void writeEntries(Writer writer, String kind, Map<String, Entry> entries) throws IOException {
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry value = entry.getValue();
+            writer.write('\n');
+            writer.write(StringUtils.join(new String[]{kind
+                    , entry.getKey()
+                    , Long.toString(value.getLineNumber())
+                    , value.getNamespace()
+                    , value.getSourceURI()
+                    , value.getSha256()
+                    , value.getAccessedAt()
+                    , value.getType()}, '\t'));
+        }
+    }
+
+    public static class Entry {
+        private final long lineNumber;
+        private final String namespace;
+        private final String sourceURI;
+        private final String sha256;
+        private final String accessedAt;
+        private final String type;
+
+        Entry(long lineNumber, String[] values) {
+            this.lineNumber = lineNumber;
+            this.namespace = StringUtils.defaultString(values[0]);
+            this.sourceURI = StringUtils.defaultString(values[1]);
+            this.sha256 = values.length > 2 ? StringUtils.defaultString(values[2]) : "";
+            this.accessedAt = values.length > 3 ? StringUtils.trim(StringUtils.defaultString(values[3])) : "";
+            this.type = values.length > 4 ? StringUtils.trim(StringUtils.defaultString(values[4])) : "";
+        }
+
+        /**
+         * @return position of the entry in the provenance log, with later entries having higher numbers
+         */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getNamespace() {
+            return namespace;
+        }
+
+        public String getSourceURI() {
+            return sourceURI;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public String getAccessedAt() {
+            return accessedAt;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+}
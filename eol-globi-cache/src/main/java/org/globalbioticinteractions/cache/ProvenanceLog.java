@@ -36,6 +36,7 @@ public class ProvenanceLog {
     private static void appendProvenanceLog(ContentProvenance contentProvenance, File cacheDir) throws IOException {
         List<String> accessLogEntry = compileLogEntries(contentProvenance);
         File accessLog = findProvenanceLogFile(contentProvenance.getNamespace(), cacheDir.getAbsolutePath());
+        ProvenanceIndex index = ProvenanceIndex.load(accessLog);
         String prefix = accessLog.exists() ? "\n" : "";
         String accessLogLine = StringUtils.join(accessLogEntry, '\t');
         try {
@@ -43,6 +44,7 @@ public class ProvenanceLog {
         } catch (IOException ex) {
             throw new IOException("failed to write to [" + accessLog.getAbsolutePath() + "]", ex);
         }
+        ProvenanceIndex.append(accessLog, index, CSVTSVUtil.splitTSV(accessLogLine));
     }
 
     static List<String> compileLogEntries(ContentProvenance contentProvenance) {
@@ -7,6 +7,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.util.InputStreamFactory;
 import org.globalbioticinteractions.cache.CacheFactory;
 import org.globalbioticinteractions.cache.CacheUtil;
+import org.globalbioticinteractions.cache.ProvenanceIndex;
 import org.globalbioticinteractions.cache.ProvenanceLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,7 +19,6 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.TreeSet;
-import java.util.concurrent.atomic.AtomicReference;
 
 public class DatasetRegistryLocal implements DatasetRegistry {
     private final static Logger LOG = LoggerFactory.getLogger(DatasetRegistryLocal.class);
@@ -76,25 +76,17 @@ public class DatasetRegistryLocal implements DatasetRegistry {
 
 
     private URI findLastCachedDatasetURI(String namespace) throws DatasetRegistryException {
-        AtomicReference<URI> sourceURI = new AtomicReference<>();
-        ProvenanceLog.ProvenanceEntryListener provenanceEntryListener = values -> {
-            if (values.length > 4
-                    && StringUtils.equalsIgnoreCase(StringUtils.trim(values[0]), namespace)
-                    && StringUtils.equals(StringUtils.trim(values[4]), CacheUtil.MIME_TYPE_GLOBI)) {
-                sourceURI.set(URI.create(values[1]));
-            }
-
-        };
-        File accessFile;
+        URI sourceURI = null;
         try {
-            accessFile = ProvenanceLog.findProvenanceLogFile(namespace, cacheDir);
+            File accessFile = ProvenanceLog.findProvenanceLogFile(namespace, cacheDir);
             if (accessFile.exists()) {
-                ProvenanceLog.parseProvenanceStream(new FileInputStream(accessFile), provenanceEntryListener);
+                ProvenanceIndex.Entry entry = ProvenanceIndex.load(accessFile).lastDatasetEntryFor(namespace);
+                sourceURI = entry == null ? null : URI.create(entry.getSourceURI());
             }
         } catch (IOException e) {
             throw new DatasetRegistryException("issue accessing provenance log", e);
         }
-        return sourceURI.get();
+        return sourceURI;
     }
 
 
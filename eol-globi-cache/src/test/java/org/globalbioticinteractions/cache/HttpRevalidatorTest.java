@@ -0,0 +1,153 @@
+package org.globalbioticinteractions.cache;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HttpRevalidatorTest {
+
+    private File cacheDir;
+    private HttpServer server;
+    private URI resourceURI;
+
+    private final AtomicReference<String> content = new AtomicReference<>("some content");
+    private final AtomicInteger fullResponses = new AtomicInteger(0);
+    private final AtomicInteger notModifiedResponses = new AtomicInteger(0);
+
+    @Before
+    public void init() throws IOException {
+        cacheDir = new File("target/revalidate-test" + UUID.randomUUID());
+        FileUtils.forceMkdir(cacheDir);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/dataset.zip", exchange -> {
+            String body = content.get();
+            String eTag = "\"" + body.hashCode() + "\"";
+            exchange.getResponseHeaders().add("ETag", eTag);
+            if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        resourceURI = URI.create("http://localhost:" + server.getAddress().getPort() + "/dataset.zip");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        FileUtils.deleteDirectory(cacheDir);
+    }
+
+    @Test
+    public void reuseUnmodifiedContent() throws IOException {
+        CachePullThrough cache = new CachePullThrough("some/namespace", cacheDir.getAbsolutePath());
+        assertThat(read(cache), is("some content"));
+        assertThat(read(cache), is("some content"));
+
+        assertThat(fullResponses.get(), is(1));
+        assertThat(notModifiedResponses.get(), is(1));
+
+        File accessLog = ProvenanceLog.findProvenanceLogFile("some/namespace", cacheDir.getAbsolutePath());
+        List<String> lines = FileUtils.readLines(accessLog, StandardCharsets.UTF_8);
+        assertThat(lines.size(), is(2));
+        assertThat(lines.get(0).split("\t")[2], is(lines.get(1).split("\t")[2]));
+    }
+
+    @Test
+    public void refetchModifiedContent() throws IOException {
+        CachePullThrough cache = new CachePullThrough("some/namespace", cacheDir.getAbsolutePath());
+        assertThat(read(cache), is("some content"));
+
+        content.set("some other content");
+        assertThat(read(cache), is("some other content"));
+        assertThat(read(cache), is("some other content"));
+
+        assertThat(fullResponses.get(), is(2));
+        assertThat(notModifiedResponses.get(), is(1));
+    }
+
+    @Test
+    public void refetchMissingContent() throws IOException {
+        CachePullThrough cache = new CachePullThrough("some/namespace", cacheDir.getAbsolutePath());
+        assertThat(read(cache), is("some content"));
+
+        File namespaceDir = CacheUtil.findCacheDirForNamespace(cacheDir.getAbsolutePath(), "some/namespace");
+        String sha256 = HttpRevalidator.readValidators(namespaceDir).get(resourceURI.toString()).getSha256();
+        FileUtils.forceDelete(new File(namespaceDir, sha256));
+
+        assertThat(read(cache), is("some content"));
+        assertThat(fullResponses.get(), is(2));
+        assertThat(notModifiedResponses.get(), is(0));
+    }
+
+    @Test
+    public void shareContentAcrossNamespaces() throws IOException {
+        assertThat(read(new CachePullThrough("some/namespace", cacheDir.getAbsolutePath())), is("some content"));
+        assertThat(read(new CachePullThrough("other/namespace", cacheDir.getAbsolutePath())), is("some content"));
+
+        File someDir = CacheUtil.findCacheDirForNamespace(cacheDir.getAbsolutePath(), "some/namespace");
+        File otherDir = CacheUtil.findCacheDirForNamespace(cacheDir.getAbsolutePath(), "other/namespace");
+        String sha256 = HttpRevalidator.readValidators(someDir).get(resourceURI.toString()).getSha256();
+
+        File sharedFile = new File(CacheUtil.findContentStore(cacheDir.getAbsolutePath()), sha256);
+        assertThat(Files.isSameFile(new File(someDir, sha256).toPath(), sharedFile.toPath()), is(true));
+        assertThat(Files.isSameFile(new File(otherDir, sha256).toPath(), sharedFile.toPath()), is(true));
+    }
+
+    @Test
+    public void forgetValidatorsIfAbsent() throws IOException {
+        server.removeContext("/dataset.zip");
+        server.createContext("/dataset.zip", exchange -> {
+            fullResponses.incrementAndGet();
+            byte[] bytes = content.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+            exchange.close();
+        });
+        CachePullThrough cache = new CachePullThrough("some/namespace", cacheDir.getAbsolutePath());
+        assertThat(read(cache), is("some content"));
+        assertThat(read(cache), is("some content"));
+
+        assertThat(fullResponses.get(), is(2));
+        File namespaceDir = CacheUtil.findCacheDirForNamespace(cacheDir.getAbsolutePath(), "some/namespace");
+        assertThat(new File(namespaceDir, HttpRevalidator.VALIDATORS_FILENAME).exists(), is(not(true)));
+    }
+
+    private String read(Cache cache) throws IOException {
+        try (InputStream is = cache.retrieve(resourceURI)) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.globalbioticinteractions.cache;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ProvenanceIndexTest {
+
+    private File tempDirectory;
+
+    @Before
+    public void init() throws IOException {
+        tempDirectory = new File("target/provenance-index-test" + UUID.randomUUID());
+        FileUtils.forceMkdir(tempDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tempDirectory);
+    }
+
+    @Test
+    public void updateIndexOnAppend() throws IOException {
+        appendEntry("http://example.com", "1234", "1970-01-01T00:00:00Z");
+        appendEntry("http://example.org", "5678", "1970-01-01T00:00:01Z");
+        appendEntry("http://example.com", "1235", "1970-01-01T00:00:02Z");
+
+        File accessLog = ProvenanceLog.findProvenanceLogFile("some/namespace", tempDirectory.getAbsolutePath());
+        File indexFile = ProvenanceIndex.getIndexFile(accessLog);
+        assertTrue(indexFile.exists());
+        long indexLastModified = indexFile.lastModified();
+
+        ProvenanceIndex index = ProvenanceIndex.load(accessLog);
+        assertThat(index.lastEntryForSourceURI("http://example.com").getSha256(), is("1235"));
+        assertThat(index.lastEntryForSourceURI("http://example.com").getAccessedAt(), is("1970-01-01T00:00:02Z"));
+        assertThat(index.lastEntryForSha256("1234").getSourceURI(), is("http://example.com"));
+        assertThat(index.lastEntryForSha256("5678").getLineNumber(), is(2L));
+        assertThat(index.lastEntryForSourceURI("http://example.net"), is(nullValue()));
+        assertThat(indexFile.lastModified(), is(indexLastModified));
+    }
+
+    @Test
+    public void rebuildStaleIndex() throws IOException {
+        appendEntry("http://example.com", "1234", "1970-01-01T00:00:00Z");
+        File accessLog = ProvenanceLog.findProvenanceLogFile("some/namespace", tempDirectory.getAbsolutePath());
+        assertThat(ProvenanceIndex.load(accessLog).lastEntryForSourceURI("http://example.com").getSha256(), is("1234"));
+
+        FileUtils.writeStringToFile(accessLog, "\nsome/namespace\thttp://example.com\t4321\t1970-01-01T00:00:01Z\tapplication/globi", StandardCharsets.UTF_8, true);
+
+        ProvenanceIndex index = ProvenanceIndex.load(accessLog);
+        assertThat(index.lastEntryForSourceURI("http://example.com").getSha256(), is("4321"));
+        assertThat(index.lastDatasetEntryFor("Some/Namespace").getSourceURI(), is("http://example.com"));
+    }
+
+    @Test
+    public void rebuildCorruptIndex() throws IOException {
+        appendEntry("http://example.com", "1234", "1970-01-01T00:00:00Z");
+        File accessLog = ProvenanceLog.findProvenanceLogFile("some/namespace", tempDirectory.getAbsolutePath());
+        FileUtils.writeStringToFile(ProvenanceIndex.getIndexFile(accessLog), "this is not an index", StandardCharsets.UTF_8);
+
+        ProvenanceIndex index = ProvenanceIndex.load(accessLog);
+        assertThat(index.lastEntryForSourceURI("http://example.com").getSha256(), is("1234"));
+    }
+
+    @Test
+    public void reuseLoadedIndex() throws IOException {
+        appendEntry("http://example.com", "1234", "1970-01-01T00:00:00Z");
+        File accessLog = ProvenanceLog.findProvenanceLogFile("some/namespace", tempDirectory.getAbsolutePath());
+        ProvenanceIndex index = ProvenanceIndex.load(accessLog);
+
+        // index file is not read again for as long as the provenance log is unchanged
+        FileUtils.writeStringToFile(ProvenanceIndex.getIndexFile(accessLog), "this is not an index", StandardCharsets.UTF_8);
+        assertThat(ProvenanceIndex.load(accessLog), is(sameInstance(index)));
+
+        appendEntry("http://example.com", "5678", "1970-01-01T00:00:01Z");
+        assertThat(ProvenanceIndex.load(accessLog), is(sameInstance(index)));
+        assertThat(index.lastEntryForSourceURI("http://example.com").getSha256(), is("5678"));
+    }
+
+    @Test
+    public void provenanceOfLastMatchingEntry() throws IOException {
+        CacheLocalReadonly cache = new CacheLocalReadonly("some/namespace", tempDirectory.getAbsolutePath());
+        appendEntry("http://example.com", "1234", "1970-01-01T00:00:00Z");
+        assertThat(cache.provenanceOf(URI.create("http://example.com")).getSha256(), is("1234"));
+
+        appendEntry("http://example.com", "5678", "1970-01-01T00:00:01Z");
+        ContentProvenance provenance = cache.provenanceOf(URI.create("http://example.com"));
+        assertThat(provenance.getSha256(), is("5678"));
+        assertThat(provenance.getAccessedAt(), is("1970-01-01T00:00:01Z"));
+    }
+
+    private void appendEntry(String sourceURI, String sha256, String accessedAt) throws IOException {
+        ContentProvenance meta = new ContentProvenance("some/namespace",
+                URI.create(sourceURI),
+                URI.create("cached:file.zip"),
+                sha256,
+                accessedAt);
+        ProvenanceLog.appendProvenanceLog(tempDirectory, meta);
+    }
+
+}
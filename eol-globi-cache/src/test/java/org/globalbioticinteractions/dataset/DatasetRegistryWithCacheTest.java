@@ -48,9 +48,10 @@ public class DatasetRegistryWithCacheTest {
 
 
         String[] list = new File(cachePath + "/some/namespace").list();
-        assertThat(list.length, is(2));
+        assertThat(list.length, is(3));
         assertThat(Arrays.asList(list), hasItem("c9ecb3b0100c890bd00a5c201d06f0a78d92488591f726fbf4de5c88bda39147"));
         assertThat(Arrays.asList(list), hasItem("access.tsv"));
+        assertThat(Arrays.asList(list), hasItem("access.tsv.index"));
     }
 
 
@@ -1,6 +1,7 @@
 package org.eol.globi.data;
 
 import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.process.InteractionRecord;
 import org.eol.globi.service.PropertyEnricher;
 import org.eol.globi.service.PropertyEnricherException;
 import org.eol.globi.util.InteractUtil;
@@ -10,7 +11,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
@@ -53,9 +53,11 @@ public final class AssociatedTaxaUtil {
 
     private static List<Map<String, String>> expand(Map<String, String> properties, String associatedTaxa) {
         List<Map<String, String>> maps = parseAssociatedTaxa(associatedTaxa);
-        return maps.stream().map(x -> new TreeMap<String, String>(properties) {{
-            putAll(x);
-        }}).collect(Collectors.toList());
+        return maps.stream().map(x -> {
+            Map<String, String> expanded = InteractionRecord.copyOf(properties);
+            expanded.putAll(x);
+            return expanded;
+        }).collect(Collectors.toList());
     }
 
     static List<Map<String, String>> parseAssociatedTaxa(String s) {
@@ -0,0 +1,277 @@
+package org.eol.globi.data;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.StopWatch;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetFactory;
+import org.globalbioticinteractions.dataset.DatasetRegistry;
+import org.globalbioticinteractions.dataset.DatasetRegistryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prepares the datasets of a registry on a pool of worker threads: datasets are resolved,
+ * their archives are retrieved into the cache and their configurations are parsed ahead of time.
+ * <p>
+ * Prepared datasets are handed to a single writer on the calling thread in the order of the provided
+ * namespaces, so the writer produces the same results as a sequential import. Concurrent requests to
+ * the registry and to a single archive host are limited, and at most a fixed number of prepared datasets wait for the
+ * writer at any time. A failure to prepare or write a dataset is reported, but does not stop the
+ * import of other datasets.
+ */
+public class DatasetImportScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(DatasetImportScheduler.class);
+
+    // not a valid host name, so registry lookups never share permits with an archive host
+    private static final String REGISTRY_HOST = "[registry]";
+
+    private final DatasetRegistry registry;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private int numberOfThreads = 4;
+    private int maxRequestsPerHost = 2;
+    private int maxPreparedDatasets = 8;
+
+    public interface DatasetWriter {
+        void write(String namespace, Dataset dataset) throws StudyImporterException;
+    }
+
+    public DatasetImportScheduler(DatasetRegistry registry) {
+        this.registry = registry;
+    }
+
+    public List<NamespaceImport> importAll(Collection<String> namespaces, DatasetWriter writer) throws StudyImporterException {
+        List<NamespaceImport> imports = new ArrayList<>();
+        ExecutorService executor = createExecutor();
+        Deque<Future<NamespaceImport>> pending = new ArrayDeque<>();
+        try {
+            Iterator<String> namespaceIterator = namespaces.iterator();
+            while (namespaceIterator.hasNext() || !pending.isEmpty()) {
+                while (namespaceIterator.hasNext() && pending.size() < Math.max(1, getMaxPreparedDatasets())) {
+                    String namespace = namespaceIterator.next();
+                    Callable<NamespaceImport> prepare = () -> prepare(namespace);
+                    pending.add(executor.submit(prepare));
+                }
+                imports.add(write(waitFor(pending.removeFirst()), writer));
+            }
+        } finally {
+            pending.forEach(prepared -> prepared.cancel(true));
+            executor.shutdownNow();
+        }
+        logSummary(imports);
+        return imports;
+    }
+
+    private ExecutorService createExecutor() {
+        AtomicInteger threadCount = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(Math.max(1, getNumberOfThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "dataset-prepare-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private NamespaceImport prepare(String namespace) {
+        NamespaceImport namespaceImport = new NamespaceImport(namespace);
+        StopWatch watch = new StopWatch();
+        watch.start();
+        try {
+            LOG.info("retrieving dataset from [" + namespace + "]...");
+            Dataset dataset = lookup(namespace);
+            Semaphore permits = permitsFor(dataset == null ? null : dataset.getArchiveURI());
+            permits.acquire();
+            try {
+                namespaceImport.setDataset(new DatasetFactory(new DatasetRegistry() {
+                    @Override
+                    public Collection<String> findNamespaces() throws DatasetRegistryException {
+                        return Collections.singletonList(namespace);
+                    }
+
+                    @Override
+                    public Dataset datasetFor(String someNamespace) throws DatasetRegistryException {
+                        return dataset;
+                    }
+                }).datasetFor(namespace));
+            } finally {
+                permits.release();
+            }
+        } catch (DatasetRegistryException ex) {
+            namespaceImport.setFailure(ex);
+        } catch (RuntimeException ex) {
+            LOG.error("unexpected failure while preparing dataset [" + namespace + "]", ex);
+            namespaceImport.setFailure(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            namespaceImport.setFailure(ex);
+        } finally {
+            watch.stop();
+            namespaceImport.setPrepareTime(watch.getTime());
+        }
+        return namespaceImport;
+    }
+
+    private Dataset lookup(String namespace) throws DatasetRegistryException, InterruptedException {
+        Semaphore permits = permitsFor(REGISTRY_HOST);
+        permits.acquire();
+        try {
+            return registry.datasetFor(namespace);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Semaphore permitsFor(URI archiveURI) {
+        return permitsFor(archiveURI == null ? "" : StringUtils.defaultString(archiveURI.getHost()));
+    }
+
+    private Semaphore permitsFor(String host) {
+        return hostPermits.computeIfAbsent(host, someHost -> new Semaphore(Math.max(1, getMaxRequestsPerHost())));
+    }
+
+    private NamespaceImport write(NamespaceImport namespaceImport, DatasetWriter writer) {
+        if (!namespaceImport.isFailed()) {
+            StopWatch watch = new StopWatch();
+            watch.start();
+            try {
+                writer.write(namespaceImport.getNamespace(), namespaceImport.getDataset());
+            } catch (StudyImporterException ex) {
+                namespaceImport.setFailure(ex);
+            } finally {
+                watch.stop();
+                namespaceImport.setWriteTime(watch.getTime());
+            }
+        }
+        if (namespaceImport.isFailed()) {
+            LOG.error("failed to import data from repo [" + namespaceImport.getNamespace() + "]", namespaceImport.getFailure());
+        }
+        // release prepared dataset as soon as it is written
+        namespaceImport.setDataset(null);
+        return namespaceImport;
+    }
+
+    private static NamespaceImport waitFor(Future<NamespaceImport> prepared) throws StudyImporterException {
+        try {
+            return prepared.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StudyImporterException("interrupted while importing datasets", e);
+        } catch (ExecutionException e) {
+            throw new StudyImporterException("failed to prepare dataset", e.getCause());
+        }
+    }
+
+    private static void logSummary(List<NamespaceImport> imports) {
+        long failed = imports.stream().filter(NamespaceImport::isFailed).count();
+        LOG.info("imported [" + (imports.size() - failed) + "] out of [" + imports.size() + "] dataset(s)");
+        for (NamespaceImport namespaceImport : imports) {
+            LOG.info(namespaceImport.toString());
+        }
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    public int getMaxPreparedDatasets() {
+        return maxPreparedDatasets;
+    }
+
+    public void setMaxPreparedDatasets(int maxPreparedDatasets) {
+        this.maxPreparedDatasets = maxPreparedDatasets;
+    }
+
+    public static class NamespaceImport {
+        private final String namespace;
+        private Dataset dataset;
+        private Throwable failure;
+        private long prepareTime;
+        private long writeTime;
+
+        NamespaceImport(String namespace) {
+            this.namespace = namespace;
+        }
+
+        public String getNamespace() {
+            return namespace;
+        }
+
+        Dataset getDataset() {
+            return dataset;
+        }
+
+        void setDataset(Dataset dataset) {
+            this.dataset = dataset;
+        }
+
+        public boolean isFailed() {
+            return failure != null;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        void setFailure(Throwable failure) {
+            this.failure = failure;
+        }
+
+        /**
+         * @return time in ms spent on retrieving and configuring the dataset
+         */
+        public long getPrepareTime() {
+            return prepareTime;
+        }
+
+        void setPrepareTime(long prepareTime) {
+            this.prepareTime = prepareTime;
+        }
+
+        /**
+         * @return time in ms spent on writing the dataset
+         */
+        public long getWriteTime() {
+            return writeTime;
+        }
+
+        void setWriteTime(long writeTime) {
+            this.writeTime = writeTime;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + namespace + "]: " + (isFailed() ? "failed" : "ok")
+                    + ", prepared in [" + prepareTime + "] ms"
+                    + ", written in [" + writeTime + "] ms";
+        }
+    }
+}
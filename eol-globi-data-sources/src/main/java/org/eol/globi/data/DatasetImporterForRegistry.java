@@ -4,7 +4,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.globalbioticinteractions.dataset.Dataset;
-import org.globalbioticinteractions.dataset.DatasetFactory;
 import org.globalbioticinteractions.dataset.DatasetRegistry;
 import org.globalbioticinteractions.dataset.DatasetRegistryException;
 import org.eol.globi.service.StudyImporterFactoryImpl;
@@ -19,6 +18,7 @@ public class DatasetImporterForRegistry extends NodeBasedImporter {
 
     private final DatasetRegistry registry;
     private Predicate<Dataset> datasetFilter = x -> true;
+    private int numberOfThreads = 4;
 
     public DatasetImporterForRegistry(ParserFactory parserFactory, NodeFactory nodeFactory, DatasetRegistry registry) {
         super(parserFactory, nodeFactory);
@@ -35,12 +35,12 @@ public class DatasetImporterForRegistry extends NodeBasedImporter {
         }
 
 
+        DatasetImportScheduler scheduler = new DatasetImportScheduler(getRegistry());
+        scheduler.setNumberOfThreads(getNumberOfThreads());
         List<String> repositoriesWithIssues = new ArrayList<>();
-        for (String namespace : namespaces) {
-            try {
-                importData(namespace);
-            } catch (StudyImporterException e) {
-                repositoriesWithIssues.add(namespace);
+        for (DatasetImportScheduler.NamespaceImport namespaceImport : scheduler.importAll(namespaces, this::importPreparedData)) {
+            if (namespaceImport.isFailed()) {
+                repositoriesWithIssues.add(namespaceImport.getNamespace());
             }
         }
 
@@ -49,22 +49,14 @@ public class DatasetImporterForRegistry extends NodeBasedImporter {
         }
     }
 
-    private void importData(String namespace) throws StudyImporterException {
-        try {
-            LOG.info("retrieving dataset from [" + namespace + "]...");
-            Dataset dataset = new DatasetFactory(getRegistry()).datasetFor(namespace);
-            if (datasetFilter.test(dataset)) {
-                LOG.info("importing dataset from [" + namespace + "]...");
-                getNodeFactory().getOrCreateDataset(dataset);
-                importData(dataset);
-                LOG.info("importing github repo [" + namespace + "] done.");
-            } else {
-                LOG.info("skipping (deprecated) dataset from [" + namespace + "]...");
-            }
-        } catch (StudyImporterException | DatasetRegistryException ex) {
-            String msg = "failed to import data from repo [" + namespace + "]";
-            LOG.error(msg, ex);
-            throw new StudyImporterException(msg, ex);
+    private void importPreparedData(String namespace, Dataset dataset) throws StudyImporterException {
+        if (datasetFilter.test(dataset)) {
+            LOG.info("importing dataset from [" + namespace + "]...");
+            getNodeFactory().getOrCreateDataset(dataset);
+            importData(dataset);
+            LOG.info("importing github repo [" + namespace + "] done.");
+        } else {
+            LOG.info("skipping (deprecated) dataset from [" + namespace + "]...");
         }
     }
 
@@ -88,4 +80,15 @@ public class DatasetImporterForRegistry extends NodeBasedImporter {
     public void setDatasetFilter(Predicate<Dataset> datasetFilter) {
         this.datasetFilter = datasetFilter;
     }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * @param numberOfThreads number of datasets that are retrieved and configured concurrently
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+    }
 }
@@ -5,6 +5,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.process.InteractionListener;
+import org.eol.globi.process.InteractionRecord;
 import org.eol.globi.service.TaxonUtil;
 import org.eol.globi.util.CSVTSVUtil;
 import org.eol.globi.util.ExternalIdUtil;
@@ -18,7 +19,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.stream.Stream;
 
 import static org.eol.globi.domain.PropertyAndValueDictionary.NETWORK_ID;
@@ -219,8 +219,9 @@ public class DatasetImporterForTSV extends DatasetImporterWithListener {
     }
 
     private void importResource(String namespace, String sourceCitation, InteractionListener interactionListener, URI resourceURI, LabeledCSVParser parser) throws IOException, StudyImporterException {
+        InteractionRecord.Interner interner = new InteractionRecord.Interner();
         while (parser.getLine() != null) {
-            final Map<String, String> link = new TreeMap<>();
+            final Map<String, String> link = new InteractionRecord(interner);
             final String referenceDoi = StringUtils.replace(parser.getValueByLabel(REFERENCE_DOI), " ", "");
             InteractUtil.putNotBlank(link, REFERENCE_DOI, referenceDoi);
             InteractUtil.putNotBlank(link, REFERENCE_CITATION, CSVTSVUtil.valueOrNull(parser, REFERENCE_CITATION));
@@ -252,7 +253,7 @@ public class DatasetImporterForTSV extends DatasetImporterWithListener {
                 InteractUtil.putIfKeyNotExistsAndValueNotBlank(link, label, parser.getValueByLabel(label));
             }
 
-            interactionListener.on(TaxonUtil.enrichTaxonNames(link));
+            interactionListener.on(TaxonUtil.enrichTaxonNames(link, InteractionRecord::copyOf));
         }
     }
 
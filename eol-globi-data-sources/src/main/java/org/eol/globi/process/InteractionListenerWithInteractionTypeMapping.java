@@ -11,7 +11,6 @@ import org.eol.globi.util.InteractUtil;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.eol.globi.data.DatasetImporterForTSV.INTERACTION_TYPE_ID;
@@ -34,7 +33,7 @@ public class InteractionListenerWithInteractionTypeMapping implements Interactio
 
     @Override
     public void on(Map<String, String> interaction) throws StudyImporterException {
-        onEnriched(TaxonUtil.enrichTaxonNames(interaction));
+        onEnriched(TaxonUtil.enrichTaxonNames(interaction, InteractionRecord::copyOf));
     }
 
     public void onEnriched(Map<String, String> interaction) throws StudyImporterException {
@@ -58,7 +57,7 @@ public class InteractionListenerWithInteractionTypeMapping implements Interactio
                 mappedType = mapper.getInteractType(interactionTypeName);
             }
 
-            Map<String, String> properties = new TreeMap<>(interaction);
+            Map<String, String> properties = InteractionRecord.copyOf(interaction);
             if (mappedType != null) {
                 InteractUtil.putNotNull(properties, INTERACTION_TYPE_ID_VERBATIM, properties.get(INTERACTION_TYPE_ID));
                 InteractUtil.putNotNull(properties, INTERACTION_TYPE_NAME_VERBATIM, properties.get(INTERACTION_TYPE_NAME));
@@ -0,0 +1,440 @@
+package org.eol.globi.process;
+
+import org.eol.globi.data.DatasetImporterForTSV;
+import org.eol.globi.service.TaxonUtil;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact interaction record: values of well-known properties (e.g., taxon names, ids and ranks,
+ * interaction types, references) are kept in fixed slots, and any other properties in an overflow map.
+ * <p>
+ * Records are plain {@link Map}s, so that existing importers and listeners keep working unchanged:
+ * iteration order, {@link #equals(Object)}, {@link #hashCode()} and {@link #toString()} are the
+ * same as for a {@link TreeMap} holding the same properties. Copies of records ({@link #copyOf(Map)})
+ * share their values until either one is changed. Records created with an {@link Interner} (e.g., one per
+ * imported resource) share values of low cardinality properties (e.g., interaction types, citations) with
+ * other records of the same import to reduce the footprint of records that are held in memory.
+ * Like {@link TreeMap}, records are not thread-safe.
+ */
+public class InteractionRecord extends AbstractMap<String, String> {
+
+    private static final String[] SLOT_KEYS;
+    private static final Map<String, Integer> SLOT_FOR_KEY = new HashMap<>();
+    private static final boolean[] INTERNED_SLOTS;
+
+    // marks a property that was explicitly set to null
+    private static final String NULL_VALUE = new String("");
+
+    static {
+        Set<String> internedKeys = new HashSet<>(Arrays.asList(
+                DatasetImporterForTSV.INTERACTION_TYPE_ID,
+                DatasetImporterForTSV.INTERACTION_TYPE_ID_VERBATIM,
+                DatasetImporterForTSV.INTERACTION_TYPE_NAME,
+                DatasetImporterForTSV.INTERACTION_TYPE_NAME_VERBATIM,
+                DatasetImporterForTSV.DATASET_CITATION,
+                DatasetImporterForTSV.REFERENCE_ID,
+                DatasetImporterForTSV.REFERENCE_DOI,
+                DatasetImporterForTSV.REFERENCE_CITATION,
+                DatasetImporterForTSV.REFERENCE_URL,
+                DatasetImporterForTSV.BASIS_OF_RECORD_ID,
+                DatasetImporterForTSV.BASIS_OF_RECORD_NAME,
+                DatasetImporterForTSV.HABITAT_ID,
+                DatasetImporterForTSV.HABITAT_NAME,
+                DatasetImporterForTSV.SOURCE_BODY_PART_ID,
+                DatasetImporterForTSV.SOURCE_BODY_PART_NAME,
+                DatasetImporterForTSV.TARGET_BODY_PART_ID,
+                DatasetImporterForTSV.TARGET_BODY_PART_NAME,
+                DatasetImporterForTSV.SOURCE_LIFE_STAGE_ID,
+                DatasetImporterForTSV.SOURCE_LIFE_STAGE_NAME,
+                DatasetImporterForTSV.TARGET_LIFE_STAGE_ID,
+                DatasetImporterForTSV.TARGET_LIFE_STAGE_NAME,
+                DatasetImporterForTSV.SOURCE_SEX_ID,
+                DatasetImporterForTSV.SOURCE_SEX_NAME,
+                DatasetImporterForTSV.TARGET_SEX_ID,
+                DatasetImporterForTSV.TARGET_SEX_NAME,
+                DatasetImporterForTSV.SOURCE_INSTITUTION_CODE,
+                DatasetImporterForTSV.TARGET_INSTITUTION_CODE,
+                DatasetImporterForTSV.SOURCE_COLLECTION_CODE,
+                DatasetImporterForTSV.TARGET_COLLECTION_CODE,
+                DatasetImporterForTSV.SOURCE_COLLECTION_ID,
+                DatasetImporterForTSV.TARGET_COLLECTION_ID,
+                TaxonUtil.SOURCE_TAXON_RANK,
+                TaxonUtil.TARGET_TAXON_RANK,
+                TaxonUtil.SOURCE_TAXON_KINGDOM,
+                TaxonUtil.SOURCE_TAXON_PHYLUM,
+                TaxonUtil.SOURCE_TAXON_CLASS,
+                TaxonUtil.SOURCE_TAXON_ORDER,
+                TaxonUtil.SOURCE_TAXON_FAMILY,
+                TaxonUtil.TARGET_TAXON_KINGDOM,
+                TaxonUtil.TARGET_TAXON_PHYLUM,
+                TaxonUtil.TARGET_TAXON_CLASS,
+                TaxonUtil.TARGET_TAXON_ORDER,
+                TaxonUtil.TARGET_TAXON_FAMILY
+        ));
+
+        Set<String> slotKeys = new HashSet<>(internedKeys);
+        slotKeys.addAll(Arrays.asList(
+                DatasetImporterForTSV.SOURCE_OCCURRENCE_ID,
+                DatasetImporterForTSV.TARGET_OCCURRENCE_ID,
+                DatasetImporterForTSV.SOURCE_CATALOG_NUMBER,
+                DatasetImporterForTSV.TARGET_CATALOG_NUMBER,
+                DatasetImporterForTSV.DECIMAL_LATITUDE,
+                DatasetImporterForTSV.DECIMAL_LONGITUDE,
+                DatasetImporterForTSV.ASSOCIATED_TAXA,
+                DatasetImporterForTSV.LOCALITY_ID,
+                DatasetImporterForTSV.LOCALITY_NAME,
+                TaxonUtil.SOURCE_TAXON_NAME,
+                TaxonUtil.SOURCE_TAXON_ID,
+                TaxonUtil.SOURCE_TAXON_PATH,
+                TaxonUtil.SOURCE_TAXON_PATH_IDS,
+                TaxonUtil.SOURCE_TAXON_PATH_NAMES,
+                TaxonUtil.SOURCE_TAXON_GENUS,
+                TaxonUtil.SOURCE_TAXON_SPECIFIC_EPITHET,
+                TaxonUtil.SOURCE_TAXON_SPECIES,
+                TaxonUtil.TARGET_TAXON_NAME,
+                TaxonUtil.TARGET_TAXON_ID,
+                TaxonUtil.TARGET_TAXON_PATH,
+                TaxonUtil.TARGET_TAXON_PATH_IDS,
+                TaxonUtil.TARGET_TAXON_PATH_NAMES,
+                TaxonUtil.TARGET_TAXON_GENUS,
+                TaxonUtil.TARGET_TAXON_SPECIFIC_EPITHET,
+                TaxonUtil.TARGET_TAXON_SPECIES
+        ));
+
+        // slots are kept in natural key order to iterate like a TreeMap
+        SLOT_KEYS = slotKeys.stream().sorted().toArray(String[]::new);
+        INTERNED_SLOTS = new boolean[SLOT_KEYS.length];
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            SLOT_FOR_KEY.put(SLOT_KEYS[i], i);
+            INTERNED_SLOTS[i] = internedKeys.contains(SLOT_KEYS[i]);
+        }
+    }
+
+    private final Interner interner;
+    private String[] values;
+    private TreeMap<String, String> overflow;
+    private int slotCount;
+
+    // values and overflow are shared with a copy of, or the original of, this record until either is changed
+    private boolean shared = false;
+
+    public InteractionRecord() {
+        this((Interner) null);
+    }
+
+    /**
+     * @param interner shared by the records of one import, or null to keep values as provided
+     */
+    public InteractionRecord(Interner interner) {
+        this.interner = interner;
+        this.values = new String[SLOT_KEYS.length];
+    }
+
+    private InteractionRecord(InteractionRecord record) {
+        this.interner = record.interner;
+        this.values = record.values;
+        this.overflow = record.overflow;
+        this.slotCount = record.slotCount;
+        this.shared = true;
+        record.shared = true;
+    }
+
+    /**
+     * Adapter for map based importers.
+     *
+     * @return a new record holding the properties of provided map
+     */
+    public static InteractionRecord copyOf(Map<String, String> properties) {
+        InteractionRecord record;
+        if (properties instanceof InteractionRecord) {
+            record = new InteractionRecord((InteractionRecord) properties);
+        } else {
+            record = new InteractionRecord();
+            record.putAll(properties);
+        }
+        return record;
+    }
+
+    @Override
+    public int size() {
+        return slotCount + (overflow == null ? 0 : overflow.size());
+    }
+
+    // unlike TreeMap, keys that are not strings are tolerated on lookup
+
+    @Override
+    public boolean containsKey(Object key) {
+        Integer slot = slotFor(key);
+        return slot == null
+                ? key instanceof String && overflow != null && overflow.containsKey(key)
+                : values[slot] != null;
+    }
+
+    @Override
+    public String get(Object key) {
+        Integer slot = slotFor(key);
+        return slot == null
+                ? (key instanceof String && overflow != null ? overflow.get(key) : null)
+                : fromSlot(values[slot]);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        if (key == null) {
+            throw new NullPointerException("null keys are not supported");
+        }
+        unshare();
+        String previous;
+        Integer slot = SLOT_FOR_KEY.get(key);
+        if (slot == null) {
+            if (overflow == null) {
+                overflow = new TreeMap<>();
+            }
+            previous = overflow.put(key, value);
+        } else {
+            previous = values[slot];
+            if (previous == null) {
+                slotCount++;
+            }
+            values[slot] = toSlot(slot, value);
+            previous = fromSlot(previous);
+        }
+        return previous;
+    }
+
+    @Override
+    public String remove(Object key) {
+        unshare();
+        String previous;
+        Integer slot = slotFor(key);
+        if (slot == null) {
+            previous = key instanceof String && overflow != null ? overflow.remove(key) : null;
+        } else {
+            previous = removeSlot(slot);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        values = new String[SLOT_KEYS.length];
+        slotCount = 0;
+        overflow = null;
+        shared = false;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return InteractionRecord.this.size();
+            }
+        };
+    }
+
+    private void unshare() {
+        if (shared) {
+            values = values.clone();
+            overflow = overflow == null || overflow.isEmpty() ? null : new TreeMap<>(overflow);
+            shared = false;
+        }
+    }
+
+    private String removeSlot(int slot) {
+        unshare();
+        String previous = values[slot];
+        if (previous != null) {
+            values[slot] = null;
+            slotCount--;
+        }
+        return fromSlot(previous);
+    }
+
+    private static Integer slotFor(Object key) {
+        return key instanceof String ? SLOT_FOR_KEY.get(key) : null;
+    }
+
+    private String toSlot(int slot, String value) {
+        String slotValue;
+        if (value == null) {
+            slotValue = NULL_VALUE;
+        } else if (interner != null && INTERNED_SLOTS[slot]) {
+            slotValue = interner.intern(value);
+        } else {
+            slotValue = value;
+        }
+        return slotValue;
+    }
+
+    private static String fromSlot(String slotValue) {
+        return slotValue == NULL_VALUE ? null : slotValue;
+    }
+
+    /**
+     * Values shared by the records of one import. The table is dropped along with the importer that
+     * holds it, and stops taking new values once it holds {@link #MAX_VALUES} of them.
+     */
+    public static class Interner {
+        static final int MAX_VALUES = 10000;
+
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+
+        String intern(String value) {
+            String interned = values.get(value);
+            if (interned == null) {
+                if (values.size() < MAX_VALUES) {
+                    interned = values.putIfAbsent(value, value);
+                }
+                if (interned == null) {
+                    interned = value;
+                }
+            }
+            return interned;
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+        private int nextSlot = nextSlotFrom(0);
+        private String nextOverflowKey = overflow == null || overflow.isEmpty() ? null : overflow.firstKey();
+
+        private int lastSlot = -1;
+        private String lastOverflowKey = null;
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < SLOT_KEYS.length || nextOverflowKey != null;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, String> next;
+            if (nextOverflowKey == null
+                    || (nextSlot < SLOT_KEYS.length && SLOT_KEYS[nextSlot].compareTo(nextOverflowKey) < 0)) {
+                next = new SlotEntry(nextSlot);
+                lastSlot = nextSlot;
+                lastOverflowKey = null;
+                nextSlot = nextSlotFrom(nextSlot + 1);
+            } else {
+                next = new OverflowEntry(nextOverflowKey);
+                lastSlot = -1;
+                lastOverflowKey = nextOverflowKey;
+                nextOverflowKey = overflow == null ? null : overflow.higherKey(nextOverflowKey);
+            }
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot >= 0) {
+                removeSlot(lastSlot);
+            } else if (lastOverflowKey != null) {
+                InteractionRecord.this.remove(lastOverflowKey);
+            } else {
+                throw new IllegalStateException();
+            }
+            lastSlot = -1;
+            lastOverflowKey = null;
+        }
+
+        private int nextSlotFrom(int slot) {
+            int next = slot;
+            while (next < SLOT_KEYS.length && values[next] == null) {
+                next++;
+            }
+            return next;
+        }
+    }
+
+    private abstract static class RecordEntry implements Entry<String, String> {
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            return getKey().equals(other.getKey())
+                    && (getValue() == null ? other.getValue() == null : getValue().equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ (getValue() == null ? 0 : getValue().hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private class OverflowEntry extends RecordEntry {
+        private final String key;
+
+        OverflowEntry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return overflow == null ? null : overflow.get(key);
+        }
+
+        @Override
+        public String setValue(String value) {
+            return put(key, value);
+        }
+    }
+
+    private class SlotEntry extends RecordEntry {
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return SLOT_KEYS[slot];
+        }
+
+        @Override
+        public String getValue() {
+            return fromSlot(values[slot]);
+        }
+
+        @Override
+        public String setValue(String value) {
+            return put(getKey(), value);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.eol.globi.data.DatasetImporterForTSV;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.process.InteractionListener;
+import org.eol.globi.process.InteractionRecord;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,7 +30,7 @@ public class InteractionListenerResolving implements InteractionListener {
         if (enrichedProperties == null) {
             interactionListener.on(interaction);
         } else {
-            TreeMap<String, String> enriched = new TreeMap<>(interaction);
+            Map<String, String> enriched = InteractionRecord.copyOf(interaction);
             enrichedProperties.forEach(enriched::putAll);
             interactionListener.on(enriched);
         }
@@ -0,0 +1,167 @@
+package org.eol.globi.data;
+
+import org.apache.commons.io.IOUtils;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.globalbioticinteractions.dataset.DatasetRegistry;
+import org.globalbioticinteractions.dataset.DatasetRegistryException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class DatasetImportSchedulerTest {
+
+    @Test
+    public void writeInOrder() throws StudyImporterException {
+        List<String> namespaces = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            namespaces.add("some/namespace" + i);
+        }
+
+        ConcurrentRequests lookups = new ConcurrentRequests();
+        ConcurrentRequests retrievals = new ConcurrentRequests();
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        DatasetImportScheduler scheduler = new DatasetImportScheduler(registryFor(namespaces, lookups::request, resource -> {
+            threadNames.add(Thread.currentThread().getName());
+            retrievals.request(resource);
+        }));
+        scheduler.setNumberOfThreads(4);
+        scheduler.setMaxRequestsPerHost(1);
+
+        String callingThread = Thread.currentThread().getName();
+        List<String> written = new ArrayList<>();
+        List<DatasetImportScheduler.NamespaceImport> imports = scheduler.importAll(namespaces, (namespace, dataset) -> {
+            assertThat(Thread.currentThread().getName(), is(callingThread));
+            written.add(namespace);
+        });
+
+        assertThat(written, is(namespaces));
+        assertThat(imports.size(), is(50));
+        assertThat(threadNames.size(), is(greaterThan(1)));
+        assertThat(lookups.maxConcurrent.get(), is(1));
+        assertThat(retrievals.maxConcurrentPerHost.keySet(), is(new TreeSet<>(Arrays.asList("host0.example.org", "host1.example.org"))));
+        assertThat(retrievals.maxConcurrentPerHost.get("host0.example.org").get(), is(1));
+        assertThat(retrievals.maxConcurrentPerHost.get("host1.example.org").get(), is(1));
+        assertThat("hosts are retrieved from concurrently", retrievals.maxConcurrent.get(), is(2));
+    }
+
+    @Test
+    public void skipDatasetOnUnexpectedFailure() throws StudyImporterException {
+        List<String> namespaces = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            namespaces.add("some/namespace" + i);
+        }
+
+        DatasetImportScheduler scheduler = new DatasetImportScheduler(registryFor(namespaces, resource -> {
+            if (resource.getPath().contains("namespace3")) {
+                throw new IllegalStateException("kaboom!");
+            }
+        }, resource -> {
+        }));
+
+        List<String> written = new ArrayList<>();
+        List<DatasetImportScheduler.NamespaceImport> imports = scheduler.importAll(namespaces, (namespace, dataset) -> written.add(namespace));
+
+        assertThat(written.size(), is(9));
+        assertThat(written.contains("some/namespace3"), is(false));
+        assertThat(imports.get(3).isFailed(), is(true));
+        assertThat(imports.get(3).getFailure().getMessage(), is("kaboom!"));
+        assertThat(imports.get(4).isFailed(), is(false));
+    }
+
+    @Test
+    public void continueOnFailure() throws StudyImporterException {
+        List<String> namespaces = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            namespaces.add("some/namespace" + i);
+        }
+
+        DatasetImportScheduler scheduler = new DatasetImportScheduler(registryFor(namespaces, resource -> {
+        }, resource -> {
+        }));
+
+        List<String> written = new ArrayList<>();
+        List<DatasetImportScheduler.NamespaceImport> imports = scheduler.importAll(namespaces, (namespace, dataset) -> {
+            if (namespace.endsWith("3")) {
+                throw new StudyImporterException("kaboom!");
+            }
+            written.add(namespace);
+        });
+
+        assertThat(written.size(), is(9));
+        assertThat(imports.get(3).isFailed(), is(true));
+        assertThat(imports.get(3).getFailure().getMessage(), is("kaboom!"));
+        assertThat(imports.get(4).isFailed(), is(false));
+    }
+
+    interface ResourceListener {
+        void onRetrieve(URI resource) throws IOException;
+    }
+
+    interface LookupListener {
+        void onLookup(URI archive);
+    }
+
+    private static class ConcurrentRequests {
+        private final Map<String, AtomicInteger> concurrentPerHost = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> maxConcurrentPerHost = new ConcurrentHashMap<>();
+        private final AtomicInteger concurrent = new AtomicInteger(0);
+        private final AtomicInteger maxConcurrent = new AtomicInteger(0);
+
+        void request(URI resource) {
+            String host = resource.getHost();
+            AtomicInteger concurrentForHost = concurrentPerHost.computeIfAbsent(host, someHost -> new AtomicInteger(0));
+            maxConcurrentPerHost.computeIfAbsent(host, someHost -> new AtomicInteger(0))
+                    .accumulateAndGet(concurrentForHost.incrementAndGet(), Math::max);
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+                concurrentForHost.decrementAndGet();
+            }
+        }
+    }
+
+    private static DatasetRegistry registryFor(List<String> namespaces, LookupListener lookupListener, ResourceListener listener) {
+        return new DatasetRegistry() {
+            @Override
+            public Collection<String> findNamespaces() throws DatasetRegistryException {
+                return namespaces;
+            }
+
+            @Override
+            public Dataset datasetFor(String namespace) throws DatasetRegistryException {
+                // namespaces alternate between two archive hosts
+                URI archive = URI.create("http://host" + (namespaces.indexOf(namespace) % 2) + ".example.org/" + namespace);
+                lookupListener.onLookup(archive);
+                return new DatasetImpl(namespace, archive, in -> in) {
+                    @Override
+                    public InputStream retrieve(URI resource) throws IOException {
+                        listener.onRetrieve(getArchiveURI().resolve(resource));
+                        return IOUtils.toInputStream("{\"some\":\"thing\"}", StandardCharsets.UTF_8);
+                    }
+                };
+            }
+        };
+    }
+
+}
@@ -0,0 +1,207 @@
+package org.eol.globi.process;
+
+import org.eol.globi.data.DatasetImporterForTSV;
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.service.TaxonUtil;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class InteractionRecordTest {
+
+    @Test
+    public void behaveLikeTreeMap() {
+        Map<String, String> expected = new TreeMap<>();
+        Map<String, String> record = new InteractionRecord();
+        for (Map<String, String> map : new Map[]{expected, record}) {
+            map.put("zzz", "last");
+            map.put(TaxonUtil.TARGET_TAXON_NAME, "Homo sapiens");
+            map.put("aaa", "first");
+            map.put(TaxonUtil.SOURCE_TAXON_NAME, "Ariopsis felis");
+            map.put(DatasetImporterForTSV.INTERACTION_TYPE_ID, InteractType.ATE.getIRI());
+            map.put(TaxonUtil.SOURCE_TAXON_ID, null);
+            map.put("sourceTaxonIdVerbatim", "EOL:123");
+        }
+
+        assertThat(record, is(expected));
+        assertThat(expected, is(record));
+        assertThat(record.hashCode(), is(expected.hashCode()));
+        assertThat(record.toString(), is(expected.toString()));
+        assertThat(new ArrayList<>(record.keySet()), is(new ArrayList<>(expected.keySet())));
+        assertThat(record.size(), is(7));
+        assertThat(record.containsKey(TaxonUtil.SOURCE_TAXON_ID), is(true));
+        assertThat(record.get(TaxonUtil.SOURCE_TAXON_ID), is(nullValue()));
+        assertThat(record.containsKey(TaxonUtil.TARGET_TAXON_ID), is(false));
+        assertThat(record.get(123), is(nullValue()));
+
+        assertThat(record.remove(TaxonUtil.SOURCE_TAXON_NAME), is("Ariopsis felis"));
+        assertThat(record.remove("aaa"), is("first"));
+        assertThat(record.size(), is(5));
+        assertThat(record.containsKey(TaxonUtil.SOURCE_TAXON_NAME), is(false));
+    }
+
+    @Test
+    public void removeWhileIterating() {
+        Map<String, String> record = new InteractionRecord();
+        record.put("aaa", "first");
+        record.put(TaxonUtil.SOURCE_TAXON_NAME, "Ariopsis felis");
+        record.put("zzz", "last");
+
+        Iterator<Map.Entry<String, String>> iterator = record.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, String> entry = iterator.next();
+            if (!entry.getKey().equals("zzz")) {
+                iterator.remove();
+            }
+        }
+        assertThat(record.size(), is(1));
+        assertThat(record.get("zzz"), is("last"));
+
+        record.entrySet().iterator().next().setValue("changed");
+        assertThat(record.get("zzz"), is("changed"));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        InteractionRecord record = new InteractionRecord();
+        record.put(TaxonUtil.SOURCE_TAXON_NAME, "Ariopsis felis");
+        record.put("someKey", "someValue");
+
+        InteractionRecord copy = InteractionRecord.copyOf(record);
+        copy.put(TaxonUtil.SOURCE_TAXON_NAME, "Homo sapiens");
+        copy.put("someKey", "someOtherValue");
+
+        assertThat(record.get(TaxonUtil.SOURCE_TAXON_NAME), is("Ariopsis felis"));
+        assertThat(record.get("someKey"), is("someValue"));
+        assertThat(copy, is(not(record)));
+    }
+
+    @Test
+    public void internLowCardinalityValuesWithinImport() {
+        InteractionRecord.Interner interner = new InteractionRecord.Interner();
+        InteractionRecord record = new InteractionRecord(interner);
+        record.put(DatasetImporterForTSV.INTERACTION_TYPE_NAME, new String("eats"));
+        record.put(TaxonUtil.SOURCE_TAXON_NAME, new String("Ariopsis felis"));
+        InteractionRecord otherRecord = InteractionRecord.copyOf(new InteractionRecord(interner));
+        otherRecord.put(DatasetImporterForTSV.INTERACTION_TYPE_NAME, new String("eats"));
+        otherRecord.put(TaxonUtil.SOURCE_TAXON_NAME, new String("Ariopsis felis"));
+
+        assertThat(record.get(DatasetImporterForTSV.INTERACTION_TYPE_NAME),
+                is(sameInstance(otherRecord.get(DatasetImporterForTSV.INTERACTION_TYPE_NAME))));
+        assertThat(record.get(TaxonUtil.SOURCE_TAXON_NAME),
+                is(not(sameInstance(otherRecord.get(TaxonUtil.SOURCE_TAXON_NAME)))));
+        assertThat(interner.size(), is(1));
+    }
+
+    @Test
+    public void noInterningAcrossImports() {
+        InteractionRecord record = new InteractionRecord(new InteractionRecord.Interner());
+        record.put(DatasetImporterForTSV.INTERACTION_TYPE_NAME, new String("eats"));
+        InteractionRecord otherRecord = new InteractionRecord(new InteractionRecord.Interner());
+        otherRecord.put(DatasetImporterForTSV.INTERACTION_TYPE_NAME, new String("eats"));
+
+        assertThat(record.get(DatasetImporterForTSV.INTERACTION_TYPE_NAME),
+                is(not(sameInstance(otherRecord.get(DatasetImporterForTSV.INTERACTION_TYPE_NAME)))));
+    }
+
+    @Test
+    public void boundedInterner() {
+        InteractionRecord.Interner interner = new InteractionRecord.Interner();
+        InteractionRecord record = new InteractionRecord(interner);
+        for (int i = 0; i < InteractionRecord.Interner.MAX_VALUES + 10; i++) {
+            record.put(DatasetImporterForTSV.REFERENCE_CITATION, "citation " + i);
+        }
+        assertThat(interner.size(), is(InteractionRecord.Interner.MAX_VALUES));
+        assertThat(record.get(DatasetImporterForTSV.REFERENCE_CITATION), is("citation " + (InteractionRecord.Interner.MAX_VALUES + 9)));
+    }
+
+    @Test
+    public void copyOnWrite() {
+        InteractionRecord record = new InteractionRecord();
+        record.put(TaxonUtil.SOURCE_TAXON_NAME, "Ariopsis felis");
+        InteractionRecord copy = InteractionRecord.copyOf(record);
+        InteractionRecord copyOfCopy = InteractionRecord.copyOf(copy);
+
+        record.put(TaxonUtil.SOURCE_TAXON_NAME, "Homo sapiens");
+        copyOfCopy.remove(TaxonUtil.SOURCE_TAXON_NAME);
+
+        assertThat(record.get(TaxonUtil.SOURCE_TAXON_NAME), is("Homo sapiens"));
+        assertThat(copy.get(TaxonUtil.SOURCE_TAXON_NAME), is("Ariopsis felis"));
+        assertThat(copyOfCopy.containsKey(TaxonUtil.SOURCE_TAXON_NAME), is(false));
+    }
+
+    @Ignore("benchmark: compares allocations and throughput of TreeMap copies and records")
+    @Test
+    public void allocatePerRow() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        InteractionRecord.Interner interner = new InteractionRecord.Interner();
+        Supplier<Map<String, String>> recordFactory = () -> new InteractionRecord(interner);
+
+        // warm up
+        importRows(TreeMap::new, TreeMap::new, 10000);
+        importRows(recordFactory, InteractionRecord::copyOf, 10000);
+
+        int rows = 100000;
+        long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+        importRows(TreeMap::new, TreeMap::new, rows);
+        long treeMapNanos = System.nanoTime() - startNanos;
+        long treeMapBytes = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+
+        start = threadMXBean.getThreadAllocatedBytes(threadId);
+        startNanos = System.nanoTime();
+        importRows(recordFactory, InteractionRecord::copyOf, rows);
+        long recordNanos = System.nanoTime() - startNanos;
+        long recordBytes = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+
+        System.out.println("allocated [" + (treeMapBytes / rows) + "] bytes/row with TreeMap, [" + (recordBytes / rows) + "] bytes/row with InteractionRecord");
+        System.out.println("imported [" + (rows * 1000000000L / treeMapNanos) + "] rows/s with TreeMap, [" + (rows * 1000000000L / recordNanos) + "] rows/s with InteractionRecord");
+        assertThat(recordBytes, is(lessThan(treeMapBytes / 2)));
+    }
+
+    // mimics the records created and copied by a tsv importer, the taxon name enrichment,
+    // the interaction type mapping and the occurrence id resolving
+    private static int importRows(Supplier<Map<String, String>> factory, Function<Map<String, String>, Map<String, String>> copier, int rows) {
+        int total = 0;
+        for (int i = 0; i < rows; i++) {
+            Map<String, String> row = factory.get();
+            row.put(TaxonUtil.SOURCE_TAXON_NAME, "Ariopsis felis");
+            row.put(TaxonUtil.SOURCE_TAXON_ID, "EOL:123");
+            row.put(TaxonUtil.TARGET_TAXON_NAME, "Homo sapiens");
+            row.put(TaxonUtil.TARGET_TAXON_ID, "EOL:456");
+            row.put(DatasetImporterForTSV.INTERACTION_TYPE_NAME, "eats");
+            row.put(DatasetImporterForTSV.REFERENCE_ID, "some reference");
+            row.put(DatasetImporterForTSV.REFERENCE_CITATION, "some citation");
+            row.put(DatasetImporterForTSV.DATASET_CITATION, "some dataset citation");
+            row.put(DatasetImporterForTSV.BASIS_OF_RECORD_NAME, "PreservedSpecimen");
+            row.put(DatasetImporterForTSV.DECIMAL_LATITUDE, "12.3");
+            row.put(DatasetImporterForTSV.DECIMAL_LONGITUDE, "45.6");
+            row.put("resourceLineNumber", "1");
+
+            Map<String, String> enriched = copier.apply(row);
+            Map<String, String> mapped = copier.apply(enriched);
+            mapped.put(DatasetImporterForTSV.INTERACTION_TYPE_NAME_VERBATIM, mapped.get(DatasetImporterForTSV.INTERACTION_TYPE_NAME));
+            mapped.put(DatasetImporterForTSV.INTERACTION_TYPE_ID, InteractType.ATE.getIRI());
+            mapped.put(DatasetImporterForTSV.INTERACTION_TYPE_NAME, InteractType.ATE.getLabel());
+            Map<String, String> resolved = copier.apply(mapped);
+            total += resolved.size();
+        }
+        return total;
+    }
+
+}
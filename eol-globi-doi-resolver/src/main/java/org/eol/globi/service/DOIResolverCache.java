@@ -6,23 +6,38 @@ import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.eol.globi.util.CSVTSVUtil;
+import org.eol.globi.util.HashUtil;
+import org.eol.globi.util.ResourceUtil;
 import org.globalbioticinteractions.doi.DOI;
 import org.globalbioticinteractions.doi.MalformedDOIException;
+import org.mapdb.BTreeMap;
 import org.mapdb.DB;
 import org.mapdb.Fun;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.Collection;
+import java.util.Objects;
+import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DOIResolverCache extends CacheService implements DOIResolver {
     private static final Logger LOG = LoggerFactory.getLogger(DOIResolverCache.class);
 
+    private static final String DOI_CACHE = "doiCache";
+    private static final String DOI_CACHE_MANIFEST = "doiCacheManifest";
+    private static final String MANIFEST_SOURCE_HASH = "sourceHash";
+    private static final String MANIFEST_ROWS = "rows";
+    private static final String MANIFEST_SIZE = "size";
+
     private final String doiCacheResource;
     private Map<String, DOI> doiCitationMap = null;
 
@@ -37,8 +52,12 @@ public class DOIResolverCache extends CacheService implements DOIResolver {
     @Override
     public Map<String, DOI> resolveDoiFor(Collection<String> references) throws IOException {
         Map<String, DOI> results = new TreeMap<>();
-        for (String reference : references) {
-            DOI doi = getDoiCitationMap().get(reference);
+        Map<String, DOI> citationMap = getDoiCitationMap();
+        // visit keys in index order, so that consecutive lookups share the same tree nodes
+        SortedSet<String> sortedReferences = new TreeSet<>();
+        references.stream().filter(Objects::nonNull).forEach(sortedReferences::add);
+        for (String reference : sortedReferences) {
+            DOI doi = citationMap.get(reference);
             if (doi != null) {
                 results.put(reference, doi);
             }
@@ -46,12 +65,14 @@ public class DOIResolverCache extends CacheService implements DOIResolver {
         return results;
     }
 
-    public Map<String, DOI> getDoiCitationMap() {
+    public synchronized Map<String, DOI> getDoiCitationMap() {
         if (doiCitationMap == null) {
             try {
                 LOG.info("loading doi cache at [" + doiCacheResource + "]");
-                BufferedReader bufferedReader = CacheServiceUtil.createBufferedReader(doiCacheResource);
-                init(bufferedReader);
+                String sourceHash = calculateSourceHash(doiCacheResource);
+                try (BufferedReader bufferedReader = CacheServiceUtil.createBufferedReader(doiCacheResource)) {
+                    init(bufferedReader, sourceHash);
+                }
             } catch (PropertyEnricherException | IOException e) {
                 LOG.warn("failed to initialize doi cache using [" + doiCacheResource + "], cache disabled", e);
                 doiCitationMap = new TreeMap<>();
@@ -60,73 +81,122 @@ public class DOIResolverCache extends CacheService implements DOIResolver {
         return doiCitationMap;
     }
 
+    private static String calculateSourceHash(String resource) throws IOException {
+        try (InputStream is = ResourceUtil.asInputStream(resource)) {
+            return HashUtil.sha256(is);
+        }
+    }
+
     @Override
     public DOI resolveDoiFor(final String reference) throws IOException {
         return getDoiCitationMap().get(reference);
     }
 
     public void init(final Reader reader) throws PropertyEnricherException, IOException {
+        init(reader, null);
+    }
+
+    /**
+     * Reuses an existing doi cache if it was built from a source with given hash, or if no hash is provided.
+     * Otherwise, (re-)builds the cache from the provided reader.
+     */
+    public void init(final Reader reader, final String sourceHash) throws PropertyEnricherException, IOException {
         DB db = initDb("doiCache");
+        Map<String, String> manifest = db.getHashMap(DOI_CACHE_MANIFEST);
+        if (isValidCache(db, manifest, sourceHash)) {
+            LOG.info("reusing existing doi cache...");
+            doiCitationMap = db.getTreeMap(DOI_CACHE);
+        } else {
+            buildCache(db, reader, manifest, sourceHash);
+        }
+    }
+
+    private static boolean isValidCache(DB db, Map<String, String> manifest, String sourceHash) {
+        boolean isValid = false;
+        if (db.exists(DOI_CACHE)) {
+            if (sourceHash != null && !StringUtils.equals(sourceHash, manifest.get(MANIFEST_SOURCE_HASH))) {
+                LOG.info("doi cache source changed from [" + manifest.get(MANIFEST_SOURCE_HASH) + "] to [" + sourceHash + "]");
+            } else {
+                String expectedSize = manifest.get(MANIFEST_SIZE);
+                long actualSize = db.getTreeMap(DOI_CACHE).sizeLong();
+                isValid = StringUtils.equals(expectedSize, Long.toString(actualSize));
+                if (!isValid) {
+                    LOG.info("doi cache expected [" + expectedSize + "] entries, but found [" + actualSize + "]");
+                }
+            }
+        }
+        return isValid;
+    }
+
+    private void buildCache(DB db, Reader reader, Map<String, String> manifest, String sourceHash) throws IOException {
         StopWatch watch = new StopWatch();
         watch.start();
         final CSVParse parser = CSVTSVUtil.createTSVParser(reader);
-        if (db.exists("doiCache")) {
-            LOG.info("reusing existing doi cache...");
-        } else {
-            LOG.info("doi cache building...");
-            doiCitationMap = db
-                    .createTreeMap("doiCache")
-                    .pumpPresort(300000)
-                    .pumpIgnoreDuplicates()
-                    .pumpSource(new Iterator<Fun.Tuple2<String, DOI>>() {
-                        private String[] line = null;
-                        final AtomicBoolean nextLineParsed = new AtomicBoolean(false);
-
-                        String getCitation(String[] line) {
-                            return line != null && line.length > 1 ? line[1] : null;
-                        }
+        final AtomicLong rowCount = new AtomicLong(0);
+        LOG.info("doi cache building...");
+        String tmpCacheName = DOI_CACHE + UUID.randomUUID();
+        BTreeMap<String, DOI> tmpCitationMap = db
+                .createTreeMap(tmpCacheName)
+                .pumpPresort(300000)
+                .pumpIgnoreDuplicates()
+                .pumpSource(new Iterator<Fun.Tuple2<String, DOI>>() {
+                    private String[] line = null;
+                    final AtomicBoolean nextLineParsed = new AtomicBoolean(false);
 
-                        DOI getDOI(String[] line) {
-                            String doiString = line[0];
-                            try {
-                                return StringUtils.isBlank(doiString) ? null : DOI.create(doiString);
-                            } catch (MalformedDOIException e) {
-                                LOG.warn("skipping malformed doi [" + doiString + "]", e);
-                                return null;
-                            }
+                    String getCitation(String[] line) {
+                        return line != null && line.length > 1 ? line[1] : null;
+                    }
+
+                    DOI getDOI(String[] line) {
+                        String doiString = line[0];
+                        try {
+                            return StringUtils.isBlank(doiString) ? null : DOI.create(doiString);
+                        } catch (MalformedDOIException e) {
+                            LOG.warn("skipping malformed doi [" + doiString + "]", e);
+                            return null;
                         }
+                    }
 
-                        @Override
-                        public boolean hasNext() {
-                            try {
-                                while (!nextLineParsed.get()) {
-                                    line = parser.getLine();
-                                    if (line == null) {
-                                        break;
-                                    }
-                                    nextLineParsed.set(getDOI(line) != null
-                                            && StringUtils.isNotBlank(getCitation(line)));
+                    @Override
+                    public boolean hasNext() {
+                        try {
+                            while (!nextLineParsed.get()) {
+                                line = parser.getLine();
+                                if (line == null) {
+                                    break;
                                 }
-                                return line != null && nextLineParsed.get();
-                            } catch (IOException e) {
-                                LOG.error("problem reading", e);
-                                return false;
+                                rowCount.incrementAndGet();
+                                nextLineParsed.set(getDOI(line) != null
+                                        && StringUtils.isNotBlank(getCitation(line)));
                             }
+                            return line != null && nextLineParsed.get();
+                        } catch (IOException e) {
+                            LOG.error("problem reading", e);
+                            return false;
                         }
+                    }
 
-                        @Override
-                        public Fun.Tuple2<String, DOI> next() {
-                            String citationString = StringUtils.defaultString(getCitation(line), "");
-                            DOI doi = getDOI(line);
-                            nextLineParsed.set(false);
-                            return new Fun.Tuple2<>(citationString, doi);
-                        }
-                    })
-                    .make();
-            db.commit();
-            watch.stop();
-            LOG.info("doi cache built in [" + watch.getTime() / 1000 + "] s.");
+                    @Override
+                    public Fun.Tuple2<String, DOI> next() {
+                        String citationString = StringUtils.defaultString(getCitation(line), "");
+                        DOI doi = getDOI(line);
+                        nextLineParsed.set(false);
+                        return new Fun.Tuple2<>(citationString, doi);
+                    }
+                })
+                .make();
+        if (db.exists(DOI_CACHE)) {
+            db.delete(DOI_CACHE);
         }
+        db.rename(tmpCacheName, DOI_CACHE);
+        manifest.clear();
+        manifest.put(MANIFEST_SOURCE_HASH, StringUtils.defaultString(sourceHash));
+        manifest.put(MANIFEST_ROWS, Long.toString(rowCount.get()));
+        manifest.put(MANIFEST_SIZE, Long.toString(tmpCitationMap.sizeLong()));
+        db.commit();
+        doiCitationMap = db.getTreeMap(DOI_CACHE);
+        watch.stop();
+        LOG.info("doi cache built with [" + tmpCitationMap.sizeLong() + "] entries from [" + rowCount.get() + "] rows in [" + watch.getTime() / 1000 + "] s.");
     }
 
 }
@@ -112,4 +112,33 @@ public class DOIResolverCacheTest {
         assertThat(doiForReference.get("citationA"), is(not(new DOI("some", "A"))));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void reuseCacheForSameSource() throws IOException, PropertyEnricherException {
+        String bla = "doi\tcitation\n" +
+                "10.some/A\tcitationA\n" +
+                "10.some/B\tcitationB";
+
+        doiResolverCache.init(new StringReader(bla), "hash1");
+        doiResolverCache.init(new StringReader("doi\tcitation\n"), "hash1");
+
+        Map<String, DOI> doiForReference = doiResolverCache.resolveDoiFor(Arrays.asList("citationB", "citationA", null, "citationX"));
+        assertThat(doiForReference.size(), is(2));
+        assertThat(doiForReference.get("citationA"), is(new DOI("some", "A")));
+        assertThat(doiForReference.get("citationB"), is(new DOI("some", "B")));
+    }
+
+    @Test
+    public void rebuildCacheForChangedSource() throws IOException, PropertyEnricherException {
+        String bla = "doi\tcitation\n" +
+                "10.some/A\tcitationA\n" +
+                "10.some/B\tcitationB";
+
+        doiResolverCache.init(new StringReader(bla), "hash1");
+        doiResolverCache.init(new StringReader("doi\tcitation\n10.some/C\tcitationC"), "hash2");
+
+        Map<String, DOI> doiForReference = doiResolverCache.resolveDoiFor(Arrays.asList("citationA", "citationC"));
+        assertThat(doiForReference.size(), is(1));
+        assertThat(doiForReference.get("citationC"), is(new DOI("some", "C")));
+    }
+
+}
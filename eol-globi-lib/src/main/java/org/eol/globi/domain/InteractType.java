@@ -171,6 +171,10 @@ public enum InteractType implements RelType {
         return label;
     }
 
+    public InteractionRole getSourceRole() {
+        return sourceRole;
+    }
+
     public static InteractType typeOf(String iri) {
         if (StringUtils.startsWith(iri, "RO:")) {
             iri = StringUtils.replace(iri, "RO:", PropertyAndValueDictionary.RO_NAMESPACE);
@@ -27,7 +27,7 @@ public class PropertyAndValueDictionary {
     public static final String NETWORK_ID = "networkId";
     public static final String NETWORK_NAME = "networkName";
     public static final String MIME_TYPE_DWCA = "application/dwca";
-    protected final static String TYPE = "type";
+    public final static String TYPE = "type";
     public static final String RANK = "rank";
     public static final String NO_NAME = "no name";
     public static final java.lang.String EXTERNAL_IDS = "externalIds";
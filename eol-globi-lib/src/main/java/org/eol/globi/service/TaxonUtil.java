@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -639,7 +640,14 @@ public class TaxonUtil {
     }
 
     public static Map<String, String> enrichTaxonNames(final Map<String, String> properties) {
-        Map<String, String> enrichedProperties = new TreeMap<>(properties);
+        return enrichTaxonNames(properties, TreeMap::new);
+    }
+
+    /**
+     * @param copier creates the (mutable) copy of provided properties that is enriched and returned
+     */
+    public static Map<String, String> enrichTaxonNames(final Map<String, String> properties, Function<Map<String, String>, Map<String, String>> copier) {
+        Map<String, String> enrichedProperties = copier.apply(properties);
         for (String propertyName : properties.keySet()) {
             String expandedName = expandTaxonColumnNameIfNeeded(propertyName);
             if (!StringUtils.equals(propertyName, expandedName)) {
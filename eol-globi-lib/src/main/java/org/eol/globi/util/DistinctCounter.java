@@ -0,0 +1,204 @@
+package org.eol.globi.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mergeable distinct value counter: values are counted exactly up to a threshold. Beyond
+ * that threshold, the counter switches to a HyperLogLog sketch with fixed memory use and
+ * a relative standard error of about 1.04 / sqrt(2^precision).
+ * <p>
+ * Values are identified by a 64-bit hash, so exact counts may (very rarely) be off
+ * because of hash collisions.
+ */
+public class DistinctCounter {
+
+    public static final int DEFAULT_THRESHOLD = 2048;
+    public static final int DEFAULT_PRECISION = 14;
+
+    private static final long EMPTY = 0L;
+
+    private final int threshold;
+    private final int precision;
+
+    // open addressing set of hashes, used until threshold is reached
+    private long[] hashes;
+    private int size;
+    private boolean containsEmpty;
+
+    // HyperLogLog registers, used after threshold is reached
+    private byte[] registers;
+
+    public DistinctCounter() {
+        this(DEFAULT_THRESHOLD, DEFAULT_PRECISION);
+    }
+
+    public DistinctCounter(int threshold, int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision [" + precision + "] not in range [4, 18]");
+        }
+        this.threshold = Math.max(0, threshold);
+        this.precision = precision;
+        this.hashes = new long[8];
+    }
+
+    public void add(long value) {
+        addHash(mix(value));
+    }
+
+    public void add(String value) {
+        if (value != null) {
+            // 64-bit FNV-1a
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= (b & 0xff);
+                hash *= 0x100000001b3L;
+            }
+            addHash(mix(hash));
+        }
+    }
+
+    public long count() {
+        return isExact() ? size : estimate();
+    }
+
+    public boolean isExact() {
+        return registers == null;
+    }
+
+    /**
+     * adds the values seen by another counter with the same precision
+     */
+    public void merge(DistinctCounter other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("cannot merge counters with precision [" + precision + "] and [" + other.precision + "]");
+        }
+        if (other.isExact()) {
+            if (other.containsEmpty) {
+                addHash(EMPTY);
+            }
+            for (long hash : other.hashes) {
+                if (hash != EMPTY) {
+                    addHash(hash);
+                }
+            }
+        } else {
+            toSketch();
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+            }
+        }
+    }
+
+    private void addHash(long hash) {
+        if (isExact()) {
+            if (addExact(hash) && size > threshold) {
+                toSketch();
+            }
+        } else {
+            addToSketch(hash);
+        }
+    }
+
+    private boolean addExact(long hash) {
+        if (hash == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int mask = hashes.length - 1;
+        int i = (int) hash & mask;
+        while (hashes[i] != EMPTY) {
+            if (hashes[i] == hash) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        size++;
+        if (size * 2 > hashes.length) {
+            grow();
+        }
+        return true;
+    }
+
+    private void grow() {
+        long[] previous = hashes;
+        hashes = new long[previous.length * 2];
+        int mask = hashes.length - 1;
+        for (long hash : previous) {
+            if (hash != EMPTY) {
+                int i = (int) hash & mask;
+                while (hashes[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                hashes[i] = hash;
+            }
+        }
+    }
+
+    private void toSketch() {
+        if (isExact()) {
+            registers = new byte[1 << precision];
+            if (containsEmpty) {
+                addToSketch(EMPTY);
+            }
+            for (long hash : hashes) {
+                if (hash != EMPTY) {
+                    addToSketch(hash);
+                }
+            }
+            hashes = null;
+            containsEmpty = false;
+            size = 0;
+        }
+    }
+
+    private void addToSketch(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        long remainder = hash << precision;
+        int rank = remainder == 0
+                ? 64 - precision + 1
+                : Long.numberOfLeadingZeros(remainder) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    private long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // linear counting for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    // finalizer of MurmurHash3, spreads bits of (sequential) ids
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "DistinctCounter{count=" + count() + ", exact=" + isExact() + "}";
+    }
+}
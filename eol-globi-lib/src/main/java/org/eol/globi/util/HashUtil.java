@@ -0,0 +1,57 @@
+package org.eol.globi.util;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class HashUtil {
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @return lowercase hex sha256 of given digest, e.g. e3b0c442...b855 for an empty input
+     */
+    public static String toHex(MessageDigest sha256) {
+        return String.format("%064x", new BigInteger(1, sha256.digest()));
+    }
+
+    public static String sha256(String value) {
+        MessageDigest digest = sha256();
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest);
+    }
+
+    public static String sha256(InputStream is) throws IOException {
+        MessageDigest digest = sha256();
+        try (DigestInputStream digestInputStream = new DigestInputStream(is, digest)) {
+            IOUtils.copy(digestInputStream, new NullOutputStream());
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * @return sha256 of values, each followed by a separator, so that ("ab", "c") and ("a", "bc") differ
+     */
+    public static String fingerprintOf(String... values) {
+        MessageDigest digest = sha256();
+        for (String value : values) {
+            digest.update(value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return toHex(digest);
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.eol.globi.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class DistinctCounterTest {
+
+    @Test
+    public void exactBelowThreshold() {
+        DistinctCounter counter = new DistinctCounter();
+        for (long i = 0; i < 2000; i++) {
+            counter.add(i);
+            counter.add(i);
+        }
+        counter.add("some name");
+        counter.add("some name");
+        counter.add((String) null);
+        assertThat(counter.isExact(), is(true));
+        assertThat(counter.count(), is(2001L));
+    }
+
+    @Test
+    public void estimateAboveThreshold() {
+        DistinctCounter counter = new DistinctCounter();
+        for (long i = 0; i < 1000000; i++) {
+            counter.add(i);
+        }
+        assertThat(counter.isExact(), is(false));
+        assertThat(relativeError(counter.count(), 1000000), is(lessThan(0.03)));
+    }
+
+    @Test
+    public void mergeExact() {
+        DistinctCounter counter = new DistinctCounter();
+        DistinctCounter other = new DistinctCounter();
+        for (long i = 0; i < 100; i++) {
+            counter.add(i);
+            other.add(i + 50);
+        }
+        counter.merge(other);
+        assertThat(counter.isExact(), is(true));
+        assertThat(counter.count(), is(150L));
+        assertThat(other.count(), is(100L));
+    }
+
+    @Test
+    public void mergeSketches() {
+        DistinctCounter counter = new DistinctCounter();
+        DistinctCounter other = new DistinctCounter();
+        DistinctCounter small = new DistinctCounter();
+        for (long i = 0; i < 100000; i++) {
+            counter.add(i);
+            other.add(i + 50000);
+        }
+        small.add(-1L);
+        small.merge(counter);
+        small.merge(other);
+        counter.merge(other);
+
+        assertThat(relativeError(counter.count(), 150000), is(lessThan(0.03)));
+        assertThat(relativeError(small.count(), 150001), is(lessThan(0.03)));
+    }
+
+    @Test
+    public void switchToSketchOnMerge() {
+        DistinctCounter counter = new DistinctCounter(10, DistinctCounter.DEFAULT_PRECISION);
+        DistinctCounter other = new DistinctCounter(10, DistinctCounter.DEFAULT_PRECISION);
+        for (long i = 0; i < 10; i++) {
+            counter.add(i);
+            other.add(i + 10);
+        }
+        counter.merge(other);
+        assertThat(counter.isExact(), is(false));
+        assertThat(counter.count(), is(20L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeDifferentPrecision() {
+        new DistinctCounter(10, 12).merge(new DistinctCounter(10, 14));
+    }
+
+    private static double relativeError(long estimate, long expected) {
+        return Math.abs(estimate - expected) / (double) expected;
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.eol.globi.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HashUtilTest {
+
+    @Test
+    public void sha256OfString() {
+        assertThat(HashUtil.sha256(""), is("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"));
+        assertThat(HashUtil.sha256("abc"), is("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"));
+    }
+
+    @Test
+    public void sha256OfStream() throws IOException {
+        assertThat(HashUtil.sha256(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8))),
+                is(HashUtil.sha256("abc")));
+    }
+
+    @Test
+    public void leadingZerosKept() {
+        assertThat(HashUtil.sha256("abc26"), is("0d56d5ce616422904a584cf3735a45ae611817d96c4717b17369ef6778025848"));
+    }
+
+    @Test
+    public void fingerprintSeparatesValues() {
+        assertThat(HashUtil.fingerprintOf("ab", "c"), is(not(HashUtil.fingerprintOf("a", "bc"))));
+        assertThat(HashUtil.fingerprintOf("a", null), is(HashUtil.fingerprintOf("a", "")));
+    }
+
+}
@@ -0,0 +1,216 @@
+package org.eol.globi.export;
+
+import org.eol.globi.data.StudyImporterException;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an export query once and streams its rows to any number of files, one per format.
+ * <p>
+ * Every file is written by its own thread from a bounded queue of rows, so joining and compressing happen in
+ * parallel while a slow writer holds back the scan instead of buffering rows. Each text writer writes exactly what
+ * {@link ExportUtil#export(GraphDatabaseService, String, String, List, ExportUtil.ValueJoiner)} writes for the
+ * same query, so files are byte-identical to the ones from separate exports.
+ */
+public class ExportFanOut {
+    private static final Logger LOG = LoggerFactory.getLogger(ExportFanOut.class);
+
+    static final int QUEUE_CAPACITY_DEFAULT = 1024;
+
+    private static final String[] END_OF_ROWS = new String[0];
+
+    interface RowSink extends Closeable {
+        void write(String[] values) throws IOException;
+    }
+
+    interface RowSinkFactory {
+        RowSink open(OutputStream out) throws IOException;
+    }
+
+    public static final class Target {
+        private final String baseDir;
+        private final String filename;
+        private final RowSinkFactory sinkFactory;
+
+        /**
+         * gzipped text file with values joined by given joiner, null values written as empty values
+         */
+        public Target(String baseDir, String filename, ExportUtil.ValueJoiner joiner) {
+            this(baseDir, filename, (RowSinkFactory) out -> textSink(joiner, out));
+        }
+
+        Target(String baseDir, String filename, RowSinkFactory sinkFactory) {
+            this.baseDir = baseDir;
+            this.filename = filename;
+            this.sinkFactory = sinkFactory;
+        }
+
+        /**
+         * parquet file with a string column per query column, null values written as nulls
+         */
+        public static Target parquet(String baseDir, String filename) {
+            return new Target(baseDir, filename, ExportFanOut::parquetSink);
+        }
+
+        File getFile() {
+            return new File(baseDir, filename);
+        }
+
+        RowSink open() throws IOException {
+            ExportUtil.mkdirIfNeeded(baseDir);
+            return sinkFactory.open(new FileOutputStream(getFile()));
+        }
+    }
+
+    private static RowSink textSink(ExportUtil.ValueJoiner joiner, OutputStream out) {
+        ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(out);
+        RowWriter writer = joiner.rowWriterFor(os);
+        return new RowSink() {
+            @Override
+            public void write(String[] values) throws IOException {
+                for (String value : values) {
+                    writer.value(value == null ? "" : value);
+                }
+                writer.endOfRow();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.flush();
+                os.close();
+            }
+        };
+    }
+
+    private static RowSink parquetSink(OutputStream out) throws IOException {
+        ParquetRowWriter writer = new ParquetRowWriter(new BufferedOutputStream(out));
+        return new RowSink() {
+            boolean header = true;
+
+            @Override
+            public void write(String[] values) throws IOException {
+                if (header) {
+                    writer.setColumns(Arrays.asList(values));
+                    header = false;
+                } else {
+                    writer.writeRow(values);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    private final int queueCapacity;
+
+    public ExportFanOut() {
+        this(QUEUE_CAPACITY_DEFAULT);
+    }
+
+    public ExportFanOut(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public void export(GraphDatabaseService graphService, String query, List<Target> targets) throws StudyImporterException {
+        export(graphService, query, Collections.emptyMap(), targets);
+    }
+
+    public void export(GraphDatabaseService graphService, String query, Map<String, Object> params, List<Target> targets) throws StudyImporterException {
+        ExecutorService executor = Executors.newFixedThreadPool(targets.size());
+        List<BlockingQueue<String[]>> queues = new ArrayList<>(targets.size());
+        List<Future<Void>> writers = new ArrayList<>(targets.size());
+        try {
+            for (Target target : targets) {
+                BlockingQueue<String[]> queue = new ArrayBlockingQueue<>(queueCapacity);
+                queues.add(queue);
+                writers.add(executor.submit(writerFor(target, queue)));
+            }
+
+            LOG.info("export of [" + targets.size() + "] files from single query started...");
+            try (Result rows = graphService.execute(query, params)) {
+                List<String> columns = rows.columns();
+                publish(queues, writers, columns.toArray(new String[0]));
+                while (rows.hasNext()) {
+                    Map<String, Object> row = rows.next();
+                    String[] values = new String[columns.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        Object value = row.get(columns.get(i));
+                        values[i] = value == null ? null : value.toString();
+                    }
+                    publish(queues, writers, values);
+                }
+            }
+            publish(queues, writers, END_OF_ROWS);
+
+            for (int i = 0; i < writers.size(); i++) {
+                awaitWriter(writers.get(i), targets.get(i));
+            }
+            LOG.info("export of [" + targets.size() + "] files from single query complete.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StudyImporterException("interrupted while exporting", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void publish(List<BlockingQueue<String[]>> queues, List<Future<Void>> writers, String[] values) throws InterruptedException, StudyImporterException {
+        for (int i = 0; i < queues.size(); i++) {
+            while (!queues.get(i).offer(values, 100, TimeUnit.MILLISECONDS)) {
+                if (writers.get(i).isDone()) {
+                    awaitWriter(writers.get(i), null);
+                    throw new StudyImporterException("writer stopped before all rows were written");
+                }
+            }
+        }
+    }
+
+    private static void awaitWriter(Future<Void> writer, Target target) throws InterruptedException, StudyImporterException {
+        try {
+            writer.get();
+        } catch (ExecutionException e) {
+            String filename = target == null ? "" : " [" + target.filename + "]";
+            throw new StudyImporterException("failed to export" + filename, e.getCause());
+        }
+    }
+
+    private static Callable<Void> writerFor(Target target, BlockingQueue<String[]> queue) {
+        return () -> {
+            try (RowSink sink = target.open()) {
+                String[] values;
+                while ((values = queue.take()) != END_OF_ROWS) {
+                    sink.write(values);
+                }
+            } catch (IOException e) {
+                throw new IOException("failed to export to [" + target.getFile().getAbsolutePath() + "]", e);
+            }
+            return null;
+        };
+    }
+
+}
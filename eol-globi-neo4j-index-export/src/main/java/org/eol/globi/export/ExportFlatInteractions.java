@@ -33,9 +33,20 @@ public class ExportFlatInteractions implements GraphExporter {
 
 
 
-    private static String createQuery(RelTypes argumentTypeRel, String argumentTypeId) {
+    static String createQuery(RelTypes argumentTypeRel, String argumentTypeId) {
+        return createQuery(argumentTypeRel, argumentTypeId, "node:datasets('namespace:*')");
+    }
+
+    /**
+     * @return query for the interactions of a single dataset, with namespace passed as parameter "namespace"
+     */
+    static String createQueryForDataset(RelTypes argumentTypeRel, String argumentTypeId) {
+        return createQuery(argumentTypeRel, argumentTypeId, "node:datasets(namespace={namespace})");
+    }
+
+    private static String createQuery(RelTypes argumentTypeRel, String argumentTypeId, String datasetLookup) {
         String argumentType = argumentTypeRel.name();
-        return "CYPHER 2.3 START dataset = node:datasets('namespace:*') " +
+        return "CYPHER 2.3 START dataset = " + datasetLookup + " " +
                 "MATCH dataset<-[:IN_DATASET]-study-[c:" + argumentType + "]->sourceSpecimen-[:CLASSIFIED_AS]->sourceTaxon, " +
                 "sourceSpecimen-[r:" + InteractUtil.allInteractionsCypherClause() + "]->targetSpecimen-[:CLASSIFIED_AS]->targetTaxon " +
                 "WHERE NOT exists(r.inverted) " +
@@ -0,0 +1,321 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ObjectNode;
+import org.eol.globi.Version;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.util.HashUtil;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Exports query results one dataset at a time into partitions and assembles complete files from them.
+ * <p>
+ * A manifest records the content hash of the dataset each partition was exported from. On a later export, the
+ * partition of a dataset is reused for as long as its content hash is unchanged: only new or changed datasets are
+ * queried again, and partitions of datasets no longer in the graph are removed. Datasets without a content hash are
+ * always exported again. All partitions are exported again when the export queries, the exporter version or the
+ * fingerprint of other export inputs (e.g. content hashes of taxon cache, taxon map and doi citations) change.
+ * <p>
+ * Partitions keep rows as queried, including null values. Rows are replayed in dataset index order into the same
+ * writers used by {@link ExportFanOut}, so assembled files are identical to the files of a full export.
+ */
+public class ExportIncremental {
+    private static final Logger LOG = LoggerFactory.getLogger(ExportIncremental.class);
+
+    static final String MANIFEST_FILENAME = "partitions.json";
+
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String PARTITIONS = "partitions";
+    private static final String CONTENT_HASH = "contentHash";
+    private static final String PARTITION_SUFFIX = ".rows.gz";
+    private static final int END_OF_ROWS = -1;
+    private static final int NULL_VALUE = -1;
+
+    private static final String DATASETS_QUERY = "CYPHER 2.3 START dataset = node:datasets('namespace:*') " +
+            "RETURN dataset." + DatasetConstant.NAMESPACE + " as namespace" +
+            ", dataset." + DatasetConstant.CONTENT_HASH + " as contentHash";
+
+    public static final class Export {
+        private final String name;
+        private final String query;
+        private final String datasetQuery;
+        private final List<ExportFanOut.Target> targets;
+
+        /**
+         * @param name         name of the partition file of each dataset
+         * @param query        query across all datasets
+         * @param datasetQuery same query for a single dataset, with namespace passed as parameter "namespace"
+         * @param targets      files assembled from the partitions
+         */
+        public Export(String name, String query, String datasetQuery, List<ExportFanOut.Target> targets) {
+            this.name = name;
+            this.query = query;
+            this.datasetQuery = datasetQuery;
+            this.targets = targets;
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File partitionDir;
+    private final List<Export> exports;
+    private final String inputFingerprint;
+    private final String exporterVersion;
+
+    /**
+     * @param inputFingerprint fingerprint of inputs, other than the datasets, that the exported rows depend on
+     */
+    public ExportIncremental(File partitionDir, List<Export> exports, String inputFingerprint) {
+        this(partitionDir, exports, inputFingerprint, Version.getVersion());
+    }
+
+    ExportIncremental(File partitionDir, List<Export> exports, String inputFingerprint, String exporterVersion) {
+        this.partitionDir = partitionDir;
+        this.exports = exports;
+        this.inputFingerprint = inputFingerprint;
+        this.exporterVersion = exporterVersion;
+    }
+
+    /**
+     * @return namespaces of datasets that were exported again, in dataset index order
+     */
+    public List<String> export(GraphDatabaseService graphService) throws StudyImporterException {
+        try {
+            FileUtils.forceMkdir(partitionDir);
+            Map<String, String> datasets = findDatasets(graphService);
+            String fingerprint = fingerprint();
+            JsonNode previous = previousPartitions(fingerprint);
+
+            ObjectNode partitions = mapper.createObjectNode();
+            List<String> exported = new ArrayList<>();
+            for (Map.Entry<String, String> dataset : datasets.entrySet()) {
+                String namespace = dataset.getKey();
+                String contentHash = dataset.getValue();
+                if (isReusable(previous.get(namespace), namespace, contentHash)) {
+                    LOG.info("export partition of [" + namespace + "] with content hash [" + contentHash + "] reused.");
+                } else {
+                    exportPartition(graphService, namespace);
+                    exported.add(namespace);
+                }
+                ObjectNode partition = partitions.putObject(namespace);
+                if (StringUtils.isNotBlank(contentHash)) {
+                    partition.put(CONTENT_HASH, contentHash);
+                }
+            }
+            writeManifest(fingerprint, partitions);
+            removeStalePartitions(datasets.keySet());
+            LOG.info("exported partitions of [" + exported.size() + "] out of [" + datasets.size() + "] datasets.");
+
+            for (Export export : exports) {
+                assemble(graphService, export, datasets.keySet());
+            }
+            return exported;
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to export incrementally using partitions in [" + partitionDir.getAbsolutePath() + "]", e);
+        }
+    }
+
+    private static Map<String, String> findDatasets(GraphDatabaseService graphService) {
+        Map<String, String> datasets = new LinkedHashMap<>();
+        try (Result result = graphService.execute(DATASETS_QUERY)) {
+            while (result.hasNext()) {
+                Map<String, Object> row = result.next();
+                Object contentHash = row.get("contentHash");
+                datasets.put((String) row.get("namespace"), contentHash == null ? null : contentHash.toString());
+            }
+        }
+        return datasets;
+    }
+
+    private boolean isReusable(JsonNode previous, String namespace, String contentHash) {
+        if (previous == null
+                || StringUtils.isBlank(contentHash)
+                || !StringUtils.equals(contentHash, previous.path(CONTENT_HASH).getTextValue())) {
+            return false;
+        }
+        for (Export export : exports) {
+            if (!partitionFile(namespace, export).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void exportPartition(GraphDatabaseService graphService, String namespace) throws StudyImporterException, IOException {
+        File dir = partitionDirFor(namespace);
+        File tmpDir = new File(dir.getPath() + ".tmp");
+        FileUtils.deleteDirectory(tmpDir);
+        LOG.info("export partition of [" + namespace + "] to [" + dir.getAbsolutePath() + "] started...");
+        for (Export export : exports) {
+            new ExportFanOut().export(graphService, export.datasetQuery,
+                    Collections.singletonMap("namespace", namespace),
+                    Collections.singletonList(new ExportFanOut.Target(tmpDir.getPath(), export.name + PARTITION_SUFFIX, ExportIncremental::partitionSink)));
+        }
+        FileUtils.deleteDirectory(dir);
+        Files.move(tmpDir.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        LOG.info("export partition of [" + namespace + "] to [" + dir.getAbsolutePath() + "] complete.");
+    }
+
+    private void assemble(GraphDatabaseService graphService, Export export, Set<String> namespaces) throws StudyImporterException, IOException {
+        if (namespaces.isEmpty()) {
+            new ExportFanOut().export(graphService, export.query, export.targets);
+            return;
+        }
+
+        List<ExportFanOut.RowSink> sinks = new ArrayList<>();
+        try {
+            for (ExportFanOut.Target target : export.targets) {
+                sinks.add(target.open());
+            }
+            boolean includeHeader = true;
+            for (String namespace : namespaces) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(partitionFile(namespace, export)))))) {
+                    String[] header = readRow(in);
+                    if (includeHeader) {
+                        write(sinks, header);
+                        includeHeader = false;
+                    }
+                    String[] values;
+                    while ((values = readRow(in)) != null) {
+                        write(sinks, values);
+                    }
+                }
+            }
+        } finally {
+            for (ExportFanOut.RowSink sink : sinks) {
+                sink.close();
+            }
+        }
+        LOG.info("assembled [" + export.targets.size() + "] files from partitions of [" + namespaces.size() + "] datasets.");
+    }
+
+    private static void write(List<ExportFanOut.RowSink> sinks, String[] values) throws IOException {
+        for (ExportFanOut.RowSink sink : sinks) {
+            sink.write(values);
+        }
+    }
+
+    private static ExportFanOut.RowSink partitionSink(OutputStream out) {
+        ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(new BufferedOutputStream(out));
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(os));
+        return new ExportFanOut.RowSink() {
+            @Override
+            public void write(String[] values) throws IOException {
+                data.writeInt(values.length);
+                for (String value : values) {
+                    if (value == null) {
+                        data.writeInt(NULL_VALUE);
+                    } else {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        data.writeInt(bytes.length);
+                        data.write(bytes);
+                    }
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                data.writeInt(END_OF_ROWS);
+                data.close();
+            }
+        };
+    }
+
+    private static String[] readRow(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == END_OF_ROWS) {
+            return null;
+        }
+        String[] values = new String[length];
+        for (int i = 0; i < length; i++) {
+            int size = in.readInt();
+            if (size != NULL_VALUE) {
+                byte[] bytes = new byte[size];
+                in.readFully(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+
+    private JsonNode previousPartitions(String fingerprint) throws IOException {
+        File manifest = new File(partitionDir, MANIFEST_FILENAME);
+        if (manifest.exists()) {
+            JsonNode previous = mapper.readTree(manifest);
+            if (StringUtils.equals(fingerprint, previous.path(FINGERPRINT).getTextValue())) {
+                return previous.path(PARTITIONS);
+            }
+            LOG.info("export queries, exporter version or inputs changed since last export: exporting all partitions again.");
+        }
+        return mapper.createObjectNode();
+    }
+
+    private void writeManifest(String fingerprint, ObjectNode partitions) throws IOException {
+        ObjectNode manifest = mapper.createObjectNode();
+        manifest.put(FINGERPRINT, fingerprint);
+        manifest.put(PARTITIONS, partitions);
+        File tmp = new File(partitionDir, MANIFEST_FILENAME + ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(tmp, manifest);
+        Files.move(tmp.toPath(), new File(partitionDir, MANIFEST_FILENAME).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void removeStalePartitions(Set<String> namespaces) throws IOException {
+        Set<String> current = new HashSet<>();
+        for (String namespace : namespaces) {
+            current.add(partitionDirFor(namespace).getName());
+        }
+        File[] dirs = partitionDir.listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                if (!current.contains(dir.getName())) {
+                    LOG.info("removing stale export partition [" + dir.getAbsolutePath() + "]");
+                    FileUtils.deleteDirectory(dir);
+                }
+            }
+        }
+    }
+
+    private File partitionFile(String namespace, Export export) {
+        return new File(partitionDirFor(namespace), export.name + PARTITION_SUFFIX);
+    }
+
+    private File partitionDirFor(String namespace) {
+        return new File(partitionDir, HashUtil.sha256(namespace));
+    }
+
+    private String fingerprint() {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Export export : exports) {
+            fingerprint.append(export.name).append('\n').append(export.datasetQuery).append('\n');
+        }
+        fingerprint.append(exporterVersion).append('\n').append(inputFingerprint);
+        return HashUtil.sha256(fingerprint.toString());
+    }
+
+}
@@ -9,11 +9,10 @@ import org.eol.globi.util.CSVTSVUtil;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Result;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -24,7 +23,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.GZIPOutputStream;
 
 public final class ExportUtil {
 
@@ -36,15 +34,13 @@ public final class ExportUtil {
         try {
             mkdirIfNeeded(baseDir);
             final FileOutputStream out = new FileOutputStream(new File(baseDir, filename));
-            GZIPOutputStream os = new GZIPOutputStream(out);
-            final Writer writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
-            Appender appender = AppenderWriter.of(writer, joiner);
+            ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(out);
+            RowWriter writer = joiner.rowWriterFor(os);
 
-            export(appender, graphService, cypherQueries);
+            export(writer, graphService, cypherQueries);
 
             writer.flush();
             os.finish();
-            IOUtils.closeQuietly(writer);
             IOUtils.closeQuietly(os);
         } catch (IOException e) {
             throw new StudyImporterException("failed to export to [" + filename + "]", e);
@@ -63,10 +59,26 @@ public final class ExportUtil {
 
     public interface ValueJoiner {
         String join(Stream<String> values);
+
+        /**
+         * @return writer that writes rows joined like this joiner as UTF-8 to given stream
+         */
+        default RowWriter rowWriterFor(OutputStream out) {
+            return new RowWriter.JoiningRowWriter(out, this);
+        }
     }
 
     interface Appender {
         void append(Stream<String> values) throws IOException;
+
+        default void appendRow(Map<String, Object> row, List<String> columns) throws IOException {
+            List<String> values = new ArrayList<String>();
+            for (String column : columns) {
+                Object value = row.get(column);
+                values.add(value == null ? "" : value.toString());
+            }
+            append(values.stream());
+        }
     }
 
     public static final class AppenderWriter implements Appender {
@@ -102,6 +114,11 @@ public final class ExportUtil {
         public String join(Stream<String> values) {
             return StringUtils.join(CSVTSVUtil.escapeValues(values), '\t');
         }
+
+        @Override
+        public RowWriter rowWriterFor(OutputStream out) {
+            return new RowWriter.TsvRowWriter(out);
+        }
     }
 
     public static class CsvValueJoiner implements ValueJoiner {
@@ -114,6 +131,11 @@ public final class ExportUtil {
                     .map(escaper::translate)
                     .collect(Collectors.joining(","));
         }
+
+        @Override
+        public RowWriter rowWriterFor(OutputStream out) {
+            return new RowWriter.CsvRowWriter(out);
+        }
     }
 
     public static class NQuadValueJoiner implements ValueJoiner {
@@ -123,6 +145,11 @@ public final class ExportUtil {
                     .collect(Collectors.joining(" "));
             return StringUtils.isBlank(joined) ? "" : joined + " .";
         }
+
+        @Override
+        public RowWriter rowWriterFor(OutputStream out) {
+            return new RowWriter.NQuadRowWriter(out);
+        }
     }
 
     static void writeResults(Appender appender, GraphDatabaseService dbService, String query, Map<String, Object> params, boolean includeHeader) throws IOException {
@@ -142,15 +169,8 @@ public final class ExportUtil {
     }
 
     static void appendRow(Appender appender, Iterator<Map<String, Object>> rows, List<String> columns) throws IOException {
-        Map<String, Object> row;
         while (rows.hasNext()) {
-            row = rows.next();
-            List<String> values = new ArrayList<String>();
-            for (String column : columns) {
-                Object value = row.get(column);
-                values.add(value == null ? "" : value.toString());
-            }
-            appender.append(values.stream());
+            appender.appendRow(rows.next(), columns);
         }
     }
 
@@ -13,14 +13,30 @@ import org.neo4j.graphdb.GraphDatabaseService;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPOutputStream;
 
 public class GraphExporterImpl implements GraphExporter {
     private static final Logger LOG = LoggerFactory.getLogger(GraphExporterImpl.class);
 
+    private final File partitionDir;
+    private final String inputFingerprint;
+
+    public GraphExporterImpl() {
+        this(null, null);
+    }
+
+    /**
+     * @param partitionDir     location of per dataset export partitions, or null to always export all datasets
+     * @param inputFingerprint fingerprint of inputs other than datasets (e.g. taxon cache and map) used by the partitions
+     */
+    public GraphExporterImpl(File partitionDir, String inputFingerprint) {
+        this.partitionDir = partitionDir;
+        this.inputFingerprint = inputFingerprint;
+    }
+
     @Override
     public void export(GraphDatabaseService graphService, String baseDir) throws StudyImporterException {
         try {
@@ -51,29 +67,45 @@ public class GraphExporterImpl implements GraphExporter {
         LOG.info("ncbi linkout files generated. ");
 
         exportNames(baseDir, studies);
-        // export to taxa for now, to avoid additional assemblies
-        new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz").export(graphService, "tsv");
-
-        new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "refuted-interactions.tsv.gz")
-                .setArgumentType(RelTypes.REFUTES)
-                .setArgumentTypeId(PropertyAndValueDictionary.REFUTES)
-                .export(graphService, "tsv");
+        exportFlatInteractionsAndCitations(graphService);
 
-        new ExportCitations(new ExportUtil.TsvValueJoiner(), "citations.tsv.gz").export(graphService, "tsv");
+        exportDataOntology(studies, baseDir);
+        exportDarwinCoreAggregatedByStudy(baseDir, studies);
+        exportDarwinCoreAll(baseDir, studies);
+    }
 
-        new ExportFlatInteractions(new ExportUtil.CsvValueJoiner(), "interactions.csv.gz")
-                .export(graphService, "csv");
-        new ExportFlatInteractions(new ExportUtil.CsvValueJoiner(), "refuted-interactions.csv.gz")
-                .setArgumentType(RelTypes.REFUTES)
-                .setArgumentTypeId(PropertyAndValueDictionary.REFUTES)
-                .export(graphService, "csv");
+    // each query is run once for all formats
+    private void exportFlatInteractionsAndCitations(GraphDatabaseService graphService) throws StudyImporterException {
+        ExportFanOut fanOut = new ExportFanOut();
+        if (partitionDir == null) {
+            fanOut.export(graphService, ExportFlatInteractions.createQuery(RelTypes.SUPPORTS, PropertyAndValueDictionary.SUPPORTS), interactionTargets("interactions"));
+            fanOut.export(graphService, ExportFlatInteractions.createQuery(RelTypes.REFUTES, PropertyAndValueDictionary.REFUTES), interactionTargets("refuted-interactions"));
+        } else {
+            new ExportIncremental(partitionDir, Arrays.asList(
+                    interactionsByDataset("interactions", RelTypes.SUPPORTS, PropertyAndValueDictionary.SUPPORTS),
+                    interactionsByDataset("refuted-interactions", RelTypes.REFUTES, PropertyAndValueDictionary.REFUTES)),
+                    inputFingerprint)
+                    .export(graphService);
+        }
 
+        fanOut.export(graphService, ExportCitations.CYPHER_QUERY, Arrays.asList(
+                new ExportFanOut.Target("tsv", "citations.tsv.gz", new ExportUtil.TsvValueJoiner()),
+                new ExportFanOut.Target("csv", "citations.csv.gz", new ExportUtil.CsvValueJoiner())));
+    }
 
-        new ExportCitations(new ExportUtil.CsvValueJoiner(), "citations.csv.gz").export(graphService, "csv");
+    private static ExportIncremental.Export interactionsByDataset(String name, RelTypes argumentType, String argumentTypeId) {
+        return new ExportIncremental.Export(name,
+                ExportFlatInteractions.createQuery(argumentType, argumentTypeId),
+                ExportFlatInteractions.createQueryForDataset(argumentType, argumentTypeId),
+                interactionTargets(name));
+    }
 
-        exportDataOntology(studies, baseDir);
-        exportDarwinCoreAggregatedByStudy(baseDir, studies);
-        exportDarwinCoreAll(baseDir, studies);
+    // export to taxa for now, to avoid additional assemblies
+    private static List<ExportFanOut.Target> interactionTargets(String name) {
+        return Arrays.asList(
+                new ExportFanOut.Target("tsv", name + ".tsv.gz", new ExportUtil.TsvValueJoiner()),
+                new ExportFanOut.Target("csv", name + ".csv.gz", new ExportUtil.CsvValueJoiner()),
+                ExportFanOut.Target.parquet("parquet", name + ".parquet"));
     }
 
     public void exportNCBILinkOut(GraphDatabaseService graphService, String baseDir, List<StudyNode> studies) throws StudyImporterException {
@@ -217,7 +249,7 @@ public class GraphExporterImpl implements GraphExporter {
     private OutputStreamWriter openStream(String exportPath) throws IOException {
         OutputStream fos = new BufferedOutputStream(new FileOutputStream(exportPath));
         if (exportPath.endsWith(".gz")) {
-            fos = new GZIPOutputStream(fos);
+            fos = new ParallelGZIPOutputStream(fos);
         }
         OutputStreamWriter writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
         LOG.info("export data to [" + new File(exportPath).getAbsolutePath() + "] started...");
@@ -0,0 +1,158 @@
+package org.eol.globi.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses fixed size blocks of input on a thread pool, each into its own gzip member, and writes the members
+ * in order. Concatenated gzip members form a valid gzip file (RFC 1952), which decompresses with
+ * {@link java.util.zip.GZIPInputStream} and gunzip into the original input.
+ * <p>
+ * At most a fixed number of blocks are compressed or waiting to be written at any time: writes block until the
+ * oldest block has been written. The output only depends on the input and the block size.
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+    static final int BLOCK_SIZE_DEFAULT = 1024 * 1024;
+
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+    private static final ExecutorService COMPRESSORS = Executors.newFixedThreadPool(PROCESSORS, runnable -> {
+        Thread thread = new Thread(runnable, "gzip-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService executor;
+    private final int maxPendingBlocks;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] block;
+    private int blockLength = 0;
+    private boolean anyBlockWritten = false;
+    private boolean finished = false;
+
+    public ParallelGZIPOutputStream(OutputStream out) {
+        this(out, BLOCK_SIZE_DEFAULT, 2 * PROCESSORS, COMPRESSORS);
+    }
+
+    ParallelGZIPOutputStream(OutputStream out, int blockSize, int maxPendingBlocks, ExecutorService executor) {
+        super(out);
+        this.block = new byte[blockSize];
+        this.maxPendingBlocks = maxPendingBlocks;
+        this.executor = executor;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == block.length) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            int chunk = Math.min(length, block.length - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, chunk);
+            blockLength += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (blockLength == block.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * writes blocks that have been compressed so far; like {@link GZIPOutputStream}, does not force compression
+     * of buffered input
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            writeOldestBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * compresses and writes all remaining input without closing the underlying stream
+     */
+    public void finish() throws IOException {
+        if (!finished) {
+            if (blockLength > 0 || !anyBlockWritten) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeOldestBlock();
+            }
+            out.flush();
+            finished = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            for (Future<byte[]> compressing : pending) {
+                compressing.cancel(true);
+            }
+            pending.clear();
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("write beyond end of stream");
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (pending.size() >= maxPendingBlocks) {
+            writeOldestBlock();
+        }
+        final byte[] input = blockLength == block.length ? block : Arrays.copyOf(block, blockLength);
+        pending.addLast(executor.submit(() -> compress(input)));
+        anyBlockWritten = true;
+        block = new byte[block.length];
+        blockLength = 0;
+    }
+
+    private void writeOldestBlock() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("failed to compress block", e.getCause());
+        }
+    }
+
+    private static byte[] compress(byte[] input) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(input);
+        }
+        return compressed.toByteArray();
+    }
+
+}
@@ -0,0 +1,433 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes rows of optional string columns as a parquet file: the first appended row names the columns, all
+ * following rows hold values, with null values written as nulls.
+ * <p>
+ * Each column chunk has a gzip compressed dictionary page and a single data page of dictionary indices, and
+ * carries min/max statistics, null and distinct counts. Column chunks with only null values have no dictionary
+ * page, and a data page with definition levels only. A row group is written once it has reached the
+ * configured number of rows or once the dictionaries of its columns grow beyond a size limit, so memory use is
+ * bounded by the row group.
+ *
+ * @see <a href="https://github.com/apache/parquet-format">parquet format</a>
+ */
+public class ParquetRowWriter implements ExportUtil.Appender, Closeable {
+
+    static final int ROW_GROUP_SIZE_DEFAULT = 100000;
+    static final long DICTIONARY_LIMIT_DEFAULT = 64L * 1024 * 1024;
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int TYPE_BYTE_ARRAY = 6;
+    private static final int REPETITION_OPTIONAL = 1;
+    private static final int CONVERTED_TYPE_UTF8 = 0;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_PLAIN_DICTIONARY = 2;
+    private static final int ENCODING_RLE = 3;
+    private static final int CODEC_GZIP = 2;
+    private static final int PAGE_TYPE_DATA = 0;
+    private static final int PAGE_TYPE_DICTIONARY = 2;
+
+    private final CountingOutputStream out;
+    private final int rowGroupSize;
+    private final long dictionaryLimit;
+
+    private List<String> columns = null;
+    private ColumnBuffer[] buffers;
+    private int rowsInGroup = 0;
+    private long rowCount = 0;
+    private final List<byte[]> rowGroups = new ArrayList<>();
+    private boolean closed = false;
+
+    public ParquetRowWriter(OutputStream out) throws IOException {
+        this(out, ROW_GROUP_SIZE_DEFAULT, DICTIONARY_LIMIT_DEFAULT);
+    }
+
+    ParquetRowWriter(OutputStream out, int rowGroupSize, long dictionaryLimit) throws IOException {
+        this.out = new CountingOutputStream(out);
+        this.rowGroupSize = rowGroupSize;
+        this.dictionaryLimit = dictionaryLimit;
+        this.out.write(MAGIC);
+    }
+
+    @Override
+    public void append(Stream<String> values) throws IOException {
+        List<String> row = values.collect(Collectors.toList());
+        if (columns == null) {
+            setColumns(row);
+        } else {
+            writeRow(row.toArray(new String[0]));
+        }
+    }
+
+    @Override
+    public void appendRow(Map<String, Object> row, List<String> columns) throws IOException {
+        if (this.columns == null) {
+            setColumns(columns);
+        }
+        String[] values = new String[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = row.get(columns.get(i));
+            values[i] = value == null ? null : value.toString();
+        }
+        writeRow(values);
+    }
+
+    public void setColumns(List<String> columns) {
+        if (this.columns != null) {
+            throw new IllegalStateException("columns already set");
+        }
+        this.columns = new ArrayList<>(columns);
+        this.buffers = new ColumnBuffer[columns.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ColumnBuffer();
+        }
+    }
+
+    public void writeRow(String[] values) throws IOException {
+        if (columns == null) {
+            throw new IllegalStateException("columns must be set before writing rows");
+        }
+        if (values.length != buffers.length) {
+            throw new IllegalArgumentException("expected [" + buffers.length + "] values, but got [" + values.length + "]");
+        }
+        long dictionaryBytes = 0;
+        for (int i = 0; i < values.length; i++) {
+            buffers[i].add(values[i]);
+            dictionaryBytes += buffers[i].dictionaryBytes;
+        }
+        rowsInGroup++;
+        rowCount++;
+        if (rowsInGroup >= rowGroupSize || dictionaryBytes >= dictionaryLimit) {
+            writeRowGroup();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (columns == null) {
+                setColumns(new ArrayList<>());
+            }
+            if (rowsInGroup > 0) {
+                writeRowGroup();
+            }
+            byte[] footer = fileMetaData();
+            out.write(footer);
+            out.write(new byte[]{
+                    (byte) footer.length,
+                    (byte) (footer.length >>> 8),
+                    (byte) (footer.length >>> 16),
+                    (byte) (footer.length >>> 24)});
+            out.write(MAGIC);
+            out.close();
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        long rowGroupOffset = out.getByteCount();
+        long totalUncompressed = 0;
+        long totalCompressed = 0;
+        ThriftCompactWriter rowGroup = new ThriftCompactWriter().structBegin();
+        rowGroup.fieldListBegin(1, ThriftCompactWriter.TYPE_STRUCT, buffers.length);
+        for (int i = 0; i < buffers.length; i++) {
+            ColumnBuffer buffer = buffers[i];
+
+            // as with parquet-mr, column chunks without values have no dictionary page and a plain encoded data page
+            boolean hasDictionary = !buffer.entries.isEmpty();
+            int dataEncoding = hasDictionary ? ENCODING_PLAIN_DICTIONARY : ENCODING_PLAIN;
+
+            long columnChunkOffset = out.getByteCount();
+            long uncompressed = 0;
+            if (hasDictionary) {
+                byte[] dictionary = buffer.dictionaryPage();
+                byte[] compressedDictionary = gzip(dictionary);
+                byte[] dictionaryHeader = new ThriftCompactWriter().structBegin()
+                        .fieldI32(1, PAGE_TYPE_DICTIONARY)
+                        .fieldI32(2, dictionary.length)
+                        .fieldI32(3, compressedDictionary.length)
+                        .fieldStructBegin(7)
+                        .fieldI32(1, buffer.entries.size())
+                        .fieldI32(2, ENCODING_PLAIN_DICTIONARY)
+                        .structEnd()
+                        .structEnd()
+                        .toByteArray();
+                out.write(dictionaryHeader);
+                out.write(compressedDictionary);
+                uncompressed += dictionaryHeader.length + dictionary.length;
+            }
+
+            long dataPageOffset = out.getByteCount();
+            byte[] data = buffer.dataPage(rowsInGroup);
+            byte[] compressedData = gzip(data);
+            byte[] dataHeader = new ThriftCompactWriter().structBegin()
+                    .fieldI32(1, PAGE_TYPE_DATA)
+                    .fieldI32(2, data.length)
+                    .fieldI32(3, compressedData.length)
+                    .fieldStructBegin(5)
+                    .fieldI32(1, rowsInGroup)
+                    .fieldI32(2, dataEncoding)
+                    .fieldI32(3, ENCODING_RLE)
+                    .fieldI32(4, ENCODING_RLE)
+                    .structEnd()
+                    .structEnd()
+                    .toByteArray();
+            out.write(dataHeader);
+            out.write(compressedData);
+
+            uncompressed += dataHeader.length + data.length;
+            long compressed = out.getByteCount() - columnChunkOffset;
+            totalUncompressed += uncompressed;
+            totalCompressed += compressed;
+
+            rowGroup.structBegin()
+                    .fieldI64(2, columnChunkOffset)
+                    .fieldStructBegin(3)
+                    .fieldI32(1, TYPE_BYTE_ARRAY)
+                    .fieldListBegin(2, ThriftCompactWriter.TYPE_I32, 2)
+                    .i32(dataEncoding)
+                    .i32(ENCODING_RLE)
+                    .fieldListBegin(3, ThriftCompactWriter.TYPE_BINARY, 1)
+                    .string(columns.get(i))
+                    .fieldI32(4, CODEC_GZIP)
+                    .fieldI64(5, rowsInGroup)
+                    .fieldI64(6, uncompressed)
+                    .fieldI64(7, compressed)
+                    .fieldI64(9, dataPageOffset);
+            if (hasDictionary) {
+                rowGroup.fieldI64(11, columnChunkOffset);
+            }
+            writeStatistics(rowGroup, buffer);
+            rowGroup.structEnd()
+                    .structEnd();
+
+            buffers[i] = new ColumnBuffer();
+        }
+        rowGroup.fieldI64(2, totalUncompressed)
+                .fieldI64(3, rowsInGroup)
+                .fieldI64(5, rowGroupOffset)
+                .fieldI64(6, totalCompressed)
+                .structEnd();
+        rowGroups.add(rowGroup.toByteArray());
+        rowsInGroup = 0;
+    }
+
+    private static void writeStatistics(ThriftCompactWriter writer, ColumnBuffer buffer) {
+        writer.fieldStructBegin(12)
+                .fieldI64(3, buffer.nullCount)
+                .fieldI64(4, buffer.entries.size());
+        if (buffer.max != null) {
+            writer.fieldBinary(5, buffer.max)
+                    .fieldBinary(6, buffer.min);
+        }
+        writer.structEnd();
+    }
+
+    private byte[] fileMetaData() {
+        ThriftCompactWriter metaData = new ThriftCompactWriter().structBegin()
+                .fieldI32(1, 1)
+                .fieldListBegin(2, ThriftCompactWriter.TYPE_STRUCT, columns.size() + 1)
+                .structBegin()
+                .fieldString(4, "schema")
+                .fieldI32(5, columns.size())
+                .structEnd();
+        for (String column : columns) {
+            metaData.structBegin()
+                    .fieldI32(1, TYPE_BYTE_ARRAY)
+                    .fieldI32(3, REPETITION_OPTIONAL)
+                    .fieldString(4, column)
+                    .fieldI32(6, CONVERTED_TYPE_UTF8)
+                    .fieldStructBegin(10)
+                    .fieldStructBegin(1)
+                    .structEnd()
+                    .structEnd()
+                    .structEnd();
+        }
+        metaData.fieldI64(3, rowCount)
+                .fieldListBegin(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+        for (byte[] rowGroup : rowGroups) {
+            metaData.raw(rowGroup);
+        }
+        metaData.fieldString(6, "eol-globi-data")
+                .fieldListBegin(7, ThriftCompactWriter.TYPE_STRUCT, columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            // type defined order, so that readers use min/max statistics of utf8 columns
+            metaData.structBegin()
+                    .fieldStructBegin(1)
+                    .structEnd()
+                    .structEnd();
+        }
+        return metaData.structEnd().toByteArray();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static class ColumnBuffer {
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private long dictionaryBytes = 0;
+        private int[] indices = new int[1024];
+        private int valueCount = 0;
+        private byte[] definitionLevels = new byte[1024];
+        private int rows = 0;
+        private long nullCount = 0;
+        private byte[] min = null;
+        private byte[] max = null;
+
+        void add(String value) {
+            if (rows == definitionLevels.length) {
+                definitionLevels = Arrays.copyOf(definitionLevels, 2 * rows);
+            }
+            if (value == null) {
+                definitionLevels[rows++] = 0;
+                nullCount++;
+            } else {
+                definitionLevels[rows++] = 1;
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    index = entries.size();
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    dictionary.put(value, index);
+                    entries.add(bytes);
+                    dictionaryBytes += 4 + bytes.length;
+                    if (min == null || compareUnsigned(bytes, min) < 0) {
+                        min = bytes;
+                    }
+                    if (max == null || compareUnsigned(bytes, max) > 0) {
+                        max = bytes;
+                    }
+                }
+                if (valueCount == indices.length) {
+                    indices = Arrays.copyOf(indices, 2 * valueCount);
+                }
+                indices[valueCount++] = index;
+            }
+        }
+
+        byte[] dictionaryPage() {
+            ByteArrayOutputStream page = new ByteArrayOutputStream((int) dictionaryBytes);
+            for (byte[] entry : entries) {
+                writeIntLittleEndian(page, entry.length);
+                page.write(entry, 0, entry.length);
+            }
+            return page.toByteArray();
+        }
+
+        byte[] dataPage(int rowCount) {
+            ByteArrayOutputStream levels = new ByteArrayOutputStream();
+            encodeHybrid(levels, i -> definitionLevels[i], rowCount, 1);
+
+            ByteArrayOutputStream page = new ByteArrayOutputStream();
+            writeIntLittleEndian(page, levels.size());
+            page.write(levels.toByteArray(), 0, levels.size());
+            if (entries.isEmpty()) {
+                return page.toByteArray();
+            }
+
+            int bitWidth = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(0, entries.size() - 1)));
+            page.write(bitWidth);
+            encodeHybrid(page, i -> indices[i], valueCount, bitWidth);
+            return page.toByteArray();
+        }
+    }
+
+    /**
+     * encodes values with the rle / bit-packing hybrid encoding: runs of at least 8 equal values are run length
+     * encoded, other values are bit-packed in groups of 8
+     */
+    static void encodeHybrid(ByteArrayOutputStream out, IntUnaryOperator values, int count, int bitWidth) {
+        int i = 0;
+        while (i < count) {
+            int runLength = runLengthAt(values, i, count);
+            if (runLength >= 8) {
+                writeVarint(out, runLength << 1);
+                int value = values.applyAsInt(i);
+                for (int b = 0; b < (bitWidth + 7) / 8; b++) {
+                    out.write(value >>> (8 * b));
+                }
+                i += runLength;
+            } else {
+                int start = i;
+                int groups = 0;
+                while (i < count && groups < 63 && runLengthAt(values, i, count) < 8) {
+                    i = Math.min(i + 8, count);
+                    groups++;
+                }
+                writeVarint(out, (groups << 1) | 1);
+                long buffer = 0;
+                int bits = 0;
+                for (int j = start; j < start + 8 * groups; j++) {
+                    long value = j < count ? values.applyAsInt(j) : 0;
+                    buffer |= value << bits;
+                    bits += bitWidth;
+                    while (bits >= 8) {
+                        out.write((int) (buffer & 0xFF));
+                        buffer >>>= 8;
+                        bits -= 8;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int runLengthAt(IntUnaryOperator values, int start, int count) {
+        int value = values.applyAsInt(start);
+        int end = start + 1;
+        while (end < count && values.applyAsInt(end) == value) {
+            end++;
+        }
+        return end - start;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeIntLittleEndian(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+
+}
@@ -0,0 +1,300 @@
+package org.eol.globi.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows as UTF-8 straight into a reusable byte buffer, escaping values on the fly, so that writing a row
+ * does not allocate intermediate lists, streams or strings.
+ * <p>
+ * Row writers produce the same bytes as an {@link ExportUtil.AppenderWriter} with the matching
+ * {@link ExportUtil.ValueJoiner} on top of a UTF-8 writer, including the replacement of unpaired surrogates
+ * with '?'.
+ */
+public abstract class RowWriter implements ExportUtil.Appender {
+
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private final OutputStream out;
+    private byte[] buffer = new byte[2 * FLUSH_THRESHOLD];
+    private int length = 0;
+    private int rowStart = 0;
+    private int valueCount = 0;
+
+    RowWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    protected abstract void writeValue(String value, boolean first);
+
+    protected void endRow() {
+        write('\n');
+    }
+
+    /**
+     * @return position in the buffer at which the current row started
+     */
+    protected int rowStart() {
+        return rowStart;
+    }
+
+    protected void truncate(int position) {
+        length = position;
+    }
+
+    public void value(String value) {
+        writeValue(value, valueCount == 0);
+        valueCount++;
+    }
+
+    public void endOfRow() throws IOException {
+        endRow();
+        valueCount = 0;
+        if (length >= FLUSH_THRESHOLD) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+        rowStart = length;
+    }
+
+    @Override
+    public void append(Stream<String> values) throws IOException {
+        Iterator<String> iterator = values.iterator();
+        while (iterator.hasNext()) {
+            value(iterator.next());
+        }
+        endOfRow();
+    }
+
+    @Override
+    public void appendRow(Map<String, Object> row, List<String> columns) throws IOException {
+        for (String column : columns) {
+            Object value = row.get(column);
+            value(value == null ? "" : value.toString());
+        }
+        endOfRow();
+    }
+
+    public void flush() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+            rowStart = 0;
+        }
+        out.flush();
+    }
+
+    protected final void write(char c) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) c;
+    }
+
+    protected final void write(String value) {
+        write(value, 0, value.length());
+    }
+
+    /**
+     * writes characters of a string as UTF-8, unpaired surrogates are written as '?'
+     */
+    protected final void write(String value, int start, int end) {
+        ensureCapacity(3 * (end - start));
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    buffer[length++] = '?';
+                }
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > buffer.length) {
+            byte[] larger = new byte[Math.max(2 * buffer.length, length + additional)];
+            System.arraycopy(buffer, 0, larger, 0, length);
+            buffer = larger;
+        }
+    }
+
+    /**
+     * Same as {@link ExportUtil.TsvValueJoiner}: blank values are written as empty values, tabs and line breaks
+     * are collapsed into single spaces and leading and trailing control characters and spaces are trimmed.
+     */
+    public static class TsvRowWriter extends RowWriter {
+
+        public TsvRowWriter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeValue(String value, boolean first) {
+            if (!first) {
+                write('\t');
+            }
+            if (value != null && !isBlank(value)) {
+                int start = 0;
+                int end = value.length();
+                while (start < end && value.charAt(start) <= ' ') {
+                    start++;
+                }
+                while (end > start && value.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+                int from = start;
+                for (int i = start; i < end; i++) {
+                    if (isLineBreakOrTab(value.charAt(i))) {
+                        write(value, from, i);
+                        write(' ');
+                        while (i + 1 < end && isLineBreakOrTab(value.charAt(i + 1))) {
+                            i++;
+                        }
+                        from = i + 1;
+                    }
+                }
+                write(value, from, end);
+            }
+        }
+
+        private static boolean isLineBreakOrTab(char c) {
+            return c == '\t' || c == '\r' || c == '\n';
+        }
+
+    }
+
+    /**
+     * Same as {@link ExportUtil.CsvValueJoiner}: values with commas, quotes or line breaks are quoted with
+     * quotes doubled.
+     */
+    public static class CsvRowWriter extends RowWriter {
+
+        public CsvRowWriter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeValue(String value, boolean first) {
+            if (!first) {
+                write(',');
+            }
+            if (value == null) {
+                write("null");
+            } else if (needsQuotes(value)) {
+                write('"');
+                int from = 0;
+                for (int i = 0; i < value.length(); i++) {
+                    if (value.charAt(i) == '"') {
+                        write(value, from, i + 1);
+                        write('"');
+                        from = i + 1;
+                    }
+                }
+                write(value, from, value.length());
+                write('"');
+            } else {
+                write(value);
+            }
+        }
+
+        private static boolean needsQuotes(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@link ExportUtil.NQuadValueJoiner}: values are separated by spaces and terminated by " .",
+     * rows without any non-blank value are written as empty lines.
+     */
+    public static class NQuadRowWriter extends RowWriter {
+
+        private boolean blank = true;
+
+        public NQuadRowWriter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeValue(String value, boolean first) {
+            if (!first) {
+                write(' ');
+            }
+            String nonNull = value == null ? "null" : value;
+            blank = blank && isBlank(nonNull);
+            write(nonNull);
+        }
+
+        @Override
+        protected void endRow() {
+            if (blank) {
+                truncate(rowStart());
+            } else {
+                write(" .");
+            }
+            blank = true;
+            super.endRow();
+        }
+    }
+
+    /**
+     * Writes rows joined by any {@link ExportUtil.ValueJoiner}, for joiners without a dedicated row writer. Values
+     * of a row are kept until the end of the row, and then joined.
+     */
+    public static class JoiningRowWriter extends RowWriter {
+
+        private final ExportUtil.ValueJoiner joiner;
+        private final List<String> values = new ArrayList<>();
+
+        public JoiningRowWriter(OutputStream out, ExportUtil.ValueJoiner joiner) {
+            super(out);
+            this.joiner = joiner;
+        }
+
+        @Override
+        protected void writeValue(String value, boolean first) {
+            values.add(value);
+        }
+
+        @Override
+        protected void endRow() {
+            write(joiner.join(values.stream()));
+            values.clear();
+            super.endRow();
+        }
+    }
+
+    // same as StringUtils.isBlank for non-null values
+    private static boolean isBlank(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,138 @@
+package org.eol.globi.export;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal writer for the thrift compact protocol, as used by parquet page headers and file metadata.
+ */
+class ThriftCompactWriter {
+
+    static final byte TYPE_BOOLEAN_TRUE = 1;
+    static final byte TYPE_BOOLEAN_FALSE = 2;
+    static final byte TYPE_I32 = 5;
+    static final byte TYPE_I64 = 6;
+    static final byte TYPE_BINARY = 8;
+    static final byte TYPE_LIST = 9;
+    static final byte TYPE_STRUCT = 12;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final Deque<Short> lastFieldIds = new ArrayDeque<>();
+    private short lastFieldId = 0;
+
+    ThriftCompactWriter fieldI32(int id, int value) {
+        fieldHeader(id, TYPE_I32);
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter fieldI64(int id, long value) {
+        fieldHeader(id, TYPE_I64);
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter fieldBoolean(int id, boolean value) {
+        fieldHeader(id, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+        return this;
+    }
+
+    ThriftCompactWriter fieldString(int id, String value) {
+        return fieldBinary(id, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    ThriftCompactWriter fieldBinary(int id, byte[] value) {
+        fieldHeader(id, TYPE_BINARY);
+        binary(value);
+        return this;
+    }
+
+    ThriftCompactWriter fieldStructBegin(int id) {
+        fieldHeader(id, TYPE_STRUCT);
+        return structBegin();
+    }
+
+    ThriftCompactWriter fieldListBegin(int id, byte elementType, int size) {
+        fieldHeader(id, TYPE_LIST);
+        return listBegin(elementType, size);
+    }
+
+    ThriftCompactWriter listBegin(byte elementType, int size) {
+        if (size < 15) {
+            out.write((size << 4) | elementType);
+        } else {
+            out.write(0xF0 | elementType);
+            varint(size);
+        }
+        return this;
+    }
+
+    ThriftCompactWriter structBegin() {
+        lastFieldIds.push(lastFieldId);
+        lastFieldId = 0;
+        return this;
+    }
+
+    ThriftCompactWriter structEnd() {
+        out.write(0);
+        lastFieldId = lastFieldIds.pop();
+        return this;
+    }
+
+    ThriftCompactWriter i32(int value) {
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter string(String value) {
+        binary(value.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * appends bytes of a complete, separately written struct or value
+     */
+    ThriftCompactWriter raw(byte[] bytes) {
+        out.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void binary(byte[] value) {
+        varint(value.length);
+        out.write(value, 0, value.length);
+    }
+
+    private void fieldHeader(int id, byte type) {
+        int delta = id - lastFieldId;
+        if (delta > 0 && delta <= 15) {
+            out.write((delta << 4) | type);
+        } else {
+            out.write(type);
+            varint(zigzag(id));
+        }
+        lastFieldId = (short) id;
+    }
+
+    private void varint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+}
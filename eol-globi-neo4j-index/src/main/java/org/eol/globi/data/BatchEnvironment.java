@@ -0,0 +1,17 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.Environment;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+
+class BatchEnvironment extends BatchNode implements Environment {
+
+    BatchEnvironment(NodeFactoryBatchInserter factory, long nodeId) {
+        super(factory, nodeId);
+    }
+
+    @Override
+    public String getName() {
+        return getPropertyStringValueOrNull(PropertyAndValueDictionary.NAME);
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.Interaction;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.Study;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+class BatchInteraction extends BatchNode implements Interaction {
+
+    private final Study study;
+    private final List<Specimen> participants = new ArrayList<>(2);
+
+    BatchInteraction(NodeFactoryBatchInserter factory, long nodeId, Study study) {
+        super(factory, nodeId);
+        this.study = study;
+    }
+
+    void addParticipant(BatchSpecimen specimen) {
+        participants.add(specimen);
+    }
+
+    @Override
+    public Collection<Specimen> getParticipants() {
+        return new ArrayList<>(participants);
+    }
+
+    @Override
+    public Study getStudy() {
+        return study;
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.Environment;
+import org.eol.globi.domain.Location;
+import org.eol.globi.domain.LocationConstant;
+
+import java.util.List;
+
+class BatchLocation extends BatchNode implements Location {
+
+    BatchLocation(NodeFactoryBatchInserter factory, long nodeId) {
+        super(factory, nodeId);
+    }
+
+    @Override
+    public Double getAltitude() {
+        return (Double) getPropertyOrNull(LocationConstant.ALTITUDE);
+    }
+
+    @Override
+    public Double getLongitude() {
+        return (Double) getPropertyOrNull(LocationConstant.LONGITUDE);
+    }
+
+    @Override
+    public Double getLatitude() {
+        return (Double) getPropertyOrNull(LocationConstant.LATITUDE);
+    }
+
+    @Override
+    public String getFootprintWKT() {
+        return getPropertyStringValueOrNull(LocationConstant.FOOTPRINT_WKT);
+    }
+
+    @Override
+    public String getLocality() {
+        return getPropertyStringValueOrNull(LocationConstant.LOCALITY);
+    }
+
+    @Override
+    public String getLocalityId() {
+        return getPropertyStringValueOrNull(LocationConstant.LOCALITY_ID);
+    }
+
+    @Override
+    public void addEnvironment(Environment environment) {
+        getFactory().addEnvironment(this, (BatchEnvironment) environment);
+    }
+
+    @Override
+    public List<Environment> getEnvironments() {
+        return getFactory().getEnvironments(this);
+    }
+
+}
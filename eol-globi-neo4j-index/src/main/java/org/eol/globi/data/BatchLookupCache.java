@@ -0,0 +1,44 @@
+package org.eol.globi.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Most recently used values by key, holding at most a fixed number of keys.
+ * <p>
+ * For as long as no key has been evicted, a missing key is known to be absent. Once keys have been
+ * evicted, missing keys are looked up with the provided lookup (e.g. in a batch inserter index).
+ */
+class BatchLookupCache<K, V> {
+
+    private final Map<K, V> recent;
+    private boolean evicted = false;
+
+    BatchLookupCache(final int maxKeys) {
+        this.recent = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                boolean full = size() > maxKeys;
+                evicted = evicted || full;
+                return full;
+            }
+        };
+    }
+
+    V get(K key, Function<K, V> lookupEvicted) {
+        V value = recent.get(key);
+        if (value == null && evicted) {
+            value = lookupEvicted.apply(key);
+            if (value != null) {
+                recent.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    void put(K key, V value) {
+        recent.put(key, value);
+    }
+
+}
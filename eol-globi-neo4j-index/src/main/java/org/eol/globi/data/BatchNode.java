@@ -0,0 +1,66 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.PropertyAndValueDictionary;
+
+import java.util.Map;
+
+/**
+ * Node written by {@link NodeFactoryBatchInserter}. Properties are read from, and written to, the batch
+ * inserter store.
+ */
+abstract class BatchNode {
+
+    private final NodeFactoryBatchInserter factory;
+    private final long nodeId;
+
+    BatchNode(NodeFactoryBatchInserter factory, long nodeId) {
+        this.factory = factory;
+        this.nodeId = nodeId;
+    }
+
+    NodeFactoryBatchInserter getFactory() {
+        return factory;
+    }
+
+    long getNodeId() {
+        return nodeId;
+    }
+
+    Map<String, Object> getProperties() {
+        return factory.getInserter().getNodeProperties(nodeId);
+    }
+
+    Object getPropertyOrNull(String name) {
+        return getProperties().get(name);
+    }
+
+    String getPropertyStringValueOrNull(String name) {
+        Object value = getPropertyOrNull(name);
+        return value == null ? null : value.toString();
+    }
+
+    void setPropertyIfNotNull(String name, Object value) {
+        if (name != null && value != null) {
+            factory.getInserter().setNodeProperty(nodeId, name, value);
+        }
+    }
+
+    public void setExternalId(String externalId) {
+        setPropertyIfNotNull(PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+    }
+
+    public String getExternalId() {
+        return getPropertyStringValueOrNull(PropertyAndValueDictionary.EXTERNAL_ID);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(nodeId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BatchNode && ((BatchNode) o).nodeId == nodeId;
+    }
+
+}
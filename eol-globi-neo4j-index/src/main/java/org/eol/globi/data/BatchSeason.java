@@ -0,0 +1,17 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.Season;
+import org.eol.globi.domain.SeasonNode;
+
+class BatchSeason extends BatchNode implements Season {
+
+    BatchSeason(NodeFactoryBatchInserter factory, long nodeId) {
+        super(factory, nodeId);
+    }
+
+    @Override
+    public String getTitle() {
+        return getPropertyStringValueOrNull(SeasonNode.TITLE);
+    }
+
+}
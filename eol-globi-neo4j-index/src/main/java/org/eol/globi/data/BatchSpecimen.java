@@ -0,0 +1,269 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.Location;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelType;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Season;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.SpecimenConstant;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.Term;
+import org.eol.globi.domain.TermImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Specimen written by {@link NodeFactoryBatchInserter}, with the same properties and relationships as
+ * {@link org.eol.globi.domain.SpecimenNode}.
+ * <p>
+ * Specimens are only created, never looked up, so each specimen keeps track of its own outgoing relationships
+ * to avoid creating the same relationship twice.
+ */
+class BatchSpecimen extends BatchNode implements Specimen {
+
+    private final Set<String> outgoing = new HashSet<>();
+    private final List<Long> studyRelationshipIds = new ArrayList<>(2);
+    private BatchLocation sampleLocation;
+    private BatchSeason season;
+
+    BatchSpecimen(NodeFactoryBatchInserter factory, long nodeId) {
+        super(factory, nodeId);
+    }
+
+    Long createRelationshipTo(BatchNode endNode, RelType relType, Map<String, Object> properties) {
+        Long relationshipId = null;
+        if (getNodeId() != endNode.getNodeId() && outgoing.add(relType.name() + ":" + endNode.getNodeId())) {
+            relationshipId = getFactory().createRelationship(getNodeId(), endNode.getNodeId(), relType, properties);
+        }
+        return relationshipId;
+    }
+
+    Long createRelationshipTo(BatchNode endNode, RelType relType) {
+        return createRelationshipTo(endNode, relType, Collections.emptyMap());
+    }
+
+    void addStudyRelationship(long relationshipId) {
+        studyRelationshipIds.add(relationshipId);
+    }
+
+    /**
+     * @return ids of the collected, supports and refutes relationships with the study of this specimen
+     */
+    List<Long> getStudyRelationshipIds() {
+        return studyRelationshipIds;
+    }
+
+    private static void createInteraction(BatchSpecimen source, InteractType relType, BatchSpecimen target) {
+        boolean isFlipped = relType.getSourceRole() == InteractType.InteractionRole.OBJECT;
+        source.createRelationshipTo(target, relType, interactProps(relType, isFlipped));
+
+        final InteractType inverseRelType = InteractType.inverseOf(relType);
+        target.createRelationshipTo(source, inverseRelType, interactProps(inverseRelType, !isFlipped));
+    }
+
+    private static Map<String, Object> interactProps(InteractType interactType, boolean inverted) {
+        Map<String, Object> properties = new HashMap<>();
+        if (interactType != null) {
+            properties.put(PropertyAndValueDictionary.LABEL, interactType.getLabel());
+            properties.put(PropertyAndValueDictionary.IRI, interactType.getIRI());
+            if (inverted) {
+                properties.put(PropertyAndValueDictionary.INVERTED, PropertyAndValueDictionary.TRUE);
+            }
+        }
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s]", getPropertyOrNull(PropertyAndValueDictionary.TYPE));
+    }
+
+    @Override
+    public Location getSampleLocation() {
+        return sampleLocation;
+    }
+
+    @Override
+    public void ate(Specimen specimen) {
+        interactsWith(specimen, InteractType.ATE);
+    }
+
+    @Override
+    public void caughtIn(Location location) {
+        if (location instanceof BatchLocation) {
+            createRelationshipTo((BatchLocation) location, RelTypes.COLLECTED_AT);
+            if (sampleLocation == null) {
+                sampleLocation = (BatchLocation) location;
+            }
+        }
+    }
+
+    @Override
+    public Season getSeason() {
+        return season;
+    }
+
+    @Override
+    public void caughtDuring(Season season) {
+        createRelationshipTo((BatchSeason) season, RelTypes.CAUGHT_DURING);
+        if (this.season == null) {
+            this.season = (BatchSeason) season;
+        }
+    }
+
+    @Override
+    public Double getLengthInMm() {
+        return (Double) getPropertyOrNull(SpecimenConstant.LENGTH_IN_MM);
+    }
+
+    @Override
+    public void classifyAs(Taxon taxon) {
+        createRelationshipTo((BatchNode) taxon, RelTypes.CLASSIFIED_AS);
+    }
+
+    @Override
+    public void setLengthInMm(Double lengthInMm) {
+        setPropertyIfNotNull(SpecimenConstant.LENGTH_IN_MM, lengthInMm);
+    }
+
+    @Override
+    public void setVolumeInMilliLiter(Double volumeInMm3) {
+        setPropertyIfNotNull(SpecimenConstant.VOLUME_IN_ML, volumeInMm3);
+    }
+
+    @Override
+    public void setStomachVolumeInMilliLiter(Double volumeInMilliLiter) {
+        setPropertyIfNotNull(SpecimenConstant.STOMACH_VOLUME_ML, volumeInMilliLiter);
+    }
+
+    @Override
+    public void interactsWith(Specimen target, InteractType type, Location location) {
+        caughtIn(location);
+        target.caughtIn(location);
+        interactsWith(target, type);
+    }
+
+    @Override
+    public void interactsWith(Specimen recipientSpecimen, InteractType relType) {
+        if (recipientSpecimen instanceof BatchSpecimen) {
+            createInteraction(this, relType, (BatchSpecimen) recipientSpecimen);
+        }
+    }
+
+    @Override
+    public void setOriginalTaxonDescription(Taxon taxon) {
+        createRelationshipTo(getFactory().createTaxon(taxon), RelTypes.ORIGINALLY_DESCRIBED_AS);
+    }
+
+    @Override
+    public void setLifeStage(List<Term> lifeStages) {
+        if (lifeStages != null && lifeStages.size() > 0) {
+            setLifeStage(lifeStages.get(0));
+        }
+    }
+
+    @Override
+    public void setLifeStage(Term lifeStage) {
+        setTerm(lifeStage, SpecimenConstant.LIFE_STAGE_LABEL, SpecimenConstant.LIFE_STAGE_ID);
+    }
+
+    @Override
+    public void setPhysiologicalState(Term physiologicalState) {
+        setTerm(physiologicalState, SpecimenConstant.PHYSIOLOGICAL_STATE_LABEL, SpecimenConstant.PHYSIOLOGICAL_STATE_ID);
+    }
+
+    @Override
+    public void setBodyPart(List<Term> bodyParts) {
+        if (bodyParts != null && bodyParts.size() > 0) {
+            setBodyPart(bodyParts.get(0));
+        }
+    }
+
+    @Override
+    public void setBodyPart(Term bodyPart) {
+        setTerm(bodyPart, SpecimenConstant.BODY_PART_LABEL, SpecimenConstant.BODY_PART_ID);
+    }
+
+    @Override
+    public void setBasisOfRecord(Term basisOfRecord) {
+        setTerm(basisOfRecord, SpecimenConstant.BASIS_OF_RECORD_LABEL, SpecimenConstant.BASIS_OF_RECORD_ID);
+    }
+
+    @Override
+    public Term getBasisOfRecord() {
+        return getTerm(SpecimenConstant.BASIS_OF_RECORD_ID, SpecimenConstant.BASIS_OF_RECORD_LABEL);
+    }
+
+    @Override
+    public void setFrequencyOfOccurrence(Double frequencyOfOccurrence) {
+        setPropertyIfNotNull(SpecimenConstant.FREQUENCY_OF_OCCURRENCE, frequencyOfOccurrence);
+    }
+
+    @Override
+    public void setTotalCount(Integer totalCount) {
+        setPropertyIfNotNull(SpecimenConstant.TOTAL_COUNT, totalCount);
+    }
+
+    @Override
+    public void setTotalVolumeInMl(Double totalVolumeInMl) {
+        setPropertyIfNotNull(SpecimenConstant.TOTAL_VOLUME_IN_ML, totalVolumeInMl);
+    }
+
+    @Override
+    public Term getLifeStage() {
+        return getTerm(SpecimenConstant.LIFE_STAGE_ID, SpecimenConstant.LIFE_STAGE_LABEL);
+    }
+
+    @Override
+    public Term getBodyPart() {
+        return getTerm(SpecimenConstant.BODY_PART_ID, SpecimenConstant.BODY_PART_LABEL);
+    }
+
+    @Override
+    public Term getSex() {
+        return getTerm(SpecimenConstant.SEX_ID, SpecimenConstant.SEX_LABEL);
+    }
+
+    @Override
+    public void setSex(Term term) {
+        setTerm(term, SpecimenConstant.SEX_LABEL, SpecimenConstant.SEX_ID);
+    }
+
+    @Override
+    public void setProperty(String name, String value) {
+        setPropertyIfNotNull(name, value);
+    }
+
+    @Override
+    public void setProperty(String name, Double value) {
+        setPropertyIfNotNull(name, value);
+    }
+
+    @Override
+    public String getProperty(String name) {
+        return getPropertyStringValueOrNull(name);
+    }
+
+    private void setTerm(Term term, String labelKey, String idKey) {
+        if (term != null) {
+            setPropertyIfNotNull(labelKey, term.getName());
+            setPropertyIfNotNull(idKey, term.getId());
+        }
+    }
+
+    private Term getTerm(String idKey, String labelKey) {
+        Map<String, Object> properties = getProperties();
+        Object id = properties.get(idKey);
+        Object label = properties.get(labelKey);
+        return new TermImpl(id == null ? null : id.toString(), label == null ? null : label.toString());
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.eol.globi.data;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.domain.Study;
+import org.eol.globi.domain.StudyConstant;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.doi.DOI;
+import org.globalbioticinteractions.doi.MalformedDOIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class BatchStudy extends BatchNode implements Study {
+    private static final Logger LOG = LoggerFactory.getLogger(BatchStudy.class);
+
+    private final Dataset originatingDataset;
+
+    BatchStudy(NodeFactoryBatchInserter factory, long nodeId, Dataset originatingDataset) {
+        super(factory, nodeId);
+        this.originatingDataset = originatingDataset;
+    }
+
+    @Override
+    public String getTitle() {
+        return getPropertyStringValueOrNull(StudyConstant.TITLE);
+    }
+
+    @Override
+    public String getName() {
+        return getTitle();
+    }
+
+    @Override
+    public DOI getDOI() {
+        String value = getPropertyStringValueOrNull(StudyConstant.DOI);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return DOI.create(value);
+            } catch (MalformedDOIException e) {
+                LOG.warn("found malformed doi [" + value + "]");
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getCitation() {
+        return getPropertyStringValueOrNull(StudyConstant.CITATION);
+    }
+
+    @Override
+    public Dataset getOriginatingDataset() {
+        return originatingDataset;
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.Location;
+import org.eol.globi.domain.LocationConstant;
+import org.eol.globi.domain.LocationNode;
+import org.eol.globi.util.NodeUtil;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.index.lucene.QueryContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+/**
+ * Indexes locations with a latitude and longitude by a single key: the grid cell of the coordinates
+ * combined with a hash of altitude, footprint and locality. Finding a location takes one exact key
+ * lookup, followed by a full comparison of the few locations that share the key.
+ * <p>
+ * The index is derived from the "locations" index, and is rebuilt from it if missing.
+ */
+public class LocationGridIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(LocationGridIndex.class);
+
+    public static final String INDEX_NAME = "locationCells";
+    static final String CELL_KEY = "cell";
+
+    // ~11m at the equator
+    private static final double CELLS_PER_DEGREE = 10000.0;
+
+    private final GraphDatabaseService graphDb;
+    private final Index<Node> cells;
+
+    public LocationGridIndex(GraphDatabaseService graphDb, Index<Node> locations) {
+        this.graphDb = graphDb;
+        boolean exists;
+        try (Transaction tx = graphDb.beginTx()) {
+            exists = graphDb.index().existsForNodes(INDEX_NAME);
+            tx.success();
+        }
+        this.cells = NodeUtil.forNodes(graphDb, INDEX_NAME);
+        if (!exists) {
+            indexLocations(locations);
+        }
+    }
+
+    static boolean hasLatLng(Location location) {
+        return location.getLatitude() != null && location.getLongitude() != null;
+    }
+
+    static String cellKeyFor(Location location) {
+        long latitudeCell = (long) Math.floor(location.getLatitude() * CELLS_PER_DEGREE);
+        long longitudeCell = (long) Math.floor(location.getLongitude() * CELLS_PER_DEGREE);
+        int attributeHash = Objects.hash(
+                location.getAltitude(),
+                location.getFootprintWKT(),
+                location.getLocality(),
+                location.getLocalityId());
+        return latitudeCell + "," + longitudeCell + "," + Integer.toHexString(attributeHash);
+    }
+
+    /**
+     * @return first indexed location that has the same grid cell key and matches the provided location, or null if none
+     */
+    public Node find(Location location, BiPredicate<Location, Location> isSameLocation) {
+        Node matchingLocation = null;
+        if (hasLatLng(location)) {
+            try (Transaction tx = graphDb.beginTx()) {
+                IndexHits<Node> candidates = cells.get(CELL_KEY, cellKeyFor(location));
+                for (Node candidate : candidates) {
+                    if (isSameLocation.test(location, new LocationNode(candidate))) {
+                        matchingLocation = candidate;
+                        break;
+                    }
+                }
+                candidates.close();
+                tx.success();
+            }
+        }
+        return matchingLocation;
+    }
+
+    /**
+     * adds a location node to the index, expects to be called within a transaction
+     */
+    public void add(LocationNode location) {
+        if (hasLatLng(location)) {
+            cells.add(location.getUnderlyingNode(), CELL_KEY, cellKeyFor(location));
+        }
+    }
+
+    private void indexLocations(Index<Node> locations) {
+        List<Long> locationIds = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
+            IndexHits<Node> hits = locations.query(QueryContext.numericRange(LocationConstant.LATITUDE, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+            for (Node hit : hits) {
+                locationIds.add(hit.getId());
+            }
+            hits.close();
+            tx.success();
+        }
+
+        if (!locationIds.isEmpty()) {
+            LOG.info("indexing [" + locationIds.size() + "] locations in [" + INDEX_NAME + "] index...");
+        }
+        for (int offset = 0; offset < locationIds.size(); offset += NodeUtil.TRANSACTION_BATCH_SIZE_DEFAULT) {
+            int end = Math.min(locationIds.size(), offset + NodeUtil.TRANSACTION_BATCH_SIZE_DEFAULT);
+            try (Transaction tx = graphDb.beginTx()) {
+                for (Long locationId : locationIds.subList(offset, end)) {
+                    add(new LocationNode(graphDb.getNodeById(locationId)));
+                }
+                tx.success();
+            }
+        }
+        if (!locationIds.isEmpty()) {
+            LOG.info("indexing [" + locationIds.size() + "] locations in [" + INDEX_NAME + "] index done.");
+        }
+    }
+
+}
@@ -0,0 +1,705 @@
+package org.eol.globi.data;
+
+import org.apache.commons.lang3.StringUtils;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.eol.globi.domain.Environment;
+import org.eol.globi.domain.Interaction;
+import org.eol.globi.domain.Location;
+import org.eol.globi.domain.LocationConstant;
+import org.eol.globi.domain.LocationImpl;
+import org.eol.globi.domain.LocationNode;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelType;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Season;
+import org.eol.globi.domain.SeasonNode;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.SpecimenConstant;
+import org.eol.globi.domain.SpecimenNode;
+import org.eol.globi.domain.Study;
+import org.eol.globi.domain.StudyConstant;
+import org.eol.globi.domain.StudyNode;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.Term;
+import org.eol.globi.domain.TermImpl;
+import org.eol.globi.service.AuthorIdResolver;
+import org.eol.globi.service.EnvoLookupService;
+import org.eol.globi.service.ORCIDResolverImpl;
+import org.eol.globi.service.TaxonUtil;
+import org.eol.globi.service.TermLookupService;
+import org.eol.globi.service.TermLookupServiceException;
+import org.eol.globi.taxon.TermLookupServiceWithResource;
+import org.eol.globi.taxon.UberonLookupService;
+import org.eol.globi.util.NodeUtil;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.globalbioticinteractions.doi.DOI;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.index.impl.lucene.LuceneIndexImplementation;
+import org.neo4j.index.lucene.ValueContext;
+import org.neo4j.index.lucene.unsafe.batchinsert.LuceneBatchInserterIndexProvider;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserterIndex;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+import org.neo4j.unsafe.batchinsert.BatchRelationship;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.eol.globi.domain.LocationUtil.fromLocation;
+
+/**
+ * Node factory for bulk loading an empty graph with the neo4j batch inserter.
+ * <p>
+ * Creates the same nodes, relationships and legacy index entries as {@link NodeFactoryNeo4j}, but writes them
+ * directly to the store, without transactions. Studies, datasets, external ids, seasons, environments and
+ * locations are found through bounded maps of recently used nodes. Only once these maps have evicted entries
+ * are lookups passed on to the (flushed) batch indexes.
+ * <p>
+ * Like the batch inserter, the factory is not thread-safe. The graph is only consistent after
+ * {@link #shutdown()}, and a failed bulk load leaves an unusable store behind.
+ */
+public class NodeFactoryBatchInserter implements NodeFactory {
+    private static final Logger LOG = LoggerFactory.getLogger(NodeFactoryBatchInserter.class);
+
+    public static final int MAX_CACHED_KEYS_DEFAULT = 100000;
+
+    private final BatchInserter inserter;
+    private final LuceneBatchInserterIndexProvider indexProvider;
+    private final Set<BatchInserterIndex> unflushedIndexes = new HashSet<>();
+
+    private final BatchInserterIndex studies;
+    private final BatchInserterIndex externalIds;
+    private final BatchInserterIndex datasets;
+    private final BatchInserterIndex seasons;
+    private final BatchInserterIndex locations;
+    private final BatchInserterIndex environments;
+    private final BatchInserterIndex locationCells;
+
+    private final BatchLookupCache<String, Long> studyIds;
+    private final BatchLookupCache<String, Long> externalIdIds;
+    private final BatchLookupCache<String, Long> datasetIds;
+    private final BatchLookupCache<String, Long> seasonIds;
+    private final BatchLookupCache<String, Long> environmentIds;
+    private final BatchLookupCache<List<Object>, Long> locationIds;
+    private final BatchLookupCache<Long, Set<Long>> environmentIdsOfLocation;
+
+    private TermLookupService termLookupService;
+    private TermLookupService envoLookupService;
+    private final TermLookupService lifeStageLookupService;
+    private final TermLookupService bodyPartLookupService;
+
+    public static NodeFactoryBatchInserter open(File storeDir) throws IOException {
+        if (new File(storeDir, "neostore").exists()) {
+            throw new IOException("bulk import needs an empty graph, but found existing graph at [" + storeDir.getAbsolutePath() + "]");
+        }
+        return new NodeFactoryBatchInserter(BatchInserters.inserter(storeDir), MAX_CACHED_KEYS_DEFAULT);
+    }
+
+    public NodeFactoryBatchInserter(BatchInserter inserter, int maxCachedKeys) {
+        this.inserter = inserter;
+        this.indexProvider = new LuceneBatchInserterIndexProvider(inserter);
+
+        this.termLookupService = new UberonLookupService();
+        this.lifeStageLookupService = new TermLookupServiceWithResource("life-stage-mapping.csv");
+        this.bodyPartLookupService = new TermLookupServiceWithResource("body-part-mapping.csv");
+        this.envoLookupService = new EnvoLookupService();
+
+        this.studies = nodeIndex("studies");
+        this.externalIds = nodeIndex("externalIds");
+        this.datasets = nodeIndex("datasets");
+        this.seasons = nodeIndex("seasons");
+        this.locations = nodeIndex("locations");
+        this.environments = nodeIndex("environments");
+        this.locationCells = nodeIndex(LocationGridIndex.INDEX_NAME);
+
+        this.studyIds = new BatchLookupCache<>(maxCachedKeys);
+        this.externalIdIds = new BatchLookupCache<>(maxCachedKeys);
+        this.datasetIds = new BatchLookupCache<>(maxCachedKeys);
+        this.seasonIds = new BatchLookupCache<>(maxCachedKeys);
+        this.environmentIds = new BatchLookupCache<>(maxCachedKeys);
+        this.locationIds = new BatchLookupCache<>(maxCachedKeys);
+        this.environmentIdsOfLocation = new BatchLookupCache<>(maxCachedKeys);
+    }
+
+    private BatchInserterIndex nodeIndex(String indexName) {
+        return indexProvider.nodeIndex(indexName, LuceneIndexImplementation.EXACT_CONFIG);
+    }
+
+    BatchInserter getInserter() {
+        return inserter;
+    }
+
+    public void shutdown() {
+        LOG.info("flushing indexes and shutting down batch inserter at [" + inserter.getStoreDir() + "]...");
+        indexProvider.shutdown();
+        inserter.shutdown();
+        LOG.info("flushing indexes and shutting down batch inserter at [" + inserter.getStoreDir() + "] done.");
+    }
+
+    long createNode(Map<String, Object> properties) {
+        return inserter.createNode(properties);
+    }
+
+    long createRelationship(long startNodeId, long endNodeId, RelType relType, Map<String, Object> properties) {
+        return inserter.createRelationship(startNodeId, endNodeId, NodeUtil.asNeo4j(relType), properties);
+    }
+
+    private long createRelationship(long startNodeId, long endNodeId, RelType relType) {
+        return createRelationship(startNodeId, endNodeId, relType, Collections.emptyMap());
+    }
+
+    // all entries of a node are added at once, because batch inserter indexes create a lucene document per add
+    private void addToIndex(BatchInserterIndex index, long nodeId, Map<String, Object> entries) {
+        if (!entries.isEmpty()) {
+            index.add(nodeId, entries);
+            unflushedIndexes.add(index);
+        }
+    }
+
+    private List<Long> findInIndex(BatchInserterIndex index, String key, Object value) {
+        if (unflushedIndexes.remove(index)) {
+            index.flush();
+        }
+        List<Long> nodeIds = new ArrayList<>();
+        IndexHits<Long> hits = index.get(key, value);
+        try {
+            for (Long hit : hits) {
+                nodeIds.add(hit);
+            }
+        } finally {
+            hits.close();
+        }
+        return nodeIds;
+    }
+
+    private Long findFirstInIndex(BatchInserterIndex index, String key, Object value) {
+        List<Long> nodeIds = findInIndex(index, key, value);
+        return nodeIds.isEmpty() ? null : nodeIds.get(0);
+    }
+
+    @Override
+    public Location findLocation(Location location) throws NodeFactoryException {
+        Long nodeId = findLocationId(location);
+        return nodeId == null ? null : new BatchLocation(this, nodeId);
+    }
+
+    // like NodeFactoryNeo4j, only locations with coordinates, a locality or a locality id are looked up
+    private Long findLocationId(Location location) throws NodeFactoryException {
+        boolean hasLatLng = LocationGridIndex.hasLatLng(location);
+        if (hasLatLng) {
+            NodeFactoryNeo4j.validate(location);
+        }
+        return (hasLatLng || location.getLocality() != null || location.getLocalityId() != null) && isMatchable(location)
+                ? locationIds.get(keyOf(location), key -> findEvictedLocation(location))
+                : null;
+    }
+
+    // blank localities are stored as absent, so, as in NodeFactoryNeo4j.isSameLocation,
+    // a location with a blank locality or locality id is never the same as a stored one
+    private static boolean isMatchable(Location location) {
+        return !isBlankNotNull(location.getLocality()) && !isBlankNotNull(location.getLocalityId());
+    }
+
+    private static boolean isBlankNotNull(String value) {
+        return value != null && StringUtils.isBlank(value);
+    }
+
+    private static List<Object> keyOf(Location location) {
+        return Arrays.asList(
+                location.getLatitude(),
+                location.getLongitude(),
+                location.getAltitude(),
+                location.getFootprintWKT(),
+                location.getLocality(),
+                location.getLocalityId());
+    }
+
+    private Long findEvictedLocation(Location location) {
+        List<Long> candidates = new ArrayList<>();
+        if (LocationGridIndex.hasLatLng(location)) {
+            candidates.addAll(findInIndex(locationCells, LocationGridIndex.CELL_KEY, LocationGridIndex.cellKeyFor(location)));
+        }
+        if (location.getLocality() != null) {
+            candidates.addAll(findInIndex(locations, LocationConstant.LOCALITY, location.getLocality()));
+        }
+        if (location.getLocalityId() != null) {
+            candidates.addAll(findInIndex(locations, LocationConstant.LOCALITY_ID, location.getLocalityId()));
+        }
+        List<Object> key = keyOf(location);
+        Long match = null;
+        for (Long candidate : candidates) {
+            if (key.equals(keyOf(storedLocationOf(inserter.getNodeProperties(candidate))))) {
+                match = candidate;
+                break;
+            }
+        }
+        return match;
+    }
+
+    @Override
+    public Season createSeason(String seasonNameLower) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(SeasonNode.TITLE, seasonNameLower);
+        properties.put(PropertyAndValueDictionary.TYPE, SeasonNode.class.getSimpleName());
+        long nodeId = createNode(properties);
+        addToIndex(seasons, nodeId, Collections.singletonMap(SeasonNode.TITLE, seasonNameLower));
+        seasonIds.put(seasonNameLower, nodeId);
+        return new BatchSeason(this, nodeId);
+    }
+
+    private BatchLocation createLocation(Location location) {
+        Location locationCopy = fromLocation(location);
+        Map<String, Object> properties = new HashMap<>();
+        if (locationCopy.getAltitude() != null) {
+            properties.put(LocationConstant.ALTITUDE, locationCopy.getAltitude());
+        }
+        if (locationCopy.getFootprintWKT() != null) {
+            properties.put(LocationConstant.FOOTPRINT_WKT, locationCopy.getFootprintWKT());
+        }
+        if (locationCopy.getLongitude() != null) {
+            properties.put(LocationConstant.LATITUDE, locationCopy.getLatitude());
+        }
+        if (locationCopy.getLatitude() != null) {
+            properties.put(LocationConstant.LONGITUDE, locationCopy.getLongitude());
+        }
+        properties.put(PropertyAndValueDictionary.TYPE, LocationNode.class.getSimpleName());
+        if (StringUtils.isNotBlank(locationCopy.getLocality())) {
+            properties.put(LocationConstant.LOCALITY, locationCopy.getLocality());
+        }
+        if (StringUtils.isNotBlank(locationCopy.getLocalityId())) {
+            properties.put(LocationConstant.LOCALITY_ID, locationCopy.getLocalityId());
+        }
+        long nodeId = createNode(properties);
+
+        Map<String, Object> entries = new HashMap<>();
+        if (location.getLatitude() != null) {
+            entries.put(LocationConstant.LATITUDE, ValueContext.numeric(location.getLatitude()));
+        }
+        if (location.getLongitude() != null) {
+            entries.put(LocationConstant.LONGITUDE, ValueContext.numeric(location.getLongitude()));
+        }
+        if (location.getAltitude() != null) {
+            entries.put(LocationConstant.ALTITUDE, ValueContext.numeric(location.getAltitude()));
+        }
+        if (StringUtils.isNotBlank(location.getFootprintWKT())) {
+            entries.put(LocationConstant.FOOTPRINT_WKT, location.getFootprintWKT());
+        }
+        if (StringUtils.isNotBlank(location.getLocality())) {
+            entries.put(LocationConstant.LOCALITY, location.getLocality());
+        }
+        if (StringUtils.isNotBlank(location.getLocalityId())) {
+            entries.put(LocationConstant.LOCALITY_ID, location.getLocalityId());
+        }
+        addToIndex(locations, nodeId, entries);
+
+        Location storedLocation = storedLocationOf(properties);
+        if (LocationGridIndex.hasLatLng(storedLocation)) {
+            addToIndex(locationCells, nodeId, Collections.singletonMap(LocationGridIndex.CELL_KEY, LocationGridIndex.cellKeyFor(storedLocation)));
+        }
+        // keyed by stored values, so that, as in an index lookup, the first location stored with them is found
+        List<Object> storedKey = keyOf(storedLocation);
+        if (locationIds.get(storedKey, key -> findEvictedLocation(storedLocation)) == null) {
+            locationIds.put(storedKey, nodeId);
+        }
+        return new BatchLocation(this, nodeId);
+    }
+
+    private static Location storedLocationOf(Map<String, Object> properties) {
+        LocationImpl location = new LocationImpl(
+                (Double) properties.get(LocationConstant.LATITUDE),
+                (Double) properties.get(LocationConstant.LONGITUDE),
+                (Double) properties.get(LocationConstant.ALTITUDE),
+                (String) properties.get(LocationConstant.FOOTPRINT_WKT));
+        location.setLocality((String) properties.get(LocationConstant.LOCALITY));
+        location.setLocalityId((String) properties.get(LocationConstant.LOCALITY_ID));
+        return location;
+    }
+
+    @Override
+    public Specimen createSpecimen(Interaction interaction, Taxon taxon) throws NodeFactoryException {
+        BatchSpecimen specimen = createSpecimen(interaction.getStudy(), taxon);
+        BatchInteraction batchInteraction = (BatchInteraction) interaction;
+        createRelationship(batchInteraction.getNodeId(), specimen.getNodeId(), RelTypes.HAS_PARTICIPANT);
+        batchInteraction.addParticipant(specimen);
+        return specimen;
+    }
+
+    @Override
+    public BatchSpecimen createSpecimen(Study study, Taxon taxon) throws NodeFactoryException {
+        return createSpecimen(study, taxon, RelTypes.COLLECTED, RelTypes.SUPPORTS);
+    }
+
+    @Override
+    public BatchSpecimen createSpecimen(Study study, Taxon taxon, RelTypes... types) throws NodeFactoryException {
+        if (null == study) {
+            throw new NodeFactoryException("specimen needs study, but none is specified");
+        }
+
+        if (null == types || types.length == 0) {
+            throw new NodeFactoryException("specimen needs at least one study relationship type, but none is specified");
+        }
+
+        long studyId = ((BatchStudy) study).getNodeId();
+        long nodeId = createNode(Collections.singletonMap(PropertyAndValueDictionary.TYPE, SpecimenNode.class.getSimpleName()));
+        BatchSpecimen specimen = new BatchSpecimen(this, nodeId);
+        for (RelTypes type : new LinkedHashSet<>(Arrays.asList(types))) {
+            long relationshipId = createRelationship(studyId, nodeId, type);
+            if (RelTypes.COLLECTED == type || RelTypes.SUPPORTS == type || RelTypes.REFUTES == type) {
+                specimen.addStudyRelationship(relationshipId);
+            }
+        }
+
+        specimen.setOriginalTaxonDescription(taxon);
+        if (StringUtils.isNotBlank(taxon.getName())) {
+            NodeFactoryNeo4j.extractTerms(taxon.getName(), specimen, lifeStageLookupService, bodyPartLookupService);
+        }
+        return specimen;
+    }
+
+    // same properties as a TaxonNode with the provided taxon copied into it
+    BatchNode createTaxon(Taxon taxon) {
+        TaxonImpl taxonCopy = new TaxonImpl();
+        TaxonUtil.copy(taxon, taxonCopy);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PropertyAndValueDictionary.NAME, StringUtils.isBlank(taxonCopy.getName()) ? PropertyAndValueDictionary.NO_NAME : taxonCopy.getName());
+        putIfNotNull(properties, PropertyAndValueDictionary.RANK, taxonCopy.getRank());
+        putIfNotNull(properties, PropertyAndValueDictionary.EXTERNAL_ID, taxonCopy.getExternalId());
+        putIfNotNull(properties, PropertyAndValueDictionary.PATH, taxonCopy.getPath());
+        putIfNotNull(properties, PropertyAndValueDictionary.PATH_IDS, taxonCopy.getPathIds());
+        putIfNotNull(properties, PropertyAndValueDictionary.PATH_NAMES, taxonCopy.getPathNames());
+        putIfNotNull(properties, PropertyAndValueDictionary.COMMON_NAMES, taxonCopy.getCommonNames());
+        putIfNotNull(properties, PropertyAndValueDictionary.EXTERNAL_URL, taxonCopy.getExternalUrl());
+        putIfNotNull(properties, PropertyAndValueDictionary.THUMBNAIL_URL, taxonCopy.getThumbnailUrl());
+        Term status = taxonCopy.getStatus();
+        if (status != null
+                && StringUtils.isNotBlank(status.getId())
+                && StringUtils.isNotBlank(status.getName())) {
+            properties.put(PropertyAndValueDictionary.STATUS_ID, status.getId());
+            properties.put(PropertyAndValueDictionary.STATUS_LABEL, status.getName());
+        }
+        return new BatchNode(this, createNode(properties)) {
+        };
+    }
+
+    private static void putIfNotNull(Map<String, Object> properties, String key, Object value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    @Override
+    public BatchStudy createStudy(Study study) {
+        Map<String, Object> properties = new HashMap<>();
+        putIfNotNull(properties, StudyConstant.TITLE, study.getTitle());
+        properties.put(PropertyAndValueDictionary.TYPE, StudyNode.class.getSimpleName());
+        putIfNotNull(properties, StudyConstant.CITATION, study.getCitation());
+        DOI doi = study.getDOI();
+        if (doi != null) {
+            properties.put(StudyConstant.DOI, doi.toString());
+            properties.put(PropertyAndValueDictionary.EXTERNAL_ID, doi.toPrintableDOI());
+        }
+        String externalId = NodeFactoryNeo4j.getExternalIdOrDOI(study);
+        putIfNotNull(properties, PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+        long nodeId = createNode(properties);
+
+        if (doi != null) {
+            createExternalIdRelationIfExists(nodeId, doi.toString(), RelTypes.HAS_DOI);
+        }
+        createExternalIdRelationIfExists(nodeId, externalId, RelTypes.HAS_EXTERNAL_ID);
+
+        Long datasetId = getOrCreateDatasetId(study.getOriginatingDataset());
+        if (datasetId != null) {
+            createRelationship(nodeId, datasetId, RelTypes.IN_DATASET);
+        }
+
+        String titleInNamespace = NodeFactoryNeo4j.getTitleInNamespace(study);
+        Map<String, Object> entries = new HashMap<>();
+        entries.put(StudyConstant.TITLE, study.getTitle());
+        entries.put(StudyConstant.TITLE_IN_NAMESPACE, titleInNamespace);
+        addToIndex(studies, nodeId, entries);
+        studyIds.put(titleInNamespace, nodeId);
+
+        return new BatchStudy(this, nodeId, datasetId == null ? null : study.getOriginatingDataset());
+    }
+
+    private void createExternalIdRelationIfExists(long nodeId, String externalId, RelTypes relType) {
+        Long externalIdNodeId = getOrCreateExternalId(externalId);
+        if (externalIdNodeId != null) {
+            createRelationship(nodeId, externalIdNodeId, relType);
+        }
+    }
+
+    private Long getOrCreateExternalId(String externalId) {
+        Long nodeId = null;
+        if (StringUtils.isNotBlank(externalId)) {
+            nodeId = externalIdIds.get(externalId, key -> findFirstInIndex(externalIds, PropertyAndValueDictionary.EXTERNAL_ID, key));
+            if (nodeId == null) {
+                nodeId = createNode(Collections.singletonMap(PropertyAndValueDictionary.EXTERNAL_ID, externalId));
+                addToIndex(externalIds, nodeId, Collections.singletonMap(PropertyAndValueDictionary.EXTERNAL_ID, externalId));
+                externalIdIds.put(externalId, nodeId);
+            }
+        }
+        return nodeId;
+    }
+
+    private Long getOrCreateDatasetId(Dataset dataset) {
+        Long nodeId = null;
+        if (dataset != null && StringUtils.isNotBlank(dataset.getNamespace())) {
+            nodeId = datasetIds.get(dataset.getNamespace(), key -> findFirstInIndex(datasets, DatasetConstant.NAMESPACE, key));
+            if (nodeId == null) {
+                nodeId = createDataset(dataset);
+            }
+        }
+        return nodeId;
+    }
+
+    private long createDataset(Dataset dataset) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(DatasetConstant.NAMESPACE, dataset.getNamespace());
+        URI archiveURI = dataset.getArchiveURI();
+        if (archiveURI != null) {
+            properties.put(DatasetConstant.ARCHIVE_URI, archiveURI.toString());
+        }
+        URI configURI = dataset.getConfigURI();
+        if (configURI != null) {
+            properties.put(DatasetConstant.CONFIG_URI, configURI.toString());
+        }
+        JsonNode config = dataset.getConfig();
+        if (config != null) {
+            try {
+                properties.put(DatasetConstant.CONFIG, new ObjectMapper().writeValueAsString(config));
+            } catch (IOException e) {
+                LOG.warn("failed to serialize dataset config");
+            }
+        }
+        properties.put(StudyConstant.FORMAT, dataset.getFormat());
+        DOI doi = dataset.getDOI();
+        if (doi != null) {
+            properties.put(StudyConstant.DOI, doi.toString());
+        }
+        properties.put(DatasetConstant.CITATION, StringUtils.defaultIfBlank(dataset.getCitation(), "no citation"));
+        properties.put(DatasetConstant.SHOULD_RESOLVE_REFERENCES, dataset.getOrDefault(DatasetConstant.SHOULD_RESOLVE_REFERENCES, "true"));
+        properties.put(DatasetConstant.LAST_SEEN_AT, dataset.getOrDefault(DatasetConstant.LAST_SEEN_AT, Long.toString(System.currentTimeMillis())));
+        String contentHash = dataset.getOrDefault(DatasetConstant.CONTENT_HASH, null);
+        if (StringUtils.isNotBlank(contentHash)) {
+            properties.put(DatasetConstant.CONTENT_HASH, contentHash);
+        }
+        long nodeId = createNode(properties);
+
+        if (archiveURI != null) {
+            createExternalIdRelationIfExists(nodeId, archiveURI.toString(), RelTypes.HAS_EXTERNAL_ID);
+        }
+        if (doi != null) {
+            createExternalIdRelationIfExists(nodeId, doi.toString(), RelTypes.HAS_DOI);
+        }
+        addToIndex(datasets, nodeId, Collections.singletonMap(DatasetConstant.NAMESPACE, dataset.getNamespace()));
+        datasetIds.put(dataset.getNamespace(), nodeId);
+        return nodeId;
+    }
+
+    @Override
+    public BatchStudy getOrCreateStudy(Study study) throws NodeFactoryException {
+        if (StringUtils.isBlank(study.getTitle())) {
+            throw new NodeFactoryException("null or empty study title");
+        }
+        BatchStudy studyFound = findStudy(study);
+        return studyFound == null
+                ? createStudy(study)
+                : studyFound;
+    }
+
+    private BatchStudy findStudy(Study study) {
+        Long nodeId = studyIds.get(NodeFactoryNeo4j.getTitleInNamespace(study),
+                key -> findFirstInIndex(studies, StudyConstant.TITLE_IN_NAMESPACE, key));
+        Dataset dataset = study.getOriginatingDataset();
+        return nodeId == null
+                ? null
+                : new BatchStudy(this, nodeId, dataset == null || StringUtils.isBlank(dataset.getNamespace()) ? null : dataset);
+    }
+
+    @Deprecated
+    @Override
+    public Study findStudy(String title) {
+        return findStudy(new org.eol.globi.domain.StudyImpl(title));
+    }
+
+    @Override
+    public Season findSeason(String seasonName) {
+        Long nodeId = seasonIds.get(seasonName, key -> findFirstInIndex(seasons, SeasonNode.TITLE, key));
+        return nodeId == null ? null : new BatchSeason(this, nodeId);
+    }
+
+    @Override
+    public Location getOrCreateLocation(Location location) throws NodeFactoryException {
+        Location locationFound = findLocation(location);
+        return locationFound == null
+                ? createLocation(location)
+                : locationFound;
+    }
+
+    @Override
+    public void setUnixEpochProperty(Specimen specimen, Date date) throws NodeFactoryException {
+        if (specimen != null && date != null) {
+            for (Long relationshipId : getCollectedRel(specimen)) {
+                inserter.setRelationshipProperty(relationshipId, SpecimenConstant.DATE_IN_UNIX_EPOCH, date.getTime());
+            }
+        }
+    }
+
+    private List<Long> getCollectedRel(Specimen specimen) throws NodeFactoryException {
+        List<Long> relationshipIds = ((BatchSpecimen) specimen).getStudyRelationshipIds();
+        if (relationshipIds.isEmpty()) {
+            throw new NodeFactoryException("specimen not associated with study");
+        }
+        return relationshipIds;
+    }
+
+    @Override
+    public Date getUnixEpochProperty(Specimen specimen) throws NodeFactoryException {
+        List<Long> relationshipIds = getCollectedRel(specimen);
+        // neo4j lists the most recently created relationship first
+        Object unixEpoch = inserter
+                .getRelationshipProperties(relationshipIds.get(relationshipIds.size() - 1))
+                .get(SpecimenConstant.DATE_IN_UNIX_EPOCH);
+        return unixEpoch == null ? null : new Date((Long) unixEpoch);
+    }
+
+    @Override
+    public List<Environment> getOrCreateEnvironments(Location location, String externalId, String name) throws NodeFactoryException {
+        List<Term> terms;
+        try {
+            terms = envoLookupService.lookupTermByName(name);
+            if (terms.size() == 0) {
+                terms.add(new TermImpl(externalId, name));
+            }
+        } catch (TermLookupServiceException e) {
+            throw new NodeFactoryException("failed to lookup environment [" + name + "]", e);
+        }
+
+        return addEnvironmentToLocation(location, terms);
+    }
+
+    @Override
+    public List<Environment> addEnvironmentToLocation(Location location, List<Term> terms) {
+        List<Environment> normalizedEnvironments = new ArrayList<>();
+        for (Term term : terms) {
+            Long nodeId = environmentIds.get(term.getName(), key -> findFirstInIndex(environments, PropertyAndValueDictionary.NAME, key));
+            if (nodeId == null) {
+                Map<String, Object> properties = new HashMap<>();
+                properties.put(PropertyAndValueDictionary.NAME, StringUtils.isBlank(term.getName()) ? PropertyAndValueDictionary.NO_NAME : term.getName());
+                putIfNotNull(properties, PropertyAndValueDictionary.EXTERNAL_ID, term.getId());
+                nodeId = createNode(properties);
+                addToIndex(environments, nodeId, Collections.singletonMap(PropertyAndValueDictionary.NAME, term.getName()));
+                environmentIds.put(term.getName(), nodeId);
+            }
+            BatchEnvironment environment = new BatchEnvironment(this, nodeId);
+            location.addEnvironment(environment);
+            normalizedEnvironments.add(environment);
+        }
+        return normalizedEnvironments;
+    }
+
+    void addEnvironment(BatchLocation location, BatchEnvironment environment) {
+        Set<Long> environmentIds = environmentIdsOfLocation.get(location.getNodeId(), this::findEnvironmentIdsOf);
+        if (environmentIds == null) {
+            environmentIds = new HashSet<>();
+            environmentIdsOfLocation.put(location.getNodeId(), environmentIds);
+        }
+        if (location.getNodeId() != environment.getNodeId() && environmentIds.add(environment.getNodeId())) {
+            createRelationship(location.getNodeId(), environment.getNodeId(), RelTypes.HAS_ENVIRONMENT);
+        }
+    }
+
+    List<Environment> getEnvironments(BatchLocation location) {
+        List<Environment> environments = new ArrayList<>();
+        for (Long environmentId : findEnvironmentIdsOf(location.getNodeId())) {
+            environments.add(new BatchEnvironment(this, environmentId));
+        }
+        return environments;
+    }
+
+    // walks all relationships of a location, so only used for locations that are no longer cached
+    private Set<Long> findEnvironmentIdsOf(long locationId) {
+        Set<Long> environmentIds = new LinkedHashSet<>();
+        for (BatchRelationship relationship : inserter.getRelationships(locationId)) {
+            if (relationship.getStartNode() == locationId
+                    && RelTypes.HAS_ENVIRONMENT.name().equals(relationship.getType().name())) {
+                environmentIds.add(relationship.getEndNode());
+            }
+        }
+        return environmentIds;
+    }
+
+    @Override
+    public Term getOrCreateBodyPart(String externalId, String name) throws NodeFactoryException {
+        return NodeFactoryNeo4j.matchTerm(getTermLookupService(), externalId, name);
+    }
+
+    @Override
+    public Term getOrCreatePhysiologicalState(String externalId, String name) throws NodeFactoryException {
+        return NodeFactoryNeo4j.matchTerm(getTermLookupService(), externalId, name);
+    }
+
+    @Override
+    public Term getOrCreateLifeStage(String externalId, String name) throws NodeFactoryException {
+        return NodeFactoryNeo4j.matchTerm(getTermLookupService(), externalId, name);
+    }
+
+    @Override
+    public TermLookupService getTermLookupService() {
+        return termLookupService;
+    }
+
+    public void setEnvoLookupService(TermLookupService envoLookupService) {
+        this.envoLookupService = envoLookupService;
+    }
+
+    public void setTermLookupService(TermLookupService termLookupService) {
+        this.termLookupService = termLookupService;
+    }
+
+    @Override
+    public AuthorIdResolver getAuthorResolver() {
+        return new ORCIDResolverImpl();
+    }
+
+    @Override
+    public Term getOrCreateBasisOfRecord(String externalId, String name) throws NodeFactoryException {
+        return NodeFactoryNeo4j.matchTerm(getTermLookupService(), externalId, name);
+    }
+
+    @Override
+    public Dataset getOrCreateDataset(Dataset dataset) {
+        return getOrCreateDatasetId(dataset) == null ? null : dataset;
+    }
+
+    @Override
+    public Interaction createInteraction(Study study) throws NodeFactoryException {
+        long nodeId = createNode(Collections.emptyMap());
+        BatchStudy studyNode = getOrCreateStudy(study);
+        createRelationship(nodeId, studyNode.getNodeId(), RelTypes.DERIVED_FROM);
+        Long datasetId = getOrCreateDatasetId(study.getOriginatingDataset());
+        if (datasetId != null) {
+            createRelationship(nodeId, datasetId, RelTypes.ACCESSED_AT);
+        }
+        return new BatchInteraction(this, nodeId, studyNode);
+    }
+
+}
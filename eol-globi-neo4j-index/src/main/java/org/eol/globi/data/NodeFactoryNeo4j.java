@@ -44,7 +44,6 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
-import org.neo4j.index.lucene.QueryContext;
 import org.neo4j.index.lucene.ValueContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +68,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
     private final Index<Node> seasons;
     private final Index<Node> locations;
     private final Index<Node> environments;
+    private final LocationGridIndex locationCells;
 
     private TermLookupService termLookupService;
     private TermLookupService envoLookupService;
@@ -88,6 +88,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
         this.seasons = NodeUtil.forNodes(graphDb, "seasons");
         this.locations = NodeUtil.forNodes(graphDb, "locations");
         this.environments = NodeUtil.forNodes(graphDb, "environments");
+        this.locationCells = new LocationGridIndex(graphDb, locations);
     }
 
     public GraphDatabaseService getGraphDb() {
@@ -97,7 +98,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
     @Override
     public LocationNode findLocation(Location location) throws NodeFactoryException {
         Node matchingLocation = null;
-        if (hasLatLng(location)) {
+        if (LocationGridIndex.hasLatLng(location)) {
             matchingLocation = findLocationByLatitude(location);
         }
         if (matchingLocation == null) {
@@ -109,10 +110,6 @@ public class NodeFactoryNeo4j implements NodeFactory {
         return matchingLocation == null ? null : new LocationNode(matchingLocation);
     }
 
-    private boolean hasLatLng(Location location) {
-        return location.getLatitude() != null && location.getLongitude() != null;
-    }
-
     private Node findLocationByLocality(Location location) throws NodeFactoryException {
         return location.getLocality() == null ? null : findLocationBy(location, LocationConstant.LOCALITY, location.getLocality());
     }
@@ -180,22 +177,8 @@ public class NodeFactoryNeo4j implements NodeFactory {
 
 
     private Node findLocationByLatitude(Location location) throws NodeFactoryException {
-        Node matchingLocation = null;
         validate(location);
-        QueryContext queryOrQueryObject = QueryContext.numericRange(LocationConstant.LATITUDE, location.getLatitude(), location.getLatitude());
-        try (Transaction transaction = getGraphDb().beginTx()) {
-            IndexHits<Node> matchingLocations = locations.query(queryOrQueryObject);
-            for (Node node : matchingLocations) {
-                final LocationNode foundLocation = new LocationNode(node);
-                if (isSameLocation(location, foundLocation)) {
-                    matchingLocation = node;
-                    break;
-                }
-            }
-            matchingLocations.close();
-            transaction.success();
-        }
-        return matchingLocation;
+        return locationCells.find(location, this::isSameLocation);
     }
 
     @Override
@@ -234,6 +217,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
             if (StringUtils.isNotBlank(location.getLocalityId())) {
                 locations.add(node, LocationConstant.LOCALITY_ID, location.getLocalityId());
             }
+            locationCells.add(locationNode);
             transaction.success();
         }
         return locationNode;
@@ -268,21 +252,21 @@ public class NodeFactoryNeo4j implements NodeFactory {
 
         specimen.setOriginalTaxonDescription(taxon);
         if (StringUtils.isNotBlank(taxon.getName())) {
-            extractTerms(taxon.getName(), specimen);
+            extractTerms(taxon.getName(), specimen, lifeStageLookupService, bodyPartLookupService);
         }
         return specimen;
     }
 
-    private void extractTerms(String taxonName, Specimen specimen) throws NodeFactoryException {
+    static void extractTerms(String taxonName, Specimen specimen, TermLookupService lifeStageLookupService, TermLookupService bodyPartLookupService) throws NodeFactoryException {
         String s = StringUtils.replacePattern(taxonName, "[^A-Za-z]", " ");
         String[] nameParts = StringUtils.split(s);
         for (String part : nameParts) {
-            extractLifeStage(specimen, part);
-            extractBodyPart(specimen, part);
+            extractLifeStage(specimen, part, lifeStageLookupService);
+            extractBodyPart(specimen, part, bodyPartLookupService);
         }
     }
 
-    private void extractLifeStage(Specimen specimen, String part) throws NodeFactoryException {
+    private static void extractLifeStage(Specimen specimen, String part, TermLookupService lifeStageLookupService) throws NodeFactoryException {
         try {
             List<Term> terms = lifeStageLookupService.lookupTermByName(part);
             for (Term term : terms) {
@@ -296,7 +280,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
         }
     }
 
-    private void extractBodyPart(Specimen specimen, String part) throws NodeFactoryException {
+    private static void extractBodyPart(Specimen specimen, String part, TermLookupService bodyPartLookupService) throws NodeFactoryException {
         try {
             List<Term> terms = bodyPartLookupService.lookupTermByName(part);
             for (Term term : terms) {
@@ -360,7 +344,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
         }
     }
 
-    private String getExternalIdOrDOI(Study study) {
+    static String getExternalIdOrDOI(Study study) {
         String externalId = study.getExternalId();
         if (StringUtils.isBlank(externalId) && null != study.getDOI()) {
             externalId = study.getDOI().toURI().toString();
@@ -399,6 +383,10 @@ public class NodeFactoryNeo4j implements NodeFactory {
         datasetNode.setProperty(DatasetConstant.CITATION, StringUtils.defaultIfBlank(dataset.getCitation(), "no citation"));
         datasetNode.setProperty(DatasetConstant.SHOULD_RESOLVE_REFERENCES, dataset.getOrDefault(DatasetConstant.SHOULD_RESOLVE_REFERENCES, "true"));
         datasetNode.setProperty(DatasetConstant.LAST_SEEN_AT, dataset.getOrDefault(DatasetConstant.LAST_SEEN_AT, Long.toString(System.currentTimeMillis())));
+        String contentHash = dataset.getOrDefault(DatasetConstant.CONTENT_HASH, null);
+        if (StringUtils.isNotBlank(contentHash)) {
+            datasetNode.setProperty(DatasetConstant.CONTENT_HASH, contentHash);
+        }
         datasets.add(datasetNode, DatasetConstant.NAMESPACE, dataset.getNamespace());
         return datasetNode;
     }
@@ -427,7 +415,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
                 : studyNode;
     }
 
-    private String namespaceOrNull(Study study) {
+    private static String namespaceOrNull(Study study) {
         return study != null && study.getOriginatingDataset() != null
                 ? study.getOriginatingDataset().getNamespace()
                 : null;
@@ -450,7 +438,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
         return foundStudyNode == null ? null : new StudyNode(foundStudyNode);
     }
 
-    private String getTitleInNamespace(Study study) {
+    static String getTitleInNamespace(Study study) {
         String namespace = namespaceOrNull(study);
         return StringUtils.isBlank(namespace)
                 ? study.getTitle()
@@ -478,7 +466,7 @@ public class NodeFactoryNeo4j implements NodeFactory {
         return locationNode;
     }
 
-    private void validate(Location location) throws NodeFactoryException {
+    static void validate(Location location) throws NodeFactoryException {
         if (!LocationUtil.isValidLatitude(location.getLatitude())) {
             throw new NodeFactoryException("found invalid latitude [" + location.getLatitude() + "]");
         }
@@ -597,8 +585,12 @@ public class NodeFactoryNeo4j implements NodeFactory {
     }
 
     private Term matchTerm(String externalId, String name) throws NodeFactoryException {
+        return matchTerm(getTermLookupService(), externalId, name);
+    }
+
+    static Term matchTerm(TermLookupService termLookupService, String externalId, String name) throws NodeFactoryException {
         try {
-            List<Term> terms = getTermLookupService().lookupTermByName(name);
+            List<Term> terms = termLookupService.lookupTermByName(name);
             return terms.size() == 0 ? NO_MATCH_TERM : terms.get(0);
         } catch (TermLookupServiceException e) {
             throw new NodeFactoryException("failed to lookup term [" + externalId + "]:[" + name + "]");
@@ -0,0 +1,102 @@
+package org.eol.globi.tool;
+
+import org.eol.globi.util.NodeUtil;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.IndexHits;
+
+/**
+ * Records the progress of a long running indexer in the graph itself: saving a checkpoint in the same
+ * transaction as a batch of work means that the checkpoint is only committed together with that batch.
+ * After a crash, an indexer can pick up from the last committed checkpoint.
+ */
+public class IndexerCheckpoint {
+
+    static final String INDEX_NAME = "checkpoints";
+
+    private static final String NAME = "name";
+    private static final String PHASE = "phase";
+    private static final String OFFSET = "offset";
+    private static final String LAST_NODE_ID = "lastNodeId";
+
+    private final GraphDatabaseService graphDb;
+    private final String name;
+    private final Index<Node> checkpoints;
+
+    public IndexerCheckpoint(GraphDatabaseService graphDb, String name) {
+        this.graphDb = graphDb;
+        this.name = name;
+        this.checkpoints = NodeUtil.forNodes(graphDb, INDEX_NAME);
+    }
+
+    private Node find() {
+        IndexHits<Node> hits = checkpoints.get(NAME, name);
+        Node checkpoint = hits.hasNext() ? hits.next() : null;
+        hits.close();
+        return checkpoint;
+    }
+
+    private Object get(String key) {
+        Object value = null;
+        try (Transaction tx = graphDb.beginTx()) {
+            Node checkpoint = find();
+            if (checkpoint != null) {
+                value = checkpoint.getProperty(key, null);
+            }
+            tx.success();
+        }
+        return value;
+    }
+
+    /**
+     * @return the phase of the last committed checkpoint, or null if none
+     */
+    public String getPhase() {
+        return (String) get(PHASE);
+    }
+
+    /**
+     * @return number of items completed in the phase of the last committed checkpoint, or 0 if none
+     */
+    public long getOffset() {
+        Object offset = get(OFFSET);
+        return offset == null ? 0L : (Long) offset;
+    }
+
+    /**
+     * @return id of the last node completed in the phase of the last committed checkpoint, or -1 if none
+     */
+    public long getLastNodeId() {
+        Object lastNodeId = get(LAST_NODE_ID);
+        return lastNodeId == null ? -1L : (Long) lastNodeId;
+    }
+
+    /**
+     * saves checkpoint, expects to be called within the transaction of the work that was completed
+     */
+    public void save(String phase, long offset, long lastNodeId) {
+        Node checkpoint = find();
+        if (checkpoint == null) {
+            checkpoint = graphDb.createNode();
+            checkpoint.setProperty(NAME, name);
+            checkpoints.add(checkpoint, NAME, name);
+        }
+        checkpoint.setProperty(PHASE, phase);
+        checkpoint.setProperty(OFFSET, offset);
+        checkpoint.setProperty(LAST_NODE_ID, lastNodeId);
+    }
+
+    public void clear() {
+        try (Transaction tx = graphDb.beginTx()) {
+            Node checkpoint = find();
+            if (checkpoint != null) {
+                checkpoints.remove(checkpoint);
+                checkpoint.delete();
+            }
+            tx.success();
+        }
+    }
+
+}
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import org.eol.globi.data.CharsetConstant;
 import org.eol.globi.data.DatasetImporter;
 import org.eol.globi.data.DatasetImporterForRegistry;
+import org.eol.globi.data.NodeFactory;
 import org.eol.globi.data.NodeFactoryNeo4j;
 import org.eol.globi.data.ParserFactoryLocal;
 import org.eol.globi.data.StudyImporterException;
@@ -15,7 +16,6 @@ import org.eol.globi.service.DatasetLocal;
 import org.globalbioticinteractions.dataset.DatasetRegistry;
 import org.globalbioticinteractions.dataset.DatasetRegistryException;
 import org.globalbioticinteractions.dataset.DatasetUtil;
-import org.neo4j.graphdb.GraphDatabaseService;
 
 import java.util.Collection;
 
@@ -30,19 +30,20 @@ public class IndexerDataset implements IndexerNeo4j {
 
     @Override
     public void index(GraphServiceFactory graphService) {
-        indexDatasets(graphService, this.registry);
+        index(new NodeFactoryNeo4j(graphService.getGraphService()));
     }
 
-    private static void indexDatasets(GraphServiceFactory factory, DatasetRegistry registry) {
+    public void index(NodeFactory nodeFactory) {
+        indexDatasets(nodeFactory, this.registry);
+    }
+
+    private static void indexDatasets(NodeFactory nodeFactory, DatasetRegistry registry) {
         try {
             final Collection<String> namespaces = registry.findNamespaces();
 
             String namespacelist = StringUtils.join(namespaces, CharsetConstant.SEPARATOR);
             LOG.info("found dataset namespaces: {" + namespacelist + "}");
 
-            final GraphDatabaseService graphService1 = factory.getGraphService();
-            NodeFactoryNeo4j nodeFactory = new NodeFactoryNeo4j(graphService1);
-
             DatasetImporterForRegistry importer = new DatasetImporterForRegistry(new ParserFactoryLocal(), nodeFactory, registry);
             importer.setDatasetFilter(x -> !DatasetUtil.isDeprecated(x));
             importer.setDataset(new DatasetLocal(inStream -> inStream));
@@ -17,64 +17,129 @@ import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.graphdb.index.IndexManager;
 import org.neo4j.helpers.collection.MapUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class LinkerTaxonIndex implements IndexerNeo4j {
+    private static final Logger LOG = LoggerFactory.getLogger(LinkerTaxonIndex.class);
 
     public static final String INDEX_TAXON_NAMES_AND_IDS = "taxonPaths";
 
+    static final String PHASE_LINK = "link";
+    static final String PHASE_FUZZY = "fuzzy";
+
+    private final int batchSize;
+
+    public LinkerTaxonIndex() {
+        this(NodeUtil.TRANSACTION_BATCH_SIZE_DEFAULT);
+    }
+
+    /**
+     * @param batchSize number of taxa linked per transaction
+     */
+    public LinkerTaxonIndex(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
 
     @Override
     public void index(GraphServiceFactory factory) {
         GraphDatabaseService graphDb = factory.getGraphService();
-        Transaction tx = graphDb.beginTx();
-        try {
+        IndexerCheckpoint checkpoint = new IndexerCheckpoint(graphDb, LinkerTaxonIndex.class.getSimpleName());
+        List<Long> taxonIds = findTaxonIds(graphDb);
+
+        String phase = checkpoint.getPhase();
+        long offset = checkpoint.getOffset();
+        if (phase != null) {
+            long lastNodeId = checkpoint.getLastNodeId();
+            if (offset > taxonIds.size() || offset > 0 && taxonIds.get((int) offset - 1) != lastNodeId) {
+                throw new IllegalStateException("cannot resume linking: taxa changed since last checkpoint at [" + phase + "] [" + offset + "]");
+            }
+            LOG.info("resuming [" + phase + "] after [" + offset + "] of [" + taxonIds.size() + "] taxa");
+        }
+
+        if (phase == null || PHASE_LINK.equals(phase)) {
+            Index<Node> ids = NodeUtil.forNodes(graphDb, INDEX_TAXON_NAMES_AND_IDS, MapUtil.stringMap(IndexManager.PROVIDER, "lucene", "type", "fulltext"));
+            inBatches(graphDb, checkpoint, PHASE_LINK, taxonIds, phase == null ? 0 : offset, hit -> link(ids, hit));
+        }
+
+        TaxonFuzzySearchIndex fuzzySearchIndex;
+        try (Transaction tx = graphDb.beginTx()) {
+            fuzzySearchIndex = new TaxonFuzzySearchIndex(graphDb);
+            tx.success();
+        }
+        inBatches(graphDb, checkpoint, PHASE_FUZZY, taxonIds, PHASE_FUZZY.equals(phase) ? offset : 0, hit -> addToFuzzyIndex(fuzzySearchIndex, hit));
+
+        checkpoint.clear();
+    }
+
+    private static List<Long> findTaxonIds(GraphDatabaseService graphDb) {
+        List<Long> taxonIds = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
             Index<Node> taxons = graphDb.index().forNodes("taxons");
-            Index<Node> ids = graphDb.index().forNodes(INDEX_TAXON_NAMES_AND_IDS, MapUtil.stringMap(IndexManager.PROVIDER, "lucene", "type", "fulltext"));
-            TaxonFuzzySearchIndex fuzzySearchIndex = new TaxonFuzzySearchIndex(graphDb);
             IndexHits<Node> hits = taxons.query("*:*");
             for (Node hit : hits) {
-                List<String> taxonIds = new ArrayList<>();
-                List<String> taxonPathIdsAndNames = new ArrayList<>();
-                TaxonNode taxonNode = new TaxonNode(hit);
-                addTaxonId(taxonIds, taxonNode);
-                addPathIdAndNames(taxonPathIdsAndNames, taxonNode);
-
-                addToFuzzyIndex(graphDb, fuzzySearchIndex, hit, taxonNode);
-
-                Iterable<Relationship> rels = hit.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.SAME_AS));
-                for (Relationship rel : rels) {
-                    TaxonNode sameAsTaxon = new TaxonNode(rel.getEndNode());
-                    addTaxonId(taxonIds, sameAsTaxon);
-                    addPathIdAndNames(taxonPathIdsAndNames, sameAsTaxon);
-                    addToFuzzyIndex(graphDb, fuzzySearchIndex, hit, sameAsTaxon);
-                }
-                taxonPathIdsAndNames.addAll(taxonIds);
-                String aggregateIds = StringUtils.join(taxonPathIdsAndNames.stream().distinct().sorted().collect(Collectors.toList()), CharsetConstant.SEPARATOR);
-                ids.add(hit, PropertyAndValueDictionary.PATH, aggregateIds);
-                hit.setProperty(PropertyAndValueDictionary.EXTERNAL_IDS, aggregateIds);
-
-                String aggregateTaxonIds = StringUtils.join(taxonIds.stream().distinct().sorted().collect(Collectors.toList()), CharsetConstant.SEPARATOR);
-                hit.setProperty(PropertyAndValueDictionary.NAME_IDS, aggregateTaxonIds);
-                tx.success();
-                tx.close();
-                tx = graphDb.beginTx();
+                taxonIds.add(hit.getId());
             }
             hits.close();
             tx.success();
-        } finally {
-            tx.close();
         }
+        return taxonIds;
     }
 
-    private void addToFuzzyIndex(GraphDatabaseService graphDb, TaxonFuzzySearchIndex fuzzySearchIndex, Node indexNode, TaxonNode taxonNode) {
-        try (Transaction tx = graphDb.beginTx()) {
-            fuzzySearchIndex.index(indexNode, taxonNode);
-            tx.success();
+    private void inBatches(GraphDatabaseService graphDb, IndexerCheckpoint checkpoint, String phase, List<Long> taxonIds, long start, Consumer<Node> work) {
+        for (int offset = (int) start; offset < taxonIds.size(); ) {
+            int end = Math.min(taxonIds.size(), offset + batchSize);
+            try (Transaction tx = graphDb.beginTx()) {
+                for (Long taxonId : taxonIds.subList(offset, end)) {
+                    work.accept(graphDb.getNodeById(taxonId));
+                }
+                checkpoint.save(phase, end, taxonIds.get(end - 1));
+                tx.success();
+            }
+            offset = end;
+            onBatchCommitted(phase, offset, taxonIds.size());
+        }
+    }
+
+    void onBatchCommitted(String phase, long offset, long total) {
+        if (offset == total || offset % (batchSize * 100L) == 0) {
+            LOG.info("[" + phase + "] completed for [" + offset + "] of [" + total + "] taxa");
+        }
+    }
+
+    private void link(Index<Node> ids, Node hit) {
+        List<String> taxonIds = new ArrayList<>();
+        List<String> taxonPathIdsAndNames = new ArrayList<>();
+        TaxonNode taxonNode = new TaxonNode(hit);
+        addTaxonId(taxonIds, taxonNode);
+        addPathIdAndNames(taxonPathIdsAndNames, taxonNode);
+
+        Iterable<Relationship> rels = hit.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.SAME_AS));
+        for (Relationship rel : rels) {
+            TaxonNode sameAsTaxon = new TaxonNode(rel.getEndNode());
+            addTaxonId(taxonIds, sameAsTaxon);
+            addPathIdAndNames(taxonPathIdsAndNames, sameAsTaxon);
+        }
+        taxonPathIdsAndNames.addAll(taxonIds);
+        String aggregateIds = StringUtils.join(taxonPathIdsAndNames.stream().distinct().sorted().collect(Collectors.toList()), CharsetConstant.SEPARATOR);
+        ids.add(hit, PropertyAndValueDictionary.PATH, aggregateIds);
+        hit.setProperty(PropertyAndValueDictionary.EXTERNAL_IDS, aggregateIds);
+
+        String aggregateTaxonIds = StringUtils.join(taxonIds.stream().distinct().sorted().collect(Collectors.toList()), CharsetConstant.SEPARATOR);
+        hit.setProperty(PropertyAndValueDictionary.NAME_IDS, aggregateTaxonIds);
+    }
+
+    private void addToFuzzyIndex(TaxonFuzzySearchIndex fuzzySearchIndex, Node hit) {
+        fuzzySearchIndex.index(hit, new TaxonNode(hit));
+        Iterable<Relationship> rels = hit.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.SAME_AS));
+        for (Relationship rel : rels) {
+            fuzzySearchIndex.index(hit, new TaxonNode(rel.getEndNode()));
         }
     }
 
@@ -7,10 +7,12 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.eol.globi.Version;
+import org.eol.globi.data.NodeFactoryBatchInserter;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.db.GraphServiceFactory;
 import org.eol.globi.db.GraphServiceFactoryImpl;
@@ -21,15 +23,19 @@ import org.eol.globi.taxon.TaxonCacheService;
 import org.eol.globi.util.HttpUtil;
 import org.globalbioticinteractions.dataset.DatasetRegistry;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class Normalizer {
     private static final Logger LOG = LoggerFactory.getLogger(Normalizer.class);
     private static final String OPTION_HELP = "h";
     private static final String OPTION_SKIP_IMPORT = "skipImport";
+    private static final String OPTION_BULK_IMPORT = "bulkImport";
     private static final String OPTION_SKIP_TAXON_CACHE = "skipTaxonCache";
     private static final String OPTION_SKIP_RESOLVE = "skipResolve";
     private static final String OPTION_SKIP_EXPORT = "skipExport";
@@ -37,8 +43,25 @@ public class Normalizer {
     private static final String OPTION_SKIP_LINK = "skipLink";
     private static final String OPTION_SKIP_REPORT = "skipReport";
     private static final String OPTION_DATASET_DIR = "datasetDir";
+    private static final String OPTION_EXPORT_PARTITION_DIR = "exportPartitionDir";
     private static final String OPTION_SKIP_RESOLVE_CITATIONS = OPTION_SKIP_RESOLVE;
 
+    static final String CHECKPOINT_FILE = "./normalizer-checkpoint.json";
+    static final String RUN_LOG_FILE = "./normalizer-runs.jsonl";
+
+    private static final String PHASE_IMPORT = "import";
+    private static final String PHASE_LINK_DOI = "linkDOI";
+    private static final String PHASE_INDEX_TAXA = "indexTaxa";
+    private static final String PHASE_RESOLVE_NAMES = "resolveNames";
+    private static final String PHASE_INDEX_INTERACTIONS = "indexTaxonInteractions";
+    private static final String PHASE_LINK_TAXA = "linkTaxa";
+    private static final String PHASE_REPORT = "report";
+    private static final String PHASE_EXPORT = "export";
+
+    private static final String TAXON_CACHE = "/taxa/taxonCache.tsv.gz";
+    private static final String TAXON_MAP = "/taxa/taxonMap.tsv.gz";
+    private static final String DOI_CACHE = "/tsv/citations.tsv.gz";
+
     public static void main(final String[] args) throws StudyImporterException, ParseException {
         String o = Version.getVersionInfo(Normalizer.class);
         LOG.info(o);
@@ -65,6 +88,7 @@ public class Normalizer {
     private static Options getOptions() {
         Options options = new Options();
         options.addOption(OPTION_SKIP_IMPORT, false, "skip the import of all GloBI datasets");
+        options.addOption(OPTION_BULK_IMPORT, false, "import all GloBI datasets into an empty graph using the neo4j batch inserter");
         options.addOption(OPTION_SKIP_EXPORT, false, "skip the export for GloBI datasets to aggregated archives.");
         options.addOption(OPTION_SKIP_TAXON_CACHE, false, "skip usage of taxon cache");
         options.addOption(OPTION_SKIP_RESOLVE, false, "skip taxon name query to external taxonomies");
@@ -72,6 +96,7 @@ public class Normalizer {
         options.addOption(OPTION_SKIP_LINK, false, "skip taxa cross-reference step");
         options.addOption(OPTION_SKIP_REPORT, false, "skip report generation step");
         options.addOption(OPTION_DATASET_DIR, true, "specifies location of dataset cache");
+        options.addOption(OPTION_EXPORT_PARTITION_DIR, true, "specifies location of per dataset export partitions, and only re-exports datasets with changed content");
 
         Option helpOpt = new Option(OPTION_HELP, "help", false, "print this help information");
         options.addOption(helpOpt);
@@ -81,10 +106,11 @@ public class Normalizer {
     public void run(CommandLine cmdLine) throws StudyImporterException {
         final GraphServiceFactory factory = new GraphServiceFactoryImpl("./");
         try {
-            importDatasets(cmdLine, factory);
-            resolveAndLinkTaxa(cmdLine, factory);
-            generateReports(cmdLine, factory);
-            exportData(cmdLine, factory.getGraphService());
+            PhaseManager phases = createPhaseManager(factory);
+            importDatasets(cmdLine, factory, phases);
+            resolveAndLinkTaxa(cmdLine, factory, phases);
+            generateReports(cmdLine, factory, phases);
+            exportData(cmdLine, factory, phases);
         } finally {
             factory.clear();
             HttpUtil.shutdown();
@@ -92,78 +118,193 @@ public class Normalizer {
 
     }
 
-    private void exportData(CommandLine cmdLine, GraphDatabaseService graphService) throws StudyImporterException {
-        if (cmdLine == null || !cmdLine.hasOption(OPTION_SKIP_EXPORT)) {
-            exportData(graphService, "./");
+    private static PhaseManager createPhaseManager(GraphServiceFactory factory) throws StudyImporterException {
+        File checkpointFile = new File(CHECKPOINT_FILE);
+        try {
+            return new PhaseManager(checkpointFile, new File(RUN_LOG_FILE), () -> countRecords(factory.getGraphService()));
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to read checkpoint [" + checkpointFile.getAbsolutePath() + "]", e);
+        }
+    }
+
+    static Map<String, Long> countRecords(GraphDatabaseService graphService) {
+        Map<String, Long> counts = new TreeMap<>();
+        counts.put("nodes", count(graphService, "MATCH (n) RETURN count(n) AS count"));
+        counts.put("relationships", count(graphService, "MATCH ()-[r]->() RETURN count(r) AS count"));
+        return counts;
+    }
+
+    private static long count(GraphDatabaseService graphService, String query) {
+        long count;
+        try (Transaction tx = graphService.beginTx(); Result result = graphService.execute(query)) {
+            count = ((Number) result.columnAs("count").next()).longValue();
+            tx.success();
+        }
+        return count;
+    }
+
+    private static boolean shouldRun(CommandLine cmdLine, String skipOption) {
+        return cmdLine == null || !cmdLine.hasOption(skipOption);
+    }
+
+    private void exportData(CommandLine cmdLine, GraphServiceFactory factory, PhaseManager phases) throws StudyImporterException {
+        if (shouldRun(cmdLine, OPTION_SKIP_EXPORT)) {
+            File partitionDir = cmdLine == null || !cmdLine.hasOption(OPTION_EXPORT_PARTITION_DIR)
+                    ? null
+                    : new File(cmdLine.getOptionValue(OPTION_EXPORT_PARTITION_DIR));
+            String inputFingerprint = partitionDir == null ? null : exportInputFingerprint();
+            String phaseFingerprint = PhaseManager.fingerprintOf(
+                    Version.getVersion(),
+                    partitionDir == null ? null : partitionDir.getAbsolutePath(),
+                    inputFingerprint);
+            phases.run(PHASE_EXPORT, phaseFingerprint, () -> exportData(factory.getGraphService(), "./", partitionDir, inputFingerprint));
         } else {
             LOG.info("skipping data export...");
+            phases.skip(PHASE_EXPORT);
+        }
+    }
+
+    // export partitions are reused only for as long as the taxon cache, taxon map and doi citations are unchanged
+    private static String exportInputFingerprint() throws StudyImporterException {
+        try {
+            return PhaseManager.fingerprintOfResources(TAXON_CACHE, TAXON_MAP, DOI_CACHE);
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to fingerprint export inputs [" + TAXON_CACHE + "], [" + TAXON_MAP + "] and [" + DOI_CACHE + "]", e);
         }
     }
 
-    private void generateReports(CommandLine cmdLine, GraphServiceFactory graphService) {
-        if (cmdLine == null || !cmdLine.hasOption(OPTION_SKIP_REPORT)) {
-            new ReportGenerator(graphService.getGraphService()).run();
+    // like the doi resolver, treat an unavailable doi cache as empty rather than failing
+    private static String doiCacheFingerprint() {
+        try {
+            return PhaseManager.fingerprintOfResources(DOI_CACHE);
+        } catch (IOException e) {
+            LOG.warn("failed to fingerprint doi cache [" + DOI_CACHE + "]", e);
+            return PhaseManager.fingerprintOf(DOI_CACHE, "unavailable");
+        }
+    }
+
+    private void generateReports(CommandLine cmdLine, GraphServiceFactory graphService, PhaseManager phases) throws StudyImporterException {
+        if (shouldRun(cmdLine, OPTION_SKIP_REPORT)) {
+            phases.run(PHASE_REPORT, "", () -> new ReportGenerator(graphService.getGraphService()).run());
         } else {
             LOG.info("skipping report generation ...");
+            phases.skip(PHASE_REPORT);
         }
     }
 
-    private void importDatasets(CommandLine cmdLine, GraphServiceFactory factory) throws StudyImporterException {
-        if (cmdLine == null || !cmdLine.hasOption(OPTION_SKIP_IMPORT)) {
+    private void importDatasets(CommandLine cmdLine, GraphServiceFactory factory, PhaseManager phases) throws StudyImporterException {
+        if (shouldRun(cmdLine, OPTION_SKIP_IMPORT)) {
             String cacheDir = cmdLine == null
                     ? "target/datasets"
                     : cmdLine.getOptionValue(OPTION_DATASET_DIR, "target/datasets");
+            boolean bulkImport = cmdLine != null && cmdLine.hasOption(OPTION_BULK_IMPORT);
+            File graphDir = new File("./graph.db");
 
-            DatasetRegistry registry = DatasetRegistryUtil.getDatasetRegistry(cacheDir);
-            new IndexerDataset(registry).index(factory);
+            String inputFingerprint;
+            try {
+                inputFingerprint = PhaseManager.fingerprintOf(PhaseManager.fingerprintOf(new File(cacheDir)), Boolean.toString(bulkImport));
+            } catch (IOException e) {
+                throw new StudyImporterException("failed to fingerprint datasets in [" + cacheDir + "]", e);
+            }
+
+            phases.run(PHASE_IMPORT, inputFingerprint, () -> {
+                if (phases.recordedInPreviousRun(PHASE_IMPORT)) {
+                    removeGraphOfPreviousRun(factory, graphDir);
+                }
+                DatasetRegistry registry = DatasetRegistryUtil.getDatasetRegistry(cacheDir);
+                if (bulkImport) {
+                    bulkImportDatasets(registry, graphDir);
+                } else {
+                    new IndexerDataset(registry).index(factory);
+                }
+            });
         } else {
             LOG.info("skipping data import...");
+            phases.skip(PHASE_IMPORT);
+        }
+    }
+
+    // datasets are imported into an empty graph, so a graph left by an earlier (partial) import is removed first
+    private static void removeGraphOfPreviousRun(GraphServiceFactory factory, File graphDir) throws StudyImporterException {
+        LOG.info("removing graph of previous import at [" + graphDir.getAbsolutePath() + "]...");
+        factory.clear();
+        try {
+            FileUtils.deleteDirectory(graphDir);
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to remove graph at [" + graphDir.getAbsolutePath() + "]", e);
+        }
+    }
+
+    private void bulkImportDatasets(DatasetRegistry registry, File storeDir) throws StudyImporterException {
+        LOG.info("bulk importing datasets into [" + storeDir.getAbsolutePath() + "]...");
+        NodeFactoryBatchInserter nodeFactory;
+        try {
+            nodeFactory = NodeFactoryBatchInserter.open(storeDir);
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to start bulk import into [" + storeDir.getAbsolutePath() + "]", e);
+        }
+        try {
+            new IndexerDataset(registry).index(nodeFactory);
+        } finally {
+            nodeFactory.shutdown();
         }
+        LOG.info("bulk importing datasets into [" + storeDir.getAbsolutePath() + "] done.");
     }
 
-    private void resolveAndLinkTaxa(CommandLine cmdLine, GraphServiceFactory graphServiceFactory) {
-        if (cmdLine == null || !cmdLine.hasOption(OPTION_SKIP_RESOLVE_CITATIONS)) {
-            LOG.info("resolving citations to DOIs ...");
-            new LinkerDOI(new DOIResolverCache()).index(graphServiceFactory);
-            //new LinkerDOI(graphService).link();
+    private void resolveAndLinkTaxa(CommandLine cmdLine, GraphServiceFactory graphServiceFactory, PhaseManager phases) throws StudyImporterException {
+        if (shouldRun(cmdLine, OPTION_SKIP_RESOLVE_CITATIONS)) {
+            phases.run(PHASE_LINK_DOI, doiCacheFingerprint(), () -> {
+                LOG.info("resolving citations to DOIs ...");
+                new LinkerDOI(new DOIResolverCache(DOI_CACHE)).index(graphServiceFactory);
+            });
         } else {
             LOG.info("skipping citation resolving ...");
+            phases.skip(PHASE_LINK_DOI);
         }
 
-        if (cmdLine == null || !cmdLine.hasOption(OPTION_SKIP_TAXON_CACHE)) {
-            final TaxonCacheService taxonCacheService = new TaxonCacheService(
-                    "/taxa/taxonCache.tsv.gz",
-                    "/taxa/taxonMap.tsv.gz");
-            IndexerNeo4j taxonIndexer = new IndexerTaxa(taxonCacheService);
-            taxonIndexer.index(graphServiceFactory);
+        if (shouldRun(cmdLine, OPTION_SKIP_TAXON_CACHE)) {
+            String inputFingerprint;
+            try {
+                inputFingerprint = PhaseManager.fingerprintOfResources(TAXON_CACHE, TAXON_MAP);
+            } catch (IOException e) {
+                throw new StudyImporterException("failed to fingerprint taxon cache [" + TAXON_CACHE + "] and map [" + TAXON_MAP + "]", e);
+            }
+            phases.run(PHASE_INDEX_TAXA, inputFingerprint, () -> {
+                IndexerNeo4j taxonIndexer = new IndexerTaxa(new TaxonCacheService(TAXON_CACHE, TAXON_MAP));
+                taxonIndexer.index(graphServiceFactory);
+            });
         } else {
             LOG.info("skipping taxon cache ...");
+            phases.skip(PHASE_INDEX_TAXA);
         }
 
-        if (cmdLine == null || !cmdLine.hasOption(OPTION_SKIP_RESOLVE)) {
-            final NonResolvingTaxonIndex taxonIndex = new NonResolvingTaxonIndex(graphServiceFactory.getGraphService());
-            final IndexerNeo4j nameResolver = new NameResolver(taxonIndex);
-            final IndexerNeo4j taxonInteractionIndexer = new TaxonInteractionIndexer();
-
-            Arrays.asList(nameResolver, taxonInteractionIndexer)
-                    .forEach(x -> x.index(graphServiceFactory));
+        if (shouldRun(cmdLine, OPTION_SKIP_RESOLVE)) {
+            phases.run(PHASE_RESOLVE_NAMES, "", () -> {
+                final NonResolvingTaxonIndex taxonIndex = new NonResolvingTaxonIndex(graphServiceFactory.getGraphService());
+                new NameResolver(taxonIndex).index(graphServiceFactory);
+            });
+            phases.run(PHASE_INDEX_INTERACTIONS, "", () -> new TaxonInteractionIndexer().index(graphServiceFactory));
         } else {
             LOG.info("skipping taxa resolving ...");
+            phases.skip(PHASE_RESOLVE_NAMES);
+            phases.skip(PHASE_INDEX_INTERACTIONS);
         }
 
-        if (cmdLine == null || !cmdLine.hasOption(OPTION_SKIP_LINK)) {
-            List<IndexerNeo4j> linkers = new ArrayList<>();
-            linkers.add(new LinkerTaxonIndex());
-            linkers.forEach(x -> new IndexerTimed(x)
-                    .index(graphServiceFactory));
+        if (shouldRun(cmdLine, OPTION_SKIP_LINK)) {
+            phases.run(PHASE_LINK_TAXA, "", () -> new IndexerTimed(new LinkerTaxonIndex()).index(graphServiceFactory));
         } else {
             LOG.info("skipping linking ...");
+            phases.skip(PHASE_LINK_TAXA);
         }
 
     }
 
     void exportData(GraphDatabaseService graphService, String baseDir) throws StudyImporterException {
-        new GraphExporterImpl().export(graphService, baseDir);
+        exportData(graphService, baseDir, null, null);
+    }
+
+    void exportData(GraphDatabaseService graphService, String baseDir, File partitionDir, String inputFingerprint) throws StudyImporterException {
+        new GraphExporterImpl(partitionDir, inputFingerprint).export(graphService, baseDir);
     }
 
 
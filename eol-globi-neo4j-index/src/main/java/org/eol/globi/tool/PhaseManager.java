@@ -0,0 +1,270 @@
+package org.eol.globi.tool;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ObjectNode;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.util.HashUtil;
+import org.eol.globi.util.ResourceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the phases of a pipeline in order and records, in a checkpoint file, which phases completed for
+ * which inputs. A phase fingerprint combines the phase name, its inputs and the fingerprint of the phase
+ * before it, so a change in the inputs of one phase also invalidates all phases after it.
+ * <p>
+ * On restart, phases are skipped for as long as they completed earlier with the same fingerprint. The
+ * first phase that did not complete, or whose fingerprint changed, is run again along with all phases
+ * that follow it.
+ * <p>
+ * Each phase appends a json line with status, wall time, peak heap and record counts to a run log.
+ */
+public class PhaseManager {
+    private static final Logger LOG = LoggerFactory.getLogger(PhaseManager.class);
+
+    public interface Phase {
+        void run() throws StudyImporterException;
+    }
+
+    static final String STATUS_STARTED = "started";
+    static final String STATUS_COMPLETED = "completed";
+    static final String STATUS_SKIPPED = "skipped";
+    static final String STATUS_FAILED = "failed";
+    static final String STATUS_ALREADY_COMPLETED = "alreadyCompleted";
+
+    private static final String PHASES = "phases";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String STATUS = "status";
+    private static final String RECORDS = "records";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File checkpointFile;
+    private final File runLogFile;
+    private final Supplier<Map<String, Long>> recordCounter;
+    private final ObjectNode previousRun;
+    private final ObjectNode checkpoint;
+    private final String runId = Long.toString(System.currentTimeMillis());
+
+    private String chainedFingerprint = "";
+    private boolean resuming = true;
+    private JsonNode lastRecords = null;
+
+    /**
+     * @param recordCounter provides the number of records (e.g. nodes, relationships) after a phase has completed
+     */
+    public PhaseManager(File checkpointFile, File runLogFile, Supplier<Map<String, Long>> recordCounter) throws IOException {
+        this.checkpointFile = checkpointFile;
+        this.runLogFile = runLogFile;
+        this.recordCounter = recordCounter;
+        this.previousRun = checkpointFile.exists()
+                ? (ObjectNode) mapper.readTree(checkpointFile)
+                : mapper.createObjectNode();
+        this.checkpoint = mapper.createObjectNode();
+        this.checkpoint.put(PHASES, mapper.createObjectNode());
+    }
+
+    /**
+     * @return true if the checkpoint of a previous run has a record of the phase, completed or not
+     */
+    public boolean recordedInPreviousRun(String phaseName) {
+        return previousPhases().has(phaseName);
+    }
+
+    public void run(String phaseName, String inputFingerprint, Phase phase) throws StudyImporterException {
+        runPhase(phaseName, inputFingerprint, phase, STATUS_COMPLETED);
+    }
+
+    public void skip(String phaseName) throws StudyImporterException {
+        LOG.info("skipping [" + phaseName + "]...");
+        runPhase(phaseName, STATUS_SKIPPED, () -> {
+        }, STATUS_SKIPPED);
+    }
+
+    private void runPhase(String phaseName, String inputFingerprint, Phase phase, String statusOnSuccess) throws StudyImporterException {
+        String fingerprint = fingerprintOf(chainedFingerprint, phaseName, inputFingerprint);
+        chainedFingerprint = fingerprint;
+
+        JsonNode previous = previousPhases().get(phaseName);
+        if (resuming
+                && previous != null
+                && fingerprint.equals(previous.path(FINGERPRINT).getTextValue())
+                && statusOnSuccess.equals(previous.path(STATUS).getTextValue())) {
+            phases().put(phaseName, previous);
+            writeCheckpoint();
+            if (previous.has(RECORDS)) {
+                lastRecords = previous.get(RECORDS);
+            }
+            if (STATUS_COMPLETED.equals(statusOnSuccess)) {
+                LOG.info("[" + phaseName + "] already completed with same inputs, continuing with next phase");
+                logPhase(phaseName, fingerprint, STATUS_ALREADY_COMPLETED, 0L, 0L, null, null);
+            }
+        } else {
+            resuming = false;
+            ObjectNode record = mapper.createObjectNode();
+            record.put(FINGERPRINT, fingerprint);
+            record.put(STATUS, STATUS_STARTED);
+            phases().put(phaseName, record);
+            writeCheckpoint();
+
+            resetPeakHeap();
+            long start = System.currentTimeMillis();
+            try {
+                phase.run();
+            } catch (StudyImporterException | RuntimeException e) {
+                logPhase(phaseName, fingerprint, STATUS_FAILED, System.currentTimeMillis() - start, peakHeap(), null, e.getMessage());
+                throw e;
+            }
+            long wallTime = System.currentTimeMillis() - start;
+            long peakHeap = peakHeap();
+
+            record.put(STATUS, statusOnSuccess);
+            ObjectNode records = null;
+            if (STATUS_COMPLETED.equals(statusOnSuccess)) {
+                records = countRecords();
+                record.put(RECORDS, records);
+            }
+            writeCheckpoint();
+            logPhase(phaseName, fingerprint, statusOnSuccess, wallTime, peakHeap, records, null);
+        }
+    }
+
+    private ObjectNode countRecords() {
+        ObjectNode records = mapper.createObjectNode();
+        for (Map.Entry<String, Long> count : recordCounter.get().entrySet()) {
+            records.put(count.getKey(), count.getValue());
+        }
+        return records;
+    }
+
+    private ObjectNode previousPhases() {
+        JsonNode phases = previousRun.get(PHASES);
+        return phases instanceof ObjectNode ? (ObjectNode) phases : mapper.createObjectNode();
+    }
+
+    private ObjectNode phases() {
+        return (ObjectNode) checkpoint.get(PHASES);
+    }
+
+    private void writeCheckpoint() throws StudyImporterException {
+        try {
+            File tmpFile = new File(checkpointFile.getAbsolutePath() + ".tmp");
+            mapper.writerWithDefaultPrettyPrinter().writeValue(tmpFile, checkpoint);
+            Files.move(tmpFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to write checkpoint [" + checkpointFile.getAbsolutePath() + "]", e);
+        }
+    }
+
+    private void logPhase(String phaseName, String fingerprint, String status, long wallTimeMs, long peakHeapBytes, ObjectNode records, String error) throws StudyImporterException {
+        ObjectNode line = mapper.createObjectNode();
+        line.put("run", runId);
+        line.put("phase", phaseName);
+        line.put(STATUS, status);
+        line.put(FINGERPRINT, fingerprint);
+        line.put("wallTimeMs", wallTimeMs);
+        line.put("peakHeapBytes", peakHeapBytes);
+        if (records != null) {
+            line.put(RECORDS, records);
+            if (lastRecords != null) {
+                line.put("recordsProcessed", difference(records, lastRecords));
+            }
+            lastRecords = records;
+        }
+        if (error != null) {
+            line.put("error", error);
+        }
+        try {
+            Files.write(runLogFile.toPath(),
+                    Collections.singletonList(mapper.writeValueAsString(line)),
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to write run log [" + runLogFile.getAbsolutePath() + "]", e);
+        }
+    }
+
+    private ObjectNode difference(JsonNode records, JsonNode previousRecords) {
+        ObjectNode difference = mapper.createObjectNode();
+        Iterator<String> names = records.getFieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            difference.put(name, records.get(name).getLongValue() - previousRecords.path(name).getLongValue());
+        }
+        return difference;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    // sum of the peaks of the individual heap pools, which may not have peaked at the same time
+    private static long peakHeap() {
+        long peak = 0L;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    public static String fingerprintOf(String... values) {
+        return HashUtil.fingerprintOf(values);
+    }
+
+    /**
+     * @return fingerprint of name and sha256 content hash of each resource (e.g. file, classpath resource or url)
+     */
+    public static String fingerprintOfResources(String... resources) throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String resource : resources) {
+            try (InputStream is = ResourceUtil.asInputStream(resource)) {
+                entries.add(resource + ":" + HashUtil.sha256(is));
+            }
+        }
+        return fingerprintOf(entries.toArray(new String[0]));
+    }
+
+    /**
+     * @return fingerprint of relative path, size and last modified time of all files in a directory
+     */
+    public static String fingerprintOf(File dir) throws IOException {
+        List<String> entries = new ArrayList<>();
+        if (dir.isDirectory()) {
+            Path root = dir.toPath();
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path path : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                    File file = path.toFile();
+                    entries.add(root.relativize(path) + ":" + file.length() + ":" + file.lastModified());
+                }
+            }
+        }
+        return fingerprintOf(entries.toArray(new String[0]));
+    }
+
+}
@@ -10,258 +10,244 @@ import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyNode;
 import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.service.CacheService;
-import org.eol.globi.service.PropertyEnricherException;
 import org.eol.globi.service.TaxonUtil;
+import org.eol.globi.util.DistinctCounter;
 import org.eol.globi.util.NodeTypeDirection;
 import org.eol.globi.util.NodeUtil;
 import org.globalbioticinteractions.dataset.Dataset;
-import org.mapdb.DB;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
-
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Generates the collection, source and source organization reports in a single pass over all studies.
+ * <p>
+ * Each study is summarized once. Its summary is then merged into the collection report and into the
+ * reports of the groups its dataset belongs to. Distinct taxa, sources and datasets are counted with
+ * {@link DistinctCounter}s: counts are exact for small reports and estimated for large ones.
+ */
 public class ReportGenerator {
     private static final Logger LOG = LoggerFactory.getLogger(ReportGenerator.class);
 
     public static final String GLOBI_COLLECTION_NAME = "Global Biotic Interactions";
 
+    private static final Set<String> INTERACTION_TYPE_NAMES = Collections.unmodifiableSet(
+            Arrays.stream(InteractType.values())
+                    .map(InteractType::name)
+                    .collect(Collectors.toSet()));
+
     private final GraphDatabaseService graphService;
-    private final CacheService cacheService;
 
     private GraphDatabaseService getGraphDb() {
         return this.graphService;
     }
 
     public ReportGenerator(GraphDatabaseService graphService) {
-        this(graphService, new CacheService());
+        this.graphService = graphService;
     }
 
+    /**
+     * @deprecated reports no longer use a cache, use {@link #ReportGenerator(GraphDatabaseService)} instead
+     */
+    @Deprecated
     public ReportGenerator(GraphDatabaseService graphService, CacheService cacheService) {
-        this.graphService = graphService;
-        this.cacheService = cacheService;
+        this(graphService);
     }
 
     public void run() {
-        LOG.info("report for collection generating ...");
-        generateReportForCollection();
-        LOG.info("report for collection done.");
-
-        LOG.info("report for sources generating ...");
-        generateReportForSourceIndividuals();
-        LOG.info("report for sources done.");
-
-        LOG.info("report for source organizations generating ...");
-        generateReportForSourceOrganizations();
-        LOG.info("report for source organizations done.");
+        LOG.info("reports for collection, sources and source organizations generating ...");
+        generateReports(true, Arrays.asList(SOURCE_INDIVIDUALS, SOURCE_ORGANIZATIONS));
+        LOG.info("reports for collection, sources and source organizations done.");
     }
 
     public void generateReportForSourceIndividuals() {
-        generateReportForStudySources(new NamespaceHandler() {
-            @Override
-            public String parse(String namespace) {
-                return namespace;
-            }
+        generateReports(false, Collections.singletonList(SOURCE_INDIVIDUALS));
+    }
 
-            @Override
-            public String datasetQueryFor(String namespace) {
-                return namespace;
-            }
+    public void generateReportForSourceOrganizations() {
+        generateReports(false, Collections.singletonList(SOURCE_ORGANIZATIONS));
+    }
 
-            @Override
-            public String getNamespaceKey() {
-                return StudyConstant.SOURCE_ID;
-            }
-        });
+    void generateReportForCollection() {
+        generateReports(true, Collections.emptyList());
     }
 
-    public void generateReportForSourceOrganizations() {
-        generateReportForStudySources(new NamespaceHandler() {
-            @Override
-            public String parse(String namespace) {
-                return StringUtils.split(namespace, "/")[0];
-            }
+    private static final NamespaceHandler SOURCE_INDIVIDUALS = new NamespaceHandler() {
+        @Override
+        public String parse(String namespace) {
+            return namespace;
+        }
 
-            @Override
-            public String datasetQueryFor(String namespace) {
-                return namespace + "/*";
-            }
+        @Override
+        public boolean includes(String namespaceGroup, String namespace) {
+            return StringUtils.equals(namespaceGroup, namespace);
+        }
 
-            @Override
-            public String getNamespaceKey() {
-                return StudyConstant.SOURCE_ID;
-            }
-        });
-    }
+        @Override
+        public String getNamespaceKey() {
+            return StudyConstant.SOURCE_ID;
+        }
+    };
+
+    private static final NamespaceHandler SOURCE_ORGANIZATIONS = new NamespaceHandler() {
+        @Override
+        public String parse(String namespace) {
+            return StringUtils.split(namespace, "/")[0];
+        }
+
+        @Override
+        public boolean includes(String namespaceGroup, String namespace) {
+            return StringUtils.startsWith(namespace, namespaceGroup + "/");
+        }
+
+        @Override
+        public String getNamespaceKey() {
+            return StudyConstant.SOURCE_ID;
+        }
+    };
 
     interface NamespaceHandler {
         String parse(String namespace);
 
-        String datasetQueryFor(String namespace);
+        boolean includes(String namespaceGroup, String namespace);
 
         String getNamespaceKey();
     }
 
-
-    private void generateReportForStudySources(NamespaceHandler namespaceHandler) {
-        try {
-            DB reportCache = cacheService.initDb("sourceReports" + UUID.randomUUID());
-            reportForHandler(namespaceHandler, reportCache);
-            reportCache.close();
-        } catch (PropertyEnricherException e) {
-            LOG.warn("failed to create report", e);
+    private void generateReports(boolean includeCollection, List<NamespaceHandler> namespaceHandlers) {
+        final Report collectionReport = new Report();
+        final List<Map<String, Report>> groupReports = new ArrayList<>();
+        for (NamespaceHandler ignored : namespaceHandlers) {
+            groupReports.add(new TreeMap<>());
         }
 
-    }
-
-    private void reportForHandler(NamespaceHandler namespaceHandler, DB reportCache) {
-        final Set<String> namespaceGroups = reportCache
-                .createHashSet("namespaces")
-                .make();
-
-        // collect distinct namespaces
+        // every dataset namespace gets a report, even if no studies were imported from it
         NodeUtil.findDatasetsByQuery(getGraphDb(), dataset -> {
             String namespace = dataset.getNamespace();
             if (StringUtils.isNotBlank(namespace)) {
-                namespaceGroups.add(namespaceHandler.parse(namespace));
+                for (int i = 0; i < namespaceHandlers.size(); i++) {
+                    groupReports.get(i).computeIfAbsent(namespaceHandlers.get(i).parse(namespace), group -> new Report());
+                }
             }
         }, "namespace", "*");
 
-        final Set<Long> distinctTaxonIds = reportCache
-                .createHashSet("distinctTaxonIds")
-                .make();
-
-        final Set<Long> distinctTaxonIdsNoMatch = reportCache
-                .createHashSet("distinctTaxonIdsNoMatch")
-                .make();
-
-        final Set<String> distinctDatasets = reportCache
-                .createHashSet("distinctDatasets")
-                .make();
-
-        final Set<String> distinctSources = reportCache
-                .createHashSet("distinctSources")
-                .make();
-
-        for (final String namespaceGroup : namespaceGroups) {
-            LOG.info("generate report for namespace(s) [" + namespaceHandler.datasetQueryFor(namespaceGroup) + "]...");
-            final Counter counter = new Counter();
-            final Counter studyCounter = new Counter();
-            distinctDatasets.clear();
-            distinctSources.clear();
-            distinctTaxonIds.clear();
-            distinctTaxonIdsNoMatch.clear();
-
-            NodeUtil.findDatasetsByQuery(getGraphDb(), dataset -> {
-                Iterable<Relationship> studiesInDataset = dataset.getUnderlyingNode().getRelationships(
-                        Direction.INCOMING,
-                        NodeUtil.asNeo4j(RelTypes.IN_DATASET));
-                for (Relationship studyInDataset : studiesInDataset) {
-                    StudyNode study = new StudyNode(studyInDataset.getStartNode());
-                    countInteractionsAndTaxa(study, distinctTaxonIds, counter, distinctTaxonIdsNoMatch);
-                    studyCounter.count();
-                    final String namespace = dataset.getNamespace();
-                    distinctSources.add(namespace);
-                    distinctDatasets.add(namespace);
+        final Counter studyCounter = new Counter();
+        NodeUtil.findStudies(getGraphDb(), study -> {
+            Report studyReport = summarize(study);
+            Dataset originatingDataset = study.getOriginatingDataset();
+            String namespace = originatingDataset == null ? null : originatingDataset.getNamespace();
+            if (originatingDataset != null) {
+                studyReport.distinctSources.add(namespace);
+                studyReport.distinctDatasets.add(namespace);
+            }
+            collectionReport.merge(studyReport);
+
+            if (StringUtils.isNotBlank(namespace)) {
+                for (int i = 0; i < namespaceHandlers.size(); i++) {
+                    NamespaceHandler namespaceHandler = namespaceHandlers.get(i);
+                    String namespaceGroup = namespaceHandler.parse(namespace);
+                    Report groupReport = groupReports.get(i).get(namespaceGroup);
+                    if (groupReport != null && namespaceHandler.includes(namespaceGroup, namespace)) {
+                        groupReport.merge(studyReport);
+                    }
                 }
-            }, "namespace", namespaceHandler.datasetQueryFor(namespaceGroup));
-
-            try (Transaction tx = getGraphDb().beginTx()) {
-                final Node node = getGraphDb().createNode();
-                String sourceIdPrefix = "globi:" + namespaceGroup;
-                node.setProperty(namespaceHandler.getNamespaceKey(), sourceIdPrefix);
-                node.setProperty(PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME);
-                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS, counter.getCount() / 2);
-                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA, distinctTaxonIds.size());
-                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH, distinctTaxonIdsNoMatch.size());
-                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES, studyCounter.getCount());
-                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES, distinctSources.size());
-                node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS, distinctDatasets.size());
-
-                getGraphDb()
-                        .index()
-                        .forNodes("reports")
-                        .add(node, namespaceHandler.getNamespaceKey(), sourceIdPrefix);
-
-                tx.success();
             }
-            LOG.info("generate report for namespace(s) [" + namespaceHandler.datasetQueryFor(namespaceGroup) + "] done.");
-        }
-    }
+            studyCounter.count();
+            if (studyCounter.getCount() % 1000 == 0) {
+                LOG.info("summarized [" + studyCounter.getCount() + "] studies");
+            }
+        });
+        LOG.info("summarized [" + studyCounter.getCount() + "] studies");
 
-    void generateReportForCollection() {
-        try {
-            DB reportCache = cacheService.initDb("collectionReport");
-            generateCollectionReport(reportCache);
-            reportCache.close();
-        } catch (PropertyEnricherException e) {
-            LOG.warn("failed to generate collection report", e);
+        if (includeCollection) {
+            writeReport(collectionReport, PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME, null);
         }
-    }
 
-    private void generateCollectionReport(DB reportCache) {
-        final Set<Long> distinctTaxonIds = reportCache.createHashSet("distinctTaxonIds").make();
-        final Set<Long> distinctTaxonIdsNoMatch = reportCache.createHashSet("distinctTaxonIdsNoMatch").make();
-        final Counter counter = new Counter();
-        final Counter studyCounter = new Counter();
-        final Set<String> distinctSources = reportCache.createHashSet("distinctSources").make();
-        final Set<String> distinctDatasets = reportCache.createHashSet("distinctDatasets").make();
-
-        NodeUtil.findStudies(getGraphDb(), study -> {
-            countInteractionsAndTaxa(study, distinctTaxonIds, counter, distinctTaxonIdsNoMatch);
-            studyCounter.count();
-            final Dataset originatingDataset = study.getOriginatingDataset();
-            if (originatingDataset != null) {
-                final String namespace = originatingDataset.getNamespace();
-                distinctSources.add(namespace);
-                distinctDatasets.add(namespace);
+        for (int i = 0; i < namespaceHandlers.size(); i++) {
+            NamespaceHandler namespaceHandler = namespaceHandlers.get(i);
+            for (Map.Entry<String, Report> groupReport : groupReports.get(i).entrySet()) {
+                String sourceIdPrefix = "globi:" + groupReport.getKey();
+                writeReport(groupReport.getValue(), namespaceHandler.getNamespaceKey(), sourceIdPrefix, namespaceHandler.getNamespaceKey());
             }
-        });
+        }
+    }
 
+    private void writeReport(Report report, String indexKey, String indexValue, String namespaceKey) {
         try (Transaction tx = getGraphDb().beginTx()) {
             final Node node = getGraphDb().createNode();
+            if (namespaceKey != null) {
+                node.setProperty(namespaceKey, indexValue);
+            }
             node.setProperty(PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME);
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS, counter.getCount() / 2);
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA, distinctTaxonIds.size());
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH, distinctTaxonIdsNoMatch.size());
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES, studyCounter.getCount());
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES, distinctSources.size());
-            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS, distinctDatasets.size());
-            getGraphDb().index().forNodes("reports")
-                    .add(node, PropertyAndValueDictionary.COLLECTION, GLOBI_COLLECTION_NAME);
+            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS, (int) (report.interactionCount / 2));
+            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA, (int) report.distinctTaxonIds.count());
+            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH, (int) report.distinctTaxonIdsNoMatch.count());
+            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES, (int) report.studyCount);
+            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES, (int) report.distinctSources.count());
+            node.setProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS, (int) report.distinctDatasets.count());
+
+            getGraphDb()
+                    .index()
+                    .forNodes("reports")
+                    .add(node, indexKey, indexValue);
+
             tx.success();
         }
     }
 
-
-    private void countInteractionsAndTaxa(StudyNode study, Set<Long> ids, Counter interactionCounter, Set<Long> idsNoMatch) {
+    private Report summarize(StudyNode study) {
+        final Report studyReport = new Report();
+        studyReport.studyCount = 1;
 
         NodeUtil.RelationshipListener handler = specimen -> {
             Iterable<Relationship> relationships = specimen.getEndNode().getRelationships();
             for (Relationship relationship : relationships) {
-                InteractType[] types = InteractType.values();
-                for (InteractType type : types) {
-                    if (relationship.isType(NodeUtil.asNeo4j(type)) && !relationship.hasProperty(PropertyAndValueDictionary.INVERTED)) {
-                        interactionCounter.count();
-                        break;
-                    }
+                if (INTERACTION_TYPE_NAMES.contains(relationship.getType().name())
+                        && !relationship.hasProperty(PropertyAndValueDictionary.INVERTED)) {
+                    studyReport.interactionCount++;
                 }
             }
             Relationship classifiedAs = specimen.getEndNode().getSingleRelationship(NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS), Direction.OUTGOING);
             if (classifiedAs != null) {
                 Node taxonNode = classifiedAs.getEndNode();
-                ids.add(taxonNode.getId());
+                studyReport.distinctTaxonIds.add(taxonNode.getId());
                 if (!TaxonUtil.isResolved(new TaxonNode(taxonNode))) {
-                    idsNoMatch.add(taxonNode.getId());
+                    studyReport.distinctTaxonIdsNoMatch.add(taxonNode.getId());
                 }
             }
         };
 
         NodeUtil.handleCollectedRelationships(new NodeTypeDirection(study.getUnderlyingNode()), handler);
+        return studyReport;
+    }
+
+    private static class Report {
+        long interactionCount = 0;
+        long studyCount = 0;
+        final DistinctCounter distinctTaxonIds = new DistinctCounter();
+        final DistinctCounter distinctTaxonIdsNoMatch = new DistinctCounter();
+        final DistinctCounter distinctSources = new DistinctCounter();
+        final DistinctCounter distinctDatasets = new DistinctCounter();
+
+        void merge(Report other) {
+            interactionCount += other.interactionCount;
+            studyCount += other.studyCount;
+            distinctTaxonIds.merge(other.distinctTaxonIds);
+            distinctTaxonIdsNoMatch.merge(other.distinctTaxonIdsNoMatch);
+            distinctSources.merge(other.distinctSources);
+            distinctDatasets.merge(other.distinctDatasets);
+        }
     }
 
     private static class Counter {
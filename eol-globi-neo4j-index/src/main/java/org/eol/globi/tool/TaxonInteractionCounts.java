@@ -0,0 +1,217 @@
+package org.eol.globi.tool;
+
+import org.eol.globi.domain.InteractType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Counts (source taxon, interaction type, target taxon) triples without boxing: each triple is stored as two
+ * primitive longs, the source taxon node id and the target taxon node id packed with the rank of the
+ * interaction type name.
+ * <p>
+ * Counts are not thread-safe; count on separate instances and {@link #merge(TaxonInteractionCounts)} them.
+ */
+public class TaxonInteractionCounts {
+
+    public interface Visitor {
+        void visit(long sourceTaxonId, InteractType type, long targetTaxonId, long count);
+    }
+
+    private static final int TYPE_SHIFT = 56;
+    private static final long TARGET_MASK = (1L << TYPE_SHIFT) - 1;
+
+    // interaction types by name order, so that packed keys sort like (type name, target taxon id)
+    private static final InteractType[] TYPES_BY_NAME = InteractType.values().clone();
+    private static final int[] RANK_OF_ORDINAL = new int[TYPES_BY_NAME.length];
+
+    static {
+        if (TYPES_BY_NAME.length > 127) {
+            throw new IllegalStateException("too many interaction types [" + TYPES_BY_NAME.length + "] to pack into a long");
+        }
+        Arrays.sort(TYPES_BY_NAME, Comparator.comparing(Enum::name));
+        for (int rank = 0; rank < TYPES_BY_NAME.length; rank++) {
+            RANK_OF_ORDINAL[TYPES_BY_NAME[rank].ordinal()] = rank;
+        }
+    }
+
+    private long[] sources;
+    private long[] targets;
+    private long[] counts;
+    private int size;
+
+    public TaxonInteractionCounts() {
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        sources = new long[capacity];
+        targets = new long[capacity];
+        counts = new long[capacity];
+        size = 0;
+    }
+
+    public void add(long sourceTaxonId, InteractType type, long targetTaxonId) {
+        if (targetTaxonId < 0 || targetTaxonId > TARGET_MASK) {
+            throw new IllegalArgumentException("target taxon id [" + targetTaxonId + "] out of range");
+        }
+        addPacked(sourceTaxonId, ((long) RANK_OF_ORDINAL[type.ordinal()] << TYPE_SHIFT) | targetTaxonId, 1L);
+    }
+
+    private void addPacked(long source, long target, long count) {
+        int mask = counts.length - 1;
+        int slot = slotFor(source, target, mask);
+        while (counts[slot] != 0L && (sources[slot] != source || targets[slot] != target)) {
+            slot = (slot + 1) & mask;
+        }
+        if (counts[slot] == 0L) {
+            sources[slot] = source;
+            targets[slot] = target;
+            size++;
+        }
+        counts[slot] += count;
+        if (size * 2 > counts.length) {
+            grow();
+        }
+    }
+
+    private static int slotFor(long source, long target, int mask) {
+        long hash = source * 0x9E3779B97F4A7C15L + target;
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+        return (int) hash & mask;
+    }
+
+    private void grow() {
+        long[] oldSources = sources;
+        long[] oldTargets = targets;
+        long[] oldCounts = counts;
+        allocate(oldCounts.length * 2);
+        for (int i = 0; i < oldCounts.length; i++) {
+            if (oldCounts[i] != 0L) {
+                addPacked(oldSources[i], oldTargets[i], oldCounts[i]);
+            }
+        }
+    }
+
+    public void merge(TaxonInteractionCounts other) {
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0L) {
+                addPacked(other.sources[i], other.targets[i], other.counts[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * visits counted triples ordered by source taxon id, interaction type name and target taxon id
+     */
+    public void visitSorted(Visitor visitor) {
+        long[] sortedSources = new long[size];
+        long[] sortedTargets = new long[size];
+        long[] sortedCounts = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (counts[slot] != 0L) {
+                sortedSources[n] = sources[slot];
+                sortedTargets[n] = targets[slot];
+                sortedCounts[n] = counts[slot];
+                n++;
+            }
+        }
+        new Sorter(sortedSources, sortedTargets, sortedCounts).sort(0, n - 1);
+        for (int i = 0; i < n; i++) {
+            InteractType type = TYPES_BY_NAME[(int) (sortedTargets[i] >>> TYPE_SHIFT)];
+            visitor.visit(sortedSources[i], type, sortedTargets[i] & TARGET_MASK, sortedCounts[i]);
+        }
+    }
+
+    /**
+     * sorts parallel arrays of (source, packed target, count) by source and packed target in place,
+     * so that sorting needs neither boxed indices nor a comparator
+     */
+    private static final class Sorter {
+        private static final int INSERTION_SORT_THRESHOLD = 16;
+
+        private final long[] sources;
+        private final long[] targets;
+        private final long[] counts;
+
+        Sorter(long[] sources, long[] targets, long[] counts) {
+            this.sources = sources;
+            this.targets = targets;
+            this.counts = counts;
+        }
+
+        void sort(int low, int high) {
+            while (high - low >= INSERTION_SORT_THRESHOLD) {
+                int middle = (low + high) >>> 1;
+                // median of three as pivot, to avoid quadratic time on already sorted input
+                if (compare(middle, low) < 0) {
+                    swap(middle, low);
+                }
+                if (compare(high, low) < 0) {
+                    swap(high, low);
+                }
+                if (compare(high, middle) < 0) {
+                    swap(high, middle);
+                }
+                long pivotSource = sources[middle];
+                long pivotTarget = targets[middle];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (compare(i, pivotSource, pivotTarget) < 0) {
+                        i++;
+                    }
+                    while (compare(j, pivotSource, pivotTarget) > 0) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                // recurse into the smaller part only, to keep the stack depth logarithmic
+                if (j - low < high - i) {
+                    sort(low, j);
+                    low = i;
+                } else {
+                    sort(i, high);
+                    high = j;
+                }
+            }
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && compare(j, j - 1) < 0; j--) {
+                    swap(j, j - 1);
+                }
+            }
+        }
+
+        private int compare(int a, int b) {
+            return compare(a, sources[b], targets[b]);
+        }
+
+        private int compare(int a, long source, long target) {
+            return sources[a] == source
+                    ? Long.compare(targets[a], target)
+                    : Long.compare(sources[a], source);
+        }
+
+        private void swap(int a, int b) {
+            swap(sources, a, b);
+            swap(targets, a, b);
+            swap(counts, a, b);
+        }
+
+        private static void swap(long[] values, int a, int b) {
+            long value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+        }
+    }
+
+}
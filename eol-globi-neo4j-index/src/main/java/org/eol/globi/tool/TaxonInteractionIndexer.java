@@ -8,9 +8,6 @@ import org.eol.globi.domain.InteractType;
 import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.SpecimenNode;
 import org.eol.globi.util.NodeUtil;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
-import org.mapdb.Fun;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
@@ -19,11 +16,36 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
 
-import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
 
 public class TaxonInteractionIndexer implements IndexerNeo4j {
     private static final Logger LOG = LoggerFactory.getLogger(TaxonInteractionIndexer.class);
 
+    public static final int BATCH_SIZE_DEFAULT = 10000;
+
+    private final int workers;
+    private final int batchSize;
+
+    public TaxonInteractionIndexer() {
+        this(Runtime.getRuntime().availableProcessors(), BATCH_SIZE_DEFAULT);
+    }
+
+    /**
+     * @param workers   number of threads walking specimen interactions
+     * @param batchSize number of taxa walked, and number of taxon interactions created, per transaction
+     */
+    public TaxonInteractionIndexer(int workers, int batchSize) {
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
     public void index(GraphDatabaseService graphService) {
         LOG.info("indexing interactions started...");
         indexInteractions(graphService);
@@ -32,46 +54,33 @@ public class TaxonInteractionIndexer implements IndexerNeo4j {
 
 
     public void indexInteractions(GraphDatabaseService graphService) {
-        DB db = DBMaker
-                .newMemoryDirectDB()
-                .compressionEnable()
-                .transactionDisable()
-                .make();
-        final Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions = db
-                .createTreeMap("ottIdMap")
-                .make();
-
-        collectTaxonInteractions(taxonInteractions, graphService);
+        TaxonInteractionCounts taxonInteractions = collectTaxonInteractions(graphService);
         createTaxonInteractions(taxonInteractions, graphService);
-
-        db.close();
     }
 
-    public void createTaxonInteractions(Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions, GraphDatabaseService graphService) {
+    public void createTaxonInteractions(TaxonInteractionCounts taxonInteractions, GraphDatabaseService graphService) {
         StopWatch watchForEntireRun = new StopWatch();
         watchForEntireRun.start();
 
-        long count = 0;
-        Transaction tx = null;
-        for (Fun.Tuple3<Long, String, Long> uniqueTaxonInteraction : taxonInteractions.keySet()) {
-            if (count % 1000 == 0) {
-                finalizeTx(tx);
-                tx = graphService.beginTx();
+        final AtomicLong count = new AtomicLong(0);
+        final AtomicReference<Transaction> tx = new AtomicReference<>();
+        taxonInteractions.visitSorted((sourceTaxonId, relType, targetTaxonId, interactionCount) -> {
+            if (count.get() % batchSize == 0) {
+                finalizeTx(tx.get());
+                tx.set(graphService.beginTx());
             }
-            final Node sourceTaxon = graphService.getNodeById(uniqueTaxonInteraction.a);
-            final Node targetTaxon = graphService.getNodeById(uniqueTaxonInteraction.c);
+            final Node sourceTaxon = graphService.getNodeById(sourceTaxonId);
+            final Node targetTaxon = graphService.getNodeById(targetTaxonId);
             if (sourceTaxon != null && targetTaxon != null) {
-                final InteractType relType = InteractType.valueOf(uniqueTaxonInteraction.b);
-                final Long interactionCount = taxonInteractions.get(uniqueTaxonInteraction);
                 createInteraction(sourceTaxon, targetTaxon, relType, false, interactionCount);
                 createInteraction(targetTaxon, sourceTaxon, InteractType.inverseOf(relType), true, interactionCount);
             }
-            count++;
-        }
-        finalizeTx(tx);
+            count.incrementAndGet();
+        });
+        finalizeTx(tx.get());
 
         watchForEntireRun.stop();
-        LOG.info("created [" + count + "] taxon interactions in " + getProgressMsg(count, watchForEntireRun.getTime()));
+        LOG.info("created [" + count.get() + "] taxon interactions in " + getProgressMsg(count.get(), watchForEntireRun.getTime()));
     }
 
     public void createInteraction(Node sourceTaxon, Node targetTaxon, InteractType relType, boolean inverted, Long interactionCount) {
@@ -87,54 +96,90 @@ public class TaxonInteractionIndexer implements IndexerNeo4j {
         }
     }
 
-    public void collectTaxonInteractions(Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions, GraphDatabaseService graphService) {
+    public TaxonInteractionCounts collectTaxonInteractions(GraphDatabaseService graphService) {
         StopWatch watchForEntireRun = new StopWatch();
         watchForEntireRun.start();
-        StopWatch watchForBatch = new StopWatch();
-        watchForBatch.start();
-        long count = 0L;
-        int batchSize = 1000;
 
-        Transaction transaction = graphService.beginTx();
-        try {
+        LongStream.Builder taxonIdBuilder = LongStream.builder();
+        try (Transaction transaction = graphService.beginTx()) {
             Index<Node> taxonIndex = graphService.index().forNodes("taxons");
             IndexHits<Node> taxa = taxonIndex.query("name", "*");
-            for (Node sourceTaxon : taxa) {
+            for (Node taxon : taxa) {
+                taxonIdBuilder.add(taxon.getId());
+            }
+            taxa.close();
+            transaction.success();
+        }
+        long[] taxonIds = taxonIdBuilder.build().toArray();
+
+        TaxonInteractionCounts taxonInteractions = new TaxonInteractionCounts();
+        AtomicLong count = new AtomicLong(0);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            // merge batches as they complete, and keep only a few batches per worker in flight,
+            // so that unmerged batch counts do not pile up in memory
+            CompletionService<TaxonInteractionCounts> batches = new ExecutorCompletionService<>(executor);
+            int maxBatchesInFlight = 2 * workers;
+            int batchesInFlight = 0;
+            for (int offset = 0; offset < taxonIds.length; offset += batchSize) {
+                if (batchesInFlight == maxBatchesInFlight) {
+                    taxonInteractions.merge(batches.take().get());
+                    batchesInFlight--;
+                }
+                int from = offset;
+                int to = Math.min(taxonIds.length, offset + batchSize);
+                batches.submit(() -> collectTaxonInteractions(graphService, taxonIds, from, to, count));
+                batchesInFlight++;
+            }
+            for (; batchesInFlight > 0; batchesInFlight--) {
+                taxonInteractions.merge(batches.take().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while walking taxon interactions", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed to walk taxon interactions", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        watchForEntireRun.stop();
+        LOG.info("walked [" + count.get() + "] interactions in " + getProgressMsg(count.get(), watchForEntireRun.getTime()));
+        return taxonInteractions;
+    }
+
+    private static TaxonInteractionCounts collectTaxonInteractions(GraphDatabaseService graphService, long[] sourceTaxonIds, int from, int to, AtomicLong count) {
+        StopWatch watchForBatch = new StopWatch();
+        watchForBatch.start();
+        long batchCount = 0;
+        TaxonInteractionCounts taxonInteractions = new TaxonInteractionCounts();
+        try (Transaction transaction = graphService.beginTx()) {
+            for (int i = from; i < to; i++) {
+                long sourceTaxonId = sourceTaxonIds[i];
+                Node sourceTaxon = graphService.getNodeById(sourceTaxonId);
                 final Iterable<Relationship> classifiedAs = sourceTaxon.getRelationships(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
                 for (Relationship classifiedA : classifiedAs) {
                     Node specimenNode = classifiedA.getStartNode();
                     final Iterable<Relationship> interactions = specimenNode.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(InteractType.values()));
                     for (Relationship interaction : interactions) {
+                        InteractType interactType = InteractType.valueOf(interaction.getType().name());
                         final Iterable<Relationship> targetClassifications = interaction.getEndNode().getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
                         for (Relationship targetClassification : targetClassifications) {
-                            final Node targetTaxonNode = targetClassification.getEndNode();
-                            final Fun.Tuple3<Long, String, Long> interactionKey = new Fun.Tuple3<Long, String, Long>(sourceTaxon.getId(), interaction.getType().name(), targetTaxonNode.getId());
-                            final Long distinctInteractions = taxonInteractions.get(interactionKey);
-                            taxonInteractions.put(interactionKey, distinctInteractions == null ? 1L : (distinctInteractions + 1L));
-                            count++;
+                            taxonInteractions.add(sourceTaxonId, interactType, targetClassification.getEndNode().getId());
+                            batchCount++;
                         }
                     }
                 }
-                if (count % batchSize == 0) {
-                    watchForBatch.stop();
-                    final long duration = watchForBatch.getTime();
-                    if (duration > 0) {
-                        LOG.info("walked [" + batchSize + "] interactions in " + getProgressMsg(batchSize, duration));
-                    }
-                    watchForBatch.reset();
-                    watchForBatch.start();
-                    transaction.success();
-                    transaction.close();
-                    transaction = graphService.beginTx();
-                }
             }
-            taxa.close();
-            watchForEntireRun.stop();
             transaction.success();
-        } finally {
-            transaction.close();
         }
-        LOG.info("walked [" + count + "] interactions in " + getProgressMsg(count, watchForEntireRun.getTime()));
+        watchForBatch.stop();
+        count.addAndGet(batchCount);
+        final long duration = watchForBatch.getTime();
+        if (batchCount > 0 && duration > 0) {
+            LOG.info("walked [" + batchCount + "] interactions in " + getProgressMsg(batchCount, duration));
+        }
+        return taxonInteractions;
     }
 
     public static String getProgressMsg(long count, long duration) {
@@ -0,0 +1,306 @@
+package org.eol.globi.data;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ObjectNode;
+import org.eol.globi.domain.Environment;
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.Interaction;
+import org.eol.globi.domain.Location;
+import org.eol.globi.domain.LocationImpl;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Season;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.Study;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.Term;
+import org.eol.globi.domain.TermImpl;
+import org.eol.globi.service.TermLookupService;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.globalbioticinteractions.doi.DOI;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.tooling.GlobalGraphOperations;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class NodeFactoryBatchInserterTest {
+
+    private static final TermLookupService TEST_TERMS = name -> new ArrayList<>(Collections.singletonList(new TermImpl("TEST:" + name, name)));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    interface Scenario {
+        void importWith(NodeFactory factory) throws NodeFactoryException;
+    }
+
+    @Test
+    public void sameStudies() throws IOException, NodeFactoryException {
+        assertSameGraph(factory -> {
+            Study study = factory.getOrCreateStudy(studyInDataset("some title"));
+            assertThat(factory.getOrCreateStudy(studyInDataset("some title")), is(study));
+            assertThat(factory.getOrCreateStudy(studyInDataset("other title")), is(notNullValue()));
+            Study studyWithoutDataset = factory.getOrCreateStudy(new StudyImpl("some title", null, "citation without dataset"));
+            assertThat(factory.getOrCreateStudy(new StudyImpl("some title")), is(studyWithoutDataset));
+            assertThat(factory.getOrCreateStudy(studyInDataset("some title")), is(study));
+            assertThat(factory.findStudy("some title"), is(studyWithoutDataset));
+            assertThat(factory.findStudy("no such title"), is(nullValue()));
+            assertThat(factory.getOrCreateStudy(studyInDataset("some title")).getDOI(), is(new DOI("some", "doi")));
+        });
+    }
+
+    @Test
+    public void sameTaxa() throws IOException, NodeFactoryException {
+        assertSameGraph(factory -> {
+            Study study = factory.getOrCreateStudy(studyInDataset("some title"));
+            TaxonImpl taxon = new TaxonImpl("Homo sapiens", "EOL:327955");
+            taxon.setRank("species");
+            taxon.setPath("Animalia | Homo sapiens");
+            taxon.setPathIds("EOL:1 | EOL:327955");
+            taxon.setPathNames("kingdom | species");
+            taxon.setCommonNames("man @en");
+            taxon.setExternalUrl("http://eol.org/pages/327955");
+            taxon.setThumbnailUrl("http://eol.org/some.jpg");
+            taxon.setStatus(new TermImpl("TEST:accepted", "accepted"));
+            factory.createSpecimen(study, taxon);
+            factory.createSpecimen(study, new TaxonImpl("", null));
+            factory.createSpecimen(study, new TaxonImpl("Ariopsis felis", null));
+        });
+    }
+
+    @Test
+    public void sameSpecimens() throws IOException, NodeFactoryException {
+        assertSameGraph(factory -> {
+            Study study = factory.getOrCreateStudy(studyInDataset("some title"));
+            Location location = factory.getOrCreateLocation(new LocationImpl(12.0d, -1.0d, -60.0d, null));
+            Season season = factory.createSeason("summer");
+            assertThat(factory.findSeason("summer"), is(season));
+            assertThat(factory.findSeason("winter"), is(nullValue()));
+
+            for (int i = 0; i < 10; i++) {
+                Specimen predator = factory.createSpecimen(study, new TaxonImpl("Homo sapiens adult", "EOL:" + i));
+                Specimen prey = factory.createSpecimen(study, new TaxonImpl("Ariopsis felis", null), RelTypes.COLLECTED, RelTypes.REFUTES, RelTypes.COLLECTED);
+                predator.interactsWith(prey, InteractType.ATE, location);
+                predator.interactsWith(prey, InteractType.ATE);
+                prey.interactsWith(predator, InteractType.PARASITE_OF);
+                predator.caughtDuring(season);
+                predator.setLifeStage(factory.getOrCreateLifeStage("TEST:adult", "adult"));
+                predator.setBodyPart(factory.getOrCreateBodyPart("TEST:head", "head"));
+                predator.setLengthInMm(10.0d * i);
+                predator.setTotalCount(i);
+                predator.setProperty("someKey", "someValue");
+                factory.setUnixEpochProperty(predator, new Date(i * 1000L));
+                assertThat(factory.getUnixEpochProperty(predator), is(new Date(i * 1000L)));
+                assertThat(factory.getUnixEpochProperty(prey), is(nullValue()));
+                assertThat(predator.getLifeStage().getId(), is("TEST:adult"));
+            }
+
+            Interaction interaction = factory.createInteraction(studyInDataset("some title"));
+            Specimen donald = factory.createSpecimen(interaction, new TaxonImpl("Donalda duckus", null));
+            Specimen mickey = factory.createSpecimen(interaction, new TaxonImpl("Mickeya mouseus", null));
+            donald.interactsWith(mickey, InteractType.INTERACTS_WITH);
+            assertThat(interaction.getParticipants().size(), is(2));
+
+            Interaction otherInteraction = factory.createInteraction(new StudyImpl("study without dataset"));
+            factory.createSpecimen(otherInteraction, new TaxonImpl("Goofy", null));
+        });
+    }
+
+    @Test
+    public void sameLocations() throws IOException, NodeFactoryException {
+        assertSameGraph(factory -> {
+            Location location = factory.getOrCreateLocation(new LocationImpl(12.0d, -1.0d, -60.0d, null));
+            assertThat(factory.getOrCreateLocation(new LocationImpl(12.0d, -1.0d, -60.0d, null)), is(location));
+            assertThat(factory.findLocation(new LocationImpl(12.0d, -1.0d, null, null)), is(nullValue()));
+            factory.getOrCreateLocation(new LocationImpl(12.0d, -1.0d, null, null));
+            factory.getOrCreateLocation(new LocationImpl(12.0d, -1.0d, null, "POINT(-1.0 12.0)"));
+
+            LocationImpl locality = new LocationImpl(null, null, null, null);
+            locality.setLocality("some place");
+            locality.setLocalityId("GEO:123");
+            Location localityLocation = factory.getOrCreateLocation(locality);
+            assertThat(factory.findLocation(locality), is(localityLocation));
+
+            LocationImpl localityIdOnly = new LocationImpl(null, null, null, null);
+            localityIdOnly.setLocalityId("GEO:123");
+            factory.getOrCreateLocation(localityIdOnly);
+            assertThat(factory.findLocation(localityIdOnly), is(notNullValue()));
+            factory.getOrCreateLocation(new LocationImpl(null, null, null, null));
+
+            List<Term> environments = Arrays.asList(new TermImpl("ENVO:01000178", "savanna"), new TermImpl("ENVO:00000446", "terrestrial biome"));
+            factory.addEnvironmentToLocation(location, environments);
+            factory.addEnvironmentToLocation(localityLocation, environments);
+            factory.addEnvironmentToLocation(location, environments);
+            List<Environment> lookedUp = factory.getOrCreateEnvironments(location, "ENVO:00000447", "marine biome");
+            assertThat(lookedUp.size(), is(1));
+            assertThat(location.getEnvironments().size(), is(3));
+
+            for (int i = 0; i < 5; i++) {
+                Location someLocation = factory.getOrCreateLocation(new LocationImpl((double) i, (double) i, null, null));
+                factory.addEnvironmentToLocation(someLocation, environments.subList(0, 1));
+            }
+            factory.addEnvironmentToLocation(factory.getOrCreateLocation(new LocationImpl(12.0d, -1.0d, -60.0d, null)), environments);
+        });
+    }
+
+    @Test
+    public void sameLocationsWithBlankLocality() throws IOException, NodeFactoryException {
+        assertSameGraph(factory -> {
+            for (String blank : Arrays.asList("", " ")) {
+                LocationImpl blankLocality = new LocationImpl(12.0d, -1.0d, null, null);
+                blankLocality.setLocality(blank);
+                factory.getOrCreateLocation(blankLocality);
+                factory.getOrCreateLocation(blankLocality);
+                assertThat(factory.findLocation(blankLocality), is(nullValue()));
+
+                LocationImpl blankLocalityId = new LocationImpl(null, null, null, null);
+                blankLocalityId.setLocality("some place");
+                blankLocalityId.setLocalityId(blank);
+                factory.getOrCreateLocation(blankLocalityId);
+                assertThat(factory.findLocation(blankLocalityId), is(nullValue()));
+            }
+            Location withoutLocality = factory.getOrCreateLocation(new LocationImpl(12.0d, -1.0d, null, null));
+            assertThat(factory.findLocation(new LocationImpl(12.0d, -1.0d, null, null)), is(withoutLocality));
+
+            LocationImpl locality = new LocationImpl(null, null, null, null);
+            locality.setLocality("some place");
+            Location localityLocation = factory.getOrCreateLocation(locality);
+            assertThat(factory.findLocation(locality), is(localityLocation));
+        });
+    }
+
+    @Test(expected = NodeFactoryException.class)
+    public void invalidLocation() throws IOException, NodeFactoryException {
+        NodeFactoryBatchInserter factory = NodeFactoryBatchInserter.open(new File(folder.getRoot(), "invalid"));
+        try {
+            factory.getOrCreateLocation(new LocationImpl(120.0d, -1.0d, null, null));
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void refuseExistingGraph() throws IOException {
+        File storeDir = folder.newFolder("existing");
+        new GraphDatabaseFactory().newEmbeddedDatabase(storeDir).shutdown();
+        NodeFactoryBatchInserter.open(storeDir);
+    }
+
+    private static Study studyInDataset(String title) {
+        DatasetImpl dataset = new DatasetImpl("some/namespace", URI.create("some:uri"), in -> in);
+        ObjectNode config = new ObjectMapper().createObjectNode();
+        config.put(DatasetConstant.SHOULD_RESOLVE_REFERENCES, false);
+        config.put(DatasetConstant.LAST_SEEN_AT, "1");
+        dataset.setConfig(config);
+
+        StudyImpl study = new StudyImpl(title, new DOI("some", "doi"), "some citation");
+        study.setOriginatingDataset(dataset);
+        return study;
+    }
+
+    private void assertSameGraph(Scenario scenario) throws IOException, NodeFactoryException {
+        File expectedDir = folder.newFolder("expected");
+        GraphDatabaseService expectedDb = new GraphDatabaseFactory().newEmbeddedDatabase(expectedDir);
+        try {
+            NodeFactoryNeo4j factory = new NodeFactoryNeo4j(expectedDb);
+            factory.setTermLookupService(TEST_TERMS);
+            factory.setEnvoLookupService(TEST_TERMS);
+            scenario.importWith(factory);
+        } finally {
+            expectedDb.shutdown();
+        }
+
+        // a single cached key forces lookups of evicted keys through the batch indexes
+        for (int maxCachedKeys : new int[]{NodeFactoryBatchInserter.MAX_CACHED_KEYS_DEFAULT, 1}) {
+            File actualDir = new File(folder.getRoot(), "actual" + maxCachedKeys);
+            NodeFactoryBatchInserter factory = new NodeFactoryBatchInserter(BatchInserters.inserter(actualDir), maxCachedKeys);
+            try {
+                factory.setTermLookupService(TEST_TERMS);
+                factory.setEnvoLookupService(TEST_TERMS);
+                scenario.importWith(factory);
+            } finally {
+                factory.shutdown();
+            }
+            assertSameGraph(expectedDir, actualDir);
+        }
+    }
+
+    private static void assertSameGraph(File expectedDir, File actualDir) {
+        GraphDatabaseService expected = new GraphDatabaseFactory().newEmbeddedDatabase(expectedDir);
+        GraphDatabaseService actual = new GraphDatabaseFactory().newEmbeddedDatabase(actualDir);
+        try {
+            try (Transaction expectedTx = expected.beginTx(); Transaction actualTx = actual.beginTx()) {
+                assertThat(nodesOf(actual), is(nodesOf(expected)));
+                assertThat(relationshipsOf(actual), is(relationshipsOf(expected)));
+                assertThat(indexesOf(actual), is(indexesOf(expected)));
+                expectedTx.success();
+                actualTx.success();
+            }
+        } finally {
+            expected.shutdown();
+            actual.shutdown();
+        }
+    }
+
+    private static Map<Long, Map<String, Object>> nodesOf(GraphDatabaseService graphDb) {
+        Map<Long, Map<String, Object>> nodes = new TreeMap<>();
+        for (Node node : GlobalGraphOperations.at(graphDb).getAllNodes()) {
+            nodes.put(node.getId(), new TreeMap<>(node.getAllProperties()));
+        }
+        return nodes;
+    }
+
+    private static Map<Long, List<Object>> relationshipsOf(GraphDatabaseService graphDb) {
+        Map<Long, List<Object>> relationships = new TreeMap<>();
+        for (Relationship rel : GlobalGraphOperations.at(graphDb).getAllRelationships()) {
+            relationships.put(rel.getId(), Arrays.asList(
+                    rel.getType().name(),
+                    rel.getStartNode().getId(),
+                    rel.getEndNode().getId(),
+                    new TreeMap<>(rel.getAllProperties())));
+        }
+        return relationships;
+    }
+
+    private static Map<String, TreeSet<Long>> indexesOf(GraphDatabaseService graphDb) {
+        Map<String, TreeSet<Long>> indexes = new TreeMap<>();
+        for (String indexName : graphDb.index().nodeIndexNames()) {
+            IndexHits<Node> hits = graphDb.index().forNodes(indexName).query("*:*");
+            TreeSet<Long> ids = new TreeSet<>();
+            for (Node hit : hits) {
+                ids.add(hit.getId());
+            }
+            hits.close();
+            if (!ids.isEmpty()) {
+                indexes.put(indexName, ids);
+            }
+        }
+        return indexes;
+    }
+
+}
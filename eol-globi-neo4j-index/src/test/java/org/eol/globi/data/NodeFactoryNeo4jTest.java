@@ -139,6 +139,39 @@ public class NodeFactoryNeo4jTest extends GraphDBTestCase {
         Assert.assertNotNull(foundLocationNoDepth);
     }
 
+    @Test
+    public void createFindLocationsAlongSameLatitude() throws NodeFactoryException {
+        List<Location> created = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            created.add(getNodeFactory().getOrCreateLocation(new LocationImpl(12.0d, i / 100000.0d, null, null)));
+        }
+        LocationImpl withLocality = new LocationImpl(12.0d, 0.0d, null, null);
+        withLocality.setLocality("some locale");
+        LocationNode createdWithLocality = getNodeFactory().getOrCreateLocation(withLocality);
+
+        assertThat(createdWithLocality, is(not(created.get(0))));
+        assertThat(getNodeFactory().getOrCreateLocation(new LocationImpl(12.0d, 0.0d, null, null)), is(created.get(0)));
+        assertThat(getNodeFactory().findLocation(new LocationImpl(12.0d, 0.00042d, null, null)), is(created.get(42)));
+        assertThat(getNodeFactory().findLocation(withLocality), is(createdWithLocality));
+        assertThat(getNodeFactory().findLocation(new LocationImpl(12.0d, 0.00042d, -1.0d, null)), is(nullValue()));
+        assertThat(getNodeFactory().findLocation(new LocationImpl(12.0d, 0.000425d, null, null)), is(nullValue()));
+    }
+
+    @Test
+    public void rebuildLocationGridIndex() throws NodeFactoryException {
+        LocationImpl providedLocation = new LocationImpl(1.2d, 1.4d, -1.0d, "POINT(1.4 1.2)");
+        providedLocation.setLocality("some locale");
+        LocationNode location = getNodeFactory().getOrCreateLocation(providedLocation);
+
+        try (Transaction tx = getGraphDb().beginTx()) {
+            getGraphDb().index().forNodes(LocationGridIndex.INDEX_NAME).delete();
+            tx.success();
+        }
+
+        NodeFactoryNeo4j nodeFactory = new NodeFactoryNeo4j(getGraphDb());
+        assertThat(nodeFactory.findLocation(providedLocation), is(location));
+    }
+
     @Test
     public void createFindLocationByLocality() throws NodeFactoryException {
         LocationImpl providedLocation = new LocationImpl(null, null, null, null);
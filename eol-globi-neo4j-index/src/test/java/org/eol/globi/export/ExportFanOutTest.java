@@ -0,0 +1,166 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.time.StopWatch;
+import org.eol.globi.data.GraphDBTestCase;
+import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.data.NodeFactoryWithDatasetContext;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.Study;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.TaxonImpl;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.globalbioticinteractions.doi.DOI;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ExportFanOutTest extends GraphDBTestCase {
+
+    private static final List<String> FILENAMES = Arrays.asList(
+            "tsv/interactions.tsv.gz",
+            "csv/interactions.csv.gz",
+            "tsv/refuted-interactions.tsv.gz",
+            "csv/refuted-interactions.csv.gz",
+            "tsv/citations.tsv.gz",
+            "csv/citations.csv.gz");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private NodeFactoryWithDatasetContext factory;
+
+    @Before
+    public void init() throws IOException {
+        DatasetImpl dataset = new DatasetImpl("some/namespace", URI.create("http://example.com"), inStream -> inStream);
+        factory = new NodeFactoryWithDatasetContext(nodeFactory, dataset);
+    }
+
+    @Test
+    public void sameFilesAsSeparateExports() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies(10);
+        resolveNames();
+
+        File expectedDir = folder.newFolder("expected");
+        exportSeparately(expectedDir);
+        File actualDir = folder.newFolder("actual");
+        exportFannedOut(actualDir, new ExportFanOut(2));
+
+        for (String filename : FILENAMES) {
+            File expected = new File(expectedDir, filename);
+            assertThat(filename, expected.length() > 20, is(true));
+            assertThat(filename, FileUtils.contentEquals(expected, new File(actualDir, filename)), is(true));
+        }
+    }
+
+    @Test(expected = StudyImporterException.class)
+    public void failingWriterStopsExport() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies(10);
+        resolveNames();
+
+        File notADir = folder.newFile("not-a-dir");
+        new ExportFanOut(1).export(getGraphDb(), ExportCitations.CYPHER_QUERY, Arrays.asList(
+                new ExportFanOut.Target(folder.getRoot().getAbsolutePath(), "citations.tsv.gz", new ExportUtil.TsvValueJoiner()),
+                new ExportFanOut.Target(notADir.getAbsolutePath(), "citations.csv.gz", new ExportUtil.CsvValueJoiner())));
+    }
+
+    @Test
+    public void sameFilesWithDefaultFanOut() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies(200);
+        resolveNames();
+
+        File separateDir = folder.newFolder("separate");
+        File fanOutDir = folder.newFolder("fanOut");
+        exportSeparately(separateDir);
+        exportFannedOut(fanOutDir, new ExportFanOut());
+
+        for (String filename : FILENAMES) {
+            assertThat(filename, FileUtils.contentEquals(new File(separateDir, filename), new File(fanOutDir, filename)), is(true));
+        }
+    }
+
+    @Ignore("benchmark: compares wall time of separate exports and fan-out export")
+    @Test
+    public void exportWallTime() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies(2000);
+        resolveNames();
+
+        // warm up query plans
+        exportSeparately(folder.newFolder("warmUp"));
+
+        StopWatch watch = new StopWatch();
+        watch.start();
+        exportSeparately(folder.newFolder("separate"));
+        watch.stop();
+        long separateMs = watch.getTime();
+
+        watch.reset();
+        watch.start();
+        exportFannedOut(folder.newFolder("fanOut"), new ExportFanOut());
+        watch.stop();
+        long fanOutMs = watch.getTime();
+
+        System.out.println("exported in [" + separateMs + "] ms with separate exports, [" + fanOutMs + "] ms with fan-out");
+    }
+
+    private void exportSeparately(File baseDir) throws StudyImporterException {
+        File tsv = new File(baseDir, "tsv");
+        File csv = new File(baseDir, "csv");
+        new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz")
+                .export(getGraphDb(), tsv.getAbsolutePath());
+        new ExportFlatInteractions(new ExportUtil.CsvValueJoiner(), "interactions.csv.gz")
+                .export(getGraphDb(), csv.getAbsolutePath());
+        new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "refuted-interactions.tsv.gz")
+                .setArgumentType(RelTypes.REFUTES)
+                .setArgumentTypeId(PropertyAndValueDictionary.REFUTES)
+                .export(getGraphDb(), tsv.getAbsolutePath());
+        new ExportFlatInteractions(new ExportUtil.CsvValueJoiner(), "refuted-interactions.csv.gz")
+                .setArgumentType(RelTypes.REFUTES)
+                .setArgumentTypeId(PropertyAndValueDictionary.REFUTES)
+                .export(getGraphDb(), csv.getAbsolutePath());
+        new ExportCitations(new ExportUtil.TsvValueJoiner(), "citations.tsv.gz").export(getGraphDb(), tsv.getAbsolutePath());
+        new ExportCitations(new ExportUtil.CsvValueJoiner(), "citations.csv.gz").export(getGraphDb(), csv.getAbsolutePath());
+    }
+
+    private void exportFannedOut(File baseDir, ExportFanOut fanOut) throws StudyImporterException {
+        String tsv = new File(baseDir, "tsv").getAbsolutePath();
+        String csv = new File(baseDir, "csv").getAbsolutePath();
+        fanOut.export(getGraphDb(), ExportFlatInteractions.createQuery(RelTypes.SUPPORTS, PropertyAndValueDictionary.SUPPORTS), Arrays.asList(
+                new ExportFanOut.Target(tsv, "interactions.tsv.gz", new ExportUtil.TsvValueJoiner()),
+                new ExportFanOut.Target(csv, "interactions.csv.gz", new ExportUtil.CsvValueJoiner())));
+        fanOut.export(getGraphDb(), ExportFlatInteractions.createQuery(RelTypes.REFUTES, PropertyAndValueDictionary.REFUTES), Arrays.asList(
+                new ExportFanOut.Target(tsv, "refuted-interactions.tsv.gz", new ExportUtil.TsvValueJoiner()),
+                new ExportFanOut.Target(csv, "refuted-interactions.csv.gz", new ExportUtil.CsvValueJoiner())));
+        fanOut.export(getGraphDb(), ExportCitations.CYPHER_QUERY, Arrays.asList(
+                new ExportFanOut.Target(tsv, "citations.tsv.gz", new ExportUtil.TsvValueJoiner()),
+                new ExportFanOut.Target(csv, "citations.csv.gz", new ExportUtil.CsvValueJoiner())));
+    }
+
+    private void createStudies(int numberOfStudies) throws NodeFactoryException {
+        for (int i = 0; i < numberOfStudies; i++) {
+            Study study = factory.createStudy(new StudyImpl("study" + i, new DOI("123", "" + i), "citation, \"quoted\"\t" + i));
+            Specimen predator = factory.createSpecimen(study, new TaxonImpl("Homo sapiens", "EOL:" + (i % 7)));
+            predator.ate(factory.createSpecimen(study, new TaxonImpl("Canis lupus", "EOL:555")));
+            predator.ate(factory.createSpecimen(study, new TaxonImpl("Felis domesticus", "EOL:666")));
+            if (i % 3 == 0) {
+                Specimen refuted = factory.createSpecimen(study, new TaxonImpl("Homo erectus", "EOL:123"), RelTypes.REFUTES);
+                refuted.ate(factory.createSpecimen(study, new TaxonImpl("Canis lupus", "EOL:555")));
+            }
+        }
+    }
+
+}
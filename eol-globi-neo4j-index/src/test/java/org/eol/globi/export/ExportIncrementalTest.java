@@ -0,0 +1,201 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ObjectNode;
+import org.eol.globi.data.GraphDBTestCase;
+import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.data.NodeFactoryWithDatasetContext;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.Study;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.TaxonImpl;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.globalbioticinteractions.doi.DOI;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.index.Index;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ExportIncrementalTest extends GraphDBTestCase {
+
+    private static final List<String> FILENAMES = Arrays.asList(
+            "tsv/interactions.tsv.gz",
+            "csv/interactions.csv.gz",
+            "parquet/interactions.parquet",
+            "tsv/refuted-interactions.tsv.gz",
+            "csv/refuted-interactions.csv.gz",
+            "parquet/refuted-interactions.parquet");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameFilesAsFullExport() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies("some/namespace", "hash1", 0, 4);
+        createStudies("other/namespace", "hash2", 4, 3);
+        createStudies("third/namespace", "hash3", 7, 5);
+        resolveNames();
+
+        File partitionDir = folder.newFolder("partitions");
+        File incrementalDir = folder.newFolder("incremental");
+
+        List<String> exported = exportIncrementally(partitionDir, incrementalDir);
+        assertThat(exported, is(Arrays.asList("some/namespace", "other/namespace", "third/namespace")));
+        assertSameAsFullExport(incrementalDir);
+
+        exported = exportIncrementally(partitionDir, incrementalDir);
+        assertThat(exported, is(Collections.<String>emptyList()));
+        assertSameAsFullExport(incrementalDir);
+    }
+
+    @Test
+    public void exportChangedAndRemoveDeletedDatasets() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies("some/namespace", "hash1", 0, 4);
+        createStudies("other/namespace", "hash2", 4, 3);
+        createStudies("third/namespace", "hash3", 7, 5);
+        resolveNames();
+
+        File partitionDir = folder.newFolder("partitions");
+        File incrementalDir = folder.newFolder("incremental");
+        exportIncrementally(partitionDir, incrementalDir);
+        assertThat(partitionDirs(partitionDir), is(3));
+
+        createStudies("third/namespace", "hash3", 12, 2);
+        resolveNames();
+        try (Transaction tx = getGraphDb().beginTx()) {
+            Index<Node> datasets = getGraphDb().index().forNodes("datasets");
+            datasets.get(DatasetConstant.NAMESPACE, "third/namespace").getSingle().setProperty(DatasetConstant.CONTENT_HASH, "hash4");
+            datasets.remove(datasets.get(DatasetConstant.NAMESPACE, "other/namespace").getSingle());
+            tx.success();
+        }
+
+        List<String> exported = exportIncrementally(partitionDir, incrementalDir);
+        assertThat(exported, is(Collections.singletonList("third/namespace")));
+        assertThat(partitionDirs(partitionDir), is(2));
+        assertThat(new ObjectMapper().readTree(new File(partitionDir, ExportIncremental.MANIFEST_FILENAME))
+                .get("partitions").get("third/namespace").get("contentHash").getTextValue(), is("hash4"));
+        assertSameAsFullExport(incrementalDir);
+    }
+
+    @Test
+    public void datasetsWithoutContentHashAreAlwaysExported() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies("some/namespace", null, 0, 2);
+        createStudies("other/namespace", "hash2", 2, 2);
+        resolveNames();
+
+        File partitionDir = folder.newFolder("partitions");
+        File incrementalDir = folder.newFolder("incremental");
+        exportIncrementally(partitionDir, incrementalDir);
+
+        List<String> exported = exportIncrementally(partitionDir, incrementalDir);
+        assertThat(exported, is(Collections.singletonList("some/namespace")));
+        assertSameAsFullExport(incrementalDir);
+    }
+
+    @Test
+    public void changedInputsOrExporterVersionExportAllDatasets() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies("some/namespace", "hash1", 0, 2);
+        createStudies("other/namespace", "hash2", 2, 2);
+        resolveNames();
+
+        File partitionDir = folder.newFolder("partitions");
+        File incrementalDir = folder.newFolder("incremental");
+        List<String> all = Arrays.asList("some/namespace", "other/namespace");
+        assertThat(exportIncrementally(partitionDir, incrementalDir, "taxonCache:hash1", "1.0"), is(all));
+        assertThat(exportIncrementally(partitionDir, incrementalDir, "taxonCache:hash1", "1.0"), is(Collections.<String>emptyList()));
+
+        assertThat(exportIncrementally(partitionDir, incrementalDir, "taxonCache:hash2", "1.0"), is(all));
+        assertThat(exportIncrementally(partitionDir, incrementalDir, "taxonCache:hash2", "1.1"), is(all));
+        assertThat(exportIncrementally(partitionDir, incrementalDir, "taxonCache:hash2", "1.1"), is(Collections.<String>emptyList()));
+        assertSameAsFullExport(incrementalDir);
+    }
+
+    @Test
+    public void noDatasets() throws StudyImporterException, IOException {
+        File incrementalDir = folder.newFolder("incremental");
+        List<String> exported = exportIncrementally(folder.newFolder("partitions"), incrementalDir);
+        assertThat(exported, is(Collections.<String>emptyList()));
+        assertSameAsFullExport(incrementalDir);
+    }
+
+    private List<String> exportIncrementally(File partitionDir, File baseDir) throws StudyImporterException {
+        return exportIncrementally(partitionDir, baseDir, "someInputFingerprint", "someVersion");
+    }
+
+    private List<String> exportIncrementally(File partitionDir, File baseDir, String inputFingerprint, String exporterVersion) throws StudyImporterException {
+        return new ExportIncremental(partitionDir, Arrays.asList(
+                new ExportIncremental.Export("interactions",
+                        ExportFlatInteractions.createQuery(RelTypes.SUPPORTS, PropertyAndValueDictionary.SUPPORTS),
+                        ExportFlatInteractions.createQueryForDataset(RelTypes.SUPPORTS, PropertyAndValueDictionary.SUPPORTS),
+                        targets(baseDir, "interactions")),
+                new ExportIncremental.Export("refuted-interactions",
+                        ExportFlatInteractions.createQuery(RelTypes.REFUTES, PropertyAndValueDictionary.REFUTES),
+                        ExportFlatInteractions.createQueryForDataset(RelTypes.REFUTES, PropertyAndValueDictionary.REFUTES),
+                        targets(baseDir, "refuted-interactions"))),
+                inputFingerprint, exporterVersion)
+                .export(getGraphDb());
+    }
+
+    private void assertSameAsFullExport(File incrementalDir) throws StudyImporterException, IOException {
+        File fullDir = new File(folder.getRoot(), "full");
+        FileUtils.deleteDirectory(fullDir);
+        ExportFanOut fanOut = new ExportFanOut();
+        fanOut.export(getGraphDb(), ExportFlatInteractions.createQuery(RelTypes.SUPPORTS, PropertyAndValueDictionary.SUPPORTS), targets(fullDir, "interactions"));
+        fanOut.export(getGraphDb(), ExportFlatInteractions.createQuery(RelTypes.REFUTES, PropertyAndValueDictionary.REFUTES), targets(fullDir, "refuted-interactions"));
+
+        for (String filename : FILENAMES) {
+            File expected = new File(fullDir, filename);
+            assertThat(filename, expected.exists(), is(true));
+            assertThat(filename, FileUtils.contentEquals(expected, new File(incrementalDir, filename)), is(true));
+        }
+    }
+
+    private static List<ExportFanOut.Target> targets(File baseDir, String name) {
+        return Arrays.asList(
+                new ExportFanOut.Target(new File(baseDir, "tsv").getAbsolutePath(), name + ".tsv.gz", new ExportUtil.TsvValueJoiner()),
+                new ExportFanOut.Target(new File(baseDir, "csv").getAbsolutePath(), name + ".csv.gz", new ExportUtil.CsvValueJoiner()),
+                ExportFanOut.Target.parquet(new File(baseDir, "parquet").getAbsolutePath(), name + ".parquet"));
+    }
+
+    private static int partitionDirs(File partitionDir) {
+        return partitionDir.listFiles(File::isDirectory).length;
+    }
+
+    private void createStudies(String namespace, String contentHash, int offset, int numberOfStudies) throws NodeFactoryException {
+        DatasetImpl dataset = new DatasetImpl(namespace, URI.create("http://example.com/" + namespace), inStream -> inStream);
+        ObjectNode config = new ObjectMapper().createObjectNode();
+        if (contentHash != null) {
+            config.put(DatasetConstant.CONTENT_HASH, contentHash);
+        }
+        dataset.setConfig(config);
+        NodeFactoryWithDatasetContext factory = new NodeFactoryWithDatasetContext(nodeFactory, dataset);
+        for (int i = offset; i < offset + numberOfStudies; i++) {
+            Study study = factory.createStudy(new StudyImpl("study" + i, new DOI("123", "" + i), "citation\t" + i));
+            Specimen predator = factory.createSpecimen(study, new TaxonImpl("Homo sapiens", "EOL:" + (i % 7)));
+            predator.ate(factory.createSpecimen(study, new TaxonImpl("Canis lupus", "EOL:555")));
+            predator.ate(factory.createSpecimen(study, new TaxonImpl("Felis domesticus", null)));
+            if (i % 3 == 0) {
+                Specimen refuted = factory.createSpecimen(study, new TaxonImpl("Homo erectus", "EOL:123"), RelTypes.REFUTES);
+                refuted.ate(factory.createSpecimen(study, new TaxonImpl("Canis lupus", "EOL:555")));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ParallelGZIPOutputStreamTest {
+
+    private static final int BLOCK_SIZE = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        for (int size : Arrays.asList(0, 1, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE + 1, 37 * BLOCK_SIZE + 13)) {
+            byte[] input = someBytes(size);
+            assertThat("size [" + size + "]", gunzip(compress(input)), is(input));
+        }
+    }
+
+    @Test
+    public void singleByteWrites() throws IOException {
+        byte[] input = someBytes(3 * BLOCK_SIZE + 7);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(compressed, BLOCK_SIZE, 2, executor)) {
+            for (byte b : input) {
+                os.write(b);
+            }
+        }
+        assertThat(gunzip(compressed.toByteArray()), is(input));
+        assertThat(compressed.toByteArray(), is(compress(input)));
+    }
+
+    @Test
+    public void membersInOrder() throws IOException {
+        byte[] input = someBytes(2 * BLOCK_SIZE + 500);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int offset = 0; offset < input.length; offset += BLOCK_SIZE) {
+            try (GZIPOutputStream member = new GZIPOutputStream(expected) {
+                @Override
+                public void close() throws IOException {
+                    finish();
+                }
+            }) {
+                member.write(input, offset, Math.min(BLOCK_SIZE, input.length - offset));
+            }
+        }
+        assertThat(compress(input), is(expected.toByteArray()));
+    }
+
+    @Test
+    public void emptyInputIsValidGzip() throws IOException {
+        byte[] compressed = compress(new byte[0]);
+        assertThat(compressed.length > 0, is(true));
+        assertThat(gunzip(compressed).length, is(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void writeAfterFinish() throws IOException {
+        ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(new ByteArrayOutputStream(), BLOCK_SIZE, 2, executor);
+        os.finish();
+        os.write(1);
+    }
+
+    @Test
+    public void decompressWithGunzip() throws IOException, InterruptedException {
+        Assume.assumeTrue(new File("/bin/gunzip").exists() || new File("/usr/bin/gunzip").exists());
+        byte[] input = someBytes(5 * BLOCK_SIZE + 11);
+        File gz = new File(folder.getRoot(), "some.txt.gz");
+        Files.write(gz.toPath(), compress(input));
+
+        Process gunzip = new ProcessBuilder("gunzip", gz.getAbsolutePath()).start();
+        assertThat(gunzip.waitFor(), is(0));
+        assertThat(Files.readAllBytes(new File(folder.getRoot(), "some.txt").toPath()), is(input));
+    }
+
+    private byte[] compress(byte[] input) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(compressed, BLOCK_SIZE, 3, executor)) {
+            os.write(input);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+    private static byte[] someBytes(int size) {
+        Random random = new Random(size);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < size) {
+            text.append("Homo sapiens\teats\tCanis lupus\t").append(random.nextInt(1000)).append('\n');
+        }
+        return Arrays.copyOf(text.toString().getBytes(StandardCharsets.UTF_8), size);
+    }
+
+}
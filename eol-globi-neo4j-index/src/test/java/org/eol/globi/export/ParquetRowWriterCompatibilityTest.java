@@ -0,0 +1,184 @@
+package org.eol.globi.export;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Reads files written by {@link ParquetRowWriter} with parquet-mr, independently of {@link ParquetTestReader}.
+ */
+public class ParquetRowWriterCompatibilityTest {
+
+    private static final List<String> COLUMNS = Arrays.asList("taxonName", "interactionType", "alwaysNull");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readRowsWithParquetMr() throws IOException {
+        List<String[]> rows = rows(1000);
+        File file = write(rows, 300);
+
+        List<String[]> actual = readRows(file);
+        assertThat(actual.size(), is(rows.size()));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(Arrays.asList(actual.get(i)), is(Arrays.asList(rows.get(i))));
+        }
+    }
+
+    @Test
+    public void schemaAndStatistics() throws IOException {
+        File file = write(rows(1000), 300);
+
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(file.toURI()), new Configuration()))) {
+            MessageType schema = reader.getFileMetaData().getSchema();
+            assertThat(schema.getFieldCount(), is(COLUMNS.size()));
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                Type field = schema.getType(i);
+                assertThat(field.getName(), is(COLUMNS.get(i)));
+                assertThat(field.getRepetition(), is(Type.Repetition.OPTIONAL));
+                assertThat(field.asPrimitiveType().getPrimitiveTypeName(), is(PrimitiveType.PrimitiveTypeName.BINARY));
+                assertThat(field.getLogicalTypeAnnotation(), is(LogicalTypeAnnotation.stringType()));
+            }
+            assertThat(reader.getRecordCount(), is(1000L));
+
+            List<BlockMetaData> blocks = reader.getFooter().getBlocks();
+            assertThat(blocks.size(), is(4));
+            assertThat(blocks.get(0).getRowCount(), is(300L));
+            assertThat(blocks.get(3).getRowCount(), is(100L));
+
+            ColumnChunkMetaData taxonName = blocks.get(0).getColumns().get(0);
+            Statistics<?> statistics = taxonName.getStatistics();
+            assertThat(statistics.getNumNulls(), is(0L));
+            assertThat(((Binary) statistics.genericGetMin()).toStringUsingUTF8(), is("Ariopsis felis"));
+            assertThat(((Binary) statistics.genericGetMax()).toStringUsingUTF8(), is("Émile 🐝"));
+
+            ColumnChunkMetaData interactionType = blocks.get(0).getColumns().get(1);
+            assertThat(interactionType.getStatistics().getNumNulls(), is(100L));
+            assertThat(interactionType.getDictionaryPageOffset() > 0, is(true));
+
+            ColumnChunkMetaData alwaysNull = blocks.get(0).getColumns().get(2);
+            assertThat(alwaysNull.getStatistics().getNumNulls(), is(300L));
+            assertThat(alwaysNull.getStatistics().hasNonNullValue(), is(false));
+            assertThat(alwaysNull.getDictionaryPageOffset(), is(0L));
+        }
+    }
+
+    @Test
+    public void noDictionaryPageForNullColumn() throws IOException {
+        File file = write(rows(10), 300);
+
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(file.toURI()), new Configuration()))) {
+            List<ColumnDescriptor> columns = reader.getFileMetaData().getSchema().getColumns();
+            PageReadStore rowGroup = reader.readNextRowGroup();
+            assertThat(rowGroup.getRowCount(), is(10L));
+            assertThat(rowGroup.getPageReader(columns.get(0)).readDictionaryPage(), is(notNullValue()));
+            assertThat(rowGroup.getPageReader(columns.get(1)).readDictionaryPage(), is(notNullValue()));
+            assertThat(rowGroup.getPageReader(columns.get(2)).readDictionaryPage(), is(nullValue()));
+            assertThat(rowGroup.getPageReader(columns.get(2)).readPage().getValueCount(), is(10));
+        }
+    }
+
+    @Test
+    public void rowGroupsStartedByDictionaryLimit() throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add(new String[]{"some value " + i, i % 2 == 0 ? "even" : null, null});
+        }
+        File file = write(rows, 1000, 1000);
+
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(file.toURI()), new Configuration()))) {
+            assertThat(reader.getFooter().getBlocks().size() > 1, is(true));
+            assertThat(reader.getRecordCount(), is(500L));
+        }
+        List<String[]> actual = readRows(file);
+        assertThat(actual.size(), is(rows.size()));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(Arrays.asList(actual.get(i)), is(Arrays.asList(rows.get(i))));
+        }
+    }
+
+    @Test
+    public void noRows() throws IOException {
+        File file = write(new ArrayList<>(), 300);
+
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(file.toURI()), new Configuration()))) {
+            assertThat(reader.getFileMetaData().getSchema().getFieldCount(), is(COLUMNS.size()));
+            assertThat(reader.getRecordCount(), is(0L));
+            assertThat(reader.getFooter().getBlocks().size(), is(0));
+        }
+        assertThat(readRows(file).size(), is(0));
+    }
+
+    private List<String[]> readRows(File file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), new Path(file.toURI())).build()) {
+            Group group;
+            while ((group = reader.read()) != null) {
+                String[] row = new String[COLUMNS.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = group.getFieldRepetitionCount(i) == 0 ? null : group.getString(i, 0);
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private File write(List<String[]> rows, int rowGroupSize) throws IOException {
+        return write(rows, rowGroupSize, ParquetRowWriter.DICTIONARY_LIMIT_DEFAULT);
+    }
+
+    private File write(List<String[]> rows, int rowGroupSize, long dictionaryLimit) throws IOException {
+        File file = new File(folder.getRoot(), "rows.parquet");
+        try (ParquetRowWriter writer = new ParquetRowWriter(new FileOutputStream(file), rowGroupSize, dictionaryLimit)) {
+            writer.setColumns(COLUMNS);
+            for (String[] row : rows) {
+                writer.writeRow(row);
+            }
+        }
+        return file;
+    }
+
+    private static List<String[]> rows(int count) {
+        List<String> names = Arrays.asList("Homo sapiens", "Canis lupus", "Ariopsis felis", "Émile 🐝", "d'Orbigny, \"quoted\"\t");
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new String[]{
+                    names.get(i % names.size()),
+                    i % 3 == 0 ? null : "eats " + (i % 17),
+                    null});
+        }
+        return rows;
+    }
+
+}
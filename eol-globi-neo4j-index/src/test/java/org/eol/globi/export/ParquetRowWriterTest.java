@@ -0,0 +1,215 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.IOUtils;
+import org.eol.globi.data.GraphDBTestCase;
+import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.data.NodeFactoryWithDatasetContext;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.LocationImpl;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.Study;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.TermImpl;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.globalbioticinteractions.doi.DOI;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ParquetRowWriterTest extends GraphDBTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private NodeFactoryWithDatasetContext factory;
+
+    @Before
+    public void init() throws IOException {
+        DatasetImpl dataset = new DatasetImpl("some/namespace", URI.create("http://example.com"), inStream -> inStream);
+        factory = new NodeFactoryWithDatasetContext(nodeFactory, dataset);
+    }
+
+    @Test
+    public void roundTripAgainstTsvExport() throws NodeFactoryException, StudyImporterException, IOException {
+        createStudies(25);
+        resolveNames();
+
+        String tsvDir = folder.newFolder("tsv").getAbsolutePath();
+        new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz").export(getGraphDb(), tsvDir);
+        List<String> tsvLines = IOUtils.readLines(new GZIPInputStream(new FileInputStream(new File(tsvDir, "interactions.tsv.gz"))), StandardCharsets.UTF_8);
+
+        String parquetDir = folder.newFolder("parquet").getAbsolutePath();
+        new ExportFanOut().export(getGraphDb(),
+                ExportFlatInteractions.createQuery(RelTypes.SUPPORTS, PropertyAndValueDictionary.SUPPORTS),
+                Collections.singletonList(ExportFanOut.Target.parquet(parquetDir, "interactions.parquet")));
+        ParquetTestReader reader = new ParquetTestReader(Files.readAllBytes(new File(parquetDir, "interactions.parquet").toPath()));
+
+        assertThat(tsvLines.size() > 25, is(true));
+        assertThat(String.join("\t", reader.getColumns()), is(tsvLines.get(0)));
+
+        ExportUtil.TsvValueJoiner joiner = new ExportUtil.TsvValueJoiner();
+        List<String[]> rows = reader.getRows();
+        assertThat(rows.size(), is(tsvLines.size() - 1));
+        boolean hasNulls = false;
+        for (int i = 0; i < rows.size(); i++) {
+            hasNulls = hasNulls || Arrays.asList(rows.get(i)).contains(null);
+            assertThat(joiner.join(Stream.of(rows.get(i)).map(value -> value == null ? "" : value)), is(tsvLines.get(i + 1)));
+        }
+        assertThat(hasNulls, is(true));
+    }
+
+    @Test
+    public void rowGroupsWithStatistics() throws IOException {
+        List<String[]> rows = Arrays.asList(
+                new String[]{"Homo sapiens", null},
+                new String[]{"Canis lupus", "eats"},
+                new String[]{"Homo sapiens", "eats"},
+                new String[]{"Ariopsis felis", null},
+                new String[]{"Émile", "𝄞 clef"});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParquetRowWriter writer = new ParquetRowWriter(out, 3, ParquetRowWriter.DICTIONARY_LIMIT_DEFAULT)) {
+            writer.setColumns(Arrays.asList("taxonName", "interactionType"));
+            for (String[] row : rows) {
+                writer.writeRow(row);
+            }
+        }
+
+        ParquetTestReader reader = new ParquetTestReader(out.toByteArray());
+        assertThat(reader.getColumns(), is(Arrays.asList("taxonName", "interactionType")));
+        assertThat(reader.getMetaData().get(3), is(5L));
+        assertRows(reader.getRows(), rows);
+
+        List<Map<Integer, Object>> rowGroups = reader.getRowGroups();
+        assertThat(rowGroups.size(), is(2));
+        assertThat(rowGroups.get(0).get(3), is(3L));
+        assertThat(rowGroups.get(1).get(3), is(2L));
+
+        Map<Integer, Object> statistics = ParquetTestReader.struct(ParquetTestReader.columnMetaData(rowGroups.get(0), 0).get(12));
+        assertThat(ParquetTestReader.string(statistics.get(6)), is("Canis lupus"));
+        assertThat(ParquetTestReader.string(statistics.get(5)), is("Homo sapiens"));
+        assertThat(statistics.get(3), is(0L));
+        assertThat(statistics.get(4), is(2L));
+
+        statistics = ParquetTestReader.struct(ParquetTestReader.columnMetaData(rowGroups.get(1), 1).get(12));
+        assertThat(statistics.get(3), is(1L));
+        assertThat(ParquetTestReader.string(statistics.get(6)), is("𝄞 clef"));
+    }
+
+    @Test
+    public void dictionaryLimitStartsNewRowGroup() throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new String[]{"some value " + i, i % 2 == 0 ? "even" : "odd"});
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParquetRowWriter writer = new ParquetRowWriter(out, 1000, 500)) {
+            writer.append(Stream.of("value", "parity"));
+            for (String[] row : rows) {
+                writer.append(Stream.of(row));
+            }
+        }
+
+        ParquetTestReader reader = new ParquetTestReader(out.toByteArray());
+        assertThat(reader.getRowGroups().size() > 1, is(true));
+        assertRows(reader.getRows(), rows);
+    }
+
+    @Test
+    public void allNullColumnWithoutDictionaryPage() throws IOException {
+        List<String[]> rows = Arrays.asList(
+                new String[]{"Homo sapiens", null},
+                new String[]{"Canis lupus", null},
+                new String[]{"Homo sapiens", null});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParquetRowWriter writer = new ParquetRowWriter(out)) {
+            writer.setColumns(Arrays.asList("taxonName", "alwaysNull"));
+            for (String[] row : rows) {
+                writer.writeRow(row);
+            }
+        }
+
+        ParquetTestReader reader = new ParquetTestReader(out.toByteArray());
+        assertRows(reader.getRows(), rows);
+
+        Map<Integer, Object> rowGroup = reader.getRowGroups().get(0);
+        Map<Integer, Object> withValues = ParquetTestReader.columnMetaData(rowGroup, 0);
+        assertThat(withValues.containsKey(11), is(true));
+        assertThat(ParquetTestReader.list(withValues.get(2)), is(Arrays.asList(2L, 3L)));
+
+        Map<Integer, Object> allNull = ParquetTestReader.columnMetaData(rowGroup, 1);
+        assertThat(allNull.containsKey(11), is(false));
+        assertThat(ParquetTestReader.list(allNull.get(2)), is(Arrays.asList(0L, 3L)));
+        Map<Integer, Object> statistics = ParquetTestReader.struct(allNull.get(12));
+        assertThat(statistics.get(3), is(3L));
+        assertThat(statistics.containsKey(5), is(false));
+        assertThat(statistics.containsKey(6), is(false));
+    }
+
+    @Test
+    public void noRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParquetRowWriter writer = new ParquetRowWriter(out)) {
+            writer.setColumns(Collections.singletonList("empty"));
+        }
+        ParquetTestReader reader = new ParquetTestReader(out.toByteArray());
+        assertThat(reader.getColumns(), is(Collections.singletonList("empty")));
+        assertThat(reader.getRowGroups().size(), is(0));
+        assertThat(reader.getRows().size(), is(0));
+    }
+
+    @Test
+    public void hybridEncoding() {
+        int[] values = new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 2, 3, 4, 5, 6, 7, 0, 0, 0, 0, 0, 0, 0, 0, 0, 5};
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ParquetRowWriter.encodeHybrid(encoded, i -> values[i], values.length, 3);
+        byte[] bytes = encoded.toByteArray();
+        assertThat(ParquetTestReader.decodeHybrid(bytes, 0, bytes.length, 3, values.length), is(values));
+    }
+
+    private static void assertRows(List<String[]> actual, List<String[]> expected) {
+        assertThat(actual.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(Arrays.asList(actual.get(i)), is(Arrays.asList(expected.get(i))));
+        }
+    }
+
+    private void createStudies(int numberOfStudies) throws NodeFactoryException {
+        for (int i = 0; i < numberOfStudies; i++) {
+            Study study = factory.createStudy(new StudyImpl("study" + i, i % 2 == 0 ? new DOI("123", "" + i) : null, "citation\t" + i));
+            TaxonImpl taxon = new TaxonImpl("Homo sapiens", "EOL:" + (i % 7));
+            taxon.setPath("Animalia | Chordata | Homo sapiens");
+            Specimen predator = factory.createSpecimen(study, taxon);
+            predator.setLifeStage(new TermImpl("GLOBI:JUVENILE", "JUVENILE"));
+            predator.ate(factory.createSpecimen(study, new TaxonImpl("Canis lupus", "EOL:555")));
+            predator.ate(factory.createSpecimen(study, new TaxonImpl("Felis domesticus " + i, null)));
+            if (i % 3 == 0) {
+                predator.caughtIn(factory.getOrCreateLocation(new LocationImpl(12.0 + i, -45.9, null, null)));
+            }
+        }
+    }
+
+}
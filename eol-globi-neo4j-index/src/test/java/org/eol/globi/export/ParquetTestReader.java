@@ -0,0 +1,259 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the subset of parquet written by {@link ParquetRowWriter}: optional utf8 columns with a gzipped
+ * dictionary page, if any, and a single dictionary encoded data page per column chunk.
+ */
+class ParquetTestReader {
+
+    private final byte[] file;
+    private final Map<Integer, Object> metaData;
+
+    ParquetTestReader(byte[] file) throws IOException {
+        this.file = file;
+        if (!"PAR1".equals(new String(file, 0, 4, StandardCharsets.US_ASCII))
+                || !"PAR1".equals(new String(file, file.length - 4, 4, StandardCharsets.US_ASCII))) {
+            throw new IOException("not a parquet file");
+        }
+        int footerLength = (int) readIntLittleEndian(file, file.length - 8);
+        this.metaData = new ThriftCompactReader(file, file.length - 8 - footerLength).readStruct();
+    }
+
+    Map<Integer, Object> getMetaData() {
+        return metaData;
+    }
+
+    List<String> getColumns() {
+        List<String> columns = new ArrayList<>();
+        List<Object> schema = list(metaData.get(2));
+        for (Object element : schema.subList(1, schema.size())) {
+            columns.add(string(struct(element).get(4)));
+        }
+        return columns;
+    }
+
+    List<Map<Integer, Object>> getRowGroups() {
+        List<Map<Integer, Object>> rowGroups = new ArrayList<>();
+        for (Object rowGroup : list(metaData.get(4))) {
+            rowGroups.add(struct(rowGroup));
+        }
+        return rowGroups;
+    }
+
+    static Map<Integer, Object> columnMetaData(Map<Integer, Object> rowGroup, int column) {
+        return struct(struct(list(rowGroup.get(1)).get(column)).get(3));
+    }
+
+    List<String[]> getRows() throws IOException {
+        int columnCount = getColumns().size();
+        List<String[]> rows = new ArrayList<>();
+        for (Map<Integer, Object> rowGroup : getRowGroups()) {
+            int rowCount = ((Long) rowGroup.get(3)).intValue();
+            String[][] values = new String[rowCount][columnCount];
+            for (int column = 0; column < columnCount; column++) {
+                Map<Integer, Object> columnMetaData = columnMetaData(rowGroup, column);
+                List<String> dictionary = columnMetaData.containsKey(11)
+                        ? readDictionary(((Long) columnMetaData.get(11)).intValue())
+                        : Collections.emptyList();
+                String[] columnValues = readDataPage(((Long) columnMetaData.get(9)).intValue(), dictionary, rowCount);
+                for (int row = 0; row < rowCount; row++) {
+                    values[row][column] = columnValues[row];
+                }
+            }
+            rows.addAll(Arrays.asList(values));
+        }
+        return rows;
+    }
+
+    private List<String> readDictionary(int offset) throws IOException {
+        ThriftCompactReader reader = new ThriftCompactReader(file, offset);
+        Map<Integer, Object> header = reader.readStruct();
+        byte[] page = gunzip(reader.position, ((Long) header.get(3)).intValue());
+        List<String> dictionary = new ArrayList<>();
+        int position = 0;
+        while (position < page.length) {
+            int length = (int) readIntLittleEndian(page, position);
+            dictionary.add(new String(page, position + 4, length, StandardCharsets.UTF_8));
+            position += 4 + length;
+        }
+        return dictionary;
+    }
+
+    private String[] readDataPage(int offset, List<String> dictionary, int rowCount) throws IOException {
+        ThriftCompactReader reader = new ThriftCompactReader(file, offset);
+        Map<Integer, Object> header = reader.readStruct();
+        byte[] page = gunzip(reader.position, ((Long) header.get(3)).intValue());
+        int levelsLength = (int) readIntLittleEndian(page, 0);
+        int[] definitionLevels = decodeHybrid(page, 4, 4 + levelsLength, 1, rowCount);
+        int valueCount = 0;
+        for (int level : definitionLevels) {
+            valueCount += level;
+        }
+        int[] indices = new int[0];
+        if (valueCount > 0) {
+            int bitWidth = page[4 + levelsLength];
+            indices = decodeHybrid(page, 5 + levelsLength, page.length, bitWidth, valueCount);
+        }
+        String[] values = new String[rowCount];
+        int index = 0;
+        for (int row = 0; row < rowCount; row++) {
+            values[row] = definitionLevels[row] == 0 ? null : dictionary.get(indices[index++]);
+        }
+        return values;
+    }
+
+    static int[] decodeHybrid(byte[] bytes, int position, int end, int bitWidth, int count) {
+        int[] values = new int[count];
+        int i = 0;
+        while (i < count && position < end) {
+            long header = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                header |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if ((header & 1) == 0) {
+                int runLength = (int) (header >>> 1);
+                int value = 0;
+                for (int byteIndex = 0; byteIndex < (bitWidth + 7) / 8; byteIndex++) {
+                    value |= (bytes[position++] & 0xFF) << (8 * byteIndex);
+                }
+                for (int j = 0; j < runLength && i < count; j++) {
+                    values[i++] = value;
+                }
+            } else {
+                int literals = (int) (header >>> 1) * 8;
+                long buffer = 0;
+                int bits = 0;
+                for (int j = 0; j < literals; j++) {
+                    while (bits < bitWidth) {
+                        buffer |= (long) (bytes[position++] & 0xFF) << bits;
+                        bits += 8;
+                    }
+                    int value = (int) (buffer & ((1L << bitWidth) - 1));
+                    buffer >>>= bitWidth;
+                    bits -= bitWidth;
+                    if (i < count) {
+                        values[i++] = value;
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private byte[] gunzip(int offset, int length) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(file, offset, length)));
+    }
+
+    private static long readIntLittleEndian(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<Integer, Object> struct(Object value) {
+        return (Map<Integer, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> list(Object value) {
+        return (List<Object>) value;
+    }
+
+    static String string(Object value) {
+        return new String((byte[]) value, StandardCharsets.UTF_8);
+    }
+
+    private static class ThriftCompactReader {
+        private final byte[] bytes;
+        private int position;
+
+        ThriftCompactReader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        Map<Integer, Object> readStruct() throws IOException {
+            Map<Integer, Object> struct = new TreeMap<>();
+            int lastFieldId = 0;
+            while (true) {
+                int header = bytes[position++] & 0xFF;
+                if (header == 0) {
+                    return struct;
+                }
+                int type = header & 0x0F;
+                int delta = header >>> 4;
+                int fieldId = delta == 0 ? (int) unzigzag(readVarint()) : lastFieldId + delta;
+                lastFieldId = fieldId;
+                struct.put(fieldId, readValue(type));
+            }
+        }
+
+        private Object readValue(int type) throws IOException {
+            switch (type) {
+                case 1:
+                    return Boolean.TRUE;
+                case 2:
+                    return Boolean.FALSE;
+                case 5:
+                case 6:
+                    return unzigzag(readVarint());
+                case 8:
+                    int length = (int) readVarint();
+                    byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+                    position += length;
+                    return value;
+                case 9:
+                    int header = bytes[position++] & 0xFF;
+                    int size = header >>> 4;
+                    if (size == 15) {
+                        size = (int) readVarint();
+                    }
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue(header & 0x0F));
+                    }
+                    return list;
+                case 12:
+                    return readStruct();
+                default:
+                    throw new IOException("unsupported thrift type [" + type + "]");
+            }
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RowWriterTest {
+
+    private static final List<String[]> ROWS = Arrays.asList(
+            new String[]{"one", "two", "three"},
+            new String[]{"o\t\tn\ne", "two\n", "three\r\n\t"},
+            new String[]{"  \t leading and trailing \r\n", "\u0001control\u001f", "a\t \tb"},
+            new String[]{"", " ", " "},
+            new String[]{" em space ", " nbsp ", "line separator"},
+            new String[]{"o\"n\ne", "with, comma", "\"quoted\""},
+            new String[]{"café", "日本語", "🐝 bee"},
+            new String[]{"lone \ud83d high", "lone \udc1d low", "ends with high \ud83d"},
+            new String[]{"<http://example.org/s>", "<http://example.org/p>", "\"literal\""},
+            new String[]{null, "after null", null},
+            new String[]{});
+
+    @Test
+    public void tsvSameAsJoiner() throws IOException {
+        assertSameAsJoiner(new ExportUtil.TsvValueJoiner());
+    }
+
+    @Test
+    public void csvSameAsJoiner() throws IOException {
+        assertSameAsJoiner(new ExportUtil.CsvValueJoiner());
+    }
+
+    @Test
+    public void nquadSameAsJoiner() throws IOException {
+        assertSameAsJoiner(new ExportUtil.NQuadValueJoiner());
+    }
+
+    @Test
+    public void customJoiner() throws IOException {
+        assertSameAsJoiner(values -> String.join("|", (Iterable<String>) values.map(String::valueOf)::iterator));
+    }
+
+    @Test
+    public void customJoinerValueByValue() throws IOException {
+        ExportUtil.ValueJoiner joiner = values -> String.join("|", (Iterable<String>) values.map(String::valueOf)::iterator);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        RowWriter rowWriter = joiner.rowWriterFor(actual);
+        rowWriter.value("one");
+        rowWriter.value(null);
+        rowWriter.value("three");
+        rowWriter.endOfRow();
+        rowWriter.endOfRow();
+        rowWriter.value("four");
+        rowWriter.endOfRow();
+        rowWriter.flush();
+
+        assertThat(new String(actual.toByteArray(), StandardCharsets.UTF_8), is("one|null|three\n\nfour\n"));
+    }
+
+    @Test
+    public void appendRowLikeAppenderWriter() throws IOException {
+        Map<String, Object> row = new HashMap<String, Object>() {{
+            put("oneKey", "o\t\tn\ne");
+            put("twoKey", 2L);
+        }};
+        List<String> columns = Arrays.asList("oneKey", "twoKey", "missingKey");
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        RowWriter rowWriter = new ExportUtil.TsvValueJoiner().rowWriterFor(actual);
+        rowWriter.appendRow(row, columns);
+        rowWriter.flush();
+
+        assertThat(new String(actual.toByteArray(), StandardCharsets.UTF_8), is("o n e\t2\t\n"));
+    }
+
+    @Test
+    public void flushesLargeRows() throws IOException {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            large.append("é\t");
+        }
+        String[] row = new String[]{large.toString(), "x"};
+        List<String[]> rows = Arrays.asList(row, row, row);
+        ExportUtil.TsvValueJoiner joiner = new ExportUtil.TsvValueJoiner();
+        assertThat(writeWithRowWriter(joiner, rows), is(writeWithJoiner(joiner, rows)));
+    }
+
+    @Ignore("benchmark: compares rows per second of joiner and row writer")
+    @Test
+    public void rowsPerSecond() throws IOException {
+        Map<String, Object> row = new HashMap<>();
+        List<String> columns = Arrays.asList("sourceTaxonName", "sourceTaxonPath", "interactionTypeName", "targetTaxonName", "referenceCitation", "decimalLatitude");
+        row.put("sourceTaxonName", "Homo sapiens");
+        row.put("sourceTaxonPath", "Animalia | Chordata | Mammalia | Primates | Hominidae | Homo | Homo sapiens");
+        row.put("interactionTypeName", "eats");
+        row.put("targetTaxonName", "Canis lupus");
+        row.put("referenceCitation", "Smith, J. \"Some study\"\ton dogs, 1999.\n");
+        row.put("decimalLatitude", 12.34d);
+
+        int rows = 200000;
+        for (ExportUtil.ValueJoiner joiner : Arrays.asList(new ExportUtil.TsvValueJoiner(), new ExportUtil.CsvValueJoiner(), new ExportUtil.NQuadValueJoiner())) {
+            // warm up
+            appendRows(ExportUtil.AppenderWriter.of(writerFor(NullOutputStream.NULL_OUTPUT_STREAM), joiner), row, columns, rows);
+            appendRows(joiner.rowWriterFor(NullOutputStream.NULL_OUTPUT_STREAM), row, columns, rows);
+
+            Writer writer = writerFor(NullOutputStream.NULL_OUTPUT_STREAM);
+            long start = System.nanoTime();
+            appendRows(ExportUtil.AppenderWriter.of(writer, joiner), row, columns, rows);
+            writer.flush();
+            long joinerNanos = System.nanoTime() - start;
+
+            RowWriter rowWriter = joiner.rowWriterFor(NullOutputStream.NULL_OUTPUT_STREAM);
+            start = System.nanoTime();
+            appendRows(rowWriter, row, columns, rows);
+            rowWriter.flush();
+            long rowWriterNanos = System.nanoTime() - start;
+
+            System.out.println(joiner.getClass().getSimpleName()
+                    + ": [" + (rows * 1000000000L / joinerNanos) + "] rows/s with joiner"
+                    + ", [" + (rows * 1000000000L / rowWriterNanos) + "] rows/s with row writer");
+        }
+    }
+
+    private static void appendRows(ExportUtil.Appender appender, Map<String, Object> row, List<String> columns, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            appender.appendRow(row, columns);
+        }
+    }
+
+    private static void assertSameAsJoiner(ExportUtil.ValueJoiner joiner) throws IOException {
+        assertThat(writeWithRowWriter(joiner, ROWS), is(writeWithJoiner(joiner, ROWS)));
+        for (String[] row : ROWS) {
+            List<String[]> single = Arrays.<String[]>asList(row);
+            assertThat(Arrays.toString(row), writeWithRowWriter(joiner, single), is(writeWithJoiner(joiner, single)));
+        }
+    }
+
+    private static byte[] writeWithJoiner(ExportUtil.ValueJoiner joiner, List<String[]> rows) throws IOException {
+        return write(out -> {
+            Writer writer = writerFor(out);
+            return new Flushable(ExportUtil.AppenderWriter.of(writer, joiner), writer::flush);
+        }, rows);
+    }
+
+    private static byte[] writeWithRowWriter(ExportUtil.ValueJoiner joiner, List<String[]> rows) throws IOException {
+        return write(out -> {
+            RowWriter rowWriter = joiner.rowWriterFor(out);
+            return new Flushable(rowWriter, rowWriter::flush);
+        }, rows);
+    }
+
+    private static byte[] write(Function<OutputStream, Flushable> appenderFactory, List<String[]> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Flushable appender = appenderFactory.apply(out);
+        for (String[] row : rows) {
+            appender.appender.append(Stream.of(row));
+        }
+        appender.flush.run();
+        return out.toByteArray();
+    }
+
+    private static Writer writerFor(OutputStream out) {
+        return new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    private interface FlushAction {
+        void run() throws IOException;
+    }
+
+    private static class Flushable {
+        private final ExportUtil.Appender appender;
+        private final FlushAction flush;
+
+        Flushable(ExportUtil.Appender appender, FlushAction flush) {
+            this.appender = appender;
+            this.flush = flush;
+        }
+    }
+
+}
@@ -27,10 +27,52 @@ import static org.hamcrest.Matchers.not;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
 public class LinkerTaxonIndexTest extends GraphDBTestCase {
 
     @Test
     public void linking() throws NodeFactoryException {
+        createTaxaToLink();
+
+        new LinkerTaxonIndex().index(new GraphServiceFactoryProxy(getGraphDb()));
+
+        assertLinked();
+    }
+
+    @Test
+    public void linkingResumesAfterFailure() throws NodeFactoryException {
+        createTaxaToLink();
+
+        LinkerTaxonIndex failingLinker = new LinkerTaxonIndex(1) {
+            @Override
+            void onBatchCommitted(String phase, long offset, long total) {
+                if (LinkerTaxonIndex.PHASE_FUZZY.equals(phase) && offset == 1) {
+                    throw new IllegalStateException("kaboom!");
+                }
+            }
+        };
+        try {
+            failingLinker.index(new GraphServiceFactoryProxy(getGraphDb()));
+            fail("expected linking to fail");
+        } catch (IllegalStateException ex) {
+            assertThat(ex.getMessage(), is("kaboom!"));
+        }
+
+        IndexerCheckpoint checkpoint = new IndexerCheckpoint(getGraphDb(), LinkerTaxonIndex.class.getSimpleName());
+        assertThat(checkpoint.getPhase(), is(LinkerTaxonIndex.PHASE_FUZZY));
+        assertThat(checkpoint.getOffset(), is(1L));
+        assertThat(checkpoint.getLastNodeId() > -1L, is(true));
+
+        new LinkerTaxonIndex(1).index(new GraphServiceFactoryProxy(getGraphDb()));
+
+        assertLinked();
+        assertThat(checkpoint.getPhase(), is(nullValue()));
+        assertThat(checkpoint.getOffset(), is(0L));
+        assertThat(checkpoint.getLastNodeId(), is(-1L));
+    }
+
+    private void createTaxaToLink() throws NodeFactoryException {
         Taxon taxonFound = new TaxonImpl("Homo sapiens", "Bar:123");
         taxonFound.setPath("Animalia | Mammalia | Homo sapiens");
         Taxon taxon = taxonIndex.getOrCreateTaxon(taxonFound);
@@ -44,9 +86,9 @@ public class LinkerTaxonIndexTest extends GraphDBTestCase {
         taxon = taxonIndex.getOrCreateTaxon(new TaxonImpl("Bla blaus", null));
         taxon.setExternalId("FOO 1234");
         resolveNames();
+    }
 
-        new LinkerTaxonIndex().index(new GraphServiceFactoryProxy(getGraphDb()));
-
+    private void assertLinked() throws NodeFactoryException {
         try (Transaction transaction = getGraphDb().beginTx()) {
             IndexHits<Node> hits = getGraphDb()
                     .index()
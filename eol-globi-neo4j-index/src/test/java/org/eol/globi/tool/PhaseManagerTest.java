@@ -0,0 +1,155 @@
+package org.eol.globi.tool;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.eol.globi.data.StudyImporterException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PhaseManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File checkpointFile;
+    private File runLogFile;
+    private List<String> phasesRun;
+
+    @Before
+    public void init() {
+        checkpointFile = new File(folder.getRoot(), "checkpoint.json");
+        runLogFile = new File(folder.getRoot(), "runs.jsonl");
+        phasesRun = new ArrayList<>();
+    }
+
+    @Test
+    public void firstRun() throws IOException, StudyImporterException {
+        AtomicLong records = new AtomicLong(0);
+        PhaseManager phases = new PhaseManager(checkpointFile, runLogFile, () -> Collections.singletonMap("nodes", records.get()));
+        assertThat(phases.recordedInPreviousRun("one"), is(false));
+
+        phases.run("one", "input", () -> records.addAndGet(10));
+        phases.skip("two");
+        phases.run("three", "input", () -> records.addAndGet(5));
+
+        List<JsonNode> runLog = readRunLog();
+        assertThat(runLog.size(), is(3));
+        assertThat(runLog.get(0).get("phase").getTextValue(), is("one"));
+        assertThat(runLog.get(0).get("status").getTextValue(), is("completed"));
+        assertThat(runLog.get(0).get("records").get("nodes").getLongValue(), is(10L));
+        assertThat(runLog.get(0).get("recordsProcessed"), is(nullValue()));
+        assertThat(runLog.get(1).get("status").getTextValue(), is("skipped"));
+        assertThat(runLog.get(2).get("records").get("nodes").getLongValue(), is(15L));
+        assertThat(runLog.get(2).get("recordsProcessed").get("nodes").getLongValue(), is(5L));
+        assertThat(runLog.get(2).has("wallTimeMs"), is(true));
+        assertThat(runLog.get(2).has("peakHeapBytes"), is(true));
+
+        assertThat(new PhaseManager(checkpointFile, runLogFile, Collections::emptyMap).recordedInPreviousRun("one"), is(true));
+    }
+
+    @Test
+    public void rerunSkipsCompletedPhases() throws IOException, StudyImporterException {
+        runAll("a", "b", "c");
+        assertThat(phasesRun, is(Arrays.asList("one", "two", "three")));
+
+        phasesRun.clear();
+        runAll("a", "b", "c");
+        assertThat(phasesRun, is(Collections.<String>emptyList()));
+        assertThat(lastStatuses(3), is(Arrays.asList("alreadyCompleted", "alreadyCompleted", "alreadyCompleted")));
+    }
+
+    @Test
+    public void changedInputRerunsPhaseAndAllAfter() throws IOException, StudyImporterException {
+        runAll("a", "b", "c");
+
+        phasesRun.clear();
+        runAll("a", "changed", "c");
+        assertThat(phasesRun, is(Arrays.asList("two", "three")));
+
+        phasesRun.clear();
+        runAll("a", "changed", "c");
+        assertThat(phasesRun, is(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void resumeAtFailedPhase() throws IOException, StudyImporterException {
+        PhaseManager phases = new PhaseManager(checkpointFile, runLogFile, Collections::emptyMap);
+        phases.run("one", "a", () -> phasesRun.add("one"));
+        try {
+            phases.run("two", "b", () -> {
+                throw new StudyImporterException("kaboom");
+            });
+            fail("expected failure");
+        } catch (StudyImporterException ex) {
+            assertThat(ex.getMessage(), is("kaboom"));
+        }
+
+        JsonNode failure = readRunLog().get(1);
+        assertThat(failure.get("status").getTextValue(), is("failed"));
+        assertThat(failure.get("error").getTextValue(), is("kaboom"));
+
+        phasesRun.clear();
+        runAll("a", "b", "c");
+        assertThat(phasesRun, is(Arrays.asList("two", "three")));
+    }
+
+    @Test
+    public void fingerprintOfResourceContent() throws IOException {
+        File taxonCache = folder.newFile("taxonCache.tsv");
+        File taxonMap = folder.newFile("taxonMap.tsv");
+        Files.write(taxonCache.toPath(), "EOL:1\tHomo sapiens".getBytes(StandardCharsets.UTF_8));
+        Files.write(taxonMap.toPath(), "EOL:1\tEOL:1".getBytes(StandardCharsets.UTF_8));
+        String cache = taxonCache.toURI().toString();
+        String map = taxonMap.toURI().toString();
+
+        String fingerprint = PhaseManager.fingerprintOfResources(cache, map);
+        assertThat(PhaseManager.fingerprintOfResources(cache, map), is(fingerprint));
+
+        Files.write(taxonCache.toPath(), "EOL:1\tHomo sapiens sapiens".getBytes(StandardCharsets.UTF_8));
+        assertThat(PhaseManager.fingerprintOfResources(cache, map).equals(fingerprint), is(false));
+    }
+
+    private void runAll(String inputOne, String inputTwo, String inputThree) throws IOException, StudyImporterException {
+        PhaseManager phases = new PhaseManager(checkpointFile, runLogFile, Collections::emptyMap);
+        phases.run("one", inputOne, () -> phasesRun.add("one"));
+        phases.run("two", inputTwo, () -> phasesRun.add("two"));
+        phases.run("three", inputThree, () -> phasesRun.add("three"));
+    }
+
+    private List<String> lastStatuses(int count) throws IOException {
+        List<JsonNode> runLog = readRunLog();
+        List<String> statuses = new ArrayList<>();
+        for (JsonNode line : runLog.subList(runLog.size() - count, runLog.size())) {
+            statuses.add(line.get("status").getTextValue());
+        }
+        return statuses;
+    }
+
+    private List<JsonNode> readRunLog() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(runLogFile.toPath(), StandardCharsets.UTF_8)) {
+            lines.add(mapper.readTree(line));
+        }
+        return lines;
+    }
+
+}
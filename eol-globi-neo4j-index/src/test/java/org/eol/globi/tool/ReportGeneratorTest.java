@@ -8,37 +8,19 @@ import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyImpl;
 import org.eol.globi.domain.TaxonImpl;
-import org.eol.globi.service.CacheService;
 import org.globalbioticinteractions.dataset.Dataset;
 import org.globalbioticinteractions.dataset.DatasetImpl;
-import org.junit.Before;
-import org.junit.Rule;
 import org.junit.Test;
-import org.junit.rules.TemporaryFolder;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.index.IndexHits;
 
-import java.io.IOException;
 import java.net.URI;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 public class ReportGeneratorTest extends GraphDBTestCase {
 
-    @Rule
-    public TemporaryFolder folder = new TemporaryFolder();
-
-    private CacheService cacheService;
-
-    @Before
-    public void init() throws IOException {
-        final CacheService cacheService = new CacheService();
-        cacheService.setCacheDir(folder.newFolder());
-        this.cacheService = cacheService;
-    }
-
-
     @Test
     public void generateIndividualStudySourceReports() throws NodeFactoryException {
 
@@ -63,7 +45,7 @@ public class ReportGeneratorTest extends GraphDBTestCase {
         createStudy(study3);
         resolveNames();
 
-        new ReportGenerator(getGraphDb(), cacheService).generateReportForSourceIndividuals();
+        new ReportGenerator(getGraphDb()).generateReportForSourceIndividuals();
 
         Transaction transaction = getGraphDb().beginTx();
 
@@ -124,7 +106,7 @@ public class ReportGeneratorTest extends GraphDBTestCase {
         createStudy(study3);
         resolveNames();
 
-        new ReportGenerator(getGraphDb(), cacheService).generateReportForSourceOrganizations();
+        new ReportGenerator(getGraphDb()).generateReportForSourceOrganizations();
 
         Transaction transaction = getGraphDb().beginTx();
         IndexHits<Node> reports = getGraphDb()
@@ -173,7 +155,7 @@ public class ReportGeneratorTest extends GraphDBTestCase {
         createStudy(study2);
         resolveNames();
 
-        new ReportGenerator(getGraphDb(), cacheService).generateReportForCollection();
+        new ReportGenerator(getGraphDb()).generateReportForCollection();
 
         Transaction transaction = getGraphDb().beginTx();
         IndexHits<Node> reports = getGraphDb()
@@ -193,6 +175,64 @@ public class ReportGeneratorTest extends GraphDBTestCase {
         transaction.close();
     }
 
+    @Test
+    public void generateAllReportsInSinglePass() throws NodeFactoryException {
+        Dataset originatingDataset1 = nodeFactory.getOrCreateDataset(
+                new DatasetImpl("az/source1", URI.create("http://example.com"), inStream -> inStream));
+        StudyImpl study1 = new StudyImpl("a title", null, "citation");
+        study1.setOriginatingDataset(originatingDataset1);
+        createStudy(study1);
+
+        Dataset originatingDataset2 = nodeFactory.getOrCreateDataset(
+                new DatasetImpl("az/source2", URI.create("http://example.com"), inStream -> inStream));
+        StudyImpl study2 = new StudyImpl("another title", null, "citation");
+        study2.setOriginatingDataset(originatingDataset2);
+        createStudy(study2);
+
+        nodeFactory.getOrCreateDataset(
+                new DatasetImpl("empty/source", URI.create("http://example.com"), inStream -> inStream));
+        resolveNames();
+
+        new ReportGenerator(getGraphDb()).run();
+
+        Transaction transaction = getGraphDb().beginTx();
+        IndexHits<Node> reports = getGraphDb()
+                .index()
+                .forNodes("reports")
+                .query("*:*");
+        assertThat(reports.size(), is(6));
+        reports.close();
+
+        Node collectionReport = getGraphDb()
+                .index()
+                .forNodes("reports")
+                .get(PropertyAndValueDictionary.COLLECTION, ReportGenerator.GLOBI_COLLECTION_NAME)
+                .getSingle();
+        assertThat(collectionReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(2));
+        assertThat(collectionReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(2));
+        assertThat(collectionReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(8));
+        assertThat(collectionReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
+
+        Node sourceReport = getGraphDb()
+                .index()
+                .forNodes("reports")
+                .get(StudyConstant.SOURCE_ID, "globi:az/source2")
+                .getSingle();
+        assertThat(sourceReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(1));
+        assertThat(sourceReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(4));
+
+        Node emptyReport = getGraphDb()
+                .index()
+                .forNodes("reports")
+                .get(StudyConstant.SOURCE_ID, "globi:empty/source")
+                .getSingle();
+        assertThat(emptyReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(0));
+        assertThat(emptyReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(0));
+
+        transaction.success();
+        transaction.close();
+    }
+
     protected Study createStudy(Study study1) throws NodeFactoryException {
         Study study = nodeFactory.getOrCreateStudy(study1);
         Specimen monkey = nodeFactory.createSpecimen(study, new TaxonImpl("Monkey"));
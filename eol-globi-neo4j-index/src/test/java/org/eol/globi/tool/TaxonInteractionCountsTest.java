@@ -0,0 +1,92 @@
+package org.eol.globi.tool;
+
+import org.eol.globi.domain.InteractType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+public class TaxonInteractionCountsTest {
+
+    @Test
+    public void countAndVisitSorted() {
+        TaxonInteractionCounts counts = new TaxonInteractionCounts();
+        counts.add(2L, InteractType.PARASITE_OF, 1L);
+        counts.add(2L, InteractType.ATE, 3L);
+        counts.add(1L, InteractType.ATE, 2L);
+        counts.add(2L, InteractType.ATE, 3L);
+        counts.add(2L, InteractType.ATE, 1L);
+
+        assertThat(counts.size(), is(4));
+        assertThat(visit(counts), contains(
+                "1 ATE 2 1",
+                "2 ATE 1 1",
+                "2 ATE 3 2",
+                "2 PARASITE_OF 1 1"));
+    }
+
+    @Test
+    public void merge() {
+        TaxonInteractionCounts counts = new TaxonInteractionCounts();
+        TaxonInteractionCounts other = new TaxonInteractionCounts();
+        for (long i = 0; i < 1000; i++) {
+            counts.add(i, InteractType.ATE, i + 1);
+            other.add(i, InteractType.ATE, i + 1);
+            other.add(i, InteractType.EATEN_BY, i + 1);
+        }
+        counts.merge(other);
+
+        assertThat(counts.size(), is(2000));
+        List<String> visited = visit(counts);
+        assertThat(visited.get(0), is("0 ATE 1 2"));
+        assertThat(visited.get(1), is("0 EATEN_BY 1 1"));
+        assertThat(visited.get(1999), is("999 EATEN_BY 1000 1"));
+    }
+
+    @Test
+    public void visitSortedManyWithDuplicateSources() {
+        TaxonInteractionCounts counts = new TaxonInteractionCounts();
+        List<String> expected = new ArrayList<>();
+        Random random = new Random(42);
+        Set<String> added = new HashSet<>();
+        while (added.size() < 5000) {
+            long source = random.nextInt(50);
+            long target = random.nextInt(1000);
+            InteractType type = random.nextBoolean() ? InteractType.ATE : InteractType.POLLINATES;
+            if (added.add(source + " " + type.name() + " " + target)) {
+                counts.add(source, type, target);
+                expected.add(String.format("%03d %s %04d", source, type.name(), target));
+            }
+        }
+        Collections.sort(expected);
+
+        List<String> visited = new ArrayList<>();
+        counts.visitSorted((source, type, target, count) -> visited.add(String.format("%03d %s %04d", source, type.name(), target)));
+        assertThat(visited, is(expected));
+    }
+
+    @Test
+    public void visitSortedEmpty() {
+        assertThat(visit(new TaxonInteractionCounts()).size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void targetOutOfRange() {
+        new TaxonInteractionCounts().add(1L, InteractType.ATE, -1L);
+    }
+
+    private static List<String> visit(TaxonInteractionCounts counts) {
+        List<String> visited = new ArrayList<>();
+        counts.visitSorted((source, type, target, count) -> visited.add(source + " " + type.name() + " " + target + " " + count));
+        return visited;
+    }
+
+}
@@ -30,6 +30,15 @@ public class TaxonInteractionIndexerTest extends GraphDBTestCase {
 
     @Test
     public void buildTaxonInterIndex() throws NodeFactoryException, PropertyEnricherException {
+        assertTaxonInteractions(new TaxonInteractionIndexer());
+    }
+
+    @Test
+    public void buildTaxonInterIndexConcurrentlyInSmallBatches() throws NodeFactoryException, PropertyEnricherException {
+        assertTaxonInteractions(new TaxonInteractionIndexer(4, 1));
+    }
+
+    private void assertTaxonInteractions(TaxonInteractionIndexer indexer) throws NodeFactoryException {
         Specimen human = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Homo sapiens", "NCBI:9606"));
         Specimen animal = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Canis lupus", "WORMS:2"));
         human.ate(animal);
@@ -44,7 +53,7 @@ public class TaxonInteractionIndexerTest extends GraphDBTestCase {
         new NameResolver(new NonResolvingTaxonIndex(getGraphDb()))
                 .index(new GraphServiceFactoryProxy(getGraphDb()));
 
-        new TaxonInteractionIndexer().index(getGraphDb());
+        indexer.index(getGraphDb());
 
         Taxon homoSapiens = taxonIndex.findTaxonByName("Homo sapiens");
         assertNotNull(homoSapiens);
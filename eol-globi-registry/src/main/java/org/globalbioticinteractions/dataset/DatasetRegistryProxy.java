@@ -6,17 +6,17 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DatasetRegistryProxy implements DatasetRegistry {
 
     private final static Logger LOG = LoggerFactory.getLogger(DatasetRegistryProxy.class);
 
     private final ArrayList<DatasetRegistry> registries;
-    private Map<String, DatasetRegistry> registryForNamespace = null;
-    ;
+    // datasets may be looked up concurrently, e.g., by DatasetImportScheduler
+    private final Map<String, DatasetRegistry> registryForNamespace = new ConcurrentHashMap<>();
 
     public DatasetRegistryProxy(List<DatasetRegistry> registries) {
         this.registries = new ArrayList<DatasetRegistry>() {{
@@ -41,16 +41,15 @@ public class DatasetRegistryProxy implements DatasetRegistry {
     }
 
     public void associateNamespaceWithRegistry(DatasetRegistry registry, String newNamespace) {
-        if (registryForNamespace == null) {
-            registryForNamespace = new HashMap<>();
+        if (newNamespace != null) {
+            registryForNamespace.put(newNamespace, registry);
         }
-        registryForNamespace.put(newNamespace, registry);
     }
 
 
     @Override
     public Dataset datasetFor(String namespace) throws DatasetRegistryException {
-        DatasetRegistry registry = registryForNamespace == null
+        DatasetRegistry registry = namespace == null
                 ? null
                 : registryForNamespace.get(namespace);
 
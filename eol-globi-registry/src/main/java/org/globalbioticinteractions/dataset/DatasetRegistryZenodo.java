@@ -28,7 +28,7 @@ import java.util.HashSet;
 public class DatasetRegistryZenodo implements DatasetRegistry {
     private static final String PREFIX_GITHUB_RELATION = "https://github.com/";
     private static final String PREFIX_ZENODO = "oai:zenodo.org:";
-    private String cachedFeed = null;
+    private volatile String cachedFeed = null;
 
     private final InputStreamFactory inputStreamFactory;
 
@@ -62,7 +62,8 @@ public class DatasetRegistryZenodo implements DatasetRegistry {
         }
     }
 
-    public void initFeedCacheIfNeeded() throws DatasetRegistryException {
+    // synchronized, so that concurrent lookups fetch the feed only once
+    public synchronized void initFeedCacheIfNeeded() throws DatasetRegistryException {
         if (StringUtils.isBlank(getCachedFeed())) {
             setCachedFeed(getFeed(getInputStreamFactory()));
         }
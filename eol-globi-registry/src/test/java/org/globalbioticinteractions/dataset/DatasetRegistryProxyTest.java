@@ -5,12 +5,18 @@ import org.hamcrest.CoreMatchers;
 import org.junit.Test;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.CoreMatchers.hasItem;
 
@@ -45,6 +51,35 @@ public class DatasetRegistryProxyTest {
         registry.datasetFor("foo");
     }
 
+    @Test
+    public void concurrentLookups() throws InterruptedException, ExecutionException, DatasetRegistryException {
+        List<String> namespaces = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            namespaces.add("namespace" + i);
+        }
+        DatasetRegistry registry = new DatasetRegistryProxy(Arrays.asList(
+                new DatasetRegistryMock(namespaces.subList(0, 500)),
+                new DatasetRegistryMock(namespaces.subList(500, 1000))
+        ));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Dataset>> datasets = new ArrayList<>();
+            for (String namespace : namespaces) {
+                datasets.add(executor.submit(() -> registry.datasetFor(namespace)));
+            }
+            for (Future<Dataset> dataset : datasets) {
+                assertThat(dataset.get().getArchiveURI(), is(notNullValue()));
+            }
+            // lookups are now associated with the registry that had the dataset
+            for (String namespace : namespaces) {
+                assertThat(registry.datasetFor(namespace).getArchiveURI(), is(URI.create("http://example.com/500")));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 
 
     private static class DatasetRegistryMock implements DatasetRegistry {
@@ -0,0 +1,25 @@
+package org.eol.globi.server;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.eol.globi.util.CypherUtil;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.IOException;
+import java.util.Map;
+
+@Controller
+public class CacheController {
+
+    @RequestMapping(value = "/cache/metrics", method = RequestMethod.GET, produces = "application/json")
+    @ResponseBody
+    public String metrics() throws IOException {
+        Map<String, Long> metrics = CypherUtil.getResultCache().getMetrics();
+        metrics.put("upstreamRequests", CypherUtil.getCoalescer().getUpstreamRequests());
+        metrics.put("coalescedRequests", CypherUtil.getCoalescer().getCoalescedRequests());
+        return new ObjectMapper().writeValueAsString(metrics);
+    }
+
+}
@@ -237,9 +237,7 @@ public class CypherQueryBuilder {
             }
             lucenePathQuery
                     .append(selectorPrefixForName(taxonSelector, isExactMatch))
-                    .append("\\\"")
-                    .append(taxonSelector)
-                    .append("\\\"");
+                    .append(lucenePhrase(taxonSelector));
             count++;
         }
         return lucenePathQuery.toString();
@@ -248,11 +246,18 @@ public class CypherQueryBuilder {
     protected static String strictExternalIdMatch(List<String> terms) {
         List<String> quotedTerms = new ArrayList<String>();
         for (String term : terms) {
-            quotedTerms.add("externalId:\\\"" + term + "\\\"");
+            quotedTerms.add("externalId:" + lucenePhrase(term));
         }
         return orNestedTerms(quotedTerms);
     }
 
+    /**
+     * @return term quoted as lucene phrase, e.g. "Homo \"sapiens\"" for Homo "sapiens"
+     */
+    static String lucenePhrase(String term) {
+        return "\"" + StringUtils.replaceEach(term, new String[]{"\\", "\""}, new String[]{"\\\\", "\\\""}) + "\"";
+    }
+
     private static String orNestedTerms(List<String> quotedTerms) {
         return StringUtils.join(quotedTerms, " ");
     }
@@ -275,7 +280,7 @@ public class CypherQueryBuilder {
                 paramMap.put("accordingTo", matchReferenceOrDataset(dois.stream().map(DOI::toString).collect(Collectors.toList())));
             } else if (isAccordingToNamespaceQuery(accordingTo)) {
                 List<String> namespaces = getNamespaces(accordingTo);
-                paramMap.put("accordingTo", "namespace:\\\"" + orNestedTerms(namespaces) + "\\\"");
+                paramMap.put("accordingTo", "namespace:" + lucenePhrase(orNestedTerms(namespaces)));
             } else {
                 paramMap.put("accordingTo", matchReferenceOrDataset(accordingTo));
             }
@@ -653,14 +658,25 @@ public class CypherQueryBuilder {
             } else {
                 query.append("(exists(").append(taxonLabel).append(".externalIds) AND ANY(x IN split(")
                         .append(taxonLabel).append(".externalIds, '|') WHERE trim(x) in [");
-                query.append(StringUtils.join(taxonNames.stream().map(x -> "'" + x + "'").collect(Collectors.toList()), ","));
+                query.append(cypherStrings(taxonNames));
                 query.append("])) ");
             }
         }
     }
 
     private static void appendNameWhereClause(StringBuilder query, String taxonLabel, List<String> taxonNames, String property) {
-        query.append("(exists(").append(taxonLabel).append(".").append(property).append(") AND ").append(taxonLabel).append(".").append(property).append(" IN ['").append(StringUtils.join(taxonNames, "','")).append("']) ");
+        query.append("(exists(").append(taxonLabel).append(".").append(property).append(") AND ").append(taxonLabel).append(".").append(property).append(" IN [").append(cypherStrings(taxonNames)).append("]) ");
+    }
+
+    private static String cypherStrings(List<String> terms) {
+        return terms.stream().map(CypherQueryBuilder::cypherString).collect(Collectors.joining(","));
+    }
+
+    /**
+     * @return term quoted as cypher string literal, e.g. 'd\'Orbigny' for d'Orbigny
+     */
+    static String cypherString(String term) {
+        return "'" + StringUtils.replaceEach(term, new String[]{"\\", "'"}, new String[]{"\\\\", "\\'"}) + "'";
     }
 
     private static boolean isExternalId(String taxonName) {
@@ -83,7 +83,7 @@ public class TaxonSearchImpl implements TaxonSearch {
     public HashMap<String, String> paramForName(@PathVariable("taxonName") final String taxonName) {
         return new HashMap<String, String>() {
             {
-                put("taxonPathQuery", "path:\\\"" + taxonName + "\\\"");
+                put("taxonPathQuery", "path:" + CypherQueryBuilder.lucenePhrase(taxonName));
                 put("taxonName", taxonName);
             }
         };
@@ -2,8 +2,11 @@ package org.eol.globi.server.util;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.io.output.ProxyOutputStream;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.eol.globi.util.CypherQuery;
+import org.eol.globi.util.CypherResultCache;
 import org.eol.globi.util.CypherUtil;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
@@ -13,6 +16,7 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -55,18 +59,42 @@ public class CypherHttpMessageConverter extends AbstractHttpMessageConverter<Cyp
         cypherQuery = optimizeQueryForType(cypherQuery, formatter);
 
         if (formatter instanceof ResultFormatterStreaming) {
+            writeStreaming(cypherQuery, (ResultFormatterStreaming) formatter, contentType, outputMessage);
+        } else {
+            String result = CypherUtil.executeRemote(cypherQuery);
+            StreamUtils.copy(formatter.format(result), contentType.getCharSet(), outputMessage.getBody());
+        }
+    }
+
+    // formatted results are cached by content type, because streamed results are never held as a whole otherwise
+    private static void writeStreaming(CypherQuery cypherQuery, ResultFormatterStreaming formatter, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        CypherResultCache cache = CypherUtil.getResultCache();
+        String format = contentType.toString();
+        boolean cacheable = cache.isEnabled() && isCacheable(formatter);
+        byte[] cached = cacheable ? cache.getIfPresent(cypherQuery, format) : null;
+        if (cached != null) {
+            StreamUtils.copy(cached, outputMessage.getBody());
+        } else {
             HttpResponse res = CypherUtil.execute(cypherQuery);
+            CapturingOutputStream capture = cacheable
+                    ? new CapturingOutputStream(outputMessage.getBody(), cache.getMaxEntryBytes())
+                    : null;
             try (InputStream is = IOUtils.buffer(res.getEntity().getContent());
-                 OutputStream os = IOUtils.buffer(outputMessage.getBody())) {
-                ((ResultFormatterStreaming) formatter).format(is, os);
+                 OutputStream os = IOUtils.buffer(capture == null ? outputMessage.getBody() : capture)) {
+                formatter.format(is, os);
                 os.flush();
             }
-        } else {
-            String result = CypherUtil.executeRemote(cypherQuery);
-            StreamUtils.copy(formatter.format(result), contentType.getCharSet(), outputMessage.getBody());
+            if (capture != null && res.getStatusLine().getStatusCode() == HttpStatus.SC_OK && capture.isComplete()) {
+                cache.put(cypherQuery, format, capture.getCaptured());
+            }
         }
     }
 
+    // dot graphs include the time they were generated, which a cached copy would repeat
+    static boolean isCacheable(ResultFormatter formatter) {
+        return !(formatter instanceof ResultFormatterDOT);
+    }
+
     static CypherQuery optimizeQueryForType(CypherQuery cypherQuery, ResultFormatter formatter) {
         if (formatter instanceof ResultFormatterSVG) {
             cypherQuery = attemptQueryRewrite(cypherQuery, " LIMIT ");
@@ -75,6 +103,54 @@ public class CypherHttpMessageConverter extends AbstractHttpMessageConverter<Cyp
         return cypherQuery;
     }
 
+    /**
+     * copies bytes written to the underlying stream, until more than a maximum number of bytes were written
+     */
+    private static class CapturingOutputStream extends ProxyOutputStream {
+        private final long maxBytes;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream out, long maxBytes) {
+            super(out);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            super.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (captured != null) {
+                if (captured.size() + len > maxBytes) {
+                    captured = null;
+                } else {
+                    captured.write(b, off, len);
+                }
+            }
+        }
+
+        boolean isComplete() {
+            return captured != null;
+        }
+
+        byte[] getCaptured() {
+            return captured.toByteArray();
+        }
+    }
+
     private static CypherQuery attemptQueryRewrite(CypherQuery cypherQuery, String limit_) {
         if (StringUtils.contains(cypherQuery.getQuery(), limit_)) {
             String[] queryParts = StringUtils.splitByWholeSeparator(cypherQuery.getQuery(), limit_);
@@ -1,19 +1,30 @@
 package org.eol.globi.server.util;
 
+import org.apache.commons.io.IOUtils;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-public class ResultFormatterDOT implements ResultFormatter {
+/**
+ * Writes an edge for each interaction as soon as its row is read from the cypher result.
+ */
+public class ResultFormatterDOT implements ResultFormatterStreaming {
     protected static String getSafeLabel(String string) {
         return string.replaceAll("\\W", "_");
     }
@@ -27,47 +38,72 @@ public class ResultFormatterDOT implements ResultFormatter {
         }
          */
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final List<ResultField> SOURCE_TAXON_RESULT_FIELDS = Arrays.asList(ResultField.SOURCE_TAXON_NAME, ResultField.SOURCE_TAXON_PATH, ResultField.SOURCE_TAXON_EXTERNAL_ID, ResultField.SOURCE_TAXON_PATH_IDS);
+    private static final List<ResultField> TARGET_TAXON_RESULT_FIELDS = Arrays.asList(ResultField.TARGET_TAXON_NAME, ResultField.TARGET_TAXON_PATH, ResultField.TARGET_TAXON_EXTERNAL_ID, ResultField.TARGET_TAXON_PATH_IDS);
+
     @Override
     public String format(final String content) throws ResultFormattingException {
-        StringBuilder builder = dotPrefix();
-        JsonNode results;
-        try {
-            results = RequestHelper.parse(content);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        format(IOUtils.toInputStream(content, StandardCharsets.UTF_8), os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void format(InputStream is, OutputStream os) throws ResultFormattingException {
+        try (InputStream inputStream = is) {
+            Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+            writer.write(dotPrefix());
+            writer.flush();
+
+            JsonParser parser = MAPPER.getJsonFactory().createJsonParser(inputStream);
+            Map<String, Integer> nameIndex = new HashMap<String, Integer>();
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    JsonToken token = parser.nextToken();
+                    if ("columns".equals(fieldName)) {
+                        JsonNode columns = MAPPER.readTree(parser);
+                        for (int i = 0; i < columns.size(); i++) {
+                            nameIndex.put(columns.get(i).getTextValue(), i);
+                        }
+                    } else if ("data".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                            appendEdges(writer, nameIndex, MAPPER.readTree(parser));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+            dotSuffix(writer);
+            writer.flush();
         } catch (IOException e) {
             throw new ResultFormattingException("failed to parse", e);
         }
-        JsonNode columns = results.get("columns");
-        Map<String, Integer> nameIndex = new HashMap<String, Integer>();
-        for (int i = 0; i < columns.size(); i++) {
-            nameIndex.put(columns.get(i).getTextValue(), i);
-        }
+    }
 
-        List<ResultField> sourceTaxonResultFields = Arrays.asList(ResultField.SOURCE_TAXON_NAME, ResultField.SOURCE_TAXON_PATH, ResultField.SOURCE_TAXON_EXTERNAL_ID, ResultField.SOURCE_TAXON_PATH_IDS);
-        List<ResultField> targetTaxonResultFields = Arrays.asList(ResultField.TARGET_TAXON_NAME, ResultField.TARGET_TAXON_PATH, ResultField.TARGET_TAXON_EXTERNAL_ID, ResultField.TARGET_TAXON_PATH_IDS);
-        JsonNode rows = results.get("data");
-        for (JsonNode row : rows) {
-            Integer sourceTaxonIndex = getTaxonLabel(nameIndex, sourceTaxonResultFields);
-            Integer targetTaxonIndex = getTaxonLabel(nameIndex, targetTaxonResultFields);
-
-            Integer interactionTypeIndex = nameIndex.get(ResultField.INTERACTION_TYPE.getLabel());
-            if (null != sourceTaxonIndex && null != targetTaxonIndex && null != interactionTypeIndex) {
-                JsonNode sourceTaxon = row.get(sourceTaxonIndex);
-                JsonNode targetTaxon = row.get(targetTaxonIndex);
-                JsonNode type = row.get(interactionTypeIndex);
-                if (sourceTaxon != null && targetTaxon != null && type != null) {
-                    String sourceId = getSafeLabel(sourceTaxon.getTextValue());
-                    if (targetTaxon.isArray()) {
-                        for (JsonNode targetTaxonItem : targetTaxon) {
-                            appendEdge(builder, targetTaxonItem, type, sourceId);
-                        }
-                    } else {
-                        appendEdge(builder, targetTaxon, type, sourceId);
+    private void appendEdges(Writer writer, Map<String, Integer> nameIndex, JsonNode row) throws IOException {
+        Integer sourceTaxonIndex = getTaxonLabel(nameIndex, SOURCE_TAXON_RESULT_FIELDS);
+        Integer targetTaxonIndex = getTaxonLabel(nameIndex, TARGET_TAXON_RESULT_FIELDS);
+
+        Integer interactionTypeIndex = nameIndex.get(ResultField.INTERACTION_TYPE.getLabel());
+        if (null != sourceTaxonIndex && null != targetTaxonIndex && null != interactionTypeIndex) {
+            JsonNode sourceTaxon = row.get(sourceTaxonIndex);
+            JsonNode targetTaxon = row.get(targetTaxonIndex);
+            JsonNode type = row.get(interactionTypeIndex);
+            if (sourceTaxon != null && targetTaxon != null && type != null) {
+                String sourceId = getSafeLabel(sourceTaxon.getTextValue());
+                if (targetTaxon.isArray()) {
+                    for (JsonNode targetTaxonItem : targetTaxon) {
+                        appendEdge(writer, targetTaxonItem, type, sourceId);
                     }
+                } else {
+                    appendEdge(writer, targetTaxon, type, sourceId);
                 }
             }
         }
-        dotSuffix(builder);
-        return builder.toString();
     }
 
     protected Integer getTaxonLabel(Map<String, Integer> nameIndex, List<ResultField> sourceTaxonResultFields) {
@@ -79,30 +115,30 @@ public class ResultFormatterDOT implements ResultFormatter {
         return sourceTaxonIndex;
     }
 
-    private void appendEdge(StringBuilder builder, JsonNode targetTaxon, JsonNode type, String sourceId) {
+    private void appendEdge(Writer writer, JsonNode targetTaxon, JsonNode type, String sourceId) throws IOException {
         String targetId = getSafeLabel(targetTaxon.getTextValue());
-        appendEdge(builder, type, sourceId, targetId);
+        appendEdge(writer, type, sourceId, targetId);
     }
 
-    private void appendEdge(StringBuilder builder, JsonNode type, String sourceId, String targetId) {
-        builder.append(sourceId);
-        builder.append("->");
-        builder.append(targetId);
-        builder.append("[label=\"");
-        builder.append(type.getTextValue());
-        builder.append("\"];\n");
+    private void appendEdge(Writer writer, JsonNode type, String sourceId, String targetId) throws IOException {
+        writer.append(sourceId);
+        writer.append("->");
+        writer.append(targetId);
+        writer.append("[label=\"");
+        writer.append(type.getTextValue());
+        writer.append("\"];\n");
     }
 
-    private void dotSuffix(StringBuilder builder) {
-        builder.append(" }");
+    private void dotSuffix(Writer writer) throws IOException {
+        writer.append(" }");
     }
 
-    private StringBuilder dotPrefix() {
+    private String dotPrefix() {
         StringBuilder builder = new StringBuilder();
         builder.append("// generated by GloBI (see http://globalbioticinteractions.org) on ");
         builder.append(DateTimeFormat.fullDateTime().withZoneUTC().print(new DateTime()));
         builder.append("\n");
         builder.append("digraph GloBI {\n");
-        return builder;
+        return builder.toString();
     }
 }
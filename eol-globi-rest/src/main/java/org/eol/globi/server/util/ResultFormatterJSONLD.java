@@ -1,10 +1,30 @@
 package org.eol.globi.server.util;
 
-public class ResultFormatterJSONLD implements ResultFormatter {
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class ResultFormatterJSONLD implements ResultFormatterStreaming {
+
+    private static final String CONTEXT = "{\"@context\": \"https://raw.githubusercontent.com/globalbioticinteractions/jsonld-template-dataset/main/context.jsonld\"}";
 
     @Override
     public String format(String result) throws ResultFormattingException {
-       return "{\"@context\": \"https://raw.githubusercontent.com/globalbioticinteractions/jsonld-template-dataset/main/context.jsonld\"}";
+       return CONTEXT;
+    }
+
+    @Override
+    public void format(InputStream is, OutputStream os) throws ResultFormattingException {
+        // result is not used, so it is closed without reading it
+        try (InputStream ignored = is) {
+            IOUtils.write(CONTEXT, os, StandardCharsets.UTF_8);
+            os.flush();
+        } catch (IOException e) {
+            throw new ResultFormattingException("failed to format incoming stream", e);
+        }
     }
 
 }
@@ -1,99 +1,169 @@
 package org.eol.globi.server.util;
 
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
 import org.eol.globi.server.CypherQueryBuilder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-public class ResultFormatterJSONv2 implements ResultFormatter {
+/**
+ * Formats cypher results one row at a time: rows are read from the "data" array using a pull parser and
+ * written as soon as they are complete, so only the current row is kept in memory.
+ */
+public class ResultFormatterJSONv2 implements ResultFormatterStreaming {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(SerializationConfig.Feature.FLUSH_AFTER_WRITE_VALUE, false);
 
     @Override
     public String format(String result) throws ResultFormattingException {
-        try {
-            JsonNode jsonNode = RequestHelper.parse(result);
-            return format(jsonNode);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        format(IOUtils.toInputStream(result, StandardCharsets.UTF_8), os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void format(InputStream is, OutputStream os) throws ResultFormattingException {
+        try (InputStream inputStream = is) {
+            JsonParser parser = MAPPER.getJsonFactory().createJsonParser(inputStream);
+            JsonGenerator generator = MAPPER.getJsonFactory().createJsonGenerator(os, JsonEncoding.UTF8);
+            List<String> columnNames = null;
+            boolean hasData = false;
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("columns".equals(fieldName)) {
+                        columnNames = parseColumnNames(MAPPER.readTree(parser));
+                    } else if ("data".equals(fieldName)) {
+                        if (columnNames == null) {
+                            throw new IllegalArgumentException("columns array expected before data array, but not found");
+                        }
+                        writeRows(parser, generator, columnNames);
+                        hasData = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+            if (columnNames == null) {
+                throw new IllegalArgumentException("columns array expected, but not found");
+            }
+            if (!hasData) {
+                throw new IllegalArgumentException("data array expected, but not found");
+            }
+            generator.flush();
         } catch (IOException e) {
             throw new ResultFormattingException("failed to format result", e);
         }
     }
 
-    private String format(JsonNode jsonNode) throws IOException {
+    private static List<String> parseColumnNames(JsonNode columns) {
         List<String> columnNames = new ArrayList<String>();
-
-        JsonNode columns = jsonNode.get("columns");
-        if (columns == null) {
-            throw new IllegalArgumentException("columns array expected, but not found");
-        }
         for (JsonNode column : columns) {
             columnNames.add(column.getTextValue());
         }
+        return columnNames;
+    }
 
-        JsonNode data = jsonNode.get("data");
-        if (data == null) {
-            throw new IllegalArgumentException("data array expected, but not found");
+    private void writeRows(JsonParser parser, JsonGenerator generator, List<String> columnNames) throws IOException {
+        boolean interactionQuery = isInteractionQuery(columnNames);
+        boolean taxonQuery = !interactionQuery && isTaxonQuery(columnNames);
+
+        // an interaction row with many target taxa results in many interactions, but the columns of the n-th row
+        // are added to the n-th result: results wait here until the columns of their row are read.
+        Deque<Map<String, Object>> pending = new ArrayDeque<Map<String, Object>>();
+        generator.writeStartArray();
+        if (parser.getCurrentToken() == JsonToken.START_ARRAY) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("unexpected end of data array");
+                }
+                JsonNode row = MAPPER.readTree(parser);
+                if (interactionQuery) {
+                    pending.addAll(formatInteractions(columnNames, row));
+                } else if (taxonQuery) {
+                    pending.add(formatTaxon(columnNames, row));
+                }
+                Map<String, Object> values = dataColumns(columnNames, row);
+                Map<String, Object> result = pending.poll();
+                if (result == null) {
+                    result = values;
+                } else {
+                    result.putAll(values);
+                }
+                MAPPER.writeValue(generator, result);
+            }
+        } else {
+            parser.skipChildren();
+        }
+        for (Map<String, Object> result : pending) {
+            MAPPER.writeValue(generator, result);
         }
+        generator.writeEndArray();
+    }
 
-        List<Map<String, Object>> resultList = new ArrayList<Map<String, Object>>();
-        if (isInteractionQuery(columnNames)) {
-            for (JsonNode row : data) {
-                Map<String, Object> interaction = new HashMap<String, Object>();
+    private List<Map<String, Object>> formatInteractions(List<String> columnNames, JsonNode row) {
+        Map<String, Object> interaction = new HashMap<String, Object>();
 
-                Map<String, String> sourceTaxon = new HashMap<String, String>();
-                interaction.put("source", sourceTaxon);
+        Map<String, String> sourceTaxon = new HashMap<String, String>();
+        interaction.put("source", sourceTaxon);
 
-                Map<String, String> targetTaxon = new HashMap<String, String>();
-                interaction.put("target", targetTaxon);
+        Map<String, String> targetTaxon = new HashMap<String, String>();
+        interaction.put("target", targetTaxon);
 
-                List<Map<String, String>> targetTaxa = new ArrayList<Map<String, String>>();
+        List<Map<String, String>> targetTaxa = new ArrayList<Map<String, String>>();
 
-                for (int i = 0; i < row.size(); i++) {
-                    parseRow(columnNames, row, interaction, sourceTaxon, targetTaxon, targetTaxa, i);
-                }
+        for (int i = 0; i < row.size(); i++) {
+            parseRow(columnNames, row, interaction, sourceTaxon, targetTaxon, targetTaxa, i);
+        }
 
-                if (targetTaxa.size() > 0) {
-                    for (Map<String, String> aTargetTaxon : targetTaxa) {
-                        Map<String, Object> anotherInteraction = new HashMap<String, Object>();
-                        resultList.add(anotherInteraction);
-                        anotherInteraction.putAll(interaction);
-                        anotherInteraction.put("target", aTargetTaxon);
-                    }
-                } else {
-                    resultList.add(interaction);
-                }
-            }
-        } else if (isTaxonQuery(columnNames)) {
-            for (JsonNode row : data) {
-                Map<String, Object> taxon = new TreeMap<String, Object>();
-                for (int i = 0; i < row.size(); i++) {
-                    taxon.put(columns.get(i).asText(), row.get(i).asText());
-                }
-                resultList.add(taxon);
+        List<Map<String, Object>> interactions = new ArrayList<Map<String, Object>>();
+        if (targetTaxa.size() > 0) {
+            for (Map<String, String> aTargetTaxon : targetTaxa) {
+                Map<String, Object> anotherInteraction = new HashMap<String, Object>();
+                interactions.add(anotherInteraction);
+                anotherInteraction.putAll(interaction);
+                anotherInteraction.put("target", aTargetTaxon);
             }
+        } else {
+            interactions.add(interaction);
         }
-        addAllDataColumns(jsonNode, columnNames, resultList);
-        return new ObjectMapper().writeValueAsString(resultList);
+        return interactions;
     }
 
-    private void addAllDataColumns(JsonNode jsonNode, List<String> columnNames, List<Map<String, Object>> interactions) {
-        JsonNode rows = jsonNode.get("data");
-        for (int j = 0; j < rows.size(); j++) {
-            Map<String, Object> values = new HashMap<String, Object>();
-            JsonNode row = rows.get(j);
-            for (int k = 0; k < row.size(); k++) {
-                values.put(columnNames.get(k), row.get(k));
-            }
-            if (interactions.size() <= j) {
-                interactions.add(values);
-            } else {
-                interactions.get(j).putAll(values);
-            }
+    private Map<String, Object> formatTaxon(List<String> columnNames, JsonNode row) {
+        Map<String, Object> taxon = new TreeMap<String, Object>();
+        for (int i = 0; i < row.size(); i++) {
+            taxon.put(columnNames.get(i), row.get(i).asText());
+        }
+        return taxon;
+    }
+
+    private Map<String, Object> dataColumns(List<String> columnNames, JsonNode row) {
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (int k = 0; k < row.size(); k++) {
+            values.put(columnNames.get(k), row.get(k));
         }
+        return values;
     }
 
     private boolean isInteractionQuery(List<String> columnNames) {
@@ -1,30 +1,57 @@
 package org.eol.globi.server.util;
 
 import org.apache.commons.io.IOUtils;
-import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
-public class ResultFormatterSVG implements ResultFormatter {
+/**
+ * Renders a badge that shows whether a cypher result has any rows: the result is read only up to its first row.
+ */
+public class ResultFormatterSVG implements ResultFormatterStreaming {
 
     @Override
     public String format(final String content) throws ResultFormattingException {
-        JsonNode results;
-        try {
-            results = RequestHelper.parse(content);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        format(IOUtils.toInputStream(content, StandardCharsets.UTF_8), os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void format(InputStream is, OutputStream os) throws ResultFormattingException {
+        boolean hasRows;
+        try (InputStream inputStream = is) {
+            hasRows = hasRows(new JsonFactory().createJsonParser(inputStream));
         } catch (IOException e) {
             throw new ResultFormattingException("failed to parse", e);
         }
-        JsonNode rows = results.get("data");
-        String badge = rows != null && rows.size() > 0 ? "known.svg" : "unknown.svg";
-        try {
-            return IOUtils.toString(getClass().getResourceAsStream(badge), StandardCharsets.UTF_8);
+        String badge = hasRows ? "known.svg" : "unknown.svg";
+        try (InputStream badgeStream = getClass().getResourceAsStream(badge)) {
+            IOUtils.copy(badgeStream, os);
+            os.flush();
         } catch (IOException e) {
             throw new ResultFormattingException("failed to render badge", e);
         }
     }
 
-}
\ No newline at end of file
+    private static boolean hasRows(JsonParser parser) throws IOException {
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("data".equals(fieldName)) {
+                    return token == JsonToken.START_ARRAY && parser.nextToken() != JsonToken.END_ARRAY;
+                }
+                parser.skipChildren();
+            }
+        }
+        return false;
+    }
+
+}
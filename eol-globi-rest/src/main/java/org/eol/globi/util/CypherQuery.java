@@ -4,12 +4,13 @@ import java.util.Collections;
 import java.util.Map;
 
 public class CypherQuery {
-    private final String query;
-
     private final Map<String, String> params;
 
     private final String version;
 
+    // normalized once, because queries are serialized and used as cache keys on every request
+    private final String normalizedQuery;
+
     public CypherQuery(String query) {
         this(query, Collections.emptyMap());
     }
@@ -23,9 +24,9 @@ public class CypherQuery {
     }
 
     public CypherQuery(String query, Map<String, String> params, String version) {
-        this.query = query;
         this.params = params;
         this.version = version;
+        this.normalizedQuery = query.replaceAll("\\s+", " ");
     }
 
     public Map<String, String> getParams() {
@@ -33,11 +34,11 @@ public class CypherQuery {
     }
 
     public String getQuery() {
-        return query.replaceAll("\\s+", " ");
+        return normalizedQuery;
     }
 
     public String getVersionedQuery() {
-        return ("CYPHER " + version + " " + getQuery());
+        return "CYPHER " + version + " " + normalizedQuery;
     }
 
     public String getVersion() {
@@ -0,0 +1,399 @@
+package org.eol.globi.util;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets concurrent requests for the same cypher query share a single upstream request.
+ * <p>
+ * The first request for a query (the leader) sends it upstream; requests for the same query that arrive shortly after
+ * join it. Every request gets its own copy of the response, streamed from a shared buffer that is filled from upstream
+ * by whichever copy is read furthest ahead.
+ * <p>
+ * Requests stop joining once the first chunk of the response is buffered, once a join window after the upstream
+ * response has passed, or once the upstream request failed. After that, buffered chunks are released as soon as every
+ * copy has read past them. The fastest copy may read ahead of the slowest by a limited number of bytes only: beyond
+ * that it waits for the slowest copy, and copies that do not catch up within a stall timeout are detached, failing
+ * their next read.
+ */
+public class CypherRequestCoalescer {
+    private static final Logger LOG = LoggerFactory.getLogger(CypherRequestCoalescer.class);
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final long JOIN_WINDOW_MILLIS_DEFAULT = 100;
+    static final long READ_AHEAD_LIMIT_DEFAULT = 16 * 1024 * 1024;
+    static final long STALL_TIMEOUT_MILLIS_DEFAULT = 10 * 1000;
+
+    public interface Upstream {
+        HttpResponse execute() throws IOException;
+    }
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final long joinWindowNanos;
+    private final int readAheadChunks;
+    private final long stallTimeoutNanos;
+    private final AtomicLong upstreamRequests = new AtomicLong();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    public CypherRequestCoalescer() {
+        this(JOIN_WINDOW_MILLIS_DEFAULT, READ_AHEAD_LIMIT_DEFAULT, STALL_TIMEOUT_MILLIS_DEFAULT);
+    }
+
+    /**
+     * @param joinWindowMillis   time after the upstream response during which requests can join a flight
+     * @param readAheadLimit     number of bytes the fastest copy of a response may read ahead of the slowest copy
+     * @param stallTimeoutMillis time the fastest copy waits for the slowest copy before detaching it
+     */
+    public CypherRequestCoalescer(long joinWindowMillis, long readAheadLimit, long stallTimeoutMillis) {
+        this.joinWindowNanos = TimeUnit.MILLISECONDS.toNanos(joinWindowMillis);
+        this.readAheadChunks = (int) Math.max(1, readAheadLimit / CHUNK_SIZE);
+        this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMillis);
+    }
+
+    public HttpResponse execute(CypherQuery query, Upstream upstream) throws IOException {
+        String key = CypherResultCache.keyFor(query, CypherUtil.FORMAT_NEO4J_JSON);
+        while (true) {
+            Flight flight = new Flight(key);
+            Flight existing = flights.putIfAbsent(key, flight);
+            if (existing == null) {
+                upstreamRequests.incrementAndGet();
+                return flight.lead(upstream);
+            }
+            HttpResponse response = existing.join();
+            if (response != null) {
+                coalescedRequests.incrementAndGet();
+                return response;
+            }
+            // flight closed for joining just now, start or join another one
+            flights.remove(key, existing);
+        }
+    }
+
+    public long getUpstreamRequests() {
+        return upstreamRequests.get();
+    }
+
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    private final class Flight {
+        private final String key;
+        private final CountDownLatch responded = new CountDownLatch(1);
+
+        // guarded by this
+        private final List<byte[]> chunks = new ArrayList<>();
+        private final List<Copy> copies = new ArrayList<>();
+        private int releasedChunks = 0;
+        private boolean joinable = true;
+        private boolean done = false;
+        private boolean fetching = false;
+        private IOException failure = null;
+
+        private volatile HttpResponse upstreamResponse = null;
+        private volatile IOException upstreamFailure = null;
+        private InputStream upstreamContent = null;
+        private long respondedAt;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        HttpResponse lead(Upstream upstream) throws IOException {
+            try {
+                HttpResponse response = upstream.execute();
+                HttpEntity entity = response.getEntity();
+                upstreamContent = entity == null ? null : entity.getContent();
+                respondedAt = System.nanoTime();
+                upstreamResponse = response;
+                // copy of leader is taken before others can join, so flight is still joinable
+                return newCopy(true);
+            } catch (IOException | RuntimeException e) {
+                upstreamFailure = e instanceof IOException ? (IOException) e : new IOException("failed to execute query", e);
+                closeForJoining();
+                throw e;
+            } finally {
+                responded.countDown();
+            }
+        }
+
+        HttpResponse join() throws IOException {
+            try {
+                responded.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for response of concurrent request", e);
+            }
+            if (upstreamFailure != null) {
+                throw new IOException("concurrent request for same query failed", upstreamFailure);
+            }
+            return newCopy(false);
+        }
+
+        private HttpResponse newCopy(boolean leader) {
+            Copy copy;
+            synchronized (this) {
+                if (!leader && System.nanoTime() - respondedAt >= joinWindowNanos) {
+                    closeForJoining();
+                }
+                if (!joinable) {
+                    return null;
+                }
+                copy = new Copy(this);
+                copies.add(copy);
+            }
+            HttpResponse response = new BasicHttpResponse(upstreamResponse.getStatusLine());
+            for (Header header : upstreamResponse.getAllHeaders()) {
+                response.addHeader(header);
+            }
+            HttpEntity entity = upstreamResponse.getEntity();
+            if (entity != null) {
+                InputStreamEntity copyEntity = new InputStreamEntity(copy, entity.getContentLength());
+                copyEntity.setContentType(entity.getContentType());
+                copyEntity.setContentEncoding(entity.getContentEncoding());
+                response.setEntity(copyEntity);
+            }
+            return response;
+        }
+
+        /**
+         * @return chunk at the position of given copy, or null if the response ends before it
+         */
+        byte[] chunk(Copy copy) throws IOException {
+            while (true) {
+                synchronized (this) {
+                    long deadline = System.nanoTime() + stallTimeoutNanos;
+                    while (true) {
+                        checkAttached(copy);
+                        if (copy.chunkIndex < chunks.size()) {
+                            return chunks.get(copy.chunkIndex);
+                        }
+                        if (failure != null) {
+                            throw new IOException("failed to read response of query", failure);
+                        }
+                        if (done) {
+                            return null;
+                        }
+                        if (fetching) {
+                            await(0);
+                        } else if (chunks.size() - slowestChunk() >= readAheadChunks) {
+                            // wait for the slowest copy to catch up, without holding back copies reading buffered chunks
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining > 0) {
+                                await(remaining);
+                            } else {
+                                detachSlowestCopies();
+                            }
+                        } else {
+                            fetching = true;
+                            break;
+                        }
+                    }
+                }
+                fetch();
+            }
+        }
+
+        private void checkAttached(Copy copy) throws IOException {
+            if (copy.detached) {
+                throw new IOException("stopped reading response of query: fell too far behind concurrent request for same query");
+            }
+        }
+
+        /**
+         * @param nanos maximum time to wait, or 0 to wait until notified
+         */
+        private synchronized void await(long nanos) throws IOException {
+            try {
+                if (nanos > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, nanos);
+                } else {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for concurrent request for same query", e);
+            }
+        }
+
+        private synchronized int slowestChunk() {
+            int minChunk = Integer.MAX_VALUE;
+            for (Copy copy : copies) {
+                minChunk = Math.min(minChunk, copy.chunkIndex);
+            }
+            return minChunk;
+        }
+
+        private synchronized void detachSlowestCopies() {
+            int slowest = slowestChunk();
+            Iterator<Copy> iterator = copies.iterator();
+            while (iterator.hasNext()) {
+                Copy copy = iterator.next();
+                if (copy.chunkIndex == slowest) {
+                    copy.detached = true;
+                    iterator.remove();
+                }
+            }
+            LOG.info("request for query did not keep up with concurrent request for [" + TimeUnit.NANOSECONDS.toMillis(stallTimeoutNanos) + "] ms: detached");
+            releaseChunks();
+            notifyAll();
+        }
+
+        // only one copy fetches at a time
+        private void fetch() {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int length = 0;
+            IOException fetchFailure = null;
+            try {
+                if (upstreamContent != null) {
+                    int read;
+                    while (length < CHUNK_SIZE && (read = upstreamContent.read(buffer, length, CHUNK_SIZE - length)) != -1) {
+                        length += read;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                fetchFailure = e instanceof IOException ? (IOException) e : new IOException("failed to read response", e);
+            }
+            boolean endOfResponse = fetchFailure != null || length < CHUNK_SIZE;
+            synchronized (this) {
+                if (length > 0) {
+                    chunks.add(length == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, length));
+                }
+                failure = fetchFailure;
+                done = endOfResponse;
+                fetching = false;
+                notifyAll();
+                // requests join only until the first chunk is buffered, so at most one chunk is kept for them
+                closeForJoining();
+            }
+            if (endOfResponse) {
+                closeUpstream(false);
+            }
+        }
+
+        synchronized void advanced() {
+            releaseChunks();
+            notifyAll();
+        }
+
+        private synchronized void releaseChunks() {
+            if (joinable) {
+                return;
+            }
+            int minChunk = slowestChunk();
+            for (int i = releasedChunks; i < Math.min(minChunk, chunks.size()); i++) {
+                chunks.set(i, null);
+            }
+            releasedChunks = Math.max(releasedChunks, Math.min(minChunk, chunks.size()));
+        }
+
+        void closed(Copy copy) {
+            boolean abandoned;
+            synchronized (this) {
+                copies.remove(copy);
+                abandoned = copies.isEmpty() && !done;
+                if (abandoned) {
+                    closeForJoining();
+                    done = true;
+                }
+            }
+            advanced();
+            if (abandoned) {
+                LOG.info("all requests for query stopped reading: aborting upstream response");
+                closeUpstream(true);
+            }
+        }
+
+        private synchronized void closeForJoining() {
+            joinable = false;
+            flights.remove(key, this);
+        }
+
+        /**
+         * @param abort closes the connection instead of reading the remaining response
+         */
+        private void closeUpstream(boolean abort) {
+            try {
+                if (abort && upstreamResponse instanceof Closeable) {
+                    ((Closeable) upstreamResponse).close();
+                } else if (upstreamContent != null) {
+                    upstreamContent.close();
+                }
+            } catch (IOException e) {
+                LOG.warn("failed to close upstream response", e);
+            }
+        }
+    }
+
+    private static final class Copy extends InputStream {
+        private final Flight flight;
+        // guarded by flight
+        private int chunkIndex = 0;
+        private boolean detached = false;
+        private int offset = 0;
+        private boolean closed = false;
+
+        Copy(Flight flight) {
+            this.flight = flight;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            byte[] chunk = flight.chunk(this);
+            if (chunk == null) {
+                return -1;
+            }
+            int length = Math.min(len, chunk.length - offset);
+            System.arraycopy(chunk, offset, b, off, length);
+            offset += length;
+            if (offset == chunk.length) {
+                synchronized (flight) {
+                    chunkIndex++;
+                }
+                offset = 0;
+                flight.advanced();
+            }
+            return length;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                flight.closed(this);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.eol.globi.util;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes cypher queries and their parameters as request body of the neo4j cypher endpoint, e.g.,
+ * <pre>{"query":"CYPHER 2.3 START taxon = node:taxons(name={name}) RETURN taxon","params":{"name":"Aves"}}</pre>
+ * <p>
+ * Query text and parameter values are escaped by a streaming json generator. Queries built for different requests
+ * usually share their text and differ only in their parameters, so the encoded query text (the template) is kept
+ * for reuse, least recently used templates first out.
+ */
+public class CypherRequestEncoder {
+
+    static final int MAX_TEMPLATES_DEFAULT = 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final int maxTemplates;
+    private final Map<String, byte[]> templates;
+
+    public CypherRequestEncoder() {
+        this(MAX_TEMPLATES_DEFAULT);
+    }
+
+    public CypherRequestEncoder(final int maxTemplates) {
+        this.maxTemplates = maxTemplates;
+        this.templates = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxTemplates;
+            }
+        };
+    }
+
+    public byte[] encode(CypherQuery query) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        encode(query, os);
+        return os.toByteArray();
+    }
+
+    public void encode(CypherQuery query, OutputStream os) throws IOException {
+        os.write(prepare(query.getVersionedQuery()));
+        JsonGenerator generator = JSON_FACTORY.createJsonGenerator(os, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        if (query.getParams() != null) {
+            for (Map.Entry<String, String> param : query.getParams().entrySet()) {
+                generator.writeStringField(param.getKey(), param.getValue());
+            }
+        }
+        generator.writeEndObject();
+        generator.close();
+        os.write('}');
+    }
+
+    /**
+     * @return encoded start of a request for given query text, up to its parameters
+     */
+    byte[] prepare(String versionedQuery) throws IOException {
+        synchronized (templates) {
+            byte[] template = templates.get(versionedQuery);
+            if (template != null) {
+                return template;
+            }
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        JsonGenerator generator = JSON_FACTORY.createJsonGenerator(os, JsonEncoding.UTF8);
+        generator.writeStartObject();
+        generator.writeStringField("query", versionedQuery);
+        generator.writeFieldName("params");
+        generator.flush();
+        // generator writes separator along with the value, but "params" object and closing brace are written per request
+        os.write(':');
+        byte[] template = os.toByteArray();
+        if (maxTemplates > 0) {
+            synchronized (templates) {
+                templates.put(versionedQuery, template);
+            }
+        }
+        return template;
+    }
+
+    int getNumberOfTemplates() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+}
@@ -0,0 +1,260 @@
+package org.eol.globi.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches results of cypher queries by normalized query, parameters and requested format.
+ * <p>
+ * Results are evicted least recently used first once either the number of cached results or their total size
+ * exceeds its limit. Results larger than an eighth of the size limit are not cached, so that a single large result
+ * does not push out many small ones. Cached results expire after a time-to-live that can be set per endpoint.
+ * <p>
+ * All results are dropped when the graph release changes: a release probe is asked for the current release at most
+ * once per check interval.
+ */
+public class CypherResultCache {
+    private static final Logger LOG = LoggerFactory.getLogger(CypherResultCache.class);
+
+    public static final String ENDPOINT_DEFAULT = "default";
+
+    public interface Loader {
+        byte[] load() throws IOException;
+    }
+
+    public interface ReleaseProbe {
+        String currentRelease() throws IOException;
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long maxEntries;
+    private final long maxBytes;
+    private final Function<String, Long> ttlForEndpoint;
+    private final Supplier<String> endpoint;
+    private final ReleaseProbe releaseProbe;
+    private final long releaseCheckInterval;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong lastReleaseCheck;
+    private volatile String release = null;
+
+    /**
+     * @param maxEntries           maximum number of cached results, 0 disables the cache
+     * @param maxBytes             maximum total size of cached results
+     * @param ttlForEndpoint       time-to-live of results requested through an endpoint, in nanoseconds
+     * @param endpoint             provides the endpoint of the current request
+     * @param releaseProbe         provides an identifier of the current graph release
+     * @param releaseCheckInterval minimum time between release checks, in nanoseconds
+     * @param clock                current time in nanoseconds
+     */
+    public CypherResultCache(long maxEntries,
+                             long maxBytes,
+                             Function<String, Long> ttlForEndpoint,
+                             Supplier<String> endpoint,
+                             ReleaseProbe releaseProbe,
+                             long releaseCheckInterval,
+                             LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlForEndpoint = ttlForEndpoint;
+        this.endpoint = endpoint;
+        this.releaseProbe = releaseProbe;
+        this.releaseCheckInterval = releaseCheckInterval;
+        this.clock = clock;
+        this.lastReleaseCheck = new AtomicLong(clock.getAsLong() - releaseCheckInterval);
+    }
+
+    /**
+     * Configures a cache using system properties:
+     * <ul>
+     * <li>neo4j.cypher.cache.maxEntries: maximum number of cached results (default 10000, 0 disables the cache)</li>
+     * <li>neo4j.cypher.cache.maxBytes: maximum total size of cached results (default 64 MiB)</li>
+     * <li>neo4j.cypher.cache.ttl: time-to-live in seconds (default 300)</li>
+     * <li>neo4j.cypher.cache.ttl.[endpoint]: time-to-live in seconds for a specific endpoint, e.g. neo4j.cypher.cache.ttl.interaction</li>
+     * <li>neo4j.cypher.cache.releaseCheckInterval: seconds between checks for a new graph release (default 60)</li>
+     * </ul>
+     */
+    public static CypherResultCache fromSystemProperties(Supplier<String> endpoint, ReleaseProbe releaseProbe) {
+        long ttlDefault = longProperty("neo4j.cypher.cache.ttl", 300);
+        return new CypherResultCache(
+                longProperty("neo4j.cypher.cache.maxEntries", 10000),
+                longProperty("neo4j.cypher.cache.maxBytes", 64 * 1024 * 1024),
+                name -> TimeUnit.SECONDS.toNanos(longProperty("neo4j.cypher.cache.ttl." + name, ttlDefault)),
+                endpoint,
+                releaseProbe,
+                TimeUnit.SECONDS.toNanos(longProperty("neo4j.cypher.cache.releaseCheckInterval", 60)),
+                System::nanoTime);
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        try {
+            return StringUtils.isBlank(value) ? defaultValue : Long.parseLong(StringUtils.trim(value));
+        } catch (NumberFormatException e) {
+            LOG.warn("ignoring invalid value [" + value + "] of [" + name + "], using [" + defaultValue + "] instead");
+            return defaultValue;
+        }
+    }
+
+    public byte[] get(CypherQuery query, String format, Loader loader) throws IOException {
+        byte[] value = getIfPresent(query, format);
+        if (value == null) {
+            value = loader.load();
+            put(query, format, value);
+        }
+        return value;
+    }
+
+    public byte[] getIfPresent(CypherQuery query, String format) {
+        if (!isEnabled()) {
+            return null;
+        }
+        checkRelease();
+        String key = keyFor(query, format);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - clock.getAsLong() <= 0) {
+                remove(key);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    public void put(CypherQuery query, String format, byte[] value) {
+        if (!isEnabled() || value == null || value.length > getMaxEntryBytes()) {
+            return;
+        }
+        String key = keyFor(query, format);
+        Entry entry = new Entry(value, clock.getAsLong() + ttlForEndpoint.apply(currentEndpoint()));
+        synchronized (entries) {
+            remove(key);
+            entries.put(key, entry);
+            totalBytes += value.length;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+                totalBytes -= eldest.next().value.length;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            totalBytes = 0;
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new TreeMap<>();
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        metrics.put("expirations", expirations.get());
+        metrics.put("invalidations", invalidations.get());
+        synchronized (entries) {
+            metrics.put("entries", (long) entries.size());
+            metrics.put("bytes", totalBytes);
+        }
+        return metrics;
+    }
+
+    public long getMaxEntryBytes() {
+        return maxBytes / 8;
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && maxBytes > 0;
+    }
+
+    static String keyFor(CypherQuery query, String format) {
+        StringBuilder key = new StringBuilder();
+        appendSized(key, format);
+        appendSized(key, StringUtils.trim(query.getVersionedQuery()));
+        if (query.getParams() != null) {
+            for (Map.Entry<String, String> param : new TreeMap<>(query.getParams()).entrySet()) {
+                appendSized(key, param.getKey());
+                appendSized(key, param.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    // length prefixed, so that no two distinct queries and parameters share a key
+    private static void appendSized(StringBuilder key, String value) {
+        if (value == null) {
+            key.append("-1:");
+        } else {
+            key.append(value.length()).append(':').append(value);
+        }
+    }
+
+    private void remove(String key) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.value.length;
+        }
+    }
+
+    private String currentEndpoint() {
+        String name = endpoint.get();
+        return StringUtils.isBlank(name) ? ENDPOINT_DEFAULT : name;
+    }
+
+    private void checkRelease() {
+        long now = clock.getAsLong();
+        long lastCheck = lastReleaseCheck.get();
+        if (now - lastCheck < releaseCheckInterval || !lastReleaseCheck.compareAndSet(lastCheck, now)) {
+            return;
+        }
+        try {
+            String currentRelease = releaseProbe.currentRelease();
+            if (release != null && !StringUtils.equals(release, currentRelease)) {
+                LOG.info("graph release changed from [" + release + "] to [" + currentRelease + "]: dropping cached query results");
+                invalidateAll();
+            }
+            release = currentRelease;
+        } catch (IOException e) {
+            LOG.warn("failed to check graph release, keeping cached query results", e);
+        }
+    }
+
+}
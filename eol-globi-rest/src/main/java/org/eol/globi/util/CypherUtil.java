@@ -6,13 +6,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.BasicResponseHandler;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.util.Iterator;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 public class CypherUtil {
@@ -20,16 +22,38 @@ public class CypherUtil {
 
     private static final Logger LOG = LoggerFactory.getLogger(CypherUtil.class);
 
+    public static final String FORMAT_NEO4J_JSON = "application/json";
+
+    // changes with every graph release, because datasets are re-indexed on each release
+    private static final String RELEASE_QUERY = "START dataset = node:datasets('namespace:*') " +
+            "RETURN count(dataset) as datasets, max(dataset.lastSeenAt) as lastSeenAt";
+
+    private static final CypherResultCache RESULT_CACHE = CypherResultCache.fromSystemProperties(
+            CypherUtil::currentEndpoint,
+            () -> executeCypherQuery(new CypherQuery(RELEASE_QUERY)));
+
+    private static final CypherRequestCoalescer COALESCER = new CypherRequestCoalescer();
+
+    private static final CypherRequestEncoder ENCODER = new CypherRequestEncoder();
+
+    public static CypherResultCache getResultCache() {
+        return RESULT_CACHE;
+    }
+
+    public static CypherRequestCoalescer getCoalescer() {
+        return COALESCER;
+    }
+
     public static String executeCypherQuery(CypherQuery query) throws IOException {
         HttpPost httpPost = getCypherRequest(query);
         BasicResponseHandler responseHandler = new BasicResponseHandler();
         return HttpUtil.getHttpClient().execute(httpPost, responseHandler);
     }
 
-    public static HttpPost getCypherRequest(CypherQuery query) throws UnsupportedEncodingException {
+    public static HttpPost getCypherRequest(CypherQuery query) throws IOException {
         HttpPost httpPost = new HttpPost(getCypherURI());
         HttpUtil.addJsonHeaders(httpPost);
-        httpPost.setEntity(new StringEntity(wrapQuery(query)));
+        httpPost.setEntity(new ByteArrayEntity(ENCODER.encode(query)));
         return httpPost;
     }
 
@@ -38,40 +62,32 @@ public class CypherUtil {
         return StringUtils.isBlank(value) ? "https://neo4j.globalbioticinteractions.org/db/data/cypher" : StringUtils.trim(value);
     }
 
-    private static String wrapQuery(CypherQuery cypherQuery) {
-        String query = "{\"query\":\"";
-        query += cypherQuery.getVersionedQuery();
-        query += " \", \"params\": {" + buildJSONParamList(cypherQuery.getParams()) + " } }";
-        return query;
-    }
-
-    private static String buildJSONParamList(Map<String, String> paramMap) {
-        StringBuilder builder = new StringBuilder();
-        if (paramMap != null) {
-            populateParams(paramMap, builder);
-        }
-        return builder.toString();
-    }
-
-    private static void populateParams(Map<String, String> paramMap, StringBuilder builder) {
-        Iterator<Map.Entry<String, String>> iterator = paramMap.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, String> param = iterator.next();
-            String jsonParam = "\"" + param.getKey() + "\" : \"" + param.getValue() + "\"";
-            builder.append(jsonParam);
-            if (iterator.hasNext()) {
-                builder.append(", ");
-            }
-        }
-    }
-
     public static String executeRemote(CypherQuery query) throws IOException {
+        byte[] cached = RESULT_CACHE.getIfPresent(query, FORMAT_NEO4J_JSON);
+        if (cached != null) {
+            logQuery(query, "cached");
+            return new String(cached, StandardCharsets.UTF_8);
+        }
         StopWatch stopWatch = logQueryStart(query);
         String result = executeCypherQuery(query);
         logQueryFinish(query, stopWatch);
+        RESULT_CACHE.put(query, FORMAT_NEO4J_JSON, result.getBytes(StandardCharsets.UTF_8));
         return result;
     }
 
+    /**
+     * @return first path segment of the request being handled, e.g. "interaction" for /interaction?sourceTaxon=Aves
+     */
+    private static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            String path = StringUtils.defaultString(request.getServletPath()) + StringUtils.defaultString(request.getPathInfo());
+            return StringUtils.substringBefore(StringUtils.removeStart(path, "/"), "/");
+        }
+        return null;
+    }
+
     private static void logQuery(CypherQuery query, String status) {
         LOG.info(status + " query: [" + query.getVersionedQuery() + "] with params [" + query.getParams() + "]");
     }
@@ -81,10 +97,12 @@ public class CypherUtil {
     }
 
     public static HttpResponse execute(CypherQuery cypherQuery) throws IOException {
-        StopWatch stopWatch = logQueryStart(cypherQuery);
-        HttpPost req = getCypherRequest(cypherQuery);
-        logQueryFinish(cypherQuery, stopWatch);
-        return HttpUtil.getHttpClient().execute(req);
+        return COALESCER.execute(cypherQuery, () -> {
+            StopWatch stopWatch = logQueryStart(cypherQuery);
+            HttpPost req = getCypherRequest(cypherQuery);
+            logQueryFinish(cypherQuery, stopWatch);
+            return HttpUtil.getHttpClient().execute(req);
+        });
     }
 
     private static void logQueryFinish(CypherQuery cypherQuery, StopWatch stopWatch) {
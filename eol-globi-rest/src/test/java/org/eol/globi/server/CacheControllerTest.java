@@ -0,0 +1,25 @@
+package org.eol.globi.server;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.StringContains.containsString;
+
+public class CacheControllerTest extends SpringTestBase {
+
+    @Autowired
+    private CacheController controller;
+
+    @Test
+    public void metrics() throws IOException {
+        String metrics = controller.metrics();
+        assertThat(metrics, containsString("\"hits\":"));
+        assertThat(metrics, containsString("\"misses\":"));
+        assertThat(metrics, containsString("\"evictions\":"));
+        assertThat(metrics, containsString("\"coalescedRequests\":"));
+    }
+
+}
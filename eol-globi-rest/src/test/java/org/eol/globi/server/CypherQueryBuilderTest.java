@@ -173,7 +173,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_SPATIAL +
                 "WHERE exists(loc.latitude) AND exists(loc.longitude) AND loc.latitude < 23.32 AND loc.longitude > -67.87 AND loc.latitude > 12.79 AND loc.longitude < -57.08 AND " + hasTargetTaxon("Arthropoda") +
                 EXPECTED_RETURN_CLAUSE));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\\\"Actinopterygii\\\" OR path:\\\"Chordata\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\"Actinopterygii\" OR path:\"Chordata\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -188,7 +188,7 @@ public class CypherQueryBuilderTest {
 
         String concatInteractionTypes = InteractUtil.allInteractionsCypherClause();
         assertThat(query.getVersionedQuery(), is(CYPHER_VERSION + "START taxon = node:taxonPaths({taxon_name}) MATCH taxon-[rel:" + concatInteractionTypes + "]->otherTaxon RETURN distinct(type(rel)) as interaction_type"));
-        assertThat(query.getParams().toString(), is(is("{taxon_name=path:\\\"Actinopterygii\\\" OR path:\\\"Chordata\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{taxon_name=path:\"Actinopterygii\" OR path:\"Chordata\"}")));
     }
 
     @Test
@@ -206,7 +206,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_SPATIAL +
                 "WHERE exists(loc.latitude) AND exists(loc.longitude) AND loc.latitude < 23.32 AND loc.longitude > -67.87 AND loc.latitude > 12.79 AND loc.longitude < -57.08 AND " + hasTargetTaxon("Arthropoda") +
                 EXPECTED_RETURN_CLAUSE_DISTINCT));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\\\"Actinopterygii\\\" OR path:\\\"Chordata\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\"Actinopterygii\" OR path:\"Chordata\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -244,7 +244,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_SPATIAL +
                 "WHERE exists(loc.latitude) AND exists(loc.longitude) AND loc.latitude < 23.32 AND loc.longitude > -67.87 AND loc.latitude > 12.79 AND loc.longitude < -57.08 AND " + hasTargetTaxon("Arthropoda") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\\\"Actinopterygii\\\" OR path:\\\"Chordata\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\"Actinopterygii\" OR path:\"Chordata\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -283,7 +283,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_DISTINCT +
                 "WHERE " + hasTargetTaxon("Arthropoda") + "AND " + hasTaxon("Arthropoda", "source") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\", source_taxon_name=path:\\\"Arthropoda\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\", source_taxon_name=path:\"Arthropoda\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -303,7 +303,7 @@ public class CypherQueryBuilderTest {
                 "WHERE " + hasTargetTaxon("Arthropoda") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -323,7 +323,7 @@ public class CypherQueryBuilderTest {
                 "WHERE " + hasTargetTaxon("Arthropoda") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"http://inaturalist.org/bla\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"http://inaturalist.org/bla\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -344,7 +344,7 @@ public class CypherQueryBuilderTest {
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
         assertThat(query.getParams().toString(), is(is(
-                "{accordingTo=externalId:\\\"10.1234/4325\\\" externalId:\\\"10.332/222\\\" externalId:\\\"10.444/222\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+                "{accordingTo=externalId:\"10.1234/4325\" externalId:\"10.332/222\" externalId:\"10.444/222\", target_taxon_name=path:\"Arthropoda\"}")));
 
     }
 
@@ -362,7 +362,7 @@ public class CypherQueryBuilderTest {
         assertThat(query.getVersionedQuery(), is(
                 EXPECTED_ACCORDING_TO_START_CLAUSE +
                 "MATCH sourceTaxon<-[:CLASSIFIED_AS]-sourceSpecimen-[interaction:PREYS_UPON|PARASITE_OF|HAS_HOST|INTERACTS_WITH|HOST_OF|POLLINATES|PERCHING_ON|ATE|SYMBIONT_OF|PREYED_UPON_BY|POLLINATED_BY|EATEN_BY|HAS_PARASITE|PERCHED_ON_BY|HAS_PATHOGEN|PATHOGEN_OF|ACQUIRES_NUTRIENTS_FROM|PROVIDES_NUTRIENTS_FOR|HAS_VECTOR|VECTOR_OF|VISITED_BY|VISITS|FLOWERS_VISITED_BY|VISITS_FLOWERS_OF|INHABITED_BY|INHABITS|ADJACENT_TO|CREATES_HABITAT_FOR|HAS_HABITAT|LIVED_ON_BY|LIVES_ON|LIVED_INSIDE_OF_BY|LIVES_INSIDE_OF|LIVED_NEAR_BY|LIVES_NEAR|LIVED_UNDER_BY|LIVES_UNDER|LIVES_WITH|ENDOPARASITE_OF|HAS_ENDOPARASITE|HYPERPARASITE_OF|HAS_HYPERPARASITE|HYPERPARASITOID_OF|HAS_HYPERPARASITOID|ECTOPARASITE_OF|HAS_ECTOPARASITE|KLEPTOPARASITE_OF|HAS_KLEPTOPARASITE|PARASITOID_OF|HAS_PARASITOID|ENDOPARASITOID_OF|HAS_ENDOPARASITOID|ECTOPARASITOID_OF|HAS_ECTOPARASITOID|GUEST_OF|HAS_GUEST_OF|FARMED_BY|FARMS|DAMAGED_BY|DAMAGES|DISPERSAL_VECTOR_OF|HAS_DISPERAL_VECTOR|KILLED_BY|KILLS|EPIPHITE_OF|HAS_EPIPHITE|LAYS_EGGS_ON|HAS_EGGS_LAYED_ON_BY|LAYS_EGGS_IN|HAS_EGGS_LAYED_IN_BY|CO_OCCURS_WITH|CO_ROOSTS_WITH|COMMENSALIST_OF|MUTUALIST_OF|AGGRESSOR_OF|HAS_AGGRESSOR|RELATED_TO]->targetSpecimen-[:CLASSIFIED_AS]->targetTaxon, sourceSpecimen<-[collected_rel:COLLECTED]-study-[:IN_DATASET]->dataset OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc RETURN sourceTaxon.name as source_taxon_name,sourceSpecimen.sexLabel as source_specimen_sex"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"http://arctos.database.museum/guid/MSB:Mamm:79902\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"http://arctos.database.museum/guid/MSB:Mamm:79902\"}")));
 
     }
 
@@ -411,7 +411,7 @@ public class CypherQueryBuilderTest {
                 "sourceTaxon.name as source_taxon_name" +
                 ",targetTaxon.name as target_taxon_name" +
                 ",collected_rel.dateInUnixEpoch as collection_time_in_unix_epoch"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\\\"Ariopsis felis\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\"Ariopsis felis\"}")));
 
     }
 
@@ -433,7 +433,7 @@ public class CypherQueryBuilderTest {
                 "WHERE " + hasTargetTaxon("Arthropoda") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"http://inaturalist.org/bla\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"http://inaturalist.org/bla\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -450,7 +450,7 @@ public class CypherQueryBuilderTest {
                 "MATCH sourceTaxon-[interaction:" + InteractUtil.interactionsCypherClause(RELATED_TO) + "]->targetTaxon " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "path:\\\"Arthropoda\\\"");
+            put("target_taxon_name", "path:\"Arthropoda\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -468,7 +468,7 @@ public class CypherQueryBuilderTest {
 
         query = buildInteractionQuery(params, MULTI_TAXON_DISTINCT_BY_NAME_ONLY);
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "path:\\\"Arthropoda\\\"");
+            put("target_taxon_name", "path:\"Arthropoda\"");
             put("source_taxon_prefix", "somePrefix.*");
             put("target_taxon_prefix", "somePrefix.*");
         }};
@@ -486,8 +486,8 @@ public class CypherQueryBuilderTest {
 
         query = buildInteractionQuery(params, MULTI_TAXON_DISTINCT_BY_NAME_ONLY);
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("source_taxon_name", "path:\\\"urn:catalog:AMNH:Mammals:M-39582\\\"");
-            put("target_taxon_name", "path:\\\"Paradyschiria lineata Kessel, 1925\\\"");
+            put("source_taxon_name", "path:\"urn:catalog:AMNH:Mammals:M-39582\"");
+            put("target_taxon_name", "path:\"Paradyschiria lineata Kessel, 1925\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -507,7 +507,7 @@ public class CypherQueryBuilderTest {
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name,interaction.count as number_of_interactions"
         ));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "path:\\\"Arthropoda\\\"");
+            put("target_taxon_name", "path:\"Arthropoda\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -533,8 +533,8 @@ public class CypherQueryBuilderTest {
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon, count(interaction) as interactionCount, count(distinct(id(study))) as studyCount, count(distinct(dataset.citation)) as sourceCount " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name,interactionCount as number_of_interactions,studyCount as number_of_studies,sourceCount as number_of_sources"));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "path:\\\"Arthropoda\\\"");
-            put("accordingTo", "namespace:\\\"some/namespace\\\"");
+            put("target_taxon_name", "path:\"Arthropoda\"");
+            put("accordingTo", "namespace:\"some/namespace\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -570,8 +570,8 @@ public class CypherQueryBuilderTest {
                 "studyCount as number_of_studies," +
                 "sourceCount as number_of_sources"));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "path:\\\"Arthropoda\\\"");
-            put("accordingTo", "namespace:\\\"some/namespace\\\"");
+            put("target_taxon_name", "path:\"Arthropoda\"");
+            put("accordingTo", "namespace:\"some/namespace\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -608,8 +608,8 @@ public class CypherQueryBuilderTest {
                 "studyCount as number_of_studies," +
                 "sourceCount as number_of_sources"));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "path:\\\"Arthropoda\\\"");
-            put("accordingTo", "externalId:\\\"someSource\\\"");
+            put("target_taxon_name", "path:\"Arthropoda\"");
+            put("accordingTo", "externalId:\"someSource\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -629,7 +629,7 @@ public class CypherQueryBuilderTest {
                 "MATCH sourceTaxon-[interaction:" + InteractUtil.interactionsCypherClause(RELATED_TO) + "]->targetTaxon " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name,interaction.count as number_of_interactions"));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "name:\\\"Arthropoda\\\"");
+            put("target_taxon_name", "name:\"Arthropoda\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -649,7 +649,7 @@ public class CypherQueryBuilderTest {
                 "MATCH sourceTaxon-[interaction:" + InteractUtil.interactionsCypherClause(RELATED_TO) + "]->targetTaxon " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name,interaction.count as number_of_interactions"));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "name:\\\"Arthropoda\\\"");
+            put("target_taxon_name", "name:\"Arthropoda\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -668,7 +668,7 @@ public class CypherQueryBuilderTest {
                 "MATCH sourceTaxon-[interaction:" + InteractUtil.interactionsCypherClause(RELATED_TO) + "]->targetTaxon " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name,interaction.label as interaction_type"));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("target_taxon_name", "path:\\\"Arthropoda\\\"");
+            put("target_taxon_name", "path:\"Arthropoda\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -691,8 +691,8 @@ public class CypherQueryBuilderTest {
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name,interaction.count as number_of_interactions"
         ));
         Map<String, String> expected = new HashMap<String, String>() {{
-            put("source_taxon_name", "path:\\\"Mammalia\\\"");
-            put("target_taxon_name", "path:\\\"Arthropoda\\\"");
+            put("source_taxon_name", "path:\"Mammalia\"");
+            put("target_taxon_name", "path:\"Arthropoda\"");
         }};
         assertThat(query.getParams(), is(expected));
     }
@@ -713,7 +713,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_DISTINCT +
                 "WHERE " + hasTargetTaxon("Arthropoda") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"http://inaturalist.org/bla\\\" externalId:\\\"http://inaturalist.org/bla2\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"http://inaturalist.org/bla\" externalId:\"http://inaturalist.org/bla2\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -732,7 +732,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_DISTINCT +
                 "WHERE " + hasTaxon("Arthropoda", "source") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\", source_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\", source_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -752,7 +752,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_DISTINCT_REFUTING +
                 "WHERE " + hasTaxon("Arthropoda", "source") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\", source_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\", source_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -772,7 +772,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_DISTINCT_REFUTING_AND_SUPPORTING +
                 "WHERE " + hasTaxon("Arthropoda", "source") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\", source_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\", source_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -792,7 +792,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_DISTINCT +
                 "WHERE (exists(sourceTaxon.name) AND sourceTaxon.name IN ['Arthropoda']) " +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\", source_taxon_name=name:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\", source_taxon_name=name:\"Arthropoda\"}")));
     }
 
     @Test
@@ -812,7 +812,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_DISTINCT +
                 "WHERE (exists(sourceTaxon.name) AND sourceTaxon.name IN ['Arthropoda']) " +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\", source_taxon_name=name:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\", source_taxon_name=name:\"Arthropoda\"}")));
     }
 
     @Test
@@ -832,7 +832,7 @@ public class CypherQueryBuilderTest {
                 "WHERE (exists(targetTaxon.name) AND targetTaxon.name IN ['Insecta']) " +
                 "OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=name:\\\"Arthropoda\\\", target_taxon_name=name:\\\"Insecta\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=name:\"Arthropoda\", target_taxon_name=name:\"Insecta\"}")));
     }
 
     @Test
@@ -864,7 +864,7 @@ public class CypherQueryBuilderTest {
                 "WHERE (exists(targetTaxon.name) AND targetTaxon.name IN ['Insecta']) " +
                 "OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=externalId:\\\"EOL:123\\\", target_taxon_name=name:\\\"Insecta\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=externalId:\"EOL:123\", target_taxon_name=name:\"Insecta\"}")));
     }
 
     @Test
@@ -884,7 +884,7 @@ public class CypherQueryBuilderTest {
                 "WHERE (exists(targetTaxon.name) AND targetTaxon.name IN ['Insecta']) " +
                 "OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=externalId:\\\"EOL:123\\\" OR name:\\\"some name\\\", target_taxon_name=name:\\\"Insecta\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=externalId:\"EOL:123\" OR name:\"some name\", target_taxon_name=name:\"Insecta\"}")));
     }
 
     @Test
@@ -905,7 +905,7 @@ public class CypherQueryBuilderTest {
                 " OR (exists(targetTaxon.externalId) AND targetTaxon.externalId IN ['EOL:123']) " +
                 "OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc " +
                 "RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=name:\\\"Arthropoda\\\", target_taxon_name=externalId:\\\"EOL:123\\\" OR name:\\\"some name\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=name:\"Arthropoda\", target_taxon_name=externalId:\"EOL:123\" OR name:\"some name\"}")));
     }
 
 
@@ -926,7 +926,32 @@ public class CypherQueryBuilderTest {
                 "WHERE (exists(targetTaxon.name) AND targetTaxon.name IN ['FOO:123','some name'])" +
                 " OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc" +
                 " RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=name:\\\"Arthropoda\\\", target_taxon_name=name:\\\"FOO:123\\\" OR name:\\\"some name\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=name:\"Arthropoda\", target_taxon_name=name:\"FOO:123\" OR name:\"some name\"}")));
+    }
+
+    @Test
+    public void findInteractionsExactMatchOnlyWithQuotesInNames() {
+        HashMap<String, String[]> params = new HashMap<String, String[]>() {
+            {
+                put("exactNameMatchOnly", new String[]{"true"});
+                put("sourceTaxon", new String[]{"Arthropoda"});
+                put("targetTaxon", new String[]{"Orbignya d'Orbigny", "it's 'quoted'", "'])) RETURN 1 //"});
+                put("field", new String[]{"source_taxon_name", "target_taxon_name"});
+            }
+        };
+
+        query = buildInteractionQuery(params, MULTI_TAXON_ALL);
+        assertThat(query.getVersionedQuery(), is(CYPHER_VERSION + "START sourceTaxon = node:taxons({source_taxon_name}) " +
+                EXPECTED_MATCH_CLAUSE_ALL +
+                "WHERE (exists(targetTaxon.name) AND targetTaxon.name IN ['Orbignya d\\'Orbigny','it\\'s \\'quoted\\'','\\'])) RETURN 1 //'])" +
+                " OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc" +
+                " RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
+    }
+
+    @Test
+    public void cypherString() {
+        assertThat(CypherQueryBuilder.cypherString("d'Orbigny"), is("'d\\'Orbigny'"));
+        assertThat(CypherQueryBuilder.cypherString("back\\slash\\'"), is("'back\\\\slash\\\\\\''"));
     }
 
     @Test
@@ -943,7 +968,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_ACCORDING_TO_START_CLAUSE +
                 EXPECTED_MATCH_CLAUSE_DISTINCT +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\"}")));
     }
 
     @Test
@@ -960,7 +985,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_ACCORDING_TO_START_CLAUSE +
                 EXPECTED_MATCH_CLAUSE_DISTINCT +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN sourceTaxon.name as source_taxon_name,targetTaxon.name as target_taxon_name"));
-        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\\\"foo\\\" externalId:\\\"gomexsi.edu\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{accordingTo=externalId:\"foo\" externalId:\"gomexsi.edu\"}")));
     }
 
     @Test
@@ -979,7 +1004,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_MATCH_CLAUSE_SPATIAL +
                 "WHERE exists(loc.latitude) AND exists(loc.longitude) AND loc.latitude < 23.32 AND loc.longitude > -67.87 AND loc.latitude > 12.79 AND loc.longitude < -57.08 AND " + hasTargetTaxon("Arthropoda") +
                 "WITH distinct targetTaxon, interaction.label as iType, sourceTaxon RETURN targetTaxon.name as target_taxon_name,sourceTaxon.name as source_taxon_name,sourceTaxon.pathNames as source_taxon_path_ranks"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\\\"Actinopterygii\\\" OR path:\\\"Chordata\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\"Actinopterygii\" OR path:\"Chordata\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -998,7 +1023,7 @@ public class CypherQueryBuilderTest {
                 "WHERE " + hasTargetTaxon("Arthropoda") +
                 "OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc " +
                 "RETURN targetTaxon.name as target_taxon_name,study.citation as study_citation"));
-        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\\\"Enhydra\\\", target_taxon_name=path:\\\"Arthropoda\\\"}")));
+        assertThat(query.getParams().toString(), is(is("{source_taxon_name=path:\"Enhydra\", target_taxon_name=path:\"Arthropoda\"}")));
     }
 
     @Test
@@ -1159,7 +1184,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE;
         query = buildInteractionQuery(params, MULTI_TAXON_ALL);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Actinopterygii\\\" OR path:\\\"Chordata\\\", target_taxon_name=path:\\\"Arthropoda\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Actinopterygii\" OR path:\"Chordata\", target_taxon_name=path:\"Arthropoda\"}"));
     }
 
     @Test
@@ -1192,7 +1217,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE;
         query = buildInteractionQuery(params, MULTI_TAXON_ALL);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{target_taxon_name=path:\\\"Arthropoda\\\"}"));
+        assertThat(query.getParams().toString(), is("{target_taxon_name=path:\"Arthropoda\"}"));
     }
 
     @Test
@@ -1212,7 +1237,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE;
         query = buildInteractionQuery(params, MULTI_TAXON_ALL);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Arthropoda\\\", target_taxon_name=path:\\\"Mammalia\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Arthropoda\", target_taxon_name=path:\"Mammalia\"}"));
     }
 
     @Test
@@ -1231,7 +1256,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE_DISTINCT;
         query = buildInteractionQuery(params, MULTI_TAXON_DISTINCT);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Arthropoda\\\", target_taxon_name=path:\\\"Mammalia\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Arthropoda\", target_taxon_name=path:\"Mammalia\"}"));
     }
 
 
@@ -1252,7 +1277,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE;
         query = buildInteractionQuery(params, MULTI_TAXON_ALL);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Arthropoda\\\", target_taxon_name=path:\\\"Mammalia\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Arthropoda\", target_taxon_name=path:\"Mammalia\"}"));
     }
 
     @Test
@@ -1272,7 +1297,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE;
         query = buildInteractionQuery(params, MULTI_TAXON_ALL);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Arthropoda\\\", target_taxon_name=path:\\\"Mammalia\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Arthropoda\", target_taxon_name=path:\"Mammalia\"}"));
     }
 
     @Test
@@ -1293,7 +1318,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE;
         query = buildInteractionQuery(params, MULTI_TAXON_ALL);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Arthropoda\\\", target_taxon_name=path:\\\"Mammalia\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Arthropoda\", target_taxon_name=path:\"Mammalia\"}"));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -1326,7 +1351,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE;
         query = buildInteractionQuery(params, MULTI_TAXON_ALL);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Arthropoda\\\", target_taxon_name=path:\\\"Mammalia\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Arthropoda\", target_taxon_name=path:\"Mammalia\"}"));
     }
 
     @Test
@@ -1346,7 +1371,7 @@ public class CypherQueryBuilderTest {
                 "RETURN sourceTaxon.name as source_taxon_name,sourceTaxon.externalId as source_taxon_external_id,targetTaxon.name as target_taxon_name,targetTaxon.externalId as target_taxon_external_id,interaction.label as interaction_type,interaction.count as number_of_interactions";
         query = buildInteractionQuery(params, MULTI_TAXON_DISTINCT_BY_NAME_ONLY);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Animalia\\\", target_taxon_name=path:\\\"Animalia\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Animalia\", target_taxon_name=path:\"Animalia\"}"));
     }
 
     @Test
@@ -1363,7 +1388,7 @@ public class CypherQueryBuilderTest {
                 EXPECTED_RETURN_CLAUSE;
         query = buildInteractionQuery(params, MULTI_TAXON_ALL);
         assertThat(query.getVersionedQuery(), is(expectedQuery));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Actinopterygii\\\" OR path:\\\"Chordata\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Actinopterygii\" OR path:\"Chordata\"}"));
     }
 
     @Test
@@ -1392,7 +1417,7 @@ public class CypherQueryBuilderTest {
                 "sourceSpecimen<-[collected_rel:COLLECTED]-study-[:IN_DATASET]->dataset, " +
                 "sourceSpecimen-[:COLLECTED_AT]->loc " +
                 "WHERE exists(loc.latitude) AND exists(loc.longitude) AND loc.latitude < 23.32 AND loc.longitude > -67.87 AND loc.latitude > 12.79 AND loc.longitude < -57.08 AND " + HAS_TARGET_TAXON_PLANTAE + expectedReturnClause()));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Homo sapiens\\\", target_taxon_name=path:\\\"Plantae\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Homo sapiens\", target_taxon_name=path:\"Plantae\"}"));
     }
 
     @Test
@@ -1405,7 +1430,7 @@ public class CypherQueryBuilderTest {
                 "sourceSpecimen<-[collected_rel:COLLECTED]-study-[:IN_DATASET]->dataset " +
                 "WHERE " + HAS_TARGET_TAXON_PLANTAE +
                 "OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc " + expectedReturnClause()));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Homo sapiens\\\", target_taxon_name=path:\\\"Plantae\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Homo sapiens\", target_taxon_name=path:\"Plantae\"}"));
     }
 
     @Test
@@ -1417,7 +1442,7 @@ public class CypherQueryBuilderTest {
                 "MATCH sourceTaxon<-[:CLASSIFIED_AS]-sourceSpecimen-[interaction:" + InteractUtil.interactionsCypherClause(PARASITE_OF) + "]->targetSpecimen-[:CLASSIFIED_AS]->targetTaxon, " +
                 "sourceSpecimen<-[collected_rel:COLLECTED]-study-[:IN_DATASET]->dataset " +
                 "WHERE " + HAS_TARGET_TAXON_PLANTAE + "OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc " + expectedReturnClause()));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Homo sapiens\\\", target_taxon_name=path:\\\"Plantae\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Homo sapiens\", target_taxon_name=path:\"Plantae\"}"));
     }
 
     @Test
@@ -1432,7 +1457,7 @@ public class CypherQueryBuilderTest {
                 "sourceSpecimen<-[collected_rel:COLLECTED]-study-[:IN_DATASET]->dataset " +
                 "OPTIONAL MATCH " +
                 "sourceSpecimen-[:COLLECTED_AT]->loc " + expectedReturnClause()));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Homo sapiens\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Homo sapiens\"}"));
     }
 
     @Test
@@ -1446,7 +1471,7 @@ public class CypherQueryBuilderTest {
                 "sourceTaxon<-[:CLASSIFIED_AS]-sourceSpecimen-[interaction:" + InteractUtil.interactionsCypherClause(KILLS) + "]->targetSpecimen-[:CLASSIFIED_AS]->targetTaxon, " +
                 "sourceSpecimen<-[collected_rel:COLLECTED]-study-[:IN_DATASET]->dataset " +
                 "OPTIONAL MATCH sourceSpecimen-[:COLLECTED_AT]->loc " + expectedReturnClause()));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Homo sapiens\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Homo sapiens\"}"));
     }
 
     @Test
@@ -1465,7 +1490,7 @@ public class CypherQueryBuilderTest {
                 "sourceSpecimen<-[collected_rel:COLLECTED]-study-[:IN_DATASET]->dataset, " +
                 "sourceSpecimen-[:COLLECTED_AT]->loc " +
                 "WHERE exists(loc.latitude) AND exists(loc.longitude) AND loc.latitude < 23.32 AND loc.longitude > -67.87 AND loc.latitude > 12.79 AND loc.longitude < -57.08 AND " + HAS_TARGET_TAXON_PLANTAE + "RETURN sourceTaxon.name as source_taxon_name,interaction.label as interaction_type,collect(distinct(targetTaxon.name)) as target_taxon_name"));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Homo sapiens\\\", target_taxon_name=path:\\\"Plantae\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Homo sapiens\", target_taxon_name=path:\"Plantae\"}"));
     }
 
     @Test
@@ -1480,7 +1505,7 @@ public class CypherQueryBuilderTest {
                 "sourceSpecimen<-[collected_rel:COLLECTED]-study-[:IN_DATASET]->dataset " +
                 "WHERE " + HAS_TARGET_TAXON_PLANTAE +
                 "RETURN sourceTaxon.name as source_taxon_name,interaction.label as interaction_type,collect(distinct(targetTaxon.name)) as target_taxon_name"));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Homo sapiens\\\", target_taxon_name=path:\\\"Plantae\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Homo sapiens\", target_taxon_name=path:\"Plantae\"}"));
     }
 
     @Test
@@ -1496,7 +1521,7 @@ public class CypherQueryBuilderTest {
                 "WHERE " + HAS_TARGET_TAXON_PLANTAE +
                 "RETURN " +
                 "sourceTaxon.name as source_taxon_name,interaction.label as interaction_type,collect(distinct(targetTaxon.name)) as target_taxon_name"));
-        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\\\"Homo sapiens\\\", target_taxon_name=path:\\\"Plantae\\\"}"));
+        assertThat(query.getParams().toString(), is("{source_taxon_name=path:\"Homo sapiens\", target_taxon_name=path:\"Plantae\"}"));
     }
 
     @Test
@@ -1611,19 +1636,19 @@ public class CypherQueryBuilderTest {
                 EXPECTED_ACCORDING_TO_START_CLAUSE +
                 "MATCH study-[:COLLECTED]->specimen-[:COLLECTED_AT]->location WITH " +
                 "DISTINCT(location) as loc RETURN loc.latitude as latitude, loc.longitude as longitude, loc.footprintWKT as footprintWKT"));
-        assertThat(query.getParams().toString(), is("{accordingTo=externalId:\\\"some source\\\"}"));
+        assertThat(query.getParams().toString(), is("{accordingTo=externalId:\"some source\"}"));
     }
 
     @Test
     public void regexAccordingToGoMexSI() {
         String regex = CypherQueryBuilder.matchReferenceOrDataset(Collections.singletonList("http://gomexsi.tamucc.edu"));
-        assertThat(regex, is("externalId:\\\"http://gomexsi.tamucc.edu\\\" externalId:\\\"http://gomexsi.tamucc.edu/\\\""));
+        assertThat(regex, is("externalId:\"http://gomexsi.tamucc.edu\" externalId:\"http://gomexsi.tamucc.edu/\""));
 
         regex = CypherQueryBuilder.matchReferenceOrDataset(Arrays.<String>asList("http://gomexsi.tamucc.edu", "https://example.com"));
-        assertThat(regex, is("externalId:\\\"http://gomexsi.tamucc.edu\\\" externalId:\\\"https://example.com\\\" externalId:\\\"http://gomexsi.tamucc.edu/\\\""));
+        assertThat(regex, is("externalId:\"http://gomexsi.tamucc.edu\" externalId:\"https://example.com\" externalId:\"http://gomexsi.tamucc.edu/\""));
 
         regex = CypherQueryBuilder.matchReferenceOrDataset(Collections.singletonList("https://example.com"));
-        assertThat(regex, is("externalId:\\\"https://example.com\\\""));
+        assertThat(regex, is("externalId:\"https://example.com\""));
     }
 
     @Test
@@ -1,10 +1,8 @@
 package org.eol.globi.server;
 
-import org.apache.commons.io.FileUtils;
 import org.eol.globi.data.NodeFactoryNeo4j;
 import org.eol.globi.db.GraphServiceFactoryProxy;
 import org.eol.globi.server.util.ResultField;
-import org.eol.globi.service.CacheService;
 import org.eol.globi.taxon.NonResolvingTaxonIndex;
 import org.eol.globi.tool.LinkerTaxonIndex;
 import org.eol.globi.tool.ReportGenerator;
@@ -12,10 +10,8 @@ import org.eol.globi.util.CypherQuery;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
-import java.io.File;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.UUID;
 
 public class CypherTestUtil {
     public static final String CYPHER_RESULT = "{\n" +
@@ -32,10 +28,7 @@ public class CypherTestUtil {
         new NodeFactoryNeo4j(graphDatabaseService);
         new NonResolvingTaxonIndex(graphDatabaseService);
         new LinkerTaxonIndex().index(new GraphServiceFactoryProxy(graphDatabaseService));
-        CacheService cacheService = new CacheService();
-        File cacheDir = new File("target/reportGeneration" + UUID.randomUUID());
-        cacheService.setCacheDir(cacheDir);
-        ReportGenerator reportGenerator = new ReportGenerator(graphDatabaseService, cacheService);
+        ReportGenerator reportGenerator = new ReportGenerator(graphDatabaseService);
 
         reportGenerator.run();
         HashMap<String, Object> params = cypherQuery.getParams() == null ? null : new HashMap<>(cypherQuery.getParams());
@@ -49,8 +42,6 @@ public class CypherTestUtil {
             if (!ex.getMessage().contains("Encountered \" \":\" \": \"\"")) {
                 throw ex;
             }
-        } finally {
-            FileUtils.deleteQuietly(cacheDir);
         }
     }
 }
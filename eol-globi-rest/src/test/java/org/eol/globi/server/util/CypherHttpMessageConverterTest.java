@@ -39,4 +39,11 @@ public class CypherHttpMessageConverterTest {
         });
     }
 
-}
\ No newline at end of file
+    @Test
+    public void cacheableFormats() {
+        assertThat(CypherHttpMessageConverter.isCacheable(new ResultFormatterDOT()), Is.is(false));
+        assertThat(CypherHttpMessageConverter.isCacheable(new ResultFormatterSVG()), Is.is(true));
+        assertThat(CypherHttpMessageConverter.isCacheable(new ResultFormatterJSONv2()), Is.is(true));
+    }
+
+}
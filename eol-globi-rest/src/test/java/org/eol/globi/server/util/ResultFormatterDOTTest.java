@@ -1,9 +1,16 @@
 package org.eol.globi.server.util;
 
+import org.apache.commons.io.IOUtils;
 import org.hamcrest.core.Is;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 public class ResultFormatterDOTTest {
@@ -39,5 +46,21 @@ public class ResultFormatterDOTTest {
         assertThat(dots, is(notNullValue()));
     }
 
+    @Test
+    public void formatStream() throws ResultFormattingException, UnsupportedEncodingException {
+        String result = "{ \"columns\" : [ \"source_taxon_name\", \"interaction_type\", \"target_taxon_name\" ],\n" +
+                "  \"data\" : [ [ \"Vireo olivaceus\", \"preysOn\", [ \"Diptera\", \"Arachnida\" ] ], [ \"Colaptes auratus\", \"preysOn\", \"Hymenoptera\" ], null ] }";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new ResultFormatterDOT().format(IOUtils.toInputStream(result, StandardCharsets.UTF_8), os);
+
+        String dots = os.toString(StandardCharsets.UTF_8.name());
+        assertThat(dots, startsWith("// generated by GloBI"));
+        assertThat(dots, endsWith("digraph GloBI {\n" +
+                "Vireo_olivaceus->Diptera[label=\"preysOn\"];\n" +
+                "Vireo_olivaceus->Arachnida[label=\"preysOn\"];\n" +
+                "Colaptes_auratus->Hymenoptera[label=\"preysOn\"];\n" +
+                " }"));
+    }
 
 }
@@ -1,9 +1,12 @@
 package org.eol.globi.server.util;
 
+import org.apache.commons.io.IOUtils;
 import org.eol.globi.server.CypherTestUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -14,5 +17,11 @@ public class ResultFormatterJSONLDTest {
         String format = new ResultFormatterJSONLD().format(CypherTestUtil.CYPHER_RESULT);
         assertThat(format, is("{\"@context\": \"https://raw.githubusercontent.com/globalbioticinteractions/jsonld-template-dataset/main/context.jsonld\"}"));
     }
-}
 
+    @Test
+    public void formatStream() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new ResultFormatterJSONLD().format(IOUtils.toInputStream(CypherTestUtil.CYPHER_RESULT, StandardCharsets.UTF_8), os);
+        assertThat(os.toString(StandardCharsets.UTF_8.name()), is(new ResultFormatterJSONLD().format(CypherTestUtil.CYPHER_RESULT)));
+    }
+}
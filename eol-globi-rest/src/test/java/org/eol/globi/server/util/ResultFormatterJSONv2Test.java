@@ -1,11 +1,14 @@
 package org.eol.globi.server.util;
 
+import org.apache.commons.io.IOUtils;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.eol.globi.server.CypherTestUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.hamcrest.core.AnyOf.anyOf;
 import static org.hamcrest.core.Is.is;
@@ -182,6 +185,45 @@ public class ResultFormatterJSONv2Test {
 
     }
 
+    @Test
+    public void formatInteractionResultWithManyTargetTaxa() throws IOException {
+        String result = "{\"columns\":[\"source_taxon_name\",\"interaction_type\",\"target_taxon_name\",\"latitude\"]," +
+                "\"data\":[[\"A\",\"ATE\",[\"x\",\"y\",\"z\"],1.5],[\"B\",\"ATE\",\"w\",null],[\"C\",\"ATE\",[\"v\",\"u\"],2]]}";
+
+        String format = new ResultFormatterJSONv2().format(result);
+
+        assertThat(format, is("[" +
+                "{\"source_taxon_name\":\"A\",\"latitude\":1.5,\"interaction_type\":\"ATE\",\"target_taxon_name\":[\"x\",\"y\",\"z\"],\"source\":{\"name\":\"A\"},\"type\":\"ATE\",\"target\":{\"name\":\"x\"}}," +
+                "{\"source_taxon_name\":\"B\",\"latitude\":null,\"interaction_type\":\"ATE\",\"target_taxon_name\":\"w\",\"source\":{\"name\":\"A\"},\"type\":\"ATE\",\"target\":{\"name\":\"y\"}}," +
+                "{\"source_taxon_name\":\"C\",\"latitude\":2,\"interaction_type\":\"ATE\",\"target_taxon_name\":[\"v\",\"u\"],\"source\":{\"name\":\"A\"},\"type\":\"ATE\",\"target\":{\"name\":\"z\"}}," +
+                "{\"source\":{\"name\":\"B\"},\"type\":\"ATE\",\"target\":{\"name\":\"w\"}}," +
+                "{\"source\":{\"name\":\"C\"},\"type\":\"ATE\",\"latitude\":2.0,\"target\":{\"name\":\"v\"}}," +
+                "{\"source\":{\"name\":\"C\"},\"type\":\"ATE\",\"latitude\":2.0,\"target\":{\"name\":\"u\"}}]"));
+    }
+
+    @Test
+    public void formatStream() throws IOException {
+        String result = "{ \"stats\" : { \"rows\" : [ 2 ] }, \"columns\" : [ \"taxon_name\", \"taxon_path\" ], " +
+                "\"data\" : [ [ \"Aves\", \"Animalia | Aves\" ], [ \"Homo sapiens\", null ] ] }";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new ResultFormatterJSONv2().format(IOUtils.toInputStream(result, StandardCharsets.UTF_8), os);
+
+        assertThat(os.toString(StandardCharsets.UTF_8.name()), is(new ResultFormatterJSONv2().format(result)));
+        assertThat(os.toString(StandardCharsets.UTF_8.name()), is("[{\"taxon_name\":\"Aves\",\"taxon_path\":\"Animalia | Aves\"},{\"taxon_name\":\"Homo sapiens\",\"taxon_path\":null}]"));
+    }
+
+    @Test
+    public void formatEmptyResult() throws IOException {
+        String format = new ResultFormatterJSONv2().format("{ \"columns\" : [ \"taxon_name\" ], \"data\" : [ ] }");
+        assertThat(format, is("[]"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void formatWithoutData() throws IOException {
+        new ResultFormatterJSONv2().format("{ \"columns\" : [ \"taxon_name\" ] }");
+    }
+
     private JsonNode assertNodePropertiesExist(JsonNode interaction, String nodeLabel) {
         JsonNode taxon = interaction.get(nodeLabel);
         assertThat(taxon.has("name"), is(true));
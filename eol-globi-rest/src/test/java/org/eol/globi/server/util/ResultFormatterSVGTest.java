@@ -1,7 +1,12 @@
 package org.eol.globi.server.util;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -23,4 +28,21 @@ public class ResultFormatterSVGTest {
         assertThat(svg, is(notNullValue()));
     }
 
+    @Test
+    public void formatStreamReadsFirstRowOnly() throws ResultFormattingException, IOException {
+        // rows after the first are never read, so a truncated result does not matter
+        String truncated = "{ \"columns\" : [ \"source_taxon_name\" ], \"data\" : [ [ \"Vireo olivaceus\" ], [ \"Colap";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new ResultFormatterSVG().format(IOUtils.toInputStream(truncated, StandardCharsets.UTF_8), os);
+
+        assertThat(os.toString(StandardCharsets.UTF_8.name()), is(IOUtils.toString(getClass().getResourceAsStream("known.svg"), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void formatEmptyResult() throws ResultFormattingException, IOException {
+        String svg = new ResultFormatterSVG().format("{ \"columns\" : [ \"source_taxon_name\" ], \"data\" : [ ] }");
+        assertThat(svg, is(IOUtils.toString(getClass().getResourceAsStream("unknown.svg"), StandardCharsets.UTF_8)));
+    }
+
 }
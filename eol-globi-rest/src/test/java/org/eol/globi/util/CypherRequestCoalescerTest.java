@@ -0,0 +1,311 @@
+package org.eol.globi.util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CypherRequestCoalescerTest {
+
+    private static final int BODY_SIZE = 5 * CypherRequestCoalescer.CHUNK_SIZE + 123;
+    private static final int SENT_BEFORE_RELEASE = CypherRequestCoalescer.CHUNK_SIZE + 1000;
+
+    private HttpServer server;
+    private String endpoint;
+    private CloseableHttpClient client;
+    private ExecutorService executor;
+
+    private final byte[] body = new byte[BODY_SIZE];
+    private final AtomicInteger upstreamRequests = new AtomicInteger(0);
+    private final AtomicBoolean truncate = new AtomicBoolean(false);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @Before
+    public void init() throws IOException {
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i % 251);
+        }
+        // stub of neo4j endpoint: sends part of the response, then waits for the test to release the rest
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/db/data/cypher", exchange -> {
+            upstreamRequests.incrementAndGet();
+            IOUtils.toByteArray(exchange.getRequestBody());
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream os = exchange.getResponseBody();
+            try {
+                os.write(body, 0, SENT_BEFORE_RELEASE);
+                os.flush();
+                release.await(10, TimeUnit.SECONDS);
+                if (!truncate.get()) {
+                    os.write(body, SENT_BEFORE_RELEASE, body.length - SENT_BEFORE_RELEASE);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        endpoint = "http://localhost:" + server.getAddress().getPort() + "/db/data/cypher";
+        client = HttpClients.createDefault();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void concurrentRequestsShareUpstreamRequest() throws Exception {
+        CypherRequestCoalescer coalescer = coalescerWithLongJoinWindow();
+        release = new CountDownLatch(1);
+
+        int numberOfRequests = 8;
+        List<Future<byte[]>> responses = executeAndRead(coalescer, numberOfRequests);
+        release.countDown();
+
+        for (Future<byte[]> response : responses) {
+            assertThat(response.get(10, TimeUnit.SECONDS), is(body));
+        }
+        assertThat(upstreamRequests.get(), is(1));
+        assertThat(coalescer.getUpstreamRequests(), is(1L));
+        assertThat(coalescer.getCoalescedRequests(), is((long) numberOfRequests - 1));
+    }
+
+    @Test
+    public void differentQueriesDoNotShareUpstreamRequest() throws Exception {
+        CypherRequestCoalescer coalescer = new CypherRequestCoalescer();
+        release = new CountDownLatch(1);
+
+        Future<byte[]> some = executor.submit(() -> read(coalescer.execute(new CypherQuery("RETURN 1"), this::upstream)));
+        Future<byte[]> other = executor.submit(() -> read(coalescer.execute(new CypherQuery("RETURN 2"), this::upstream)));
+        awaitRequests(coalescer, 2);
+        release.countDown();
+
+        assertThat(some.get(10, TimeUnit.SECONDS), is(body));
+        assertThat(other.get(10, TimeUnit.SECONDS), is(body));
+        assertThat(upstreamRequests.get(), is(2));
+        assertThat(coalescer.getCoalescedRequests(), is(0L));
+    }
+
+    @Test
+    public void requestAfterCompletedResponseGoesUpstream() throws IOException {
+        CypherRequestCoalescer coalescer = new CypherRequestCoalescer();
+        assertThat(read(coalescer.execute(new CypherQuery("RETURN 1"), this::upstream)), is(body));
+        assertThat(read(coalescer.execute(new CypherQuery("RETURN 1"), this::upstream)), is(body));
+        assertThat(upstreamRequests.get(), is(2));
+        assertThat(coalescer.getCoalescedRequests(), is(0L));
+    }
+
+    @Test
+    public void doNotJoinAfterFirstChunk() throws Exception {
+        CypherRequestCoalescer coalescer = coalescerWithLongJoinWindow();
+        release = new CountDownLatch(1);
+
+        HttpResponse first = coalescer.execute(new CypherQuery("RETURN 1"), this::upstream);
+        InputStream firstContent = first.getEntity().getContent();
+        byte[] firstChunk = new byte[CypherRequestCoalescer.CHUNK_SIZE];
+        IOUtils.readFully(firstContent, firstChunk);
+
+        Future<byte[]> second = executor.submit(() -> read(coalescer.execute(new CypherQuery("RETURN 1"), this::upstream)));
+        awaitRequests(coalescer, 2);
+        release.countDown();
+
+        assertThat(second.get(10, TimeUnit.SECONDS), is(body));
+        byte[] firstBody = new byte[BODY_SIZE];
+        System.arraycopy(firstChunk, 0, firstBody, 0, firstChunk.length);
+        IOUtils.readFully(firstContent, firstBody, firstChunk.length, BODY_SIZE - firstChunk.length);
+        firstContent.close();
+        assertThat(firstBody, is(body));
+        assertThat(upstreamRequests.get(), is(2));
+    }
+
+    @Test
+    public void doNotJoinAfterJoinWindow() throws Exception {
+        CypherRequestCoalescer coalescer = new CypherRequestCoalescer(0,
+                CypherRequestCoalescer.READ_AHEAD_LIMIT_DEFAULT,
+                CypherRequestCoalescer.STALL_TIMEOUT_MILLIS_DEFAULT);
+        release = new CountDownLatch(1);
+
+        HttpResponse first = coalescer.execute(new CypherQuery("RETURN 1"), this::upstream);
+        HttpResponse second = coalescer.execute(new CypherQuery("RETURN 1"), this::upstream);
+        release.countDown();
+
+        assertThat(read(second), is(body));
+        assertThat(read(first), is(body));
+        assertThat(upstreamRequests.get(), is(2));
+        assertThat(coalescer.getCoalescedRequests(), is(0L));
+    }
+
+    @Test
+    public void fastCopyWaitsForSlowCopy() throws Exception {
+        CypherRequestCoalescer coalescer = new CypherRequestCoalescer(10000,
+                CypherRequestCoalescer.CHUNK_SIZE,
+                CypherRequestCoalescer.STALL_TIMEOUT_MILLIS_DEFAULT);
+
+        HttpResponse slow = coalescer.execute(new CypherQuery("RETURN 1"), this::upstream);
+        HttpResponse fast = coalescer.execute(new CypherQuery("RETURN 1"), this::upstream);
+        Future<byte[]> fastBody = executor.submit(() -> read(fast));
+        // fast copy cannot read more than one chunk ahead of the slow copy that has not read anything yet
+        awaitWaiting(fastBody);
+
+        assertThat(read(slow), is(body));
+        assertThat(fastBody.get(10, TimeUnit.SECONDS), is(body));
+        assertThat(upstreamRequests.get(), is(1));
+    }
+
+    @Test
+    public void detachStalledCopy() throws Exception {
+        CypherRequestCoalescer coalescer = new CypherRequestCoalescer(10000, CypherRequestCoalescer.CHUNK_SIZE, 100);
+
+        HttpResponse stalled = coalescer.execute(new CypherQuery("RETURN 1"), this::upstream);
+        HttpResponse fast = coalescer.execute(new CypherQuery("RETURN 1"), this::upstream);
+        assertThat(read(fast), is(body));
+
+        try {
+            read(stalled);
+            fail("expected stalled copy to be detached");
+        } catch (IOException e) {
+            assertThat(e.getMessage().contains("fell too far behind"), is(true));
+        }
+        assertThat(upstreamRequests.get(), is(1));
+    }
+
+    @Test
+    public void truncatedResponseFailsAllCopies() throws Exception {
+        CypherRequestCoalescer coalescer = coalescerWithLongJoinWindow();
+        release = new CountDownLatch(1);
+        truncate.set(true);
+
+        int numberOfRequests = 4;
+        List<Future<byte[]>> responses = executeAndRead(coalescer, numberOfRequests);
+        release.countDown();
+
+        for (Future<byte[]> response : responses) {
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                fail("expected truncated response to fail");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(IOException.class));
+            }
+        }
+        assertThat(upstreamRequests.get(), is(1));
+    }
+
+    @Test
+    public void failedUpstreamRequestFailsAllJoinedRequests() throws Exception {
+        CypherRequestCoalescer coalescer = new CypherRequestCoalescer();
+        CountDownLatch failUpstream = new CountDownLatch(1);
+        CountDownLatch upstreamStarted = new CountDownLatch(1);
+
+        Future<HttpResponse> leader = executor.submit(() -> coalescer.execute(new CypherQuery("RETURN 1"), () -> {
+            upstreamStarted.countDown();
+            try {
+                failUpstream.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("kaboom!");
+        }));
+        upstreamStarted.await(10, TimeUnit.SECONDS);
+
+        AtomicInteger calledUpstream = new AtomicInteger(0);
+        Future<HttpResponse> follower = executor.submit(() -> coalescer.execute(new CypherQuery("RETURN 1"), () -> {
+            calledUpstream.incrementAndGet();
+            return upstream();
+        }));
+        // follower waits for the leader, so it cannot complete before the leader fails
+        awaitWaiting(follower);
+        failUpstream.countDown();
+
+        for (Future<HttpResponse> response : Arrays.asList(leader, follower)) {
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                fail("expected request to fail");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(IOException.class));
+            }
+        }
+        assertThat(calledUpstream.get(), is(0));
+        assertThat(coalescer.getUpstreamRequests(), is(1L));
+    }
+
+    private static CypherRequestCoalescer coalescerWithLongJoinWindow() {
+        return new CypherRequestCoalescer(10000,
+                CypherRequestCoalescer.READ_AHEAD_LIMIT_DEFAULT,
+                CypherRequestCoalescer.STALL_TIMEOUT_MILLIS_DEFAULT);
+    }
+
+    // responses are read only once all requests joined, because reading the first chunk closes the join window
+    private List<Future<byte[]>> executeAndRead(CypherRequestCoalescer coalescer, int numberOfRequests) throws Exception {
+        List<Future<HttpResponse>> requests = new ArrayList<>();
+        for (int i = 0; i < numberOfRequests; i++) {
+            requests.add(executor.submit(() -> coalescer.execute(new CypherQuery("RETURN 1"), this::upstream)));
+        }
+        awaitRequests(coalescer, numberOfRequests);
+        List<Future<byte[]>> responses = new ArrayList<>();
+        for (Future<HttpResponse> request : requests) {
+            HttpResponse response = request.get(10, TimeUnit.SECONDS);
+            responses.add(executor.submit(() -> read(response)));
+        }
+        return responses;
+    }
+
+    private HttpResponse upstream() throws IOException {
+        return client.execute(new HttpPost(endpoint));
+    }
+
+    private static byte[] read(HttpResponse response) throws IOException {
+        try (InputStream is = response.getEntity().getContent()) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    private static void awaitRequests(CypherRequestCoalescer coalescer, int numberOfRequests) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coalescer.getUpstreamRequests() + coalescer.getCoalescedRequests() < numberOfRequests) {
+            if (System.nanoTime() > deadline) {
+                fail("expected [" + numberOfRequests + "] requests, but got [" + (coalescer.getUpstreamRequests() + coalescer.getCoalescedRequests()) + "]");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitWaiting(Future<?> future) throws InterruptedException {
+        // give the request time to join, it cannot complete while the leader has not responded
+        Thread.sleep(200);
+        assertThat(future.isDone(), is(false));
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.eol.globi.util;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.eol.globi.server.CypherQueryBuilder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CypherRequestEncoderTest {
+
+    private static final String QUERY = "START taxon = node:taxons({pathQuery}) RETURN taxon.name";
+
+    @Test
+    public void encode() throws IOException {
+        byte[] request = new CypherRequestEncoder().encode(new CypherQuery(QUERY, Collections.singletonMap("pathQuery", "path:\"Aves\"")));
+        assertThat(new String(request, StandardCharsets.UTF_8),
+                is("{\"query\":\"CYPHER 2.3 START taxon = node:taxons({pathQuery}) RETURN taxon.name\",\"params\":{\"pathQuery\":\"path:\\\"Aves\\\"\"}}"));
+    }
+
+    @Test
+    public void encodeUnicodeTaxonNames() throws IOException {
+        Map<String, String> params = new HashMap<>();
+        params.put("source_taxon_name", CypherQueryBuilder.lucenePathQuery(Arrays.asList("Käfer", "蜜蜂", "Ἀράχνη"), false));
+        params.put("taxonName", "Löwe 🦁");
+
+        JsonNode request = encodeAndParse(new CypherQuery(QUERY, params));
+
+        assertThat(request.get("params").get("source_taxon_name").getTextValue(), is("path:\"Käfer\" OR path:\"蜜蜂\" OR path:\"Ἀράχνη\""));
+        assertThat(request.get("params").get("taxonName").getTextValue(), is("Löwe 🦁"));
+    }
+
+    @Test
+    public void encodeQuoteHeavyTaxonNames() throws IOException {
+        Map<String, String> params = new HashMap<>();
+        params.put("source_taxon_name", CypherQueryBuilder.lucenePathQuery(Arrays.asList("Homo \"sapiens\"", "back\\slash", "'single'"), false));
+        params.put("taxonName", "\"}, \"params\": {\"injected\": \"\n\t\\");
+
+        JsonNode request = encodeAndParse(new CypherQuery(QUERY, params));
+
+        assertThat(request.get("params").size(), is(2));
+        assertThat(request.get("params").get("source_taxon_name").getTextValue(), is("path:\"Homo \\\"sapiens\\\"\" OR path:\"back\\\\slash\" OR path:\"'single'\""));
+        assertThat(request.get("params").get("taxonName").getTextValue(), is("\"}, \"params\": {\"injected\": \"\n\t\\"));
+    }
+
+    @Test
+    public void encodeQuotesInQuery() throws IOException {
+        String query = "START taxon = node:taxons('name:\"Homo sapiens\"')\n  RETURN taxon.name as `name \\ quoted`";
+        JsonNode request = encodeAndParse(new CypherQuery(query));
+        assertThat(request.get("query").getTextValue(), is("CYPHER 2.3 START taxon = node:taxons('name:\"Homo sapiens\"') RETURN taxon.name as `name \\ quoted`"));
+        assertThat(request.get("params").size(), is(0));
+    }
+
+    @Test
+    public void encodeNullParams() throws IOException {
+        Map<String, String> params = new HashMap<>();
+        params.put("taxonName", null);
+        assertThat(encodeAndParse(new CypherQuery(QUERY, params)).get("params").get("taxonName").isNull(), is(true));
+        assertThat(encodeAndParse(new CypherQuery(QUERY, "2.3")).get("params").size(), is(0));
+    }
+
+    @Test
+    public void reuseTemplateForSameQuery() throws IOException {
+        CypherRequestEncoder encoder = new CypherRequestEncoder(2);
+        byte[] template = encoder.prepare(new CypherQuery(QUERY).getVersionedQuery());
+        encoder.encode(new CypherQuery(QUERY, Collections.singletonMap("pathQuery", "path:\"Aves\"")));
+        encoder.encode(new CypherQuery(QUERY.replace(" ", "\n  "), Collections.singletonMap("pathQuery", "path:\"Mammalia\"")));
+
+        assertThat(encoder.getNumberOfTemplates(), is(1));
+        assertThat(encoder.prepare(new CypherQuery(QUERY).getVersionedQuery()), sameInstance(template));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedTemplates() throws IOException {
+        CypherRequestEncoder encoder = new CypherRequestEncoder(2);
+        byte[] template = encoder.prepare("RETURN 1");
+        encoder.prepare("RETURN 2");
+        encoder.prepare("RETURN 1");
+        encoder.prepare("RETURN 3");
+
+        assertThat(encoder.getNumberOfTemplates(), is(2));
+        assertThat(encoder.prepare("RETURN 1"), sameInstance(template));
+    }
+
+    private static JsonNode encodeAndParse(CypherQuery query) throws IOException {
+        return new ObjectMapper().readTree(new String(new CypherRequestEncoder().encode(query), StandardCharsets.UTF_8));
+    }
+
+}
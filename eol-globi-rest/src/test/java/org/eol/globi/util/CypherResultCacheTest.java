@@ -0,0 +1,189 @@
+package org.eol.globi.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CypherResultCacheTest {
+
+    private static final String JSON = "application/json";
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final AtomicReference<String> endpoint = new AtomicReference<>(null);
+    private final AtomicReference<String> release = new AtomicReference<>("release1");
+    private final AtomicInteger releaseChecks = new AtomicInteger(0);
+
+    @Test
+    public void hitForSameQueryParamsAndFormat() throws IOException {
+        CypherResultCache cache = createCache(10, 1000);
+        CypherQuery query = new CypherQuery("START taxon = node:taxons(name={name}) RETURN taxon", Collections.singletonMap("name", "Aves"));
+        cache.put(query, JSON, bytes("some result"));
+
+        CypherQuery reformatted = new CypherQuery("START taxon = node:taxons(name={name})\n    RETURN taxon", Collections.singletonMap("name", "Aves"));
+        assertThat(cache.getIfPresent(reformatted, JSON), is(bytes("some result")));
+        assertThat(cache.getIfPresent(query, "text/csv"), is(nullValue()));
+        assertThat(cache.getIfPresent(new CypherQuery(query.getQuery(), Collections.singletonMap("name", "Mammalia")), JSON), is(nullValue()));
+        assertThat(cache.getIfPresent(new CypherQuery(query.getQuery(), Collections.singletonMap("name", "Aves"), "3.5"), JSON), is(nullValue()));
+
+        assertThat(cache.getMetrics().get("hits"), is(1L));
+        assertThat(cache.getMetrics().get("misses"), is(3L));
+    }
+
+    @Test
+    public void paramOrderDoesNotMatter() {
+        Map<String, String> params = new HashMap<>();
+        params.put("source", "Aves");
+        params.put("target", "Insecta");
+        CypherResultCache cache = createCache(10, 1000);
+        cache.put(new CypherQuery("RETURN 1", params), JSON, bytes("some result"));
+
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1", new TreeMap<>(params).descendingMap()), JSON), is(bytes("some result")));
+    }
+
+    @Test
+    public void keysDoNotCollide() {
+        Map<String, String> someParams = new HashMap<>();
+        someParams.put("a", "b:c");
+        Map<String, String> otherParams = new HashMap<>();
+        otherParams.put("a:b", "c");
+
+        assertThat(CypherResultCache.keyFor(new CypherQuery("RETURN 1", someParams), JSON)
+                .equals(CypherResultCache.keyFor(new CypherQuery("RETURN 1", otherParams), JSON)), is(false));
+    }
+
+    @Test
+    public void loadOnMissOnly() throws IOException {
+        CypherResultCache cache = createCache(10, 1000);
+        AtomicInteger loads = new AtomicInteger(0);
+        CypherResultCache.Loader loader = () -> bytes("result" + loads.incrementAndGet());
+
+        assertThat(cache.get(new CypherQuery("RETURN 1"), JSON, loader), is(bytes("result1")));
+        assertThat(cache.get(new CypherQuery("RETURN 1"), JSON, loader), is(bytes("result1")));
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedBeyondMaxEntries() {
+        CypherResultCache cache = createCache(2, 1000);
+        cache.put(new CypherQuery("RETURN 1"), JSON, bytes("1"));
+        cache.put(new CypherQuery("RETURN 2"), JSON, bytes("2"));
+        cache.getIfPresent(new CypherQuery("RETURN 1"), JSON);
+        cache.put(new CypherQuery("RETURN 3"), JSON, bytes("3"));
+
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1"), JSON), is(bytes("1")));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 2"), JSON), is(nullValue()));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 3"), JSON), is(bytes("3")));
+        assertThat(cache.getMetrics().get("evictions"), is(1L));
+        assertThat(cache.getMetrics().get("entries"), is(2L));
+    }
+
+    @Test
+    public void evictBeyondMaxBytes() {
+        CypherResultCache cache = createCache(100, 80);
+        for (int i = 0; i < 10; i++) {
+            cache.put(new CypherQuery("RETURN " + i), JSON, new byte[10]);
+        }
+        assertThat(cache.getMetrics().get("bytes"), is(80L));
+        assertThat(cache.getMetrics().get("entries"), is(8L));
+        assertThat(cache.getMetrics().get("evictions"), is(2L));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 0"), JSON), is(nullValue()));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 9"), JSON), is(new byte[10]));
+    }
+
+    @Test
+    public void doNotCacheLargeResults() {
+        CypherResultCache cache = createCache(100, 80);
+        cache.put(new CypherQuery("RETURN 1"), JSON, new byte[11]);
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1"), JSON), is(nullValue()));
+        assertThat(cache.getMetrics().get("entries"), is(0L));
+    }
+
+    @Test
+    public void expireByEndpoint() {
+        CypherResultCache cache = createCache(10, 1000);
+        endpoint.set("interaction");
+        cache.put(new CypherQuery("RETURN 1"), JSON, bytes("1"));
+        endpoint.set("reports");
+        cache.put(new CypherQuery("RETURN 2"), JSON, bytes("2"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1"), JSON), is(nullValue()));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 2"), JSON), is(bytes("2")));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3600));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 2"), JSON), is(nullValue()));
+        assertThat(cache.getMetrics().get("expirations"), is(2L));
+        assertThat(cache.getMetrics().get("bytes"), is(0L));
+    }
+
+    @Test
+    public void invalidateOnReleaseChange() {
+        CypherResultCache cache = createCache(10, 1000);
+        cache.put(new CypherQuery("RETURN 1"), JSON, bytes("1"));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1"), JSON), is(bytes("1")));
+        assertThat(releaseChecks.get(), is(1));
+
+        release.set("release2");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1"), JSON), is(bytes("1")));
+        assertThat(releaseChecks.get(), is(1));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1"), JSON), is(nullValue()));
+        assertThat(releaseChecks.get(), is(2));
+        assertThat(cache.getMetrics().get("invalidations"), is(1L));
+        assertThat(cache.getMetrics().get("entries"), is(0L));
+    }
+
+    @Test
+    public void keepResultsWhenReleaseCheckFails() {
+        CypherResultCache cache = new CypherResultCache(10, 1000, name -> TimeUnit.SECONDS.toNanos(60), endpoint::get, () -> {
+            throw new IOException("kaboom!");
+        }, TimeUnit.SECONDS.toNanos(10), now::get);
+        cache.put(new CypherQuery("RETURN 1"), JSON, bytes("1"));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1"), JSON), is(bytes("1")));
+        assertThat(cache.getMetrics().get("invalidations"), is(0L));
+    }
+
+    @Test
+    public void disabled() {
+        CypherResultCache cache = createCache(0, 1000);
+        cache.put(new CypherQuery("RETURN 1"), JSON, bytes("1"));
+        assertThat(cache.isEnabled(), is(false));
+        assertThat(cache.getIfPresent(new CypherQuery("RETURN 1"), JSON), is(nullValue()));
+        assertThat(releaseChecks.get(), is(0));
+    }
+
+    private CypherResultCache createCache(long maxEntries, long maxBytes) {
+        Map<String, Long> ttls = new HashMap<>();
+        ttls.put("interaction", TimeUnit.SECONDS.toNanos(60));
+        ttls.put("reports", TimeUnit.SECONDS.toNanos(3600));
+        return new CypherResultCache(maxEntries, maxBytes,
+                name -> ttls.getOrDefault(name, TimeUnit.SECONDS.toNanos(300)),
+                endpoint::get,
+                () -> {
+                    releaseChecks.incrementAndGet();
+                    return release.get();
+                },
+                TimeUnit.SECONDS.toNanos(10),
+                now::get);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.eol.globi.taxon;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped view of a file that may be larger than a single {@link MappedByteBuffer}.
+ * Only absolute reads and writes are used, so a single instance can be read by many threads at once.
+ */
+class MappedBytes implements AutoCloseable {
+
+    // a multiple of 8, so that aligned longs never span two segments
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer[] segments;
+    private final long length;
+
+    MappedBytes(File file, boolean writable) throws IOException {
+        this.file = new RandomAccessFile(file, writable ? "rw" : "r");
+        FileChannel channel = this.file.getChannel();
+        this.length = channel.size();
+        int numberOfSegments = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        this.segments = new MappedByteBuffer[numberOfSegments];
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        for (int i = 0; i < numberOfSegments; i++) {
+            long start = (long) i * SEGMENT_SIZE;
+            segments[i] = channel.map(mode, start, Math.min(SEGMENT_SIZE, length - start));
+        }
+    }
+
+    long length() {
+        return length;
+    }
+
+    byte get(long position) {
+        return segments[segment(position)].get(offset(position));
+    }
+
+    void get(long position, byte[] dst) {
+        if (dst.length == 0) {
+            // nothing to read, and an empty file has no segments to read from
+            return;
+        }
+        int segment = segment(position);
+        int offset = offset(position);
+        if (offset + dst.length <= segments[segment].limit()) {
+            ByteBuffer buffer = segments[segment].duplicate();
+            buffer.position(offset);
+            buffer.get(dst);
+        } else {
+            for (int i = 0; i < dst.length; i++) {
+                dst[i] = get(position + i);
+            }
+        }
+    }
+
+    long getLong(long position) {
+        return segments[segment(position)].getLong(offset(position));
+    }
+
+    void putLong(long position, long value) {
+        segments[segment(position)].putLong(offset(position), value);
+    }
+
+    private static int segment(long position) {
+        return (int) (position / SEGMENT_SIZE);
+    }
+
+    private static int offset(long position) {
+        return (int) (position % SEGMENT_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -5,7 +5,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.commons.lang3.tuple.Triple;
-import org.apache.lucene.store.SimpleFSDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
 import org.eol.globi.domain.NameType;
 import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.Taxon;
@@ -17,9 +17,6 @@ import org.eol.globi.service.PropertyEnricher;
 import org.eol.globi.service.PropertyEnricherException;
 import org.eol.globi.service.TaxonUtil;
 import org.eol.globi.tool.TermRequestImpl;
-import org.mapdb.BTreeKeySerializer;
-import org.mapdb.BTreeMap;
-import org.mapdb.DB;
 import org.mapdb.Engine;
 import org.mapdb.Fun;
 import org.slf4j.Logger;
@@ -36,13 +33,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class TaxonCacheService extends CacheService implements PropertyEnricher, TermMatcher {
     private static final Logger LOG = LoggerFactory.getLogger(TaxonCacheService.class);
 
-    private BTreeMap<String, Map<String, String>> resolvedIdToTaxonMap = null;
+    private TaxonCacheStore resolvedIdToTaxonMap = null;
 
     private TaxonLookupServiceImpl taxonLookupService = null;
 
@@ -50,6 +46,12 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
     // maximum number of expected taxon links related to a given taxon id
     private int maxTaxonLinks = 125;
 
+    private int matchBatchSize = 10;
+    private int matchThreads = Runtime.getRuntime().availableProcessors();
+    private int indexThreads = Runtime.getRuntime().availableProcessors();
+
+    private TermMatcherBatched termMatcher = null;
+
     private final TermResource<Taxon> taxonCache;
     private final TermResource<Triple<Taxon, NameType, Taxon>> taxonMap;
 
@@ -106,7 +108,7 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
     private Taxon[] lookupTerm(String value) throws PropertyEnricherException {
         Taxon[] ids;
         try {
-            ids = taxonLookupService.lookupTermsByName(StringUtils.lowerCase(value));
+            ids = taxonLookupService.lookupTermIdsByName(StringUtils.lowerCase(value));
         } catch (IOException e) {
             throw new PropertyEnricherException("failed to lookup [" + value + "]", e);
         }
@@ -129,7 +131,7 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
         return externalId;
     }
 
-    private void lazyInit() throws PropertyEnricherException {
+    private synchronized void lazyInit() throws PropertyEnricherException {
         if (resolvedIdToTaxonMap == null || taxonLookupService == null) {
             init();
         }
@@ -146,7 +148,7 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
             if (!luceneDir.exists()) {
                 buildIndex(luceneDir);
             }
-            this.taxonLookupService = new TaxonLookupServiceImpl(new SimpleFSDirectory(luceneDir)) {{
+            this.taxonLookupService = new TaxonLookupServiceImpl(new NIOFSDirectory(luceneDir)) {{
                 setMaxHits(getMaxTaxonLinks());
             }};
 
@@ -158,32 +160,13 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
     private void buildIndex(File luceneDir) throws PropertyEnricherException, IOException {
         File tmpLuceneDir = new File(getCacheDir().getAbsolutePath(), "lucene" + UUID.randomUUID());
         CacheServiceUtil.createCacheDir(tmpLuceneDir);
-        SimpleFSDirectory indexDir = new SimpleFSDirectory(tmpLuceneDir);
-        TaxonLookupBuilder taxonLookupService = new TaxonLookupBuilder(indexDir) {{
-            start();
-        }};
-        final AtomicInteger count = new AtomicInteger(0);
         LOG.info("local taxon map of [" + taxonMap.getResource() + "] building...");
-
-        StopWatch watch = new StopWatch();
-        watch.start();
-        BufferedReader reader = CacheServiceUtil.createBufferedReader(taxonMap.getResource());
-
-        reader.lines()
-                .filter(taxonMap.getValidator())
-                .map(taxonMap.getParser())
-                .forEach(triple -> {
-                    addIfNeeded(taxonLookupService, triple.getLeft().getExternalId(), triple.getRight().getExternalId());
-                    addIfNeeded(taxonLookupService, triple.getLeft().getName(), triple.getRight().getExternalId());
-                    addIfNeeded(taxonLookupService, triple.getRight().getExternalId(), triple.getRight().getExternalId());
-                    addIfNeeded(taxonLookupService, triple.getRight().getName(), triple.getRight().getExternalId());
-                    count.incrementAndGet();
-                });
-        watch.stop();
-        logCacheLoadStats(watch.getTime(), count.get());
+        TaxonMapIndexBuilder indexBuilder = new TaxonMapIndexBuilder(taxonMap);
+        indexBuilder.setNumberOfThreads(getIndexThreads());
+        try (BufferedReader reader = CacheServiceUtil.createBufferedReader(taxonMap.getResource())) {
+            indexBuilder.build(reader, tmpLuceneDir);
+        }
         LOG.info("local taxon map of [" + taxonMap.getResource() + "] built.");
-        watch.reset();
-        taxonLookupService.finish();
         try {
             FileUtils.moveDirectory(tmpLuceneDir, luceneDir);
         } catch (FileExistsException ex) {
@@ -193,51 +176,52 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
     }
 
     private void initTaxonCache() throws PropertyEnricherException {
-        DB db = initDb("taxonCache");
-        String taxonCacheName = "taxonCacheById";
-        if (db.exists(taxonCacheName)) {
-            resolvedIdToTaxonMap = db.getTreeMap(taxonCacheName);
-        } else {
-            LOG.info("local taxon cache of [" + taxonCache.getResource() + "] building...");
-            StopWatch watch = new StopWatch();
-            watch.start();
-            String tmpTaxonCacheName = "taxonCacheById" + UUID.randomUUID();
-            BTreeMap<String, Map<String, String>> tmpResolvedIdToTaxonMap = null;
-            try {
-                tmpResolvedIdToTaxonMap = db
-                        .createTreeMap(tmpTaxonCacheName)
-                        .pumpPresort(100000)
-                        .pumpIgnoreDuplicates()
-                        .pumpSource(taxonCacheIterator(taxonCache))
-                        .keySerializer(BTreeKeySerializer.STRING)
-                        .make();
-                db.commit();
-            } catch (IOException e) {
-                throw new PropertyEnricherException("failed to instantiate taxonCache: [" + e.getMessage() + "]", e);
-            }
-            watch.stop();
-            logCacheLoadStats(watch.getTime(), tmpResolvedIdToTaxonMap.size());
-            watch.reset();
-            if (db.exists(taxonCacheName)) {
-                LOG.info("another local taxon cache of [" + taxonCache.getResource() + "] was created during index creation, dropping built index.");
-                db.delete(tmpTaxonCacheName);
-            } else {
-                resolvedIdToTaxonMap = tmpResolvedIdToTaxonMap;
-                db.rename(tmpTaxonCacheName, taxonCacheName);
-                LOG.info("local taxon cache of [" + taxonCache.getResource() + "] built.");
+        File storeDir = new File(getCacheDir().getAbsolutePath(), "taxonCacheStore");
+        try {
+            if (!TaxonCacheStore.exists(storeDir)) {
+                buildTaxonCache(storeDir);
             }
+            resolvedIdToTaxonMap = TaxonCacheStore.open(storeDir);
+        } catch (IOException e) {
+            throw new PropertyEnricherException("failed to instantiate taxonCache: [" + e.getMessage() + "]", e);
         }
     }
 
-    private void addIfNeeded(TaxonImportListener lookupService, String providedKey, String resolvedId) {
-        if (TaxonUtil.isNonEmptyValue(providedKey) && TaxonUtil.isNonEmptyValue(resolvedId)) {
-            lookupService.addTerm(StringUtils.lowerCase(providedKey), new TaxonImpl(null, resolvedId));
+    private void buildTaxonCache(File storeDir) throws IOException {
+        LOG.info("local taxon cache of [" + taxonCache.getResource() + "] building...");
+        StopWatch watch = new StopWatch();
+        watch.start();
+        File tmpStoreDir = new File(getCacheDir().getAbsolutePath(), "taxonCacheStore" + UUID.randomUUID());
+        long size;
+        try (TaxonCacheStore tmpStore = TaxonCacheStore.build(tmpStoreDir, taxonCacheIterator(taxonCache))) {
+            size = tmpStore.size();
+        }
+        watch.stop();
+        logCacheLoadStats(watch.getTime(), (int) size);
+        watch.reset();
+        try {
+            FileUtils.moveDirectory(tmpStoreDir, storeDir);
+            LOG.info("local taxon cache of [" + taxonCache.getResource() + "] built.");
+        } catch (FileExistsException ex) {
+            LOG.info("another local taxon cache of [" + taxonCache.getResource() + "] was created during index creation, dropping built index.");
+            FileUtils.deleteDirectory(tmpStoreDir);
         }
     }
 
     @Override
     public void match(List<Term> terms, TermMatchListener termMatchListener) throws PropertyEnricherException {
         lazyInit();
+        getTermMatcher().match(terms, termMatchListener);
+    }
+
+    private synchronized TermMatcher getTermMatcher() {
+        if (termMatcher == null) {
+            termMatcher = new TermMatcherBatched(this::matchTerms, getMatchBatchSize(), getMatchThreads());
+        }
+        return termMatcher;
+    }
+
+    private void matchTerms(List<Term> terms, TermMatchListener termMatchListener) throws PropertyEnricherException {
         for (Term term : terms) {
             String nodeIdAndName = term.getName();
             Long nodeId = term instanceof TermRequestImpl ? ((TermRequestImpl) term).getNodeId() : null;
@@ -262,9 +246,8 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
                         .limit(getMaxTaxonLinks())
                         .collect(Collectors.toList());
                 for (String resolvedId : idsDistinct) {
-                    Map<String, String> resolved = resolvedIdToTaxonMap.get(resolvedId);
-                    if (resolved != null) {
-                        Taxon resolvedTaxon = TaxonUtil.mapToTaxon(resolved);
+                    Taxon resolvedTaxon = resolvedIdToTaxonMap.getTaxon(resolvedId);
+                    if (resolvedTaxon != null) {
                         termMatchListener.foundTaxonForTerm(nodeId, term, resolvedTaxon, NameType.SAME_AS);
                         hasResolved = true;
                     }
@@ -282,6 +265,30 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
         this.maxTaxonLinks = maxTaxonLinks;
     }
 
+    public int getMatchBatchSize() {
+        return matchBatchSize;
+    }
+
+    public void setMatchBatchSize(int matchBatchSize) {
+        this.matchBatchSize = matchBatchSize;
+    }
+
+    public int getIndexThreads() {
+        return indexThreads;
+    }
+
+    public void setIndexThreads(int indexThreads) {
+        this.indexThreads = indexThreads;
+    }
+
+    public int getMatchThreads() {
+        return matchThreads;
+    }
+
+    public void setMatchThreads(int matchThreads) {
+        this.matchThreads = matchThreads;
+    }
+
     static private String valueOrNoMatch(String value) {
         return TaxonUtil.isNonEmptyValue(value) ? StringUtils.lowerCase(value) : PropertyAndValueDictionary.NO_MATCH;
     }
@@ -341,8 +348,18 @@ public class TaxonCacheService extends CacheService implements PropertyEnricher,
 
     @Override
     public void shutdown() {
+        synchronized (this) {
+            if (termMatcher != null) {
+                termMatcher.close();
+                termMatcher = null;
+            }
+        }
         if (resolvedIdToTaxonMap != null) {
-            close(resolvedIdToTaxonMap.getEngine());
+            try {
+                resolvedIdToTaxonMap.close();
+            } catch (IOException e) {
+                // ignore
+            }
             resolvedIdToTaxonMap = null;
         }
         if (taxonLookupService != null) {
@@ -0,0 +1,378 @@
+package org.eol.globi.taxon;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.data.CharsetConstant;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.service.TaxonUtil;
+import org.mapdb.Fun;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only, memory-mapped store of taxon cache entries keyed by (lower case) external id.
+ * <p>
+ * Records are written once into a "records" file. Ranks and path segments are dictionary encoded, because
+ * they repeat across many taxa. Lookups go through an open addressing hash table of fixed-width record
+ * offsets, so neither records nor offsets live on the heap. Entries are only decoded on {@link #get(String)}.
+ */
+public class TaxonCacheStore implements AutoCloseable {
+
+    private static final String RECORDS = "records";
+    private static final String DICTIONARY = "dictionary";
+    private static final String DICTIONARY_OFFSETS = "dictionary_offsets";
+    private static final String INDEX = "index";
+
+    private static final long MAGIC = 0x54617843616368L;
+    private static final int INDEX_HEADER_SIZE = 24;
+
+    private static final byte ABSENT = 0;
+    private static final byte NULL = 1;
+    private static final byte STRING = 2;
+    private static final byte SEGMENTS = 3;
+
+    private static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            PropertyAndValueDictionary.NAME,
+            PropertyAndValueDictionary.RANK,
+            PropertyAndValueDictionary.EXTERNAL_ID,
+            PropertyAndValueDictionary.PATH,
+            PropertyAndValueDictionary.PATH_IDS,
+            PropertyAndValueDictionary.PATH_NAMES,
+            PropertyAndValueDictionary.COMMON_NAMES,
+            PropertyAndValueDictionary.EXTERNAL_URL,
+            PropertyAndValueDictionary.THUMBNAIL_URL,
+            PropertyAndValueDictionary.STATUS_ID,
+            PropertyAndValueDictionary.STATUS_LABEL,
+            PropertyAndValueDictionary.NAME_SOURCE,
+            PropertyAndValueDictionary.NAME_SOURCE_URL,
+            PropertyAndValueDictionary.NAME_SOURCE_ACCESSED_AT
+    ));
+
+    private static final Set<String> DICTIONARY_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            PropertyAndValueDictionary.RANK,
+            PropertyAndValueDictionary.PATH,
+            PropertyAndValueDictionary.PATH_IDS,
+            PropertyAndValueDictionary.PATH_NAMES
+    )));
+
+    private final MappedBytes records;
+    private final MappedBytes dictionary;
+    private final MappedBytes dictionaryOffsets;
+    private final MappedBytes index;
+    private final long size;
+    private final long capacity;
+
+    private TaxonCacheStore(File storeDir) throws IOException {
+        this.index = new MappedBytes(new File(storeDir, INDEX), false);
+        if (index.length() < INDEX_HEADER_SIZE || index.getLong(0) != MAGIC) {
+            index.close();
+            throw new IOException("no valid taxon cache store found at [" + storeDir.getAbsolutePath() + "]");
+        }
+        this.size = index.getLong(8);
+        this.capacity = index.getLong(16);
+        this.records = new MappedBytes(new File(storeDir, RECORDS), false);
+        this.dictionary = new MappedBytes(new File(storeDir, DICTIONARY), false);
+        this.dictionaryOffsets = new MappedBytes(new File(storeDir, DICTIONARY_OFFSETS), false);
+    }
+
+    public static boolean exists(File storeDir) {
+        return new File(storeDir, INDEX).exists();
+    }
+
+    public static TaxonCacheStore open(File storeDir) throws IOException {
+        return new TaxonCacheStore(storeDir);
+    }
+
+    public static TaxonCacheStore build(File storeDir, Iterator<Fun.Tuple2<String, Map<String, String>>> taxa) throws IOException {
+        FileUtils.forceMkdir(storeDir);
+        Map<String, Integer> segmentIds = new HashMap<>();
+        List<String> segments = new ArrayList<>();
+        long[] recordOffsets = new long[1024];
+        int numberOfRecords = 0;
+
+        try (CountingOutputStream counting = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(new File(storeDir, RECORDS))));
+             DataOutputStream out = new DataOutputStream(counting)) {
+            while (taxa.hasNext()) {
+                Fun.Tuple2<String, Map<String, String>> taxon = taxa.next();
+                if (taxon.a != null) {
+                    if (numberOfRecords == recordOffsets.length) {
+                        recordOffsets = Arrays.copyOf(recordOffsets, recordOffsets.length * 2);
+                    }
+                    recordOffsets[numberOfRecords++] = counting.getByteCount();
+                    writeRecord(out, taxon.a, taxon.b, segmentIds, segments);
+                }
+            }
+        }
+
+        writeDictionary(storeDir, segments);
+        writeIndex(storeDir, recordOffsets, numberOfRecords);
+        return open(storeDir);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public Map<String, String> get(String key) {
+        Map<String, String> properties = null;
+        if (key != null && capacity > 0) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            long mask = capacity - 1;
+            long slot = hash(keyBytes) & mask;
+            long offsetPlusOne;
+            while ((offsetPlusOne = index.getLong(INDEX_HEADER_SIZE + slot * 8)) != 0) {
+                RecordReader reader = new RecordReader(offsetPlusOne - 1);
+                if (reader.keyEquals(keyBytes)) {
+                    properties = reader.readProperties();
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        return properties;
+    }
+
+    public Taxon getTaxon(String key) {
+        Map<String, String> properties = get(key);
+        return properties == null ? null : TaxonUtil.mapToTaxon(properties);
+    }
+
+    @Override
+    public void close() throws IOException {
+        index.close();
+        records.close();
+        dictionary.close();
+        dictionaryOffsets.close();
+    }
+
+    private static void writeRecord(DataOutputStream out, String key, Map<String, String> properties, Map<String, Integer> segmentIds, List<String> segments) throws IOException {
+        writeString(out, key);
+        for (String field : FIELDS) {
+            if (!properties.containsKey(field)) {
+                out.writeByte(ABSENT);
+            } else {
+                String value = properties.get(field);
+                if (value == null) {
+                    out.writeByte(NULL);
+                } else if (DICTIONARY_FIELDS.contains(field) && canSplit(value)) {
+                    String[] values = split(value);
+                    out.writeByte(SEGMENTS);
+                    writeVarInt(out, values.length);
+                    for (String segment : values) {
+                        Integer segmentId = segmentIds.get(segment);
+                        if (segmentId == null) {
+                            segmentId = segments.size();
+                            segments.add(segment);
+                            segmentIds.put(segment, segmentId);
+                        }
+                        writeVarInt(out, segmentId);
+                    }
+                } else {
+                    out.writeByte(STRING);
+                    writeString(out, value);
+                }
+            }
+        }
+
+        List<String> otherFields = new ArrayList<>(properties.keySet());
+        otherFields.removeAll(FIELDS);
+        writeVarInt(out, otherFields.size());
+        for (String otherField : otherFields) {
+            writeString(out, otherField);
+            String value = properties.get(otherField);
+            out.writeByte(value == null ? NULL : STRING);
+            if (value != null) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static String[] split(String value) {
+        return StringUtils.splitByWholeSeparatorPreserveAllTokens(value, CharsetConstant.SEPARATOR);
+    }
+
+    private static String join(String[] values) {
+        return StringUtils.join(values, CharsetConstant.SEPARATOR);
+    }
+
+    private static boolean canSplit(String value) {
+        return StringUtils.equals(value, join(split(value)));
+    }
+
+    private static void writeDictionary(File storeDir, List<String> segments) throws IOException {
+        try (RandomAccessFile offsetFile = new RandomAccessFile(new File(storeDir, DICTIONARY_OFFSETS), "rw");
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(storeDir, DICTIONARY)))) {
+            offsetFile.setLength(8L * (segments.size() + 1));
+            try (MappedBytes offsets = new MappedBytes(new File(storeDir, DICTIONARY_OFFSETS), true)) {
+                long offset = 0;
+                for (int i = 0; i < segments.size(); i++) {
+                    offsets.putLong(8L * i, offset);
+                    byte[] bytes = segments.get(i).getBytes(StandardCharsets.UTF_8);
+                    out.write(bytes);
+                    offset += bytes.length;
+                }
+                offsets.putLong(8L * segments.size(), offset);
+            }
+        }
+    }
+
+    private static void writeIndex(File storeDir, long[] recordOffsets, int numberOfRecords) throws IOException {
+        long capacity = Long.highestOneBit(Math.max(1, numberOfRecords) * 2L - 1) << 1;
+        File indexFile = new File(storeDir, INDEX + ".tmp");
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            file.setLength(INDEX_HEADER_SIZE + capacity * 8);
+        }
+
+        long size = 0;
+        try (MappedBytes records = new MappedBytes(new File(storeDir, RECORDS), false);
+             MappedBytes index = new MappedBytes(indexFile, true)) {
+            long mask = capacity - 1;
+            for (int i = 0; i < numberOfRecords; i++) {
+                byte[] key = readKey(records, recordOffsets[i]);
+                long slot = hash(key) & mask;
+                boolean duplicate = false;
+                long offsetPlusOne;
+                while (!duplicate && (offsetPlusOne = index.getLong(INDEX_HEADER_SIZE + slot * 8)) != 0) {
+                    // keep the first record for a duplicate key
+                    duplicate = Arrays.equals(key, readKey(records, offsetPlusOne - 1));
+                    slot = (slot + 1) & mask;
+                }
+                if (!duplicate) {
+                    index.putLong(INDEX_HEADER_SIZE + slot * 8, recordOffsets[i] + 1);
+                    size++;
+                }
+            }
+            index.putLong(0, MAGIC);
+            index.putLong(8, size);
+            index.putLong(16, capacity);
+        }
+        FileUtils.moveFile(indexFile, new File(storeDir, INDEX));
+    }
+
+    private static byte[] readKey(MappedBytes records, long offset) {
+        long[] position = {offset};
+        int length = readVarInt(records, position);
+        byte[] key = new byte[length];
+        records.get(position[0], key);
+        return key;
+    }
+
+    private static long hash(byte[] bytes) {
+        long hash = 1125899906842597L;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+        return hash;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(MappedBytes bytes, long[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private class RecordReader {
+        private final long[] position;
+
+        RecordReader(long offset) {
+            this.position = new long[]{offset};
+        }
+
+        boolean keyEquals(byte[] keyBytes) {
+            int length = readVarInt(records, position);
+            boolean equal = length == keyBytes.length;
+            for (int i = 0; equal && i < length; i++) {
+                equal = records.get(position[0] + i) == keyBytes[i];
+            }
+            position[0] += length;
+            return equal;
+        }
+
+        Map<String, String> readProperties() {
+            Map<String, String> properties = new HashMap<>();
+            for (String field : FIELDS) {
+                byte type = records.get(position[0]++);
+                if (type != ABSENT) {
+                    properties.put(field, readValue(type));
+                }
+            }
+            int numberOfOtherFields = readVarInt(records, position);
+            for (int i = 0; i < numberOfOtherFields; i++) {
+                String field = readString();
+                properties.put(field, readValue(records.get(position[0]++)));
+            }
+            return Collections.unmodifiableMap(properties);
+        }
+
+        private String readValue(byte type) {
+            String value = null;
+            if (type == STRING) {
+                value = readString();
+            } else if (type == SEGMENTS) {
+                String[] values = new String[readVarInt(records, position)];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = readSegment(readVarInt(records, position));
+                }
+                value = join(values);
+            }
+            return value;
+        }
+
+        private String readString() {
+            byte[] bytes = new byte[readVarInt(records, position)];
+            records.get(position[0], bytes);
+            position[0] += bytes.length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private String readSegment(int segmentId) {
+            long start = dictionaryOffsets.getLong(8L * segmentId);
+            long end = dictionaryOffsets.getLong(8L * (segmentId + 1));
+            byte[] bytes = new byte[(int) (end - start)];
+            dictionary.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+}
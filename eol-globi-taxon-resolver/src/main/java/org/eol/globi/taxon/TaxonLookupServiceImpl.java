@@ -2,12 +2,14 @@ package org.eol.globi.taxon;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FieldSelector;
 import org.apache.lucene.document.Fieldable;
+import org.apache.lucene.document.MapFieldSelector;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
 import org.eol.globi.domain.Taxon;
@@ -20,8 +22,24 @@ import java.io.IOException;
 public class TaxonLookupServiceImpl implements TaxonLookupService, AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(TaxonLookupServiceImpl.class);
 
+    private static final FieldSelector ALL_FIELDS = new MapFieldSelector(
+            TaxonLookupServiceConstants.FIELD_ID,
+            TaxonLookupServiceConstants.FIELD_RANK_PATH,
+            TaxonLookupServiceConstants.FIELD_RANK_PATH_IDS,
+            TaxonLookupServiceConstants.FIELD_RANK_PATH_NAMES,
+            TaxonLookupServiceConstants.FIELD_COMMON_NAMES,
+            TaxonLookupServiceConstants.FIELD_RECOMMENDED_NAME,
+            TaxonLookupServiceConstants.FIELD_RANK);
+
+    private static final FieldSelector ID_ONLY = new MapFieldSelector(
+            TaxonLookupServiceConstants.FIELD_ID);
+
     private Directory indexDir;
-    private IndexSearcher indexSearcher;
+    private volatile IndexReader indexReader;
+
+    // searchers share a single reader, but are not shared across threads
+    private final ThreadLocal<IndexSearcher> indexSearchers = new ThreadLocal<>();
+
     private int maxHits = Integer.MAX_VALUE;
 
     public TaxonLookupServiceImpl(Directory indexDir) {
@@ -30,23 +48,53 @@ public class TaxonLookupServiceImpl implements TaxonLookupService, AutoCloseable
 
     @Override
     public Taxon[] lookupTermsByName(String taxonName) throws IOException {
-        return findTaxon(TaxonLookupServiceConstants.FIELD_NAME, taxonName);
+        return findTaxon(TaxonLookupServiceConstants.FIELD_NAME, taxonName, ALL_FIELDS);
     }
 
     @Override
     public Taxon[] lookupTermsById(String taxonId) throws IOException {
-        return findTaxon(TaxonLookupServiceConstants.FIELD_ID, taxonId);
+        return findTaxon(TaxonLookupServiceConstants.FIELD_ID, taxonId, ALL_FIELDS);
     }
 
-    private Taxon[] findTaxon(String fieldName1, String fieldValue) throws IOException {
-        if (indexSearcher == null) {
-            indexSearcher = new IndexSearcher(IndexReader.open(indexDir));
+    /**
+     * Same as {@link #lookupTermsByName(String)}, but only loads the external ids of matching taxa.
+     */
+    public Taxon[] lookupTermIdsByName(String taxonName) throws IOException {
+        return findTaxon(TaxonLookupServiceConstants.FIELD_NAME, taxonName, ID_ONLY);
+    }
+
+    private IndexReader getIndexReader() throws IOException {
+        IndexReader reader = indexReader;
+        if (reader == null) {
+            synchronized (this) {
+                reader = indexReader;
+                if (reader == null) {
+                    if (indexDir == null) {
+                        throw new IOException("taxon lookup service already closed");
+                    }
+                    reader = IndexReader.open(indexDir);
+                    indexReader = reader;
+                }
+            }
+        }
+        return reader;
+    }
+
+    private IndexSearcher getIndexSearcher() throws IOException {
+        IndexReader reader = getIndexReader();
+        IndexSearcher searcher = indexSearchers.get();
+        if (searcher == null || searcher.getIndexReader() != reader) {
+            searcher = new IndexSearcher(reader);
+            indexSearchers.set(searcher);
         }
+        return searcher;
+    }
 
+    private Taxon[] findTaxon(String fieldName1, String fieldValue, FieldSelector fieldSelector) throws IOException {
         Taxon[] terms = new TaxonImpl[0];
-        if (StringUtils.isNotBlank(fieldValue) && indexSearcher != null) {
-            PhraseQuery query = new PhraseQuery();
-            query.add(new Term(fieldName1, fieldValue));
+        if (StringUtils.isNotBlank(fieldValue)) {
+            IndexSearcher indexSearcher = getIndexSearcher();
+            TermQuery query = new TermQuery(new Term(fieldName1, fieldValue));
             TopDocs docs = indexSearcher.search(query, getMaxHits());
 
             if (docs.totalHits > 0) {
@@ -54,7 +102,7 @@ public class TaxonLookupServiceImpl implements TaxonLookupService, AutoCloseable
                 terms = new TaxonImpl[maxResults];
                 for (int i = 0; i < maxResults; i++) {
                     ScoreDoc scoreDoc = docs.scoreDocs[i];
-                    Document foundDoc = indexSearcher.doc(scoreDoc.doc);
+                    Document foundDoc = indexSearcher.doc(scoreDoc.doc, fieldSelector);
                     Taxon term = new TaxonImpl();
                     Fieldable idField = foundDoc.getFieldable(TaxonLookupServiceConstants.FIELD_ID);
                     if (idField != null) {
@@ -100,13 +148,14 @@ public class TaxonLookupServiceImpl implements TaxonLookupService, AutoCloseable
     }
 
     @Override
-    public void close() throws IOException {
-        if (indexSearcher != null) {
-            indexSearcher.close();
-            indexSearcher = null;
+    public synchronized void close() throws IOException {
+        if (indexReader != null) {
+            indexReader.close();
+            indexReader = null;
         }
         if (indexDir != null) {
             indexDir.close();
+            indexDir = null;
         }
     }
 }
@@ -0,0 +1,179 @@
+package org.eol.globi.taxon;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.commons.lang3.tuple.Triple;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.SimpleFSDirectory;
+import org.apache.lucene.util.Version;
+import org.eol.globi.domain.NameType;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.service.TaxonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the taxon map lookup index by indexing consecutive chunks of rows into separate shards on
+ * a pool of worker threads. Shards are merged in input order, so the merged index holds the same
+ * documents in the same order as an index built by a single {@link TaxonLookupBuilder}.
+ */
+public class TaxonMapIndexBuilder {
+    private static final Logger LOG = LoggerFactory.getLogger(TaxonMapIndexBuilder.class);
+
+    private final TermResource<Triple<Taxon, NameType, Taxon>> taxonMap;
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+    private int rowsPerShard = 100000;
+
+    public TaxonMapIndexBuilder(TermResource<Triple<Taxon, NameType, Taxon>> taxonMap) {
+        this.taxonMap = taxonMap;
+    }
+
+    public long build(BufferedReader reader, File indexDir) throws IOException {
+        StopWatch watch = new StopWatch();
+        watch.start();
+        AtomicLong rowCount = new AtomicLong(0);
+        List<File> shardDirs = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, getNumberOfThreads()));
+        try {
+            Deque<Future<Long>> pending = new ArrayDeque<>();
+            List<String> rows = new ArrayList<>(getRowsPerShard());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rows.add(line);
+                if (rows.size() >= getRowsPerShard()) {
+                    submitShard(executor, pending, shardDirs, indexDir, rows, rowCount, watch);
+                    rows = new ArrayList<>(getRowsPerShard());
+                }
+            }
+            if (!rows.isEmpty()) {
+                submitShard(executor, pending, shardDirs, indexDir, rows, rowCount, watch);
+            }
+            while (!pending.isEmpty()) {
+                waitFor(pending.removeFirst());
+            }
+            mergeShards(indexDir, shardDirs);
+        } finally {
+            executor.shutdownNow();
+            for (File shardDir : shardDirs) {
+                FileUtils.deleteQuietly(shardDir);
+            }
+        }
+        watch.stop();
+        TaxonCacheService.logCacheLoadStats(watch.getTime(), (int) rowCount.get(), LOG);
+        return rowCount.get();
+    }
+
+    private void submitShard(ExecutorService executor,
+                             Deque<Future<Long>> pending,
+                             List<File> shardDirs,
+                             File indexDir,
+                             List<String> rows,
+                             AtomicLong rowCount,
+                             StopWatch watch) throws IOException {
+        // limit number of shards held in memory
+        if (pending.size() >= 2 * Math.max(1, getNumberOfThreads())) {
+            waitFor(pending.removeFirst());
+        }
+        File shardDir = new File(indexDir.getParentFile(), indexDir.getName() + "-shard" + shardDirs.size());
+        shardDirs.add(shardDir);
+        Callable<Long> indexShard = () -> {
+            long indexedRows = indexRows(rows, shardDir);
+            long totalRows = rowCount.addAndGet(indexedRows);
+            LOG.info("indexed [" + totalRows + "] rows of [" + taxonMap.getResource() + "] at [" + String.format("%.1f", totalRows * 1000.0 / Math.max(1, watch.getTime())) + "] rows/s");
+            return indexedRows;
+        };
+        pending.add(executor.submit(indexShard));
+    }
+
+    private long indexRows(List<String> rows, File shardDir) throws IOException {
+        long count = 0;
+        TaxonLookupBuilder builder = new TaxonLookupBuilder(new SimpleFSDirectory(shardDir));
+        try {
+            builder.start();
+            for (String row : rows) {
+                if (taxonMap.getValidator().test(row)) {
+                    Triple<Taxon, NameType, Taxon> triple = taxonMap.getParser().apply(row);
+                    addIfNeeded(builder, triple.getLeft().getExternalId(), triple.getRight().getExternalId());
+                    addIfNeeded(builder, triple.getLeft().getName(), triple.getRight().getExternalId());
+                    addIfNeeded(builder, triple.getRight().getExternalId(), triple.getRight().getExternalId());
+                    addIfNeeded(builder, triple.getRight().getName(), triple.getRight().getExternalId());
+                    count++;
+                }
+            }
+            builder.finish();
+        } finally {
+            builder.close();
+        }
+        return count;
+    }
+
+    private void mergeShards(File indexDir, List<File> shardDirs) throws IOException {
+        List<Directory> shards = new ArrayList<>();
+        try (Directory dir = new SimpleFSDirectory(indexDir)) {
+            for (File shardDir : shardDirs) {
+                shards.add(new SimpleFSDirectory(shardDir));
+            }
+            IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Version.LUCENE_35, null));
+            try {
+                writer.addIndexes(shards.toArray(new Directory[0]));
+            } finally {
+                writer.close();
+            }
+        } finally {
+            for (Directory shard : shards) {
+                shard.close();
+            }
+        }
+    }
+
+    private static void waitFor(Future<Long> shard) throws IOException {
+        try {
+            shard.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while building taxon map index", e);
+        } catch (ExecutionException e) {
+            throw new IOException("failed to build taxon map index", e.getCause());
+        }
+    }
+
+    static void addIfNeeded(TaxonImportListener lookupService, String providedKey, String resolvedId) {
+        if (TaxonUtil.isNonEmptyValue(providedKey) && TaxonUtil.isNonEmptyValue(resolvedId)) {
+            lookupService.addTerm(StringUtils.lowerCase(providedKey), new TaxonImpl(null, resolvedId));
+        }
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public int getRowsPerShard() {
+        return rowsPerShard;
+    }
+
+    public void setRowsPerShard(int rowsPerShard) {
+        this.rowsPerShard = Math.max(1, rowsPerShard);
+    }
+}
@@ -0,0 +1,149 @@
+package org.eol.globi.taxon;
+
+import org.eol.globi.domain.NameType;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.Term;
+import org.eol.globi.service.PropertyEnricherException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits terms into batches and matches them on a bounded pool of worker threads.
+ * <p>
+ * Matches are buffered per batch and handed to the provided listener on the calling thread
+ * in the same order a sequential run would produce, so listeners that rely on thread bound
+ * resources (e.g., neo4j transactions) keep working. The wrapped matcher must be safe to
+ * call from multiple threads at once.
+ */
+public class TermMatcherBatched implements TermMatcher, AutoCloseable {
+
+    private final TermMatcher termMatcher;
+    private final int batchSize;
+    private final int numberOfThreads;
+
+    private ExecutorService executor = null;
+
+    public TermMatcherBatched(TermMatcher termMatcher, int batchSize, int numberOfThreads) {
+        this.termMatcher = termMatcher;
+        this.batchSize = Math.max(1, batchSize);
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+    }
+
+    @Override
+    public void match(List<Term> terms, TermMatchListener termMatchListener) throws PropertyEnricherException {
+        if (numberOfThreads < 2 || terms.size() <= batchSize) {
+            termMatcher.match(terms, termMatchListener);
+        } else {
+            matchInBatches(terms, termMatchListener);
+        }
+    }
+
+    private void matchInBatches(List<Term> terms, TermMatchListener termMatchListener) throws PropertyEnricherException {
+        // limit number of buffered batches to keep memory use bounded
+        int maxPendingBatches = 2 * numberOfThreads;
+        Deque<Future<List<TermMatch>>> pending = new ArrayDeque<>();
+        try {
+            for (int offset = 0; offset < terms.size(); offset += batchSize) {
+                if (pending.size() >= maxPendingBatches) {
+                    notifyListener(pending.removeFirst(), termMatchListener);
+                }
+                List<Term> batch = new ArrayList<>(terms.subList(offset, Math.min(terms.size(), offset + batchSize)));
+                Callable<List<TermMatch>> task = () -> matchBatch(batch);
+                pending.add(getExecutor().submit(task));
+            }
+            while (!pending.isEmpty()) {
+                notifyListener(pending.removeFirst(), termMatchListener);
+            }
+        } finally {
+            pending.forEach(batch -> batch.cancel(true));
+        }
+    }
+
+    private List<TermMatch> matchBatch(List<Term> batch) throws BatchFailedException {
+        List<TermMatch> matches = new ArrayList<>();
+        try {
+            termMatcher.match(batch, (requestId, providedTerm, resolvedTaxon, nameType)
+                    -> matches.add(new TermMatch(requestId, providedTerm, resolvedTaxon, nameType)));
+        } catch (PropertyEnricherException e) {
+            throw new BatchFailedException(e);
+        }
+        return matches;
+    }
+
+    private static void notifyListener(Future<List<TermMatch>> batch, TermMatchListener termMatchListener) throws PropertyEnricherException {
+        try {
+            for (TermMatch match : batch.get()) {
+                termMatchListener.foundTaxonForTerm(match.requestId, match.providedTerm, match.resolvedTaxon, match.nameType);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PropertyEnricherException("interrupted while matching terms", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BatchFailedException) {
+                throw ((BatchFailedException) e.getCause()).getEnricherException();
+            }
+            throw new PropertyEnricherException("failed to match terms", e.getCause());
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "term-matcher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private static final class BatchFailedException extends Exception {
+        private final PropertyEnricherException enricherException;
+
+        BatchFailedException(PropertyEnricherException cause) {
+            super(cause);
+            this.enricherException = cause;
+        }
+
+        PropertyEnricherException getEnricherException() {
+            return enricherException;
+        }
+    }
+
+    private static final class TermMatch {
+        private final Long requestId;
+        private final Term providedTerm;
+        private final Taxon resolvedTaxon;
+        private final NameType nameType;
+
+        TermMatch(Long requestId, Term providedTerm, Taxon resolvedTaxon, NameType nameType) {
+            this.requestId = requestId;
+            this.providedTerm = providedTerm;
+            this.resolvedTaxon = resolvedTaxon;
+            this.nameType = nameType;
+        }
+    }
+}
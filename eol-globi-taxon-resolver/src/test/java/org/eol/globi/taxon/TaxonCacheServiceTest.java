@@ -622,6 +622,33 @@ public class TaxonCacheServiceTest {
 
     }
 
+    @Test
+    public void matchInBatches() throws PropertyEnricherException {
+        List<Term> terms = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            terms.add(new TermImpl("EOL:1276240", null));
+            terms.add(new TermImpl(null, "holorchis castex"));
+            terms.add(new TermImpl(null, "donald duck"));
+            terms.add(new TermImpl("EOL:11987314", "Green-winged teal"));
+        }
+
+        final TaxonCacheService sequential = getTaxonCacheService();
+        sequential.setMatchThreads(1);
+        List<String> expected = new ArrayList<>();
+        sequential.match(terms, (nodeId, name, taxon, nameType) -> expected.add(name.getName() + taxon.getExternalId() + nameType));
+        sequential.shutdown();
+
+        final TaxonCacheService batched = getTaxonCacheService();
+        batched.setMatchThreads(4);
+        batched.setMatchBatchSize(3);
+        List<String> actual = new ArrayList<>();
+        batched.match(terms, (nodeId, name, taxon, nameType) -> actual.add(name.getName() + taxon.getExternalId() + nameType));
+        batched.shutdown();
+
+        assertThat(expected.size(), is(80));
+        assertThat(actual, is(expected));
+    }
+
     @Test
     public void invalidateAll() throws PropertyEnricherException {
         TermResource<Taxon> termCache = new TermResource<Taxon>() {
@@ -0,0 +1,123 @@
+package org.eol.globi.taxon;
+
+import org.apache.commons.io.FileUtils;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.TermImpl;
+import org.eol.globi.service.TaxonUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mapdb.Fun;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+public class TaxonCacheStoreTest {
+
+    private File storeDir;
+
+    @Before
+    public void createStoreDir() {
+        storeDir = new File("./target/taxonCacheStore" + new Random().nextLong());
+    }
+
+    @After
+    public void deleteStoreDir() {
+        FileUtils.deleteQuietly(storeDir);
+    }
+
+    @Test
+    public void buildAndLookup() throws IOException {
+        String resource = "/org/eol/globi/taxon/taxonCache10k.tsv.gz";
+        Map<String, Map<String, String>> expected = new LinkedHashMap<>();
+        Iterator<Fun.Tuple2<String, Map<String, String>>> taxa = TaxonCacheService.taxonCacheIterator(TermResources.defaultTaxonCacheResource(resource));
+        while (taxa.hasNext()) {
+            Fun.Tuple2<String, Map<String, String>> taxon = taxa.next();
+            expected.putIfAbsent(taxon.a, taxon.b);
+        }
+
+        try (TaxonCacheStore store = TaxonCacheStore.build(storeDir, TaxonCacheService.taxonCacheIterator(TermResources.defaultTaxonCacheResource(resource)))) {
+            assertThat(store.size(), is((long) expected.size()));
+            assertThat(store.size(), is(greaterThan(1000L)));
+            for (Map.Entry<String, Map<String, String>> entry : expected.entrySet()) {
+                assertThat(store.get(entry.getKey()), is(entry.getValue()));
+            }
+            assertThat(store.get("no:such:id"), is(nullValue()));
+        }
+
+        try (TaxonCacheStore store = TaxonCacheStore.open(storeDir)) {
+            Map.Entry<String, Map<String, String>> first = expected.entrySet().iterator().next();
+            assertThat(store.get(first.getKey()), is(first.getValue()));
+            assertThat(store.getTaxon(first.getKey()).getExternalId(), is(first.getValue().get(PropertyAndValueDictionary.EXTERNAL_ID)));
+        }
+    }
+
+    @Test
+    public void roundTripUnusualValues() throws IOException {
+        Taxon taxon = new TaxonImpl("Homo sapiens", "EOL:327955");
+        taxon.setRank("species");
+        taxon.setPath(" | Animalia |  | Homo sapiens | ");
+        taxon.setPathIds("EOL:1 |");
+        taxon.setPathNames("kingdom | | species");
+        taxon.setCommonNames("människa @sv | 人 @zh");
+        taxon.setStatus(new TermImpl("accepted", "accepted"));
+        Map<String, String> withStatus = TaxonUtil.taxonToMap(taxon);
+
+        Map<String, String> withExtraKeys = new HashMap<>(TaxonUtil.taxonToMap(new TaxonImpl("Ariopsis felis", "EOL:223038")));
+        withExtraKeys.put("someOtherKey", "some value");
+        withExtraKeys.put("someNullKey", null);
+
+        List<Fun.Tuple2<String, Map<String, String>>> taxa = new ArrayList<>(Arrays.asList(
+                new Fun.Tuple2<>("eol:327955", withStatus),
+                new Fun.Tuple2<>("eol:223038", withExtraKeys),
+                new Fun.Tuple2<>("eol:327955", TaxonUtil.taxonToMap(new TaxonImpl("duplicate", "EOL:327955")))
+        ));
+
+        try (TaxonCacheStore store = TaxonCacheStore.build(storeDir, taxa.iterator())) {
+            assertThat(store.size(), is(2L));
+            assertThat(store.get("eol:327955"), is(withStatus));
+            assertThat(store.get("eol:223038"), is(withExtraKeys));
+            assertThat(store.getTaxon("eol:327955").getPath(), is(" | Animalia |  | Homo sapiens | "));
+        }
+    }
+
+    @Test
+    public void onlyEmptyPathSegments() throws IOException {
+        Taxon taxon = new TaxonImpl("Homo sapiens", "EOL:327955");
+        taxon.setPath(" | ");
+        taxon.setPathIds(" |  | ");
+        taxon.setPathNames("");
+        Map<String, String> properties = TaxonUtil.taxonToMap(taxon);
+
+        try (TaxonCacheStore store = TaxonCacheStore.build(storeDir, Arrays.asList(new Fun.Tuple2<>("eol:327955", properties)).iterator())) {
+            assertThat(new File(storeDir, "dictionary").length(), is(0L));
+            assertThat(store.get("eol:327955"), is(properties));
+            assertThat(store.getTaxon("eol:327955").getPath(), is(" | "));
+            assertThat(store.getTaxon("eol:327955").getPathIds(), is(" |  | "));
+        }
+    }
+
+    @Test
+    public void empty() throws IOException {
+        try (TaxonCacheStore store = TaxonCacheStore.build(storeDir, new ArrayList<Fun.Tuple2<String, Map<String, String>>>().iterator())) {
+            assertThat(store.size(), is(0L));
+            assertThat(store.get("eol:327955"), is(nullValue()));
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package org.eol.globi.taxon;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.store.LockObtainFailedException;
 import org.apache.lucene.store.RAMDirectory;
 import org.eol.globi.domain.Taxon;
@@ -8,10 +9,17 @@ import org.hamcrest.core.Is;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 public class TaxonLookupBuilderTest {
 
@@ -112,5 +120,55 @@ public class TaxonLookupBuilderTest {
 
     }
 
+    @Test
+    public void lookupIdsOnly() throws IOException {
+        RAMDirectory indexDir = new RAMDirectory();
+        TaxonLookupBuilder taxonLookupBuilder = new TaxonLookupBuilder(indexDir);
+        taxonLookupBuilder.start();
+        TaxonImpl term = new TaxonImpl("Homo sapiens", "1234");
+        term.setPath("one | two | three");
+        taxonLookupBuilder.addTerm(term);
+        taxonLookupBuilder.finish();
+
+        TaxonLookupServiceImpl lookup = new TaxonLookupServiceImpl(indexDir);
+        Taxon[] ids = lookup.lookupTermIdsByName("Homo sapiens");
+
+        assertThat(ids.length, Is.is(1));
+        assertThat(ids[0].getExternalId(), Is.is("1234"));
+        assertThat(ids[0].getName(), Is.is(nullValue()));
+        assertThat(ids[0].getPath(), Is.is(nullValue()));
+        lookup.close();
+    }
+
+    @Test
+    public void concurrentLookup() throws IOException, InterruptedException, ExecutionException {
+        RAMDirectory indexDir = new RAMDirectory();
+        TaxonLookupBuilder taxonLookupBuilder = new TaxonLookupBuilder(indexDir);
+        taxonLookupBuilder.start();
+        for (int i = 0; i < 100; i++) {
+            taxonLookupBuilder.addTerm(new TaxonImpl("name" + i, "id" + i));
+        }
+        taxonLookupBuilder.finish();
+
+        TaxonLookupServiceImpl lookup = new TaxonLookupServiceImpl(indexDir);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final int index = i % 100;
+            results.add(executor.submit(() -> {
+                Taxon[] byName = lookup.lookupTermsByName("name" + index);
+                Taxon[] byId = lookup.lookupTermsById("id" + index);
+                return byName.length == 1
+                        && byId.length == 1
+                        && StringUtils.equals(byName[0].getExternalId(), "id" + index)
+                        && StringUtils.equals(byId[0].getName(), "name" + index);
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(), is(true));
+        }
+        executor.shutdownNow();
+        lookup.close();
+    }
 
 }
@@ -0,0 +1,96 @@
+package org.eol.globi.taxon;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.Triple;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.store.SimpleFSDirectory;
+import org.eol.globi.domain.NameType;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.service.CacheServiceUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+public class TaxonMapIndexBuilderTest {
+
+    private static final String TAXON_MAP_RESOURCE = "/org/eol/globi/taxon/taxonMap10k.tsv.gz";
+
+    private File indexDir;
+
+    @Before
+    public void createIndexDir() {
+        indexDir = new File("./target/lucene" + new Random().nextLong());
+    }
+
+    @After
+    public void deleteIndexDir() {
+        FileUtils.deleteQuietly(indexDir);
+    }
+
+    @Test
+    public void buildShardedSameAsSequential() throws IOException {
+        TermResource<Triple<Taxon, NameType, Taxon>> taxonMap = TermResources.defaultTaxonMapResource(TAXON_MAP_RESOURCE);
+
+        RAMDirectory expectedDir = new RAMDirectory();
+        TaxonLookupBuilder builder = new TaxonLookupBuilder(expectedDir);
+        builder.start();
+        List<Triple<Taxon, NameType, Taxon>> triples;
+        try (BufferedReader reader = CacheServiceUtil.createBufferedReader(TAXON_MAP_RESOURCE)) {
+            triples = reader.lines()
+                    .filter(taxonMap.getValidator())
+                    .map(taxonMap.getParser())
+                    .collect(Collectors.toList());
+        }
+        for (Triple<Taxon, NameType, Taxon> triple : triples) {
+            TaxonMapIndexBuilder.addIfNeeded(builder, triple.getLeft().getExternalId(), triple.getRight().getExternalId());
+            TaxonMapIndexBuilder.addIfNeeded(builder, triple.getLeft().getName(), triple.getRight().getExternalId());
+            TaxonMapIndexBuilder.addIfNeeded(builder, triple.getRight().getExternalId(), triple.getRight().getExternalId());
+            TaxonMapIndexBuilder.addIfNeeded(builder, triple.getRight().getName(), triple.getRight().getExternalId());
+        }
+        builder.finish();
+
+        TaxonMapIndexBuilder indexBuilder = new TaxonMapIndexBuilder(taxonMap);
+        indexBuilder.setNumberOfThreads(4);
+        indexBuilder.setRowsPerShard(777);
+        long rowCount;
+        try (BufferedReader reader = CacheServiceUtil.createBufferedReader(TAXON_MAP_RESOURCE)) {
+            rowCount = indexBuilder.build(reader, indexDir);
+        }
+        assertThat(rowCount, is((long) triples.size()));
+        assertThat(rowCount, is(greaterThan(1000L)));
+
+        TaxonLookupServiceImpl expected = new TaxonLookupServiceImpl(expectedDir);
+        TaxonLookupServiceImpl actual = new TaxonLookupServiceImpl(new SimpleFSDirectory(indexDir));
+        for (int i = 0; i < triples.size(); i += 10) {
+            Triple<Taxon, NameType, Taxon> triple = triples.get(i);
+            for (String key : Arrays.asList(triple.getLeft().getName(), triple.getLeft().getExternalId(), triple.getRight().getName())) {
+                if (key != null) {
+                    assertThat(idsFor(actual.lookupTermsByName(key.toLowerCase())), is(idsFor(expected.lookupTermsByName(key.toLowerCase()))));
+                }
+            }
+            String resolvedId = triple.getRight().getExternalId();
+            if (resolvedId != null) {
+                assertThat(idsFor(actual.lookupTermsById(resolvedId)), is(idsFor(expected.lookupTermsById(resolvedId))));
+            }
+        }
+        actual.close();
+        expected.close();
+    }
+
+    private static List<String> idsFor(Taxon[] taxa) {
+        return Arrays.stream(taxa).map(Taxon::getExternalId).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.eol.globi.taxon;
+
+import org.eol.globi.domain.NameType;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.domain.Term;
+import org.eol.globi.domain.TermImpl;
+import org.eol.globi.service.PropertyEnricherException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class TermMatcherBatchedTest {
+
+    @Test
+    public void matchInOrder() throws PropertyEnricherException {
+        List<Term> terms = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            terms.add(new TermImpl("id:" + i, "name" + i));
+        }
+
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        Random random = new Random();
+        TermMatcher slowMatcher = (someTerms, listener) -> {
+            threadNames.add(Thread.currentThread().getName());
+            for (Term term : someTerms) {
+                if (random.nextInt(10) == 0) {
+                    Thread.yield();
+                }
+                listener.foundTaxonForTerm(null, term, new TaxonImpl(term.getName(), term.getId()), NameType.SAME_AS);
+                listener.foundTaxonForTerm(null, term, new TaxonImpl(term.getName(), term.getId()), NameType.SYNONYM_OF);
+            }
+        };
+
+        List<String> matched = new ArrayList<>();
+        try (TermMatcherBatched matcher = new TermMatcherBatched(slowMatcher, 7, 4)) {
+            matcher.match(terms, (requestId, providedTerm, resolvedTaxon, nameType) -> {
+                matched.add(resolvedTaxon.getExternalId() + nameType.name());
+            });
+        }
+
+        assertThat(matched.size(), is(2000));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(matched.get(2 * i), is("id:" + i + NameType.SAME_AS.name()));
+            assertThat(matched.get(2 * i + 1), is("id:" + i + NameType.SYNONYM_OF.name()));
+        }
+        assertThat(threadNames.size(), is(greaterThan(1)));
+    }
+
+    @Test
+    public void matchSmallBatchOnCallingThread() throws PropertyEnricherException {
+        List<Term> terms = new ArrayList<>();
+        terms.add(new TermImpl("id:1", "name1"));
+
+        String callingThread = Thread.currentThread().getName();
+        List<String> threadNames = new ArrayList<>();
+        try (TermMatcherBatched matcher = new TermMatcherBatched((someTerms, listener) -> threadNames.add(Thread.currentThread().getName()), 10, 4)) {
+            matcher.match(terms, (requestId, providedTerm, resolvedTaxon, nameType) -> {
+            });
+        }
+
+        assertThat(threadNames.size(), is(1));
+        assertThat(threadNames.get(0), is(callingThread));
+    }
+
+    @Test(expected = PropertyEnricherException.class)
+    public void matchFails() throws PropertyEnricherException {
+        List<Term> terms = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            terms.add(new TermImpl("id:" + i, "name" + i));
+        }
+
+        try (TermMatcherBatched matcher = new TermMatcherBatched((someTerms, listener) -> {
+            throw new PropertyEnricherException("kaboom!");
+        }, 10, 4)) {
+            matcher.match(terms, (requestId, providedTerm, resolvedTaxon, nameType) -> {
+            });
+        }
+    }
+
+}